@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Jobs that gather build scan metadata in the background within an overall time budget.
+ * Jobs run on named daemon threads and each produces a contribution to the build scan.
+ * When the contributions are applied, jobs that have not finished within the budget are
+ * cancelled, interrupting their threads, and listed in a {@code Conventions timed out}
+ * value.
+ *
+ * @author Andy Wilkinson
+ */
+final class BackgroundJobs {
+
+	private final Map<String, Future<Consumer<ConfigurableBuildScan>>> jobs = new LinkedHashMap<>();
+
+	private final ExecutorService executor;
+
+	private final long deadline;
+
+	BackgroundJobs(Duration budget) {
+		this.deadline = System.nanoTime() + budget.toNanos();
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newCachedThreadPool((runnable) -> {
+			Thread thread = new Thread(runnable, "develocity-conventions-background-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	void submit(String name, Supplier<Consumer<ConfigurableBuildScan>> job) {
+		this.jobs.put(name, this.executor.submit(job::get));
+	}
+
+	void apply(ConfigurableBuildScan buildScan) {
+		List<String> timedOut = new ArrayList<>();
+		try {
+			this.jobs.forEach((name, contribution) -> {
+				try {
+					long remaining = Math.max(this.deadline - System.nanoTime(), 0);
+					contribution.get(remaining, TimeUnit.NANOSECONDS).accept(buildScan);
+				}
+				catch (TimeoutException ex) {
+					contribution.cancel(true);
+					timedOut.add(name);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					contribution.cancel(true);
+					timedOut.add(name);
+				}
+				catch (ExecutionException | CancellationException ex) {
+					// Continue without the job's contribution
+				}
+			});
+		}
+		finally {
+			this.executor.shutdownNow();
+		}
+		if (!timedOut.isEmpty()) {
+			buildScan.value("Conventions timed out", String.join(", ", timedOut));
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import io.spring.develocity.conventions.core.ProcessRunner.RunFailedException;
+
+/**
+ * Resolves the name of the branch that is being built. The branch is resolved at most
+ * once so that a single resolver can be shared by the build cache and build scan
+ * conventions. As resolution is synchronized, a caller that is not bound by the build
+ * scan conventions' background budget, such as the build cache's push policy, waits for
+ * a resolution that is in progress in the background. A resolution that is interrupted,
+ * for example because the background budget has expired, is not remembered.
+ *
+ * @author Andy Wilkinson
+ */
+public class BranchResolver {
+
+	private final ProcessRunner processRunner;
+
+	private final Map<String, String> env;
+
+	private boolean resolved;
+
+	private String branch;
+
+	public BranchResolver(ProcessRunner processRunner) {
+		this(processRunner, System.getenv());
+	}
+
+	BranchResolver(Map<String, String> env) {
+		this(null, env);
+	}
+
+	BranchResolver(ProcessRunner processRunner, Map<String, String> env) {
+		this.processRunner = processRunner;
+		this.env = env;
+	}
+
+	/**
+	 * Returns the name of the branch that is being built. The name is taken from the
+	 * {@code BRANCH} environment variable, the environment of the CI server, or
+	 * {@code git rev-parse --abbrev-ref HEAD}, in that order.
+	 * @return the name of the branch or {@code null} if it could not be resolved
+	 */
+	public synchronized String resolve() {
+		if (!this.resolved) {
+			this.branch = doResolve();
+			this.resolved = !Thread.currentThread().isInterrupted();
+		}
+		return this.branch;
+	}
+
+	private String doResolve() {
+		String branch = this.env.get("BRANCH");
+		if (branch != null) {
+			return branch;
+		}
+		ContinuousIntegration ci = ContinuousIntegration.detect(this.env);
+		if (ci != null) {
+			branch = ci.branchFrom(this.env);
+			if (hasText(branch)) {
+				return branch;
+			}
+		}
+		return (this.processRunner != null) ? gitBranch() : null;
+	}
+
+	private String gitBranch() {
+		ByteArrayOutputStream standardOutput = new ByteArrayOutputStream();
+		try {
+			this.processRunner.run((spec) -> {
+				spec.commandLine("git", "rev-parse", "--abbrev-ref", "HEAD");
+				spec.standardOutput(standardOutput);
+			});
+			String branch = standardOutput.toString().trim();
+			return hasText(branch) ? branch : null;
+		}
+		catch (RunFailedException ex) {
+			return null;
+		}
+	}
+
+	private boolean hasText(String string) {
+		return string != null && string.length() > 0;
+	}
+
+}
@@ -16,7 +16,15 @@
 
 package io.spring.develocity.conventions.core;
 
+import java.io.File;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
+import java.util.regex.Pattern;
+
+import io.spring.develocity.conventions.core.BuildCacheProxyLauncher.RunningProxy;
+import io.spring.develocity.conventions.core.ConfigurableBuildCache.LocalBuildCache;
+import io.spring.develocity.conventions.core.ConfigurableBuildCache.RemoteBuildCache;
 
 /**
  * Conventions that are applied to the build cache.
@@ -25,14 +33,63 @@ import java.util.Map;
  */
 public class BuildCacheConventions {
 
+	private static final Duration LOCAL_RETENTION = Duration.ofDays(3);
+
+	private static final Duration LOCAL_CLEANUP_INTERVAL = Duration.ofHours(12);
+
 	private final Map<String, String> env;
 
+	private final BranchResolver branchResolver;
+
+	private final BuildCacheProxyLauncher proxyLauncher;
+
+	private final ConnectionWarmUp connectionWarmUp;
+
+	/**
+	 * Creates a new {@code BuildCacheConventions} that uses the environment. As no
+	 * {@link ProcessRunner} is available, the branch that is matched against
+	 * {@code DEVELOCITY_CACHE_PUSH_BRANCHES} is only taken from the {@code BRANCH}
+	 * environment variable or the environment of the CI server and is never resolved
+	 * using git. Use {@link #BuildCacheConventions(BranchResolver)} with a
+	 * {@link BranchResolver} that has a {@code ProcessRunner} to fall back to git.
+	 */
 	public BuildCacheConventions() {
 		this(System.getenv());
 	}
 
+	public BuildCacheConventions(BranchResolver branchResolver) {
+		this(System.getenv(), branchResolver);
+	}
+
+	public BuildCacheConventions(BranchResolver branchResolver, ConnectionWarmUp connectionWarmUp) {
+		this(branchResolver, connectionWarmUp, BuildCacheProxyLauncher.fromEnvironment(System.getenv()));
+	}
+
+	public BuildCacheConventions(BranchResolver branchResolver, ConnectionWarmUp connectionWarmUp,
+			BuildCacheProxyLauncher proxyLauncher) {
+		this(System.getenv(), branchResolver, proxyLauncher, connectionWarmUp);
+	}
+
 	BuildCacheConventions(Map<String, String> env) {
+		// Without a process runner, the branch is only resolved from the environment
+		this(env, new BranchResolver(env));
+	}
+
+	BuildCacheConventions(Map<String, String> env, BranchResolver branchResolver) {
+		this(env, branchResolver, BuildCacheProxyLauncher.fromEnvironment(env));
+	}
+
+	BuildCacheConventions(Map<String, String> env, BranchResolver branchResolver,
+			BuildCacheProxyLauncher proxyLauncher) {
+		this(env, branchResolver, proxyLauncher, null);
+	}
+
+	BuildCacheConventions(Map<String, String> env, BranchResolver branchResolver,
+			BuildCacheProxyLauncher proxyLauncher, ConnectionWarmUp connectionWarmUp) {
 		this.env = env;
+		this.branchResolver = branchResolver;
+		this.proxyLauncher = proxyLauncher;
+		this.connectionWarmUp = connectionWarmUp;
 	}
 
 	/**
@@ -40,7 +97,11 @@ public class BuildCacheConventions {
 	 * @param buildCache build cache to be configured
 	 */
 	public void execute(ConfigurableBuildCache buildCache) {
-		buildCache.local((local) -> local.enable());
+		ContinuousIntegration ci = ContinuousIntegration.detect(this.env);
+		buildCache.local((local) -> {
+			local.enable();
+			configureLocal(local, ci);
+		});
 		buildCache.remote((remote) -> {
 			remote.enable();
 			String cacheServer = this.env.get("DEVELOCITY_CACHE_SERVER");
@@ -50,17 +111,106 @@ public class BuildCacheConventions {
 					cacheServer = "https://ge.spring.io";
 				}
 			}
-			remote.setServer(cacheServer);
+			RunningProxy proxy = launchProxy(cacheServer);
+			if (proxy != null) {
+				remote.setServer(proxy.getUrl());
+				remote.setAllowInsecureProtocol(true);
+				remote.setCredentials("proxy", proxy.getToken());
+			}
+			else {
+				remote.setServer(cacheServer);
+				configureTransport(remote);
+				if (this.connectionWarmUp != null) {
+					this.connectionWarmUp.warmUp(cacheServer);
+				}
+			}
 			String accessKey = this.env.get("DEVELOCITY_ACCESS_KEY");
 			if (accessKey == null) {
 				accessKey = this.env.get("GRADLE_ENTERPRISE_ACCESS_KEY");
 			}
-			if (hasText(accessKey) && ContinuousIntegration.detect(this.env) != null) {
+			if (hasText(accessKey) && ci != null && isPushAllowedFromBranch()) {
 				remote.enablePush();
 			}
 		});
 	}
 
+	private RunningProxy launchProxy(String cacheServer) {
+		if (this.proxyLauncher == null) {
+			return null;
+		}
+		if (cacheServer.startsWith("http:")
+				&& !Boolean.TRUE.equals(booleanFromEnv("DEVELOCITY_CACHE_ALLOW_INSECURE_PROTOCOL"))) {
+			// Let Gradle reject the insecure server rather than proxying it
+			return null;
+		}
+		return this.proxyLauncher.launch(cacheServer,
+				Boolean.TRUE.equals(booleanFromEnv("DEVELOCITY_CACHE_ALLOW_UNTRUSTED_SERVER")));
+	}
+
+	private void configureLocal(LocalBuildCache local, ContinuousIntegration ci) {
+		String directory = this.env.get("DEVELOCITY_LOCAL_CACHE_DIRECTORY");
+		if (hasText(directory)) {
+			local.setDirectory(new File(directory));
+		}
+		Duration retention = durationFromEnv("DEVELOCITY_LOCAL_CACHE_RETENTION");
+		if (retention == null && ci == null) {
+			retention = LOCAL_RETENTION;
+		}
+		if (retention != null) {
+			local.setRetention(retention);
+		}
+		Duration cleanupInterval = durationFromEnv("DEVELOCITY_LOCAL_CACHE_CLEANUP_INTERVAL");
+		if (cleanupInterval == null && ci == null) {
+			cleanupInterval = LOCAL_CLEANUP_INTERVAL;
+		}
+		if (cleanupInterval != null) {
+			local.setCleanupInterval(cleanupInterval);
+		}
+	}
+
+	private void configureTransport(RemoteBuildCache remote) {
+		Boolean useExpectContinue = booleanFromEnv("DEVELOCITY_CACHE_USE_EXPECT_CONTINUE");
+		if (useExpectContinue != null) {
+			remote.setUseExpectContinue(useExpectContinue);
+		}
+		Boolean allowInsecureProtocol = booleanFromEnv("DEVELOCITY_CACHE_ALLOW_INSECURE_PROTOCOL");
+		if (allowInsecureProtocol != null) {
+			remote.setAllowInsecureProtocol(allowInsecureProtocol);
+		}
+		Boolean allowUntrustedServer = booleanFromEnv("DEVELOCITY_CACHE_ALLOW_UNTRUSTED_SERVER");
+		if (allowUntrustedServer != null) {
+			remote.setAllowUntrustedServer(allowUntrustedServer);
+		}
+	}
+
+	private Boolean booleanFromEnv(String name) {
+		String value = this.env.get(name);
+		return hasText(value) ? Boolean.valueOf(value) : null;
+	}
+
+	private Duration durationFromEnv(String name) {
+		String value = this.env.get(name);
+		if (!hasText(value)) {
+			return null;
+		}
+		try {
+			return Duration.parse(value);
+		}
+		catch (DateTimeParseException ex) {
+			throw new IllegalStateException(
+					"Value '" + value + "' of environment variable " + name + " is not a valid ISO-8601 duration", ex);
+		}
+	}
+
+	private boolean isPushAllowedFromBranch() {
+		String pushBranches = this.env.get("DEVELOCITY_CACHE_PUSH_BRANCHES");
+		if (!hasText(pushBranches)) {
+			return true;
+		}
+		String branch = this.branchResolver.resolve();
+		return branch != null && Pattern.matches(pushBranches, branch);
+	}
+
 	private String serverOfCacheUrl(String cacheUrl) {
 		if (cacheUrl != null) {
 			if (cacheUrl.endsWith("/cache/")) {
@@ -0,0 +1,661 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A proxy for a remote build cache that serves the {@code /cache/} {@code GET} and
+ * {@code PUT} protocol from a size-bounded, least recently used cache on local disk.
+ * Misses are fetched from the upstream cache with concurrent requests for the same key
+ * being coalesced into a single upstream request. Entries that are {@code PUT} are
+ * forwarded to the upstream cache and stored locally once the upstream cache has accepted
+ * them.
+ * <p>
+ * A proxy is intended to be shared by all of the builds that are running on a host with
+ * the same credentials for the upstream cache. It is run in a separate process that is
+ * started by {@link BuildCacheProxyLauncher}. As the proxy uses the upstream credentials
+ * on behalf of its clients, each request must authenticate using HTTP basic
+ * authentication with the proxy's token as the password. The token is only available
+ * from the proxy's state file, which is readable only by its owner.
+ *
+ * @author Andy Wilkinson
+ */
+public class BuildCacheProxy {
+
+	static final String CONFIGURATION_FILE_NAME = "proxy.properties";
+
+	static final String LOCK_FILE_NAME = "proxy.lock";
+
+	private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-fA-F]{1,128}");
+
+	private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+	private static final int TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+
+	private final DiskCache cache;
+
+	private final URI upstream;
+
+	private final String authorization;
+
+	private final String token;
+
+	private final boolean allowUntrustedServer;
+
+	private final ConcurrentMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(16, (runnable) -> {
+		Thread thread = new Thread(runnable, "build-cache-proxy");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile long lastRequest = System.currentTimeMillis();
+
+	private HttpServer server;
+
+	/**
+	 * Creates a new {@code BuildCacheProxy}.
+	 * @param directory the directory in which cache entries are stored
+	 * @param maxSize the maximum size, in bytes, of the stored entries
+	 * @param upstream the server of the upstream cache
+	 * @param authorization the value of the {@code Authorization} header to use for
+	 * upstream requests or {@code null}
+	 * @param token the token with which clients must authenticate
+	 */
+	public BuildCacheProxy(File directory, long maxSize, String upstream, String authorization, String token) {
+		this(directory, maxSize, upstream, authorization, token, false);
+	}
+
+	/**
+	 * Creates a new {@code BuildCacheProxy}.
+	 * @param directory the directory in which cache entries are stored
+	 * @param maxSize the maximum size, in bytes, of the stored entries
+	 * @param upstream the server of the upstream cache
+	 * @param authorization the value of the {@code Authorization} header to use for
+	 * upstream requests or {@code null}
+	 * @param token the token with which clients must authenticate
+	 * @param allowUntrustedServer whether the upstream server's certificate should be
+	 * trusted even if it is untrusted
+	 */
+	public BuildCacheProxy(File directory, long maxSize, String upstream, String authorization, String token,
+			boolean allowUntrustedServer) {
+		this.cache = new DiskCache(new File(directory, "entries").toPath(), maxSize);
+		this.upstream = URI.create(upstream.endsWith("/") ? upstream : upstream + "/");
+		this.authorization = authorization;
+		this.token = token;
+		this.allowUntrustedServer = allowUntrustedServer;
+	}
+
+	/**
+	 * Starts the proxy, listening on the given port of the loopback address.
+	 * @param port the port or {@code 0} to use any available port
+	 * @throws IOException if the proxy cannot be started
+	 */
+	public void start(int port) throws IOException {
+		this.cache.load();
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/cache/", this::handleCache);
+		this.server.start();
+	}
+
+	/**
+	 * Stops the proxy.
+	 */
+	public void stop() {
+		if (this.server != null) {
+			this.server.stop(0);
+			this.server = null;
+		}
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Returns the port on which the proxy is listening.
+	 * @return the port
+	 */
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Returns the URL of the proxy.
+	 * @return the URL
+	 */
+	public String getUrl() {
+		return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + getPort();
+	}
+
+	long getIdleTime() {
+		return System.currentTimeMillis() - this.lastRequest;
+	}
+
+	private void handleCache(HttpExchange exchange) throws IOException {
+		this.lastRequest = System.currentTimeMillis();
+		try {
+			String key = exchange.getRequestURI().getPath().substring("/cache/".length());
+			if (!isAuthenticated(exchange)) {
+				exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"build-cache-proxy\"");
+				exchange.sendResponseHeaders(401, -1);
+			}
+			else if (!KEY_PATTERN.matcher(key).matches()) {
+				exchange.sendResponseHeaders(404, -1);
+			}
+			else if ("GET".equals(exchange.getRequestMethod())) {
+				handleGet(exchange, key);
+			}
+			else if ("PUT".equals(exchange.getRequestMethod())) {
+				handlePut(exchange, key);
+			}
+			else {
+				exchange.sendResponseHeaders(405, -1);
+			}
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	private boolean isAuthenticated(HttpExchange exchange) {
+		String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+		if (authorization == null || !authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+			return false;
+		}
+		String credentials;
+		try {
+			credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+					StandardCharsets.UTF_8);
+		}
+		catch (IllegalArgumentException ex) {
+			return false;
+		}
+		String password = credentials.substring(credentials.indexOf(':') + 1);
+		return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+				this.token.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void handleGet(HttpExchange exchange, String key) throws IOException {
+		if (!this.cache.contains(key) && !fetch(exchange, key)) {
+			exchange.sendResponseHeaders(404, -1);
+			return;
+		}
+		Path entry = this.cache.get(key);
+		if (entry == null || !serve(exchange, entry)) {
+			exchange.sendResponseHeaders(404, -1);
+		}
+	}
+
+	private boolean serve(HttpExchange exchange, Path entry) throws IOException {
+		try (FileInputStream stream = new FileInputStream(entry.toFile());
+				DataInputStream input = new DataInputStream(stream)) {
+			long size = stream.getChannel().size();
+			String contentType = input.readUTF();
+			exchange.getResponseHeaders().set("Content-Type", contentType);
+			exchange.sendResponseHeaders(200, size - contentTypeLength(contentType));
+			try (OutputStream output = exchange.getResponseBody()) {
+				copy(input, output);
+			}
+			return true;
+		}
+		catch (FileNotFoundException ex) {
+			return false;
+		}
+	}
+
+	private boolean fetch(HttpExchange exchange, String key) {
+		CompletableFuture<Boolean> fetch = new CompletableFuture<>();
+		CompletableFuture<Boolean> existing = this.inFlight.putIfAbsent(key, fetch);
+		if (existing != null) {
+			return await(existing);
+		}
+		try {
+			fetch.complete(this.cache.contains(key) || fetchFromUpstream(exchange, key));
+		}
+		catch (Exception ex) {
+			fetch.complete(false);
+		}
+		finally {
+			this.inFlight.remove(key);
+		}
+		return await(fetch);
+	}
+
+	private boolean await(CompletableFuture<Boolean> fetch) {
+		try {
+			return fetch.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		catch (ExecutionException ex) {
+			return false;
+		}
+	}
+
+	private boolean fetchFromUpstream(HttpExchange exchange, String key) throws IOException {
+		HttpURLConnection connection = openUpstreamConnection(exchange, key);
+		try {
+			if (connection.getResponseCode() != 200) {
+				return false;
+			}
+			String contentType = connection.getContentType();
+			Path entry;
+			try (InputStream input = connection.getInputStream()) {
+				entry = this.cache.write(key, (contentType != null) ? contentType : DEFAULT_CONTENT_TYPE, input);
+			}
+			this.cache.add(key, entry);
+			return true;
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private void handlePut(HttpExchange exchange, String key) throws IOException {
+		String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+		Path entry;
+		try (InputStream input = exchange.getRequestBody()) {
+			entry = this.cache.write(key, (contentType != null) ? contentType : DEFAULT_CONTENT_TYPE, input);
+		}
+		int status;
+		try {
+			status = forwardToUpstream(exchange, key, entry);
+			if (status >= 200 && status < 300) {
+				this.cache.add(key, entry);
+			}
+		}
+		catch (IOException ex) {
+			status = 502;
+		}
+		finally {
+			Files.deleteIfExists(entry);
+		}
+		exchange.sendResponseHeaders(status, -1);
+	}
+
+	private int forwardToUpstream(HttpExchange exchange, String key, Path entry) throws IOException {
+		HttpURLConnection connection = openUpstreamConnection(exchange, key);
+		try {
+			connection.setRequestMethod("PUT");
+			connection.setDoOutput(true);
+			try (DataInputStream input = new DataInputStream(Files.newInputStream(entry))) {
+				String contentType = input.readUTF();
+				connection.setFixedLengthStreamingMode(Files.size(entry) - contentTypeLength(contentType));
+				try (OutputStream output = connection.getOutputStream()) {
+					copy(input, output);
+				}
+			}
+			return connection.getResponseCode();
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private HttpURLConnection openUpstreamConnection(HttpExchange exchange, String key) throws IOException {
+		URL url = this.upstream.resolve("cache/" + key).toURL();
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		if (this.allowUntrustedServer && connection instanceof HttpsURLConnection) {
+			trustAll((HttpsURLConnection) connection);
+		}
+		connection.setConnectTimeout(TIMEOUT);
+		connection.setReadTimeout(TIMEOUT);
+		for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+			if (isForwardedHeader(header.getKey())) {
+				for (String value : header.getValue()) {
+					connection.addRequestProperty(header.getKey(), value);
+				}
+			}
+		}
+		if (this.authorization != null) {
+			connection.setRequestProperty("Authorization", this.authorization);
+		}
+		return connection;
+	}
+
+	private void trustAll(HttpsURLConnection connection) throws IOException {
+		try {
+			SSLContext context = SSLContext.getInstance("TLS");
+			context.init(null, new TrustManager[] { new TrustAllTrustManager() }, null);
+			connection.setSSLSocketFactory(context.getSocketFactory());
+			connection.setHostnameVerifier((hostname, session) -> true);
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	private boolean isForwardedHeader(String name) {
+		String lowerCaseName = name.toLowerCase();
+		return !lowerCaseName.equals("host") && !lowerCaseName.equals("connection")
+				&& !lowerCaseName.equals("content-length") && !lowerCaseName.equals("transfer-encoding")
+				&& !lowerCaseName.equals("expect") && !lowerCaseName.equals("authorization");
+	}
+
+	private static long contentTypeLength(String contentType) {
+		return 2 + contentType.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	private static void copy(InputStream input, OutputStream output) throws IOException {
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			output.write(buffer, 0, read);
+		}
+	}
+
+	/**
+	 * Runs a proxy until it has been idle for the given timeout. The proxy's port, upstream
+	 * server, and token are read from {@code proxy.properties} in its directory. The
+	 * access key for the upstream server is taken from the environment. The proxy holds a
+	 * lock on {@code proxy.lock} in its directory while it is running and exits
+	 * immediately if another proxy already holds the lock.
+	 * @param args the proxy's directory, maximum size in bytes, and idle timeout in
+	 * seconds
+	 * @throws Exception if the proxy fails
+	 */
+	public static void main(String[] args) throws Exception {
+		File directory = new File(args[0]);
+		long maxSize = Long.parseLong(args[1]);
+		long idleTimeout = TimeUnit.SECONDS.toMillis(Long.parseLong(args[2]));
+		Properties configuration = new Properties();
+		try (Reader reader = Files.newBufferedReader(new File(directory, CONFIGURATION_FILE_NAME).toPath())) {
+			configuration.load(reader);
+		}
+		String upstream = configuration.getProperty("upstream");
+		String accessKey = accessKeyFor(upstream, System.getenv());
+		try (FileChannel channel = FileChannel.open(new File(directory, LOCK_FILE_NAME).toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			if (channel.tryLock() == null) {
+				return;
+			}
+			BuildCacheProxy proxy = new BuildCacheProxy(directory, maxSize, upstream,
+					(accessKey != null) ? "Bearer " + accessKey : null, configuration.getProperty("token"),
+					Boolean.parseBoolean(configuration.getProperty("allowUntrustedServer")));
+			proxy.start(Integer.parseInt(configuration.getProperty("port")));
+			try {
+				while (proxy.getIdleTime() < idleTimeout) {
+					Thread.sleep(1000);
+				}
+			}
+			finally {
+				proxy.stop();
+			}
+		}
+	}
+
+	static String generateToken() {
+		byte[] bytes = new byte[32];
+		new SecureRandom().nextBytes(bytes);
+		return toHex(bytes);
+	}
+
+	/**
+	 * Returns an ID for the given access key that can be used to identify the proxy that
+	 * uses it without revealing the key.
+	 * @param accessKey the access key or {@code null}
+	 * @return the ID of the access key
+	 */
+	static String credentialId(String accessKey) {
+		return (accessKey != null) ? id(accessKey) : "anonymous";
+	}
+
+	/**
+	 * Returns an ID for the given upstream server and trust of its certificate that can be
+	 * used to identify the proxy that uses them.
+	 * @param upstream the upstream server
+	 * @param allowUntrustedServer whether the upstream server's certificate is trusted
+	 * even if it is untrusted
+	 * @return the ID of the upstream server
+	 */
+	static String upstreamId(String upstream, boolean allowUntrustedServer) {
+		return id(upstream + (allowUntrustedServer ? " untrusted" : ""));
+	}
+
+	private static String id(String value) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+			return toHex(digest).substring(0, 16);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	static String accessKeyFor(String server, Map<String, String> env) {
+		String accessKeys = env.get("DEVELOCITY_ACCESS_KEY");
+		if (accessKeys == null) {
+			accessKeys = env.get("GRADLE_ENTERPRISE_ACCESS_KEY");
+		}
+		if (accessKeys == null) {
+			return null;
+		}
+		String host = URI.create(server).getHost();
+		for (String accessKey : accessKeys.split(";")) {
+			int separator = accessKey.lastIndexOf('=');
+			if (separator > 0) {
+				for (String candidate : accessKey.substring(0, separator).split(",")) {
+					if (candidate.trim().equals(host)) {
+						return accessKey.substring(separator + 1).trim();
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	static void writeConfiguration(File directory, int port, String upstream, boolean allowUntrustedServer,
+			String token) throws IOException {
+		Properties configuration = new Properties();
+		configuration.setProperty("port", Integer.toString(port));
+		configuration.setProperty("upstream", upstream);
+		configuration.setProperty("allowUntrustedServer", Boolean.toString(allowUntrustedServer));
+		configuration.setProperty("token", token);
+		// Temp files are only readable by their owner
+		Path temp = Files.createTempFile(directory.toPath(), CONFIGURATION_FILE_NAME, ".tmp");
+		try (Writer writer = Files.newBufferedWriter(temp)) {
+			configuration.store(writer, null);
+		}
+		Files.move(temp, new File(directory, CONFIGURATION_FILE_NAME).toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * A size-bounded cache on disk from which the least recently used entries are
+	 * evicted.
+	 */
+	private static final class DiskCache {
+
+		private final Path directory;
+
+		private final long maxSize;
+
+		private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+		private long size;
+
+		private DiskCache(Path directory, long maxSize) {
+			this.directory = directory;
+			this.maxSize = maxSize;
+		}
+
+		private void load() throws IOException {
+			Files.createDirectories(this.directory);
+			List<Path> paths;
+			try (Stream<Path> stream = Files.list(this.directory)) {
+				paths = stream.collect(Collectors.toList());
+			}
+			for (Path path : paths) {
+				if (path.getFileName().toString().endsWith(".tmp")) {
+					Files.deleteIfExists(path);
+				}
+			}
+			paths.removeIf((path) -> !KEY_PATTERN.matcher(path.getFileName().toString()).matches());
+			List<File> files = new ArrayList<>();
+			for (Path path : paths) {
+				files.add(path.toFile());
+			}
+			files.sort(Comparator.comparingLong(File::lastModified));
+			synchronized (this.entries) {
+				for (File file : files) {
+					this.entries.put(file.getName(), file.length());
+					this.size += file.length();
+				}
+				evict();
+			}
+		}
+
+		private boolean contains(String key) {
+			synchronized (this.entries) {
+				return this.entries.containsKey(key);
+			}
+		}
+
+		private Path get(String key) {
+			synchronized (this.entries) {
+				if (this.entries.get(key) == null) {
+					return null;
+				}
+			}
+			Path entry = this.directory.resolve(key);
+			entry.toFile().setLastModified(System.currentTimeMillis());
+			return entry;
+		}
+
+		private Path write(String key, String contentType, InputStream input) throws IOException {
+			Path temp = Files.createTempFile(this.directory, key, ".tmp");
+			try (DataOutputStream output = new DataOutputStream(new FileOutputStream(temp.toFile()))) {
+				output.writeUTF(contentType);
+				copy(input, output);
+			}
+			catch (IOException ex) {
+				Files.deleteIfExists(temp);
+				throw ex;
+			}
+			return temp;
+		}
+
+		private void add(String key, Path temp) throws IOException {
+			try {
+				long entrySize = Files.size(temp);
+				synchronized (this.entries) {
+					Files.move(temp, this.directory.resolve(key), StandardCopyOption.REPLACE_EXISTING);
+					Long previous = this.entries.put(key, entrySize);
+					this.size += entrySize - ((previous != null) ? previous : 0);
+					evict();
+				}
+			}
+			finally {
+				Files.deleteIfExists(temp);
+			}
+		}
+
+		private void evict() {
+			Iterator<Map.Entry<String, Long>> iterator = this.entries.entrySet().iterator();
+			while (this.size > this.maxSize && iterator.hasNext()) {
+				Map.Entry<String, Long> eldest = iterator.next();
+				iterator.remove();
+				this.size -= eldest.getValue();
+				this.directory.resolve(eldest.getKey()).toFile().delete();
+			}
+		}
+
+	}
+
+	/**
+	 * A {@link X509TrustManager} that trusts every certificate.
+	 */
+	private static final class TrustAllTrustManager implements X509TrustManager {
+
+		@Override
+		public void checkClientTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public void checkServerTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers() {
+			return new X509Certificate[0];
+		}
+
+	}
+
+}
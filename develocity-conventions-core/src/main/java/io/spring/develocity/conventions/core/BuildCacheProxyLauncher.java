@@ -0,0 +1,274 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Launches a {@link BuildCacheProxy} in a separate process or reuses one that has already
+ * been launched by another build on the same host. Builds share a proxy by using the same
+ * directory, the same upstream cache, and the same access key for the upstream cache.
+ * Each access key has its own proxies, in a subdirectory that is only accessible by its
+ * owner, so that a build cannot use another build's credentials.
+ * <p>
+ * The port and token of a proxy are chosen when it is first launched and are reused when
+ * it is launched again after it has stopped, so a build that has been configured to use
+ * a proxy can continue to do so. Launching does not wait for the proxy to start.
+ *
+ * @author Andy Wilkinson
+ */
+public class BuildCacheProxyLauncher {
+
+	private static final long DEFAULT_MAX_SIZE_IN_MEGABYTES = 10240;
+
+	private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofHours(1);
+
+	private static final String[] ACCESS_KEY_VARIABLES = { "DEVELOCITY_ACCESS_KEY", "GRADLE_ENTERPRISE_ACCESS_KEY" };
+
+	private final File directory;
+
+	private final long maxSize;
+
+	private final Duration idleTimeout;
+
+	private final Map<String, String> env;
+
+	/**
+	 * Creates a new {@code BuildCacheProxyLauncher}.
+	 * @param directory the directory of the proxy
+	 * @param maxSize the maximum size, in bytes, of the proxy's cache entries
+	 * @param idleTimeout the time after which an idle proxy stops
+	 */
+	public BuildCacheProxyLauncher(File directory, long maxSize, Duration idleTimeout) {
+		this(directory, maxSize, idleTimeout, System.getenv());
+	}
+
+	/**
+	 * Creates a new {@code BuildCacheProxyLauncher} that is configured in the same way as
+	 * the given {@code launcher}.
+	 * @param launcher the launcher whose configuration should be used
+	 */
+	protected BuildCacheProxyLauncher(BuildCacheProxyLauncher launcher) {
+		this(launcher.directory, launcher.maxSize, launcher.idleTimeout, launcher.env);
+	}
+
+	BuildCacheProxyLauncher(File directory, long maxSize, Duration idleTimeout, Map<String, String> env) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.idleTimeout = idleTimeout;
+		this.env = env;
+	}
+
+	/**
+	 * Returns the {@code BuildCacheProxyLauncher} that has been configured in the
+	 * environment. The proxy is configured by setting
+	 * {@code DEVELOCITY_CACHE_PROXY_DIRECTORY}.
+	 * @return the launcher or {@code null} if the proxy has not been configured
+	 */
+	public static BuildCacheProxyLauncher fromEnvironment() {
+		return fromEnvironment(System.getenv());
+	}
+
+	static BuildCacheProxyLauncher fromEnvironment(Map<String, String> env) {
+		String directory = env.get("DEVELOCITY_CACHE_PROXY_DIRECTORY");
+		if (!hasText(directory)) {
+			return null;
+		}
+		String maxSize = env.get("DEVELOCITY_CACHE_PROXY_MAX_SIZE");
+		long maxSizeInMegabytes = hasText(maxSize) ? Long.parseLong(maxSize) : DEFAULT_MAX_SIZE_IN_MEGABYTES;
+		return new BuildCacheProxyLauncher(new File(directory), maxSizeInMegabytes * 1024 * 1024,
+				DEFAULT_IDLE_TIMEOUT, env);
+	}
+
+	/**
+	 * Returns the directory of the proxy.
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Returns a proxy for the given {@code upstream} cache server, launching it in the
+	 * background if it is not already running.
+	 * @param upstream the upstream cache server
+	 * @param allowUntrustedServer whether the proxy should trust the upstream server's
+	 * certificate even if it is untrusted
+	 * @return the proxy or {@code null} if it could not be launched
+	 */
+	public RunningProxy launch(String upstream, boolean allowUntrustedServer) {
+		return proxy(upstream, allowUntrustedServer, true);
+	}
+
+	/**
+	 * Returns a proxy for the given {@code upstream} cache server without launching it.
+	 * @param upstream the upstream cache server
+	 * @param allowUntrustedServer whether the proxy should trust the upstream server's
+	 * certificate even if it is untrusted
+	 * @return the proxy or {@code null} if it could not be configured
+	 */
+	protected RunningProxy configure(String upstream, boolean allowUntrustedServer) {
+		return proxy(upstream, allowUntrustedServer, false);
+	}
+
+	private RunningProxy proxy(String upstream, boolean allowUntrustedServer, boolean launch) {
+		String credentialId = BuildCacheProxy.credentialId(BuildCacheProxy.accessKeyFor(upstream, this.env));
+		File directory = new File(new File(this.directory, credentialId),
+				BuildCacheProxy.upstreamId(upstream, allowUntrustedServer));
+		try {
+			createPrivateDirectory(directory.getParentFile().toPath());
+			createPrivateDirectory(directory.toPath());
+			Path lockFile = new File(directory, "launch.lock").toPath();
+			try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE)) {
+				channel.lock();
+				RunningProxy proxy = configuration(directory, upstream, allowUntrustedServer);
+				if (launch && !isRunning(directory)) {
+					start(directory);
+				}
+				return proxy;
+			}
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	private void createPrivateDirectory(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+		}
+	}
+
+	private RunningProxy configuration(File directory, String upstream, boolean allowUntrustedServer)
+			throws IOException {
+		File configurationFile = new File(directory, BuildCacheProxy.CONFIGURATION_FILE_NAME);
+		if (configurationFile.isFile()) {
+			Properties configuration = new Properties();
+			try (Reader reader = Files.newBufferedReader(configurationFile.toPath())) {
+				configuration.load(reader);
+			}
+			String port = configuration.getProperty("port");
+			String token = configuration.getProperty("token");
+			if (port != null && token != null) {
+				return new RunningProxy("http://127.0.0.1:" + port, token);
+			}
+		}
+		int port;
+		try (ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+			port = socket.getLocalPort();
+		}
+		String token = BuildCacheProxy.generateToken();
+		BuildCacheProxy.writeConfiguration(directory, port, upstream, allowUntrustedServer, token);
+		return new RunningProxy("http://127.0.0.1:" + port, token);
+	}
+
+	private boolean isRunning(File directory) throws IOException {
+		Path lockFile = new File(directory, BuildCacheProxy.LOCK_FILE_NAME).toPath();
+		try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			return channel.tryLock() == null;
+		}
+		catch (OverlappingFileLockException ex) {
+			return true;
+		}
+	}
+
+	private void start(File directory) throws IOException {
+		ProcessBuilder processBuilder = new ProcessBuilder(javaExecutable(), "-cp", classpath(),
+				BuildCacheProxy.class.getName(), directory.getAbsolutePath(), Long.toString(this.maxSize),
+				Long.toString(this.idleTimeout.getSeconds()));
+		Map<String, String> environment = processBuilder.environment();
+		for (String name : ACCESS_KEY_VARIABLES) {
+			environment.remove(name);
+			String value = this.env.get(name);
+			if (value != null) {
+				environment.put(name, value);
+			}
+		}
+		processBuilder.redirectErrorStream(true);
+		processBuilder.redirectOutput(new File(directory, "proxy.log"));
+		processBuilder.start();
+	}
+
+	private String javaExecutable() {
+		return new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+	}
+
+	private String classpath() throws IOException {
+		try {
+			URL location = BuildCacheProxy.class.getProtectionDomain().getCodeSource().getLocation();
+			return new File(location.toURI()).getAbsolutePath();
+		}
+		catch (URISyntaxException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	private static boolean hasText(String string) {
+		return string != null && string.length() > 0;
+	}
+
+	/**
+	 * A running proxy.
+	 */
+	public static final class RunningProxy {
+
+		private final String url;
+
+		private final String token;
+
+		RunningProxy(String url, String token) {
+			this.url = url;
+			this.token = token;
+		}
+
+		/**
+		 * Returns the URL of the proxy.
+		 * @return the URL
+		 */
+		public String getUrl() {
+			return this.url;
+		}
+
+		/**
+		 * Returns the token with which clients must authenticate as the password of
+		 * HTTP basic authentication.
+		 * @return the token
+		 */
+		public String getToken() {
+			return this.token;
+		}
+
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import io.spring.develocity.conventions.core.CacheHitRateSummary.Outcome;
+
+/**
+ * A fingerprint of a build's performance. The fingerprint is made up of a few aggregate
+ * numbers, such as the time spent configuring the build and the outcomes of its tasks,
+ * that are published as build scan values and tags, such as {@code config-time-10s+} and
+ * {@code cold-daemon}, that allow slow builds to be found and triaged. The number of tasks
+ * that were loaded from the build cache is not published as it is published by the
+ * {@link CacheHitRateSummary}.
+ *
+ * @author Andy Wilkinson
+ */
+public class BuildPerformanceFingerprint {
+
+	private static final long[] CONFIGURATION_TIME_BUCKETS = { 60, 30, 10, 5, 1 };
+
+	private final Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+
+	private Duration configurationTime;
+
+	private Boolean coldDaemon;
+
+	private Boolean configurationCacheHit;
+
+	/**
+	 * Records the outcome of a task.
+	 * @param outcome the outcome
+	 */
+	public synchronized void record(Outcome outcome) {
+		this.counts.merge(outcome, 1, Integer::sum);
+	}
+
+	/**
+	 * Returns the number of tasks with the given {@code outcome}.
+	 * @param outcome the outcome
+	 * @return the number of tasks
+	 */
+	public synchronized int getCount(Outcome outcome) {
+		return this.counts.getOrDefault(outcome, 0);
+	}
+
+	/**
+	 * Sets the time that was spent configuring the build.
+	 * @param configurationTime the configuration time or {@code null} if the build was
+	 * not configured
+	 */
+	public synchronized void setConfigurationTime(Duration configurationTime) {
+		this.configurationTime = configurationTime;
+	}
+
+	/**
+	 * Sets whether the build ran in a freshly started daemon.
+	 * @param coldDaemon whether the daemon was freshly started
+	 */
+	public synchronized void setColdDaemon(boolean coldDaemon) {
+		this.coldDaemon = coldDaemon;
+	}
+
+	/**
+	 * Sets whether the build's configuration was loaded from the configuration cache.
+	 * @param configurationCacheHit whether the configuration was loaded from the cache or
+	 * {@code null} if the configuration cache was not in use
+	 */
+	public synchronized void setConfigurationCacheHit(Boolean configurationCacheHit) {
+		this.configurationCacheHit = configurationCacheHit;
+	}
+
+	/**
+	 * Publishes the fingerprint as values and tags in the given {@code buildScan}.
+	 * @param buildScan the build scan
+	 */
+	public synchronized void publish(ConfigurableBuildScan buildScan) {
+		if (this.configurationTime != null) {
+			buildScan.value("Configuration time",
+					String.format(Locale.ROOT, "%.1fs", this.configurationTime.toMillis() / 1000.0));
+			buildScan.tag("config-time-" + configurationTimeBucket(this.configurationTime.getSeconds()) + "s+");
+		}
+		buildScan.value("Tasks executed", Integer.toString(getCount(Outcome.EXECUTED)));
+		buildScan.value("Tasks up-to-date", Integer.toString(getCount(Outcome.UP_TO_DATE)));
+		buildScan.value("Tasks skipped", Integer.toString(getCount(Outcome.SKIPPED)));
+		if (this.coldDaemon != null) {
+			buildScan.value("Daemon", this.coldDaemon ? "Cold" : "Warm");
+			if (this.coldDaemon) {
+				buildScan.tag("cold-daemon");
+			}
+		}
+		if (this.configurationCacheHit != null) {
+			buildScan.value("Configuration cache", this.configurationCacheHit ? "Hit" : "Miss");
+			buildScan.tag(this.configurationCacheHit ? "config-cache-hit" : "config-cache-miss");
+		}
+	}
+
+	private long configurationTimeBucket(long seconds) {
+		for (long bucket : CONFIGURATION_TIME_BUCKETS) {
+			if (seconds >= bucket) {
+				return bucket;
+			}
+		}
+		return 0;
+	}
+
+}
@@ -17,12 +17,18 @@
 package io.spring.develocity.conventions.core;
 
 import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import io.spring.develocity.conventions.core.ConfigurableBuildScan.PublicationContext;
 import io.spring.develocity.conventions.core.ProcessRunner.RunFailedException;
 
 /**
@@ -33,17 +39,44 @@ import io.spring.develocity.conventions.core.ProcessRunner.RunFailedException;
  */
 public class BuildScanConventions {
 
+	private static final Duration BACKGROUND_TIMEOUT = Duration.ofSeconds(30);
+
 	private final ProcessRunner processRunner;
 
 	private final Map<String, String> env;
 
+	private final BranchResolver branchResolver;
+
+	private final ConnectionWarmUp connectionWarmUp;
+
 	public BuildScanConventions(ProcessRunner processRunner) {
 		this(processRunner, System.getenv());
 	}
 
+	public BuildScanConventions(ProcessRunner processRunner, BranchResolver branchResolver) {
+		this(processRunner, System.getenv(), branchResolver);
+	}
+
+	public BuildScanConventions(ProcessRunner processRunner, BranchResolver branchResolver,
+			ConnectionWarmUp connectionWarmUp) {
+		this(processRunner, System.getenv(), branchResolver, connectionWarmUp);
+	}
+
 	protected BuildScanConventions(ProcessRunner processRunner, Map<String, String> env) {
+		this(processRunner, env, new BranchResolver(processRunner, env));
+	}
+
+	protected BuildScanConventions(ProcessRunner processRunner, Map<String, String> env,
+			BranchResolver branchResolver) {
+		this(processRunner, env, branchResolver, null);
+	}
+
+	protected BuildScanConventions(ProcessRunner processRunner, Map<String, String> env,
+			BranchResolver branchResolver, ConnectionWarmUp connectionWarmUp) {
 		this.processRunner = processRunner;
 		this.env = env;
+		this.branchResolver = branchResolver;
+		this.connectionWarmUp = connectionWarmUp;
 	}
 
 	/**
@@ -55,27 +88,92 @@ public class BuildScanConventions {
 		buildScan.obfuscation((obfuscation) -> obfuscation
 			.ipAddresses((addresses) -> addresses.stream().map((address) -> "0.0.0.0").collect(Collectors.toList())));
 		configurePublishing(develocity, buildScan);
+		if (this.connectionWarmUp != null) {
+			this.connectionWarmUp.warmUp(develocity.getServer());
+			buildScan.buildFinished(this.connectionWarmUp::publish);
+		}
 		ContinuousIntegration ci = ContinuousIntegration.detect(this.env);
 		tagBuildScan(buildScan, ci);
-		buildScan.background((backgrounded) -> addGitMetadata(develocity, backgrounded));
-		buildScan.background(this::addDockerMetadata);
-		buildScan.background(this::addDockerComposeMetadata);
+		HostResources.read().publish(buildScan);
+		addBackgroundMetadata(develocity, buildScan);
 		addCiMetadata(buildScan, ci);
 		buildScan.uploadInBackground(ci == null);
-		buildScan.captureInputFiles(true);
+		if (ci != null && Boolean.parseBoolean(this.env.get("DEVELOCITY_DEFER_PUBLICATION"))) {
+			buildScan.deferPublication();
+		}
 	}
 
 	/**
-	 * Configures publishing of the build scan. The default implementation always
-	 * publishes scans when authenticated and publishes them to
-	 * {@code https://ge.spring.io}.
+	 * Configures publishing of the build scan. The default implementation publishes scans
+	 * to {@code https://ge.spring.io} when authenticated, subject to any
+	 * {@link PublicationPolicy} that has been configured in the environment. When
+	 * {@link UnpublishedBuildScans} have been configured in the environment, the
+	 * server's availability is checked, at most once, when the build has finished. If it
+	 * is unavailable, a build scan that would otherwise have been published is not
+	 * published and is recorded as unpublished instead. If it is available, the record
+	 * is only cleared when the build scan is to be published.
 	 * @param develocity develocity to configure
 	 * @param buildScan build scan to configure
 	 *
 	 */
 	protected void configurePublishing(ConfigurableDevelocity develocity, ConfigurableBuildScan buildScan) {
-		buildScan.publishIfAuthenticated();
 		develocity.setServer("https://ge.spring.io");
+		PublicationPolicy policy = PublicationPolicy.fromEnvironment(this.env);
+		UnpublishedBuildScans unpublished = UnpublishedBuildScans.fromEnvironment(this.env);
+		if (policy == null && unpublished == null) {
+			buildScan.publishIfAuthenticated();
+			return;
+		}
+		Predicate<PublicationContext> condition = PublicationContext::isAuthenticated;
+		if (policy != null) {
+			condition = condition.and(policy::shouldPublish);
+		}
+		if (unpublished != null) {
+			condition = condition.and(recordWhenUnavailable(unpublished, develocity.getServer(), buildScan));
+		}
+		buildScan.publishIf(condition);
+	}
+
+	private Predicate<PublicationContext> recordWhenUnavailable(UnpublishedBuildScans unpublished, String server,
+			ConfigurableBuildScan buildScan) {
+		Availability availability = new Availability(server);
+		buildScan.buildFinished((finished) -> {
+			try {
+				List<UnpublishedBuildScans.Entry> entries = unpublished.entries();
+				if (!entries.isEmpty() && availability.isAvailable()) {
+					finished.value("Unpublished build scans", entries.size() + " since " + entries.get(0).getTime()
+							+ " while " + server + " was unavailable");
+				}
+			}
+			catch (UncheckedIOException ex) {
+				// Continue without reporting unpublished build scans
+			}
+		});
+		return (context) -> {
+			boolean available = availability.isAvailable();
+			try {
+				if (available) {
+					unpublished.drain();
+				}
+				else {
+					unpublished.record(server);
+				}
+			}
+			catch (UncheckedIOException ex) {
+				// Continue without updating the record
+			}
+			return available;
+		};
+	}
+
+	/**
+	 * Returns whether the given {@code server} is available.
+	 * @param server the server
+	 * @return {@code true} if the server is available, otherwise {@code false}
+	 * @see ServerAvailability#isAvailable(String)
+	 */
+	protected boolean isServerAvailable(String server) {
+		return ServerAvailability.isAvailable(server);
 	}
 
 	private void tagBuildScan(ConfigurableBuildScan buildScan, ContinuousIntegration ci) {
@@ -100,8 +198,34 @@ public class BuildScanConventions {
 		buildScan.tag(System.getProperty("os.name"));
 	}
 
-	private void addGitMetadata(ConfigurableDevelocity develocity, ConfigurableBuildScan buildScan) {
-		run("git", "rev-parse", "--short=8", "--verify", "HEAD").standardOut((gitCommitId) -> {
+	private void addBackgroundMetadata(ConfigurableDevelocity develocity, ConfigurableBuildScan buildScan) {
+		BackgroundJobs jobs = new BackgroundJobs(backgroundTimeout());
+		jobs.submit("git commit", () -> gitCommitMetadata(develocity));
+		jobs.submit("git branch", this::gitBranchMetadata);
+		jobs.submit("git status", this::gitStatusMetadata);
+		jobs.submit("docker", this::dockerMetadata);
+		jobs.submit("docker compose", this::dockerComposeMetadata);
+		buildScan.background(jobs::apply);
+	}
+
+	private Duration backgroundTimeout() {
+		String name = "DEVELOCITY_CONVENTIONS_BACKGROUND_TIMEOUT";
+		String value = this.env.get(name);
+		if (!hasText(value)) {
+			return BACKGROUND_TIMEOUT;
+		}
+		try {
+			return Duration.parse(value);
+		}
+		catch (DateTimeParseException ex) {
+			throw new IllegalStateException(
+					"Value '" + value + "' of environment variable " + name + " is not a valid ISO-8601 duration", ex);
+		}
+	}
+
+	private Consumer<ConfigurableBuildScan> gitCommitMetadata(ConfigurableDevelocity develocity) {
+		RunResult result = run("git", "rev-parse", "--short=8", "--verify", "HEAD");
+		return (buildScan) -> result.standardOut((gitCommitId) -> {
 			String commitIdLabel = "Git commit";
 			buildScan.value(commitIdLabel, gitCommitId);
 
@@ -110,22 +234,34 @@ public class BuildScanConventions {
 				buildScan.link("Git commit build scans", server + createSearchUrl(commitIdLabel, gitCommitId));
 			}
 		});
-		getBranch().standardOut((gitBranchName) -> {
-			buildScan.tag(gitBranchName);
-			buildScan.value("Git branch", gitBranchName);
-		});
-		run("git", "status", "--porcelain").standardOut((gitStatus) -> {
+	}
+
+	private Consumer<ConfigurableBuildScan> gitBranchMetadata() {
+		String branch = this.branchResolver.resolve();
+		return (buildScan) -> {
+			if (hasText(branch)) {
+				buildScan.tag(branch);
+				buildScan.value("Git branch", branch);
+			}
+		};
+	}
+
+	private Consumer<ConfigurableBuildScan> gitStatusMetadata() {
+		RunResult result = run("git", "status", "--porcelain");
+		return (buildScan) -> result.standardOut((gitStatus) -> {
 			buildScan.tag("dirty");
 			buildScan.value("Git status", gitStatus);
 		});
 	}
 
-	private void addDockerMetadata(ConfigurableBuildScan buildScan) {
-		run("docker", "--version").standardOut((dockerVersion) -> buildScan.value("Docker", dockerVersion));
+	private Consumer<ConfigurableBuildScan> dockerMetadata() {
+		RunResult result = run("docker", "--version");
+		return (buildScan) -> result.standardOut((dockerVersion) -> buildScan.value("Docker", dockerVersion));
 	}
 
-	private void addDockerComposeMetadata(ConfigurableBuildScan buildScan) {
-		run("docker", "compose", "version")
+	private Consumer<ConfigurableBuildScan> dockerComposeMetadata() {
+		RunResult result = run("docker", "compose", "version");
+		return (buildScan) -> result
 			.standardOut((dockerComposeVersion) -> buildScan.value("Docker Compose", dockerComposeVersion));
 	}
 
@@ -140,14 +276,6 @@ public class BuildScanConventions {
 		buildScan.value("CI provider", ci.toString());
 	}
 
-	private RunResult getBranch() {
-		String branch = this.env.get("BRANCH");
-		if (branch != null) {
-			return new RunResult(branch);
-		}
-		return run("git", "rev-parse", "--abbrev-ref", "HEAD");
-	}
-
 	private String createSearchUrl(String name, String value) {
 		return "/scans?search.names=" + encodeURL(name) + "&search.values=" + encodeURL(value);
 	}
@@ -199,4 +327,26 @@ public class BuildScanConventions {
 
 	}
 
+	/**
+	 * The availability of a server, checked at most once.
+	 */
+	private final class Availability {
+
+		private final String server;
+
+		private Boolean available;
+
+		private Availability(String server) {
+			this.server = server;
+		}
+
+		private synchronized boolean isAvailable() {
+			if (this.available == null) {
+				this.available = isServerAvailable(this.server);
+			}
+			return this.available;
+		}
+
+	}
+
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * A report of the outputs of the tasks or goals that were executed or restored from the
+ * build cache. The largest outputs and those that were slowest to restore are published
+ * as build scan values and all outputs are written to a JSON report. The report can be
+ * used to identify outputs whose download cost rivals the cost of producing them.
+ *
+ * @author Andy Wilkinson
+ */
+public class CacheEntryReport {
+
+	private static final int DEFAULT_LIMIT = 10;
+
+	private final List<Entry> entries = new ArrayList<>();
+
+	private final int limit;
+
+	/**
+	 * Creates a new {@code CacheEntryReport} that publishes the 10 largest and slowest
+	 * entries.
+	 */
+	public CacheEntryReport() {
+		this(DEFAULT_LIMIT);
+	}
+
+	/**
+	 * Creates a new {@code CacheEntryReport}.
+	 * @param limit the number of the largest and slowest entries to publish
+	 */
+	public CacheEntryReport(int limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * Records the outputs of a task or goal.
+	 * @param path the path of the task or goal
+	 * @param fromCache whether the outputs were restored from the cache
+	 * @param size the size, in bytes, of the outputs
+	 * @param duration the duration, in milliseconds, of the task or goal
+	 */
+	public synchronized void record(String path, boolean fromCache, long size, long duration) {
+		this.entries.add(new Entry(path, fromCache, size, duration));
+	}
+
+	/**
+	 * Returns the entries with the largest outputs, largest first.
+	 * @return the largest entries
+	 */
+	public synchronized List<Entry> getLargest() {
+		return this.entries.stream()
+			.sorted(Comparator.comparingLong(Entry::getSize).reversed())
+			.limit(this.limit)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the entries whose outputs were restored from the cache and were slowest to
+	 * restore, slowest first.
+	 * @return the slowest entries
+	 */
+	public synchronized List<Entry> getSlowestToRestore() {
+		return this.entries.stream()
+			.filter(Entry::isFromCache)
+			.sorted(Comparator.comparingLong(Entry::getDuration).reversed())
+			.limit(this.limit)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Publishes the largest entries and the entries that were slowest to restore as
+	 * values in the given {@code buildScan}.
+	 * @param buildScan the build scan
+	 */
+	public void publish(ConfigurableBuildScan buildScan) {
+		for (Entry entry : getLargest()) {
+			buildScan.value("Largest cache entry", entry.getPath() + " (" + Sizes.format(entry.getSize()) + ")");
+		}
+		for (Entry entry : getSlowestToRestore()) {
+			buildScan.value("Slowest cache restore", entry.getPath() + " (" + formatDuration(entry.getDuration())
+					+ ", " + Sizes.format(entry.getSize()) + ")");
+		}
+	}
+
+	/**
+	 * Writes all of the entries as JSON to the given {@code file}.
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void writeJson(Path file) throws IOException {
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("[");
+			for (int i = 0; i < this.entries.size(); i++) {
+				Entry entry = this.entries.get(i);
+				writer.write((i > 0) ? ",\n  " : "\n  ");
+				writer.write("{\"path\":\"" + escape(entry.getPath()) + "\",\"fromCache\":" + entry.isFromCache()
+						+ ",\"size\":" + entry.getSize() + ",\"duration\":" + entry.getDuration() + "}");
+			}
+			writer.write(this.entries.isEmpty() ? "]\n" : "\n]\n");
+		}
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static String formatDuration(long millis) {
+		return String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+	}
+
+	/**
+	 * An entry in the report.
+	 */
+	public static final class Entry {
+
+		private final String path;
+
+		private final boolean fromCache;
+
+		private final long size;
+
+		private final long duration;
+
+		private Entry(String path, boolean fromCache, long size, long duration) {
+			this.path = path;
+			this.fromCache = fromCache;
+			this.size = size;
+			this.duration = duration;
+		}
+
+		public String getPath() {
+			return this.path;
+		}
+
+		public boolean isFromCache() {
+			return this.fromCache;
+		}
+
+		public long getSize() {
+			return this.size;
+		}
+
+		public long getDuration() {
+			return this.duration;
+		}
+
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A summary of the build cache's hit rate. A hit is a task or goal whose outputs were
+ * loaded from the cache and a miss is a cacheable one that was executed. Tasks or goals
+ * that were executed but are not cacheable, up-to-date, or skipped are counted but do
+ * not affect the hit rate. The summary is
+ * published as build scan values and a tag, such as {@code cache-hit-rate-90+}, that
+ * allows poorly cached builds to be found.
+ *
+ * @author Andy Wilkinson
+ */
+public class CacheHitRateSummary {
+
+	private final Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+
+	/**
+	 * Records the outcome of a task or goal.
+	 * @param outcome the outcome
+	 */
+	public synchronized void record(Outcome outcome) {
+		this.counts.merge(outcome, 1, Integer::sum);
+	}
+
+	/**
+	 * Returns the number of tasks or goals with the given {@code outcome}.
+	 * @param outcome the outcome
+	 * @return the number of tasks or goals
+	 */
+	public synchronized int getCount(Outcome outcome) {
+		return this.counts.getOrDefault(outcome, 0);
+	}
+
+	/**
+	 * Returns the hit rate as a percentage.
+	 * @return the hit rate or {@code -1} if no tasks or goals were loaded from the cache
+	 * or executed
+	 */
+	public synchronized int getHitRate() {
+		int hits = getCount(Outcome.FROM_CACHE);
+		int total = hits + getCount(Outcome.EXECUTED);
+		return (total > 0) ? (hits * 100) / total : -1;
+	}
+
+	/**
+	 * Publishes the summary as values and a tag in the given {@code buildScan}. Nothing
+	 * is published if no tasks or goals were loaded from the cache or executed.
+	 * @param buildScan the build scan
+	 */
+	public synchronized void publish(ConfigurableBuildScan buildScan) {
+		int hitRate = getHitRate();
+		if (hitRate < 0) {
+			return;
+		}
+		buildScan.value("Cache hits", Integer.toString(getCount(Outcome.FROM_CACHE)));
+		buildScan.value("Cache misses", Integer.toString(getCount(Outcome.EXECUTED)));
+		buildScan.value("Not cacheable", Integer.toString(getCount(Outcome.NOT_CACHEABLE)));
+		buildScan.value("Cache hit rate", hitRate + "%");
+		buildScan.tag("cache-hit-rate-" + Math.min((hitRate / 10) * 10, 90) + "+");
+	}
+
+	/**
+	 * The outcome of a task or goal.
+	 */
+	public enum Outcome {
+
+		/**
+		 * The outputs were loaded from the cache.
+		 */
+		FROM_CACHE,
+
+		/**
+		 * The task or goal was executed.
+		 */
+		EXECUTED,
+
+		/**
+		 * The task or goal was executed and is not cacheable.
+		 */
+		NOT_CACHEABLE,
+
+		/**
+		 * The outputs were up-to-date.
+		 */
+		UP_TO_DATE,
+
+		/**
+		 * The task or goal was skipped.
+		 */
+		SKIPPED
+
+	}
+
+}
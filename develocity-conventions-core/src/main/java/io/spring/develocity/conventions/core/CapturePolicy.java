@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Map;
+
+/**
+ * Policy that decides what a build scan captures. Everything is captured for most
+ * builds. For large builds, file fingerprints are not captured as doing so adds noticeable
+ * overhead and greatly increases the size of the build scan. When a large build is
+ * running on CI, test logging is not captured either. Each decision can be overridden
+ * using an environment variable.
+ *
+ * @author Andy Wilkinson
+ */
+public class CapturePolicy {
+
+	private static final int DEFAULT_LARGE_BUILD_THRESHOLD = 50;
+
+	private final Map<String, String> env;
+
+	public CapturePolicy() {
+		this(System.getenv());
+	}
+
+	CapturePolicy(Map<String, String> env) {
+		this.env = env;
+	}
+
+	/**
+	 * Applies the policy to the given {@code buildScan}.
+	 * @param buildScan the build scan to configure
+	 * @param projectCount the number of projects or modules in the build
+	 */
+	public void execute(ConfigurableBuildScan buildScan, int projectCount) {
+		boolean large = projectCount >= largeBuildThreshold();
+		boolean ci = ContinuousIntegration.detect(this.env) != null;
+		buildScan.captureInputFiles(booleanFromEnv("DEVELOCITY_CAPTURE_FILE_FINGERPRINTS", !large));
+		buildScan.captureBuildLogging(booleanFromEnv("DEVELOCITY_CAPTURE_BUILD_LOGGING", true));
+		buildScan.captureTestLogging(booleanFromEnv("DEVELOCITY_CAPTURE_TEST_LOGGING", !(large && ci)));
+	}
+
+	private int largeBuildThreshold() {
+		String name = "DEVELOCITY_CAPTURE_LARGE_BUILD_THRESHOLD";
+		String value = this.env.get(name);
+		if (!hasText(value)) {
+			return DEFAULT_LARGE_BUILD_THRESHOLD;
+		}
+		try {
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException ex) {
+			throw new IllegalStateException(
+					"Value '" + value + "' of environment variable " + name + " is not a valid integer", ex);
+		}
+	}
+
+	private boolean booleanFromEnv(String name, boolean defaultValue) {
+		String value = this.env.get(name);
+		return hasText(value) ? Boolean.parseBoolean(value) : defaultValue;
+	}
+
+	private boolean hasText(String string) {
+		return string != null && string.length() > 0;
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package io.spring.develocity.conventions.core;
 
+import java.io.File;
+import java.time.Duration;
 import java.util.function.Consumer;
 
 /**
@@ -48,6 +50,25 @@ public interface ConfigurableBuildCache {
 		 */
 		void enable();
 
+		/**
+		 * Sets the directory that's used to store the local build cache.
+		 * @param directory the cache's directory
+		 */
+		void setDirectory(File directory);
+
+		/**
+		 * Sets how long entries that have not been used are retained in the local build
+		 * cache.
+		 * @param retention the retention period
+		 */
+		void setRetention(Duration retention);
+
+		/**
+		 * Sets how often the local build cache is cleaned up.
+		 * @param interval the interval between cleanups
+		 */
+		void setCleanupInterval(Duration interval);
+
 	}
 
 	/**
@@ -71,6 +92,35 @@ public interface ConfigurableBuildCache {
 		 */
 		void setServer(String server);
 
+		/**
+		 * Sets whether the remote build cache may be accessed over an insecure protocol
+		 * such as HTTP.
+		 * @param allowInsecureProtocol whether an insecure protocol is allowed
+		 */
+		void setAllowInsecureProtocol(boolean allowInsecureProtocol);
+
+		/**
+		 * Sets whether the remote build cache may be accessed when its server's SSL
+		 * certificate cannot be verified.
+		 * @param allowUntrustedServer whether an untrusted server is allowed
+		 */
+		void setAllowUntrustedServer(boolean allowUntrustedServer);
+
+		/**
+		 * Sets whether the {@code Expect: 100-continue} handshake is used when storing
+		 * entries, avoiding the upload of entries that the server will reject.
+		 * @param useExpectContinue whether to use {@code Expect: 100-continue}
+		 */
+		void setUseExpectContinue(boolean useExpectContinue);
+
+		/**
+		 * Sets the username and password with which to authenticate with the remote build
+		 * cache using HTTP basic authentication.
+		 * @param username the username
+		 * @param password the password
+		 */
+		void setCredentials(String username, String password);
+
 	}
 
 }
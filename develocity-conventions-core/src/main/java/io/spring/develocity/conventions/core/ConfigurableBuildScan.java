@@ -17,9 +17,11 @@
 package io.spring.develocity.conventions.core;
 
 import java.net.InetAddress;
+import java.time.Instant;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * A build scan that can be configured. Provides a build-system agnostic API that can be
@@ -36,6 +38,20 @@ public interface ConfigurableBuildScan {
 	 */
 	void captureInputFiles(boolean capture);
 
+	/**
+	 * Configures whether to capture build logging.
+	 * @param capture {@code true} if build logging should be captured, otherwise
+	 * {@code false}.
+	 */
+	void captureBuildLogging(boolean capture);
+
+	/**
+	 * Configures whether to capture test logging.
+	 * @param capture {@code true} if the logging of tests should be captured, otherwise
+	 * {@code false}.
+	 */
+	void captureTestLogging(boolean capture);
+
 	/**
 	 * Configures obfuscation of data in the build scan.
 	 * @param configurer called to configure the obfuscation
@@ -47,6 +63,21 @@ public interface ConfigurableBuildScan {
 	 */
 	void publishIfAuthenticated();
 
+	/**
+	 * Configures the build scan to only be published when the given {@code condition} is
+	 * met. The condition is evaluated at the end of the build.
+	 * @param condition the condition for publication
+	 */
+	void publishIf(Predicate<PublicationContext> condition);
+
+	/**
+	 * Configures the build scan to not be published at the end of the build. The build
+	 * scan can then be published by a later build that uses Gradle's
+	 * {@code buildScanPublishPrevious} task or Maven's
+	 * {@code develocity:build-scan-publish-previous} goal.
+	 */
+	void deferPublication();
+
 	/**
 	 * Configures whether to upload the build scan in the background.
 	 * @param enabled {@code true} to use background uploads, otherwise {@code false}.
@@ -79,6 +110,38 @@ public interface ConfigurableBuildScan {
 	 */
 	void background(Consumer<ConfigurableBuildScan> backgroundConfigurer);
 
+	/**
+	 * Configures the build scan once the build has finished.
+	 * @param buildFinishedConfigurer called when the build has finished to configure the
+	 * build scan
+	 */
+	void buildFinished(Consumer<ConfigurableBuildScan> buildFinishedConfigurer);
+
+	/**
+	 * The context in which the publication of a build scan is decided.
+	 */
+	interface PublicationContext {
+
+		/**
+		 * Returns whether the build is authenticated with the Develocity server.
+		 * @return {@code true} if authenticated, otherwise {@code false}
+		 */
+		boolean isAuthenticated();
+
+		/**
+		 * Returns whether the build has failed.
+		 * @return {@code true} if the build has failed, otherwise {@code false}
+		 */
+		boolean hasFailed();
+
+		/**
+		 * Returns the time at which the build started.
+		 * @return the build's start time or {@code null} if it is not known
+		 */
+		Instant getBuildStartTime();
+
+	}
+
 	/**
 	 * Configures the obfuscation of data in the build scan.
 	 */
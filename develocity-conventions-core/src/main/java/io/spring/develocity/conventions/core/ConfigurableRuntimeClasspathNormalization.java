@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.List;
+
+/**
+ * Runtime classpath normalization that can be configured. Provides a build-system
+ * agnostic API that can be used with both Gradle and Maven builds.
+ *
+ * @author Andy Wilkinson
+ */
+public interface ConfigurableRuntimeClasspathNormalization {
+
+	/**
+	 * Ignores the files on the runtime classpath that match the given patterns.
+	 * @param patterns the patterns of the files to ignore
+	 */
+	void ignoreFiles(List<String> patterns);
+
+	/**
+	 * Ignores the given attributes of the manifests on the runtime classpath.
+	 * @param attributes the names of the attributes to ignore
+	 */
+	void ignoreManifestAttributes(List<String> attributes);
+
+}
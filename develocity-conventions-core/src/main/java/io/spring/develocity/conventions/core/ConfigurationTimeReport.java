@@ -0,0 +1,256 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A report of the time taken to configure each project and to apply each plugin. The
+ * time of a plugin's application is the time from the start of the project's evaluation
+ * or the previous plugin's application, whichever is later, to the completion of its own
+ * application. The slowest projects and plugins are published as build scan values and
+ * all projects are written to a JSON report.
+ *
+ * @author Andy Wilkinson
+ */
+public class ConfigurationTimeReport {
+
+	private static final int DEFAULT_LIMIT = 5;
+
+	private final Map<String, Project> projects = new LinkedHashMap<>();
+
+	private final int limit;
+
+	/**
+	 * Creates a new {@code ConfigurationTimeReport} that publishes the 5 slowest projects
+	 * and plugins.
+	 */
+	public ConfigurationTimeReport() {
+		this(DEFAULT_LIMIT);
+	}
+
+	/**
+	 * Creates a new {@code ConfigurationTimeReport}.
+	 * @param limit the number of the slowest projects and plugins to publish
+	 */
+	public ConfigurationTimeReport(int limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * Records that the evaluation of a project has started.
+	 * @param path the path of the project
+	 * @param time the time, in nanoseconds, at which evaluation started
+	 */
+	public synchronized void projectEvaluationStarted(String path, long time) {
+		this.projects.put(path, new Project(path, time));
+	}
+
+	/**
+	 * Records that the application of a plugin to a project has completed. The
+	 * application is ignored if the project is not being evaluated.
+	 * @param path the path of the project
+	 * @param plugin the name of the plugin
+	 * @param time the time, in nanoseconds, at which the application completed
+	 */
+	public synchronized void pluginApplied(String path, String plugin, long time) {
+		Project project = this.projects.get(path);
+		if (project != null && project.duration < 0) {
+			project.plugins.merge(plugin, Math.max(time - project.lastEventTime, 0), Long::sum);
+			project.lastEventTime = time;
+		}
+	}
+
+	/**
+	 * Records that the evaluation of a project has finished.
+	 * @param path the path of the project
+	 * @param time the time, in nanoseconds, at which evaluation finished
+	 */
+	public synchronized void projectEvaluationFinished(String path, long time) {
+		Project project = this.projects.get(path);
+		if (project != null && project.duration < 0) {
+			project.duration = Math.max(time - project.startTime, 0);
+		}
+	}
+
+	/**
+	 * Returns the projects that were slowest to evaluate, slowest first.
+	 * @return the slowest projects
+	 */
+	public synchronized List<Project> getSlowestProjects() {
+		return this.projects.values()
+			.stream()
+			.filter((project) -> project.duration >= 0)
+			.sorted(Comparator.comparingLong((Project project) -> project.duration).reversed())
+			.limit(this.limit)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the plugins that were slowest to apply across all projects, slowest first.
+	 * @return the slowest plugins
+	 */
+	public synchronized List<Plugin> getSlowestPlugins() {
+		Map<String, Plugin> plugins = new LinkedHashMap<>();
+		for (Project project : this.projects.values()) {
+			project.plugins.forEach((name, duration) -> plugins.computeIfAbsent(name, Plugin::new).add(duration));
+		}
+		return plugins.values()
+			.stream()
+			.sorted(Comparator.comparingLong((Plugin plugin) -> plugin.duration).reversed())
+			.limit(this.limit)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Publishes the slowest projects and plugins as values in the given
+	 * {@code buildScan}.
+	 * @param buildScan the build scan
+	 */
+	public void publish(ConfigurableBuildScan buildScan) {
+		for (Project project : getSlowestProjects()) {
+			buildScan.value("Slowest project configuration",
+					project.getPath() + " (" + formatDuration(project.getDuration()) + ")");
+		}
+		for (Plugin plugin : getSlowestPlugins()) {
+			buildScan.value("Slowest plugin application", plugin.getName() + " (" + formatDuration(plugin.getDuration())
+					+ " in " + plugin.getProjects() + ((plugin.getProjects() == 1) ? " project)" : " projects)"));
+		}
+	}
+
+	/**
+	 * Writes all of the projects and their plugins as JSON to the given {@code file}.
+	 * Durations are written in milliseconds.
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void writeJson(Path file) throws IOException {
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		List<Project> projects = new ArrayList<>(this.projects.values());
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("[");
+			for (int i = 0; i < projects.size(); i++) {
+				Project project = projects.get(i);
+				writer.write((i > 0) ? ",\n  " : "\n  ");
+				writer.write("{\"path\":\"" + escape(project.getPath()) + "\",\"duration\":" + project.getDuration()
+						+ ",\"plugins\":[");
+				int plugin = 0;
+				for (Map.Entry<String, Long> entry : project.plugins.entrySet()) {
+					writer.write((plugin++ > 0) ? "," : "");
+					writer.write("{\"name\":\"" + escape(entry.getKey()) + "\",\"duration\":"
+							+ TimeUnit.NANOSECONDS.toMillis(entry.getValue()) + "}");
+				}
+				writer.write("]}");
+			}
+			writer.write(projects.isEmpty() ? "]\n" : "\n]\n");
+		}
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static String formatDuration(long millis) {
+		return String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+	}
+
+	/**
+	 * A project whose evaluation has been recorded.
+	 */
+	public static final class Project {
+
+		private final String path;
+
+		private final long startTime;
+
+		private final Map<String, Long> plugins = new LinkedHashMap<>();
+
+		private long lastEventTime;
+
+		private long duration = -1;
+
+		private Project(String path, long startTime) {
+			this.path = path;
+			this.startTime = startTime;
+			this.lastEventTime = startTime;
+		}
+
+		public String getPath() {
+			return this.path;
+		}
+
+		/**
+		 * Returns the duration, in milliseconds, of the project's evaluation.
+		 * @return the duration or {@code -1} if the evaluation did not finish
+		 */
+		public long getDuration() {
+			return (this.duration >= 0) ? TimeUnit.NANOSECONDS.toMillis(this.duration) : -1;
+		}
+
+	}
+
+	/**
+	 * A plugin whose application has been recorded in one or more projects.
+	 */
+	public static final class Plugin {
+
+		private final String name;
+
+		private long duration;
+
+		private int projects;
+
+		private Plugin(String name) {
+			this.name = name;
+		}
+
+		private void add(long duration) {
+			this.duration += duration;
+			this.projects++;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Returns the total duration, in milliseconds, of the plugin's application.
+		 * @return the total duration
+		 */
+		public long getDuration() {
+			return TimeUnit.NANOSECONDS.toMillis(this.duration);
+		}
+
+		public int getProjects() {
+			return this.projects;
+		}
+
+	}
+
+}
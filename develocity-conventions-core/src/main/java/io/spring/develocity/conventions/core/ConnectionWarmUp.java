@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-resolves the hosts of servers in the background so that the first request made by
+ * the build does not wait for DNS resolution. Resolved addresses are held in the JVM's
+ * DNS cache so only requests made by the same JVM, while the addresses are cached,
+ * benefit. No connection is made to the servers: the HTTP clients used by Gradle and
+ * Maven keep their own connection pools so a connection made here could not be reused.
+ * The time taken by each resolution can be published as a build scan value. Resolution
+ * never blocks the build.
+ *
+ * @author Andy Wilkinson
+ */
+public class ConnectionWarmUp {
+
+	private final ConcurrentMap<String, CompletableFuture<String>> warmUps = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the {@code ConnectionWarmUp} that has been configured in the environment.
+	 * Warming up is enabled by setting {@code DEVELOCITY_CONNECTION_WARM_UP} to
+	 * {@code true}.
+	 * @return the warm-up or {@code null} if it has not been enabled
+	 */
+	public static ConnectionWarmUp fromEnvironment() {
+		return fromEnvironment(System.getenv());
+	}
+
+	static ConnectionWarmUp fromEnvironment(Map<String, String> env) {
+		return Boolean.parseBoolean(env.get("DEVELOCITY_CONNECTION_WARM_UP")) ? new ConnectionWarmUp() : null;
+	}
+
+	/**
+	 * Starts resolving the host of the given {@code server} in the background. Does
+	 * nothing if the server's host is already being resolved.
+	 * @param server the URL of the server
+	 */
+	public void warmUp(String server) {
+		if (server == null || this.warmUps.containsKey(server)) {
+			return;
+		}
+		CompletableFuture<String> result = new CompletableFuture<>();
+		if (this.warmUps.putIfAbsent(server, result) != null) {
+			return;
+		}
+		Thread thread = new Thread(() -> result.complete(preResolve(server)), "connection-warm-up");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private String preResolve(String server) {
+		try {
+			String host = new URL(server).getHost();
+			long start = System.nanoTime();
+			resolve(host);
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms";
+		}
+		catch (IOException | RuntimeException ex) {
+			return "Failed: " + ex;
+		}
+	}
+
+	void resolve(String host) throws IOException {
+		InetAddress.getAllByName(host);
+	}
+
+	CompletableFuture<String> getResult(String server) {
+		return this.warmUps.get(server);
+	}
+
+	/**
+	 * Publishes the timings of the resolutions as values in the given
+	 * {@code buildScan}. Resolutions that have not yet completed are published as being
+	 * in progress.
+	 * @param buildScan the build scan
+	 */
+	public void publish(ConfigurableBuildScan buildScan) {
+		this.warmUps.forEach((server, result) -> buildScan.value("DNS pre-resolution",
+				server + ": " + result.getNow("In progress")));
+	}
+
+}
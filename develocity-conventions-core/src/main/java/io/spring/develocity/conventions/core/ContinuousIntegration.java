@@ -26,20 +26,29 @@ import java.util.function.Function;
  */
 enum ContinuousIntegration {
 
-	BAMBOO("Bamboo", "bamboo_resultsUrl"),
+	BAMBOO("Bamboo", "bamboo_resultsUrl", (env) -> env.get("bamboo_planRepository_branchName")),
 
-	CIRCLE_CI("CircleCI", "CIRCLE_BUILD_URL"),
+	CIRCLE_CI("CircleCI", "CIRCLE_BUILD_URL", (env) -> env.get("CIRCLE_BRANCH")),
 
 	GITHUB_ACTIONS("GitHub Actions", "GITHUB_ACTIONS", (env) -> {
 		String server = env.get("GITHUB_SERVER_URL");
 		String repository = env.get("GITHUB_REPOSITORY");
 		String runId = env.get("GITHUB_RUN_ID");
 		return server + "/" + repository + "/actions/runs/" + runId;
+	}, (env) -> {
+		String headRef = env.get("GITHUB_HEAD_REF");
+		if (headRef != null && headRef.length() > 0) {
+			return headRef;
+		}
+		return "branch".equals(env.get("GITHUB_REF_TYPE")) ? env.get("GITHUB_REF_NAME") : null;
 	}),
 
-	JENKINS("Jenkins", "JENKINS_URL", (env) -> env.get("BUILD_URL")),
+	JENKINS("Jenkins", "JENKINS_URL", (env) -> env.get("BUILD_URL"), (env) -> {
+		String changeBranch = env.get("CHANGE_BRANCH");
+		return (changeBranch != null) ? changeBranch : env.get("BRANCH_NAME");
+	}),
 
-	CONCOURSE("Concourse", "CI", (env) -> null);
+	CONCOURSE("Concourse", "CI", (env) -> null, (env) -> null);
 
 	private final String name;
 
@@ -47,20 +56,28 @@ enum ContinuousIntegration {
 
 	private final Function<Map<String, String>, String> buildUrl;
 
-	ContinuousIntegration(String name, String environmentVariable) {
-		this(name, environmentVariable, (env) -> env.get(environmentVariable));
+	private final Function<Map<String, String>, String> branch;
+
+	ContinuousIntegration(String name, String environmentVariable, Function<Map<String, String>, String> branch) {
+		this(name, environmentVariable, (env) -> env.get(environmentVariable), branch);
 	}
 
-	ContinuousIntegration(String name, String environmentVariable, Function<Map<String, String>, String> buildUrl) {
+	ContinuousIntegration(String name, String environmentVariable, Function<Map<String, String>, String> buildUrl,
+			Function<Map<String, String>, String> branch) {
 		this.name = name;
 		this.environmentVariable = environmentVariable;
 		this.buildUrl = buildUrl;
+		this.branch = branch;
 	}
 
 	String buildUrlFrom(Map<String, String> env) {
 		return this.buildUrl.apply(env);
 	}
 
+	String branchFrom(Map<String, String> env) {
+		return this.branch.apply(env);
+	}
+
 	@Override
 	public String toString() {
 		return this.name;
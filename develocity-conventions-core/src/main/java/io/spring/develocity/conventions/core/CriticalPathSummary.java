@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/**
+ * A summary of the critical path through the executed task graph and of the slowest
+ * tasks. The critical path is the chain of dependent tasks with the longest total
+ * duration. Tasks must be recorded in the order in which they complete, which allows the
+ * critical path to be derived in a single pass, in time proportional to the number of
+ * tasks and dependencies. The length and top contributors of the critical path, the
+ * slowest tasks, and the parallelism efficiency of the build are published as build scan
+ * values.
+ *
+ * @author Andy Wilkinson
+ */
+public class CriticalPathSummary {
+
+	private static final int DEFAULT_LIMIT = 5;
+
+	private static final Comparator<Task> BY_DURATION = Comparator.comparingLong(Task::getDuration);
+
+	private final Map<String, Task> tasks = new HashMap<>();
+
+	private final PriorityQueue<Task> slowest = new PriorityQueue<>(BY_DURATION);
+
+	private final int workers;
+
+	private final int limit;
+
+	private Task end;
+
+	private long totalDuration;
+
+	private long startTime = Long.MAX_VALUE;
+
+	private long endTime = Long.MIN_VALUE;
+
+	private boolean dependenciesUnknown;
+
+	/**
+	 * Creates a new {@code CriticalPathSummary} that publishes the 5 slowest tasks and top
+	 * contributors to the critical path.
+	 * @param workers the maximum number of workers that could execute tasks in parallel
+	 */
+	public CriticalPathSummary(int workers) {
+		this(workers, DEFAULT_LIMIT);
+	}
+
+	/**
+	 * Creates a new {@code CriticalPathSummary}.
+	 * @param workers the maximum number of workers that could execute tasks in parallel
+	 * @param limit the number of slowest tasks and top contributors to publish
+	 */
+	public CriticalPathSummary(int workers, int limit) {
+		this.workers = workers;
+		this.limit = limit;
+	}
+
+	/**
+	 * Records the execution of a task. Tasks must be recorded in the order in which they
+	 * complete.
+	 * @param path the path of the task
+	 * @param startTime the time, in milliseconds since the epoch, at which the task
+	 * started
+	 * @param endTime the time, in milliseconds since the epoch, at which the task
+	 * completed
+	 * @param dependencies the paths of the task's dependencies or {@code null} if they
+	 * are unknown
+	 */
+	public synchronized void record(String path, long startTime, long endTime, Collection<String> dependencies) {
+		if (dependencies == null) {
+			this.dependenciesUnknown = true;
+			dependencies = Collections.emptyList();
+		}
+		Task predecessor = null;
+		for (String dependency : dependencies) {
+			Task candidate = this.tasks.get(dependency);
+			if (candidate != null && (predecessor == null || candidate.pathDuration > predecessor.pathDuration)) {
+				predecessor = candidate;
+			}
+		}
+		Task task = new Task(path, Math.max(endTime - startTime, 0), predecessor);
+		this.tasks.put(path, task);
+		if (this.end == null || task.pathDuration > this.end.pathDuration) {
+			this.end = task;
+		}
+		this.slowest.add(task);
+		if (this.slowest.size() > this.limit) {
+			this.slowest.poll();
+		}
+		this.totalDuration += task.duration;
+		this.startTime = Math.min(this.startTime, startTime);
+		this.endTime = Math.max(this.endTime, endTime);
+	}
+
+	/**
+	 * Returns the tasks on the critical path, in execution order. When the dependencies
+	 * of any of the recorded tasks are unknown, the critical path is unknown and the
+	 * returned list is empty.
+	 * @return the tasks on the critical path
+	 */
+	public synchronized List<Task> getCriticalPath() {
+		List<Task> criticalPath = new ArrayList<>();
+		if (this.dependenciesUnknown) {
+			return criticalPath;
+		}
+		for (Task task = this.end; task != null; task = task.predecessor) {
+			criticalPath.add(task);
+		}
+		Collections.reverse(criticalPath);
+		return criticalPath;
+	}
+
+	/**
+	 * Returns the slowest tasks, slowest first.
+	 * @return the slowest tasks
+	 */
+	public synchronized List<Task> getSlowest() {
+		return this.slowest.stream().sorted(BY_DURATION.reversed()).collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the parallelism efficiency as a percentage. The efficiency is the total
+	 * duration of all of the tasks divided by the product of the build's wall time and
+	 * the number of workers.
+	 * @return the parallelism efficiency or {@code -1} if no tasks have been recorded
+	 */
+	public synchronized int getParallelismEfficiency() {
+		if (this.end == null || this.endTime <= this.startTime || this.workers <= 0) {
+			return -1;
+		}
+		long wallTime = this.endTime - this.startTime;
+		return (int) Math.round(this.totalDuration * 100.0 / (wallTime * this.workers));
+	}
+
+	/**
+	 * Publishes the length and top contributors of the critical path, the slowest tasks,
+	 * and the parallelism efficiency as values in the given {@code buildScan}. When the
+	 * critical path is unknown, it is published as unavailable. Nothing is published if
+	 * no tasks were recorded.
+	 * @param buildScan the build scan
+	 */
+	public void publish(ConfigurableBuildScan buildScan) {
+		List<Task> slowest = getSlowest();
+		if (slowest.isEmpty()) {
+			return;
+		}
+		List<Task> criticalPath = getCriticalPath();
+		if (criticalPath.isEmpty()) {
+			buildScan.value("Critical path", "unavailable");
+		}
+		else {
+			publishCriticalPath(buildScan, criticalPath);
+		}
+		for (Task task : slowest) {
+			buildScan.value("Slowest task", task.path + " (" + formatDuration(task.duration) + ")");
+		}
+		int efficiency = getParallelismEfficiency();
+		if (efficiency >= 0) {
+			buildScan.value("Parallelism efficiency", efficiency + "% of " + this.workers + " workers");
+		}
+	}
+
+	private void publishCriticalPath(ConfigurableBuildScan buildScan, List<Task> criticalPath) {
+		Task end = criticalPath.get(criticalPath.size() - 1);
+		buildScan.value("Critical path", formatDuration(end.pathDuration) + " (" + criticalPath.size()
+				+ " tasks, ending with " + end.path + ")");
+		List<Task> contributors = criticalPath.stream()
+			.sorted(BY_DURATION.reversed())
+			.limit(this.limit)
+			.collect(Collectors.toList());
+		for (Task task : contributors) {
+			buildScan.value("Critical path task", task.path + " (" + formatDuration(task.duration) + ", "
+					+ (task.duration * 100 / Math.max(end.pathDuration, 1)) + "%)");
+		}
+	}
+
+	private static String formatDuration(long millis) {
+		return String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+	}
+
+	/**
+	 * A task that has been recorded.
+	 */
+	public static final class Task {
+
+		private final String path;
+
+		private final long duration;
+
+		private final Task predecessor;
+
+		private final long pathDuration;
+
+		private Task(String path, long duration, Task predecessor) {
+			this.path = path;
+			this.duration = duration;
+			this.predecessor = predecessor;
+			this.pathDuration = duration + ((predecessor != null) ? predecessor.pathDuration : 0);
+		}
+
+		public String getPath() {
+			return this.path;
+		}
+
+		public long getDuration() {
+			return this.duration;
+		}
+
+	}
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Fingerprints input files so that the fingerprints of two builds can be compared, even
+ * when they were performed in different directories. Files beneath the root directory
+ * are identified by their relative path and other files by their name. As a file is
+ * often an input of many tasks, its hash is remembered until its length or last
+ * modified time changes.
+ *
+ * @author Andy Wilkinson
+ */
+public class FileFingerprinter {
+
+	private static final String ROOT = "$ROOT";
+
+	private final Path rootDirectory;
+
+	private final ConcurrentMap<Path, FileHash> hashes = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@code FileFingerprinter}.
+	 * @param rootDirectory the root directory of the build
+	 */
+	public FileFingerprinter(File rootDirectory) {
+		this.rootDirectory = rootDirectory.toPath().toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Returns the fingerprints of the given {@code files}. The regular files within any
+	 * directories are included.
+	 * @param files the files to fingerprint
+	 * @return the hashes of the files keyed by normalized path
+	 */
+	public Map<String, String> fingerprint(Iterable<File> files) {
+		Map<String, String> fingerprints = new TreeMap<>();
+		for (File file : files) {
+			Path path = file.toPath().toAbsolutePath().normalize();
+			if (Files.isDirectory(path)) {
+				for (Path child : regularFiles(path)) {
+					fingerprints.put(normalize(child), hash(child));
+				}
+			}
+			else if (Files.isRegularFile(path)) {
+				fingerprints.put(normalize(path), hash(path));
+			}
+		}
+		return fingerprints;
+	}
+
+	/**
+	 * Returns the hash of the given input property {@code value} with any occurrences of
+	 * the root directory's path replaced so that it is independent of the build's
+	 * location.
+	 * @param value the value to hash
+	 * @return the hash
+	 */
+	public String hash(String value) {
+		return TaskFingerprintFile.hash(value.replace(this.rootDirectory.toString(), ROOT));
+	}
+
+	/**
+	 * Returns the hash of a normalized form of the given input property {@code value}.
+	 * Files and paths beneath the root directory are identified by their relative path.
+	 * The elements of sets and the entries of maps are sorted. Values that do not have a
+	 * representation that is stable across builds, such as objects that do not override
+	 * {@link Object#toString()} and absolute paths outside the root directory, cannot be
+	 * hashed.
+	 * @param value the value to hash
+	 * @return the hash or {@code null} if the value cannot be hashed
+	 */
+	public String hashValue(Object value) {
+		String normalized = normalizeValue(value);
+		return (normalized != null) ? TaskFingerprintFile.hash(normalized) : null;
+	}
+
+	private String normalizeValue(Object value) {
+		if (value == null) {
+			return "null";
+		}
+		if (value instanceof File) {
+			return normalizeValue(((File) value).toPath());
+		}
+		if (value instanceof Path) {
+			Path path = (Path) value;
+			return path.isAbsolute() ? normalizeAbsolutePath(path.normalize()) : path.toString();
+		}
+		if (value instanceof Map) {
+			return normalizeEntries((Map<?, ?>) value);
+		}
+		if (value instanceof Iterable) {
+			return normalizeElements((Iterable<?>) value, value instanceof Set);
+		}
+		if (value.getClass().isArray()) {
+			List<Object> elements = new ArrayList<>();
+			for (int i = 0; i < Array.getLength(value); i++) {
+				elements.add(Array.get(value, i));
+			}
+			return normalizeElements(elements, false);
+		}
+		if (!overridesToString(value.getClass())) {
+			return null;
+		}
+		String string = value.toString().replace(this.rootDirectory.toString(), ROOT);
+		return new File(string).isAbsolute() ? null : string;
+	}
+
+	private String normalizeAbsolutePath(Path path) {
+		if (path.startsWith(this.rootDirectory)) {
+			return ROOT + "/" + this.rootDirectory.relativize(path).toString().replace(File.separatorChar, '/');
+		}
+		return null;
+	}
+
+	private String normalizeEntries(Map<?, ?> map) {
+		Map<String, String> entries = new TreeMap<>();
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			String key = normalizeValue(entry.getKey());
+			String value = normalizeValue(entry.getValue());
+			if (key == null || value == null) {
+				return null;
+			}
+			entries.put(key, value);
+		}
+		return entries.toString();
+	}
+
+	private String normalizeElements(Iterable<?> iterable, boolean sort) {
+		List<String> elements = new ArrayList<>();
+		for (Object element : iterable) {
+			String normalized = normalizeValue(element);
+			if (normalized == null) {
+				return null;
+			}
+			elements.add(normalized);
+		}
+		if (sort) {
+			Collections.sort(elements);
+		}
+		return elements.toString();
+	}
+
+	private boolean overridesToString(Class<?> type) {
+		try {
+			return type.getMethod("toString").getDeclaringClass() != Object.class;
+		}
+		catch (NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+	private List<Path> regularFiles(Path directory) {
+		try (Stream<Path> stream = Files.walk(directory)) {
+			return stream.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to walk '" + directory + "'", ex);
+		}
+	}
+
+	private String normalize(Path path) {
+		if (path.startsWith(this.rootDirectory)) {
+			return this.rootDirectory.relativize(path).toString().replace(File.separatorChar, '/');
+		}
+		return path.getFileName().toString();
+	}
+
+	private String hash(Path path) {
+		try {
+			long length = Files.size(path);
+			long lastModified = Files.getLastModifiedTime(path).toMillis();
+			FileHash existing = this.hashes.get(path);
+			if (existing != null && existing.length == length && existing.lastModified == lastModified) {
+				return existing.hash;
+			}
+			FileHash hash = new FileHash(length, lastModified, hashContent(path));
+			this.hashes.put(path, hash);
+			return hash.hash;
+		}
+		catch (IOException ex) {
+			return "unreadable";
+		}
+	}
+
+	private String hashContent(Path path) throws IOException {
+		MessageDigest digest = TaskFingerprintFile.md5();
+		byte[] buffer = new byte[8192];
+		try (InputStream input = Files.newInputStream(path)) {
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return TaskFingerprintFile.hex(digest.digest());
+	}
+
+	private static final class FileHash {
+
+		private final long length;
+
+		private final long lastModified;
+
+		private final String hash;
+
+		private FileHash(long length, long lastModified, String hash) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.hash = hash;
+		}
+
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A snapshot of the resources of the host on which the build is running, including the
+ * limits of any cgroup (v1 or v2) in which it is contained. Information is read from
+ * {@code /proc} and {@code /sys/fs/cgroup} when available, without forking any processes.
+ *
+ * @author Andy Wilkinson
+ */
+class HostResources {
+
+	private static final long GIGABYTE = 1024L * 1024 * 1024;
+
+	private final int processors;
+
+	private final String cpuModel;
+
+	private final long memoryTotal;
+
+	private final long memoryAvailable;
+
+	private final double cpuLimit;
+
+	private final long memoryLimit;
+
+	private HostResources(int processors, String cpuModel, long memoryTotal, long memoryAvailable, double cpuLimit,
+			long memoryLimit) {
+		this.processors = processors;
+		this.cpuModel = cpuModel;
+		this.memoryTotal = memoryTotal;
+		this.memoryAvailable = memoryAvailable;
+		this.cpuLimit = cpuLimit;
+		this.memoryLimit = memoryLimit;
+	}
+
+	static HostResources read() {
+		return read(Paths.get("/"), Runtime.getRuntime().availableProcessors());
+	}
+
+	static HostResources read(Path root, int processors) {
+		List<String> meminfo = readLines(root.resolve("proc/meminfo"));
+		long memoryTotal = meminfoValue(meminfo, "MemTotal:");
+		Path cgroup = root.resolve("sys/fs/cgroup");
+		double cpuLimit = cpuLimit(readLines(cgroup.resolve("cpu.max")));
+		if (cpuLimit < 0) {
+			cpuLimit = cpuLimit(readLines(cgroup.resolve("cpu/cpu.cfs_quota_us")),
+					readLines(cgroup.resolve("cpu/cpu.cfs_period_us")));
+		}
+		long memoryLimit = memoryLimit(readLines(cgroup.resolve("memory.max")), memoryTotal);
+		if (memoryLimit < 0) {
+			memoryLimit = memoryLimit(readLines(cgroup.resolve("memory/memory.limit_in_bytes")), memoryTotal);
+		}
+		return new HostResources(processors, cpuModel(readLines(root.resolve("proc/cpuinfo"))), memoryTotal,
+				meminfoValue(meminfo, "MemAvailable:"), cpuLimit, memoryLimit);
+	}
+
+	private static List<String> readLines(Path path) {
+		try {
+			return Files.readAllLines(path);
+		}
+		catch (IOException ex) {
+			return Collections.emptyList();
+		}
+	}
+
+	private static String cpuModel(List<String> cpuinfo) {
+		for (String line : cpuinfo) {
+			if (line.startsWith("model name")) {
+				return line.substring(line.indexOf(':') + 1).trim();
+			}
+		}
+		return null;
+	}
+
+	private static long meminfoValue(List<String> meminfo, String key) {
+		for (String line : meminfo) {
+			if (line.startsWith(key)) {
+				try {
+					return Long.parseLong(line.substring(key.length()).trim().split("\\s+")[0]) * 1024;
+				}
+				catch (NumberFormatException ex) {
+					return -1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static double cpuLimit(List<String> cpuMax) {
+		if (cpuMax.isEmpty()) {
+			return -1;
+		}
+		String[] components = cpuMax.get(0).trim().split("\\s+");
+		return (components.length == 2) ? cpuLimit(components[0], components[1]) : -1;
+	}
+
+	private static double cpuLimit(List<String> quota, List<String> period) {
+		return (quota.isEmpty() || period.isEmpty()) ? -1 : cpuLimit(quota.get(0).trim(), period.get(0).trim());
+	}
+
+	private static double cpuLimit(String quota, String period) {
+		try {
+			long quotaMicros = Long.parseLong(quota);
+			long periodMicros = Long.parseLong(period);
+			return (quotaMicros > 0 && periodMicros > 0) ? (double) quotaMicros / periodMicros : -1;
+		}
+		catch (NumberFormatException ex) {
+			// Unlimited ("max")
+			return -1;
+		}
+	}
+
+	private static long memoryLimit(List<String> limit, long memoryTotal) {
+		if (limit.isEmpty()) {
+			return -1;
+		}
+		try {
+			long bytes = Long.parseLong(limit.get(0).trim());
+			// cgroup v1 reports no limit as a very large number
+			return (bytes > 0 && (memoryTotal < 0 || bytes < memoryTotal)) ? bytes : -1;
+		}
+		catch (NumberFormatException ex) {
+			// Unlimited ("max")
+			return -1;
+		}
+	}
+
+	void publish(ConfigurableBuildScan buildScan) {
+		buildScan.value("Processors", Integer.toString(this.processors));
+		buildScan.tag("cores-" + this.processors);
+		if (this.cpuModel != null) {
+			buildScan.value("CPU model", this.cpuModel);
+		}
+		if (this.memoryTotal > 0) {
+			buildScan.value("Memory", formatGigabytes(this.memoryTotal) + " total"
+					+ ((this.memoryAvailable >= 0) ? ", " + formatGigabytes(this.memoryAvailable) + " available" : ""));
+			buildScan.tag("memory-" + roundGigabytes(this.memoryTotal) + "GB");
+		}
+		if (this.cpuLimit > 0) {
+			buildScan.value("Container CPU limit", String.format(Locale.ROOT, "%.1f CPUs", this.cpuLimit));
+			buildScan.tag("cpu-limit-" + (long) Math.ceil(this.cpuLimit));
+		}
+		if (this.memoryLimit > 0) {
+			buildScan.value("Container memory limit", formatGigabytes(this.memoryLimit));
+			buildScan.tag("memory-limit-" + roundGigabytes(this.memoryLimit) + "GB");
+		}
+	}
+
+	private static String formatGigabytes(long bytes) {
+		return String.format(Locale.ROOT, "%.1f GB", (double) bytes / GIGABYTE);
+	}
+
+	private static long roundGigabytes(long bytes) {
+		return Math.max(Math.round((double) bytes / GIGABYTE), 1);
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Clock;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Metrics of the heap, garbage collection, and JIT compilation of the JVM running the
+ * build. The metrics are read from the platform MXBeans when the {@code JvmMetrics} is
+ * created and again when it is published. As a JVM, such as the Gradle daemon, may run
+ * more than one build, the published metrics are the difference between the two. A
+ * {@code gc-pressure} tag is added when garbage collection accounts for more than a
+ * threshold share, 10% by default, of the time between the two.
+ *
+ * @author Andy Wilkinson
+ */
+public class JvmMetrics {
+
+	private static final int DEFAULT_GC_PRESSURE_THRESHOLD = 10;
+
+	private final Clock clock;
+
+	private final int gcPressureThreshold;
+
+	private final long startTime;
+
+	private final List<GarbageCollectorMXBean> collectors;
+
+	private final long[] collectionCounts;
+
+	private final long[] collectionTimes;
+
+	private final long compilationTime;
+
+	/**
+	 * Creates a new {@code JvmMetrics} that measures from now.
+	 */
+	public JvmMetrics() {
+		this(System.getenv(), Clock.systemUTC());
+	}
+
+	JvmMetrics(Map<String, String> env, Clock clock) {
+		this.clock = clock;
+		this.gcPressureThreshold = gcPressureThreshold(env);
+		this.startTime = clock.millis();
+		this.collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		this.collectionCounts = new long[this.collectors.size()];
+		this.collectionTimes = new long[this.collectors.size()];
+		for (int i = 0; i < this.collectors.size(); i++) {
+			this.collectionCounts[i] = this.collectors.get(i).getCollectionCount();
+			this.collectionTimes[i] = this.collectors.get(i).getCollectionTime();
+		}
+		this.compilationTime = compilationTime();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	private static int gcPressureThreshold(Map<String, String> env) {
+		String name = "DEVELOCITY_GC_PRESSURE_THRESHOLD";
+		String value = env.get(name);
+		if (value == null || value.isEmpty()) {
+			return DEFAULT_GC_PRESSURE_THRESHOLD;
+		}
+		try {
+			int threshold = Integer.parseInt(value);
+			if (threshold >= 0 && threshold <= 100) {
+				return threshold;
+			}
+		}
+		catch (NumberFormatException ex) {
+			// Fall through
+		}
+		throw new IllegalStateException(
+				"Value '" + value + "' of environment variable " + name + " is not a valid percentage");
+	}
+
+	/**
+	 * Publishes the metrics as values and, when garbage collection has accounted for
+	 * more than the threshold share of the time since this {@code JvmMetrics} was
+	 * created, a {@code gc-pressure} tag in the given {@code buildScan}.
+	 * @param buildScan the build scan
+	 */
+	public void publish(ConfigurableBuildScan buildScan) {
+		long duration = this.clock.millis() - this.startTime;
+		long maxHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+		if (maxHeap >= 0) {
+			buildScan.value("JVM max heap", Sizes.format(maxHeap));
+		}
+		buildScan.value("JVM peak heap", Sizes.format(peakHeapUsage()));
+		long gcTime = 0;
+		for (int i = 0; i < this.collectors.size(); i++) {
+			GarbageCollectorMXBean collector = this.collectors.get(i);
+			long count = Math.max(collector.getCollectionCount() - this.collectionCounts[i], 0);
+			long time = Math.max(collector.getCollectionTime() - this.collectionTimes[i], 0);
+			buildScan.value("GC " + collector.getName(), count + " collections, " + formatTime(time));
+			gcTime += time;
+		}
+		buildScan.value("GC time", formatTime(gcTime));
+		long compilationTime = compilationTime();
+		if (compilationTime >= 0) {
+			buildScan.value("JIT compilation time", formatTime(compilationTime - this.compilationTime));
+		}
+		if (isUnderGcPressure(gcTime, duration, this.gcPressureThreshold)) {
+			buildScan.tag("gc-pressure");
+		}
+	}
+
+	static boolean isUnderGcPressure(long gcTime, long duration, int threshold) {
+		return gcTime * 100 > duration * threshold;
+	}
+
+	private long peakHeapUsage() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			MemoryUsage usage = (pool.getType() == MemoryType.HEAP) ? pool.getPeakUsage() : null;
+			if (usage != null) {
+				peak += usage.getUsed();
+			}
+		}
+		return peak;
+	}
+
+	private static long compilationTime() {
+		CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+		if (compilation == null || !compilation.isCompilationTimeMonitoringSupported()) {
+			return -1;
+		}
+		return compilation.getTotalCompilationTime();
+	}
+
+	private static String formatTime(long millis) {
+		return String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+	}
+
+}
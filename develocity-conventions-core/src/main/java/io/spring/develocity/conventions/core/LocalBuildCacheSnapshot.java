@@ -0,0 +1,235 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A snapshot of the local build cache that can be saved at the end of a build and
+ * restored at the start of the next one. Saving keeps the most recently used entries
+ * that fit within a size budget. As cache entries are identified by their key, an entry
+ * is stored in the snapshot once and is only restored when it is not already in the
+ * cache. Restored entries are marked as used at the time of their restoration so that
+ * they are not immediately removed by the cache's retention policy.
+ *
+ * @author Andy Wilkinson
+ */
+public class LocalBuildCacheSnapshot {
+
+	private static final String ARCHIVE_NAME = "local-build-cache.zip";
+
+	private static final long DEFAULT_MAX_SIZE_IN_MEGABYTES = 1024;
+
+	private final Path cacheDirectory;
+
+	private final Path snapshotDirectory;
+
+	private final long maxSize;
+
+	/**
+	 * Creates a new {@code LocalBuildCacheSnapshot}.
+	 * @param cacheDirectory the directory of the local build cache
+	 * @param snapshotDirectory the directory in which the snapshot is stored
+	 * @param maxSize the maximum size, in bytes, of the cache entries in the snapshot
+	 */
+	public LocalBuildCacheSnapshot(File cacheDirectory, File snapshotDirectory, long maxSize) {
+		this.cacheDirectory = cacheDirectory.toPath().toAbsolutePath().normalize();
+		this.snapshotDirectory = snapshotDirectory.toPath();
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the {@code LocalBuildCacheSnapshot} that has been configured in the
+	 * environment. Snapshots are configured by setting both
+	 * {@code DEVELOCITY_LOCAL_CACHE_DIRECTORY} and
+	 * {@code DEVELOCITY_LOCAL_CACHE_SNAPSHOT_DIRECTORY}.
+	 * @return the snapshot or {@code null} if snapshots have not been configured
+	 */
+	public static LocalBuildCacheSnapshot fromEnvironment() {
+		return fromEnvironment(System.getenv());
+	}
+
+	static LocalBuildCacheSnapshot fromEnvironment(Map<String, String> env) {
+		String cacheDirectory = env.get("DEVELOCITY_LOCAL_CACHE_DIRECTORY");
+		String snapshotDirectory = env.get("DEVELOCITY_LOCAL_CACHE_SNAPSHOT_DIRECTORY");
+		if (!hasText(cacheDirectory) || !hasText(snapshotDirectory)) {
+			return null;
+		}
+		String maxSize = env.get("DEVELOCITY_LOCAL_CACHE_SNAPSHOT_MAX_SIZE");
+		long maxSizeInMegabytes = hasText(maxSize) ? Long.parseLong(maxSize) : DEFAULT_MAX_SIZE_IN_MEGABYTES;
+		return new LocalBuildCacheSnapshot(new File(cacheDirectory), new File(snapshotDirectory),
+				maxSizeInMegabytes * 1024 * 1024);
+	}
+
+	/**
+	 * Returns the directory of the local build cache.
+	 * @return the cache directory
+	 */
+	public File getCacheDirectory() {
+		return this.cacheDirectory.toFile();
+	}
+
+	/**
+	 * Returns the directory in which the snapshot is stored.
+	 * @return the snapshot directory
+	 */
+	public File getSnapshotDirectory() {
+		return this.snapshotDirectory.toFile();
+	}
+
+	/**
+	 * Returns the maximum size, in bytes, of the cache entries in the snapshot.
+	 * @return the maximum size
+	 */
+	public long getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Restores the snapshot into the local build cache. Entries that are already in the
+	 * cache are left unchanged. Each entry is written to a temporary file and then
+	 * atomically moved into place so that the cache never contains a partially written
+	 * entry, and an entry that is stored concurrently by the build is not an error.
+	 * Restored entries have their last modified time set to the current time. Does
+	 * nothing if no snapshot has been saved.
+	 * @throws IOException if the snapshot cannot be restored
+	 */
+	public void restore() throws IOException {
+		Path archive = this.snapshotDirectory.resolve(ARCHIVE_NAME);
+		if (!Files.isRegularFile(archive)) {
+			return;
+		}
+		try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(archive)))) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				Path target = this.cacheDirectory.resolve(entry.getName()).normalize();
+				if (entry.isDirectory() || !target.startsWith(this.cacheDirectory) || Files.exists(target)) {
+					continue;
+				}
+				restore(zip, target);
+			}
+		}
+	}
+
+	private void restore(ZipInputStream zip, Path target) throws IOException {
+		Files.createDirectories(target.getParent());
+		Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			Files.copy(zip, temp, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (FileAlreadyExistsException ex) {
+			// Entry has been stored concurrently
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Saves the most recently used entries of the local build cache into the snapshot,
+	 * replacing any existing snapshot. An entry that would take the snapshot over its
+	 * maximum size is skipped and less recently used entries that fit are saved instead.
+	 * @throws IOException if the snapshot cannot be saved
+	 */
+	public void save() throws IOException {
+		if (!Files.isDirectory(this.cacheDirectory)) {
+			return;
+		}
+		List<CacheEntry> entries = mostRecentlyUsedEntries();
+		Files.createDirectories(this.snapshotDirectory);
+		Path temp = Files.createTempFile(this.snapshotDirectory, ARCHIVE_NAME, ".tmp");
+		try {
+			try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				long size = 0;
+				for (CacheEntry entry : entries) {
+					if (size + entry.size > this.maxSize) {
+						continue;
+					}
+					ZipEntry zipEntry = new ZipEntry(entry.name);
+					zipEntry.setTime(entry.lastModified);
+					zip.putNextEntry(zipEntry);
+					Files.copy(entry.path, zip);
+					zip.closeEntry();
+					size += entry.size;
+				}
+			}
+			Files.move(temp, this.snapshotDirectory.resolve(ARCHIVE_NAME), StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private List<CacheEntry> mostRecentlyUsedEntries() throws IOException {
+		List<CacheEntry> entries = new ArrayList<>();
+		List<Path> paths;
+		try (Stream<Path> stream = Files.walk(this.cacheDirectory)) {
+			paths = stream.filter(Files::isRegularFile).filter(this::isCacheEntry).collect(Collectors.toList());
+		}
+		for (Path path : paths) {
+			entries.add(new CacheEntry(this.cacheDirectory.relativize(path), path));
+		}
+		entries.sort(Comparator.comparingLong((CacheEntry entry) -> entry.lastModified).reversed());
+		return entries;
+	}
+
+	private boolean isCacheEntry(Path path) {
+		String name = path.getFileName().toString();
+		return !name.endsWith(".lock") && !name.equals("gc.properties") && !name.endsWith(".tmp");
+	}
+
+	private static boolean hasText(String string) {
+		return string != null && string.length() > 0;
+	}
+
+	private static final class CacheEntry {
+
+		private final String name;
+
+		private final Path path;
+
+		private final long size;
+
+		private final long lastModified;
+
+		private CacheEntry(Path relativePath, Path path) throws IOException {
+			this.name = relativePath.toString().replace(File.separatorChar, '/');
+			this.path = path;
+			this.size = Files.size(path);
+			this.lastModified = Files.getLastModifiedTime(path).toMillis();
+		}
+
+	}
+
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sampler of the resources used by the build's process tree: the process running the
+ * build and all of its descendants, such as Gradle's worker daemons, forked test JVMs,
+ * and the Kotlin compile daemon. Samples are read from {@code /proc} so sampling is only
+ * available on Linux. The peak resident set size of each {@link Role role} of process and
+ * the average CPU utilization are published as build scan values and the timeline of
+ * samples can be written to a CSV file.
+ * <p>
+ * Samples are taken on a daemon thread. To bound the memory that is used, when the
+ * timeline is full every other sample is discarded and samples are added to the timeline
+ * half as often.
+ *
+ * @author Andy Wilkinson
+ */
+public class ProcessTreeSampler {
+
+	private static final Duration DEFAULT_INTERVAL = Duration.ofMillis(500);
+
+	private static final int MAX_TIMELINE_SIZE = 2048;
+
+	// USER_HZ, the unit of CPU time in /proc, which is 100 on all mainstream architectures
+	private static final int CLOCK_TICKS_PER_SECOND = 100;
+
+	private final Path proc;
+
+	private final int rootPid;
+
+	private final Duration interval;
+
+	private final int processors;
+
+	private final Map<Role, Long> peakRss = new EnumMap<>(Role.class);
+
+	private final Map<Integer, Role> roles = new HashMap<>();
+
+	private final List<Sample> timeline = new ArrayList<>();
+
+	private Map<Integer, Long> previousCpuTicks = Collections.emptyMap();
+
+	private long firstSampleTime = -1;
+
+	private long previousSampleTime = -1;
+
+	private double utilizationTotal;
+
+	private int utilizationCount;
+
+	private int sampleCount;
+
+	private int timelineStride = 1;
+
+	private Thread thread;
+
+	/**
+	 * Creates a new {@code ProcessTreeSampler} for the tree of the current process.
+	 * @param interval the interval between samples
+	 * @throws IOException if the current process cannot be identified
+	 */
+	public ProcessTreeSampler(Duration interval) throws IOException {
+		this(Paths.get("/proc"), Integer.parseInt(Files.readSymbolicLink(Paths.get("/proc/self")).toString()),
+				interval, Runtime.getRuntime().availableProcessors());
+	}
+
+	ProcessTreeSampler(Path proc, int rootPid, Duration interval, int processors) {
+		this.proc = proc;
+		this.rootPid = rootPid;
+		this.interval = interval;
+		this.processors = processors;
+	}
+
+	/**
+	 * Returns the interval at which process tree sampling has been configured in the
+	 * environment.
+	 * @return the sampling interval or {@code null} if sampling is not enabled or
+	 * {@code /proc} is not available
+	 */
+	public static Duration intervalFromEnvironment() {
+		return intervalFromEnvironment(System.getenv(), Paths.get("/proc/self"));
+	}
+
+	static Duration intervalFromEnvironment(Map<String, String> env, Path self) {
+		if (!Boolean.parseBoolean(env.get("DEVELOCITY_PROCESS_SAMPLING")) || !Files.exists(self)) {
+			return null;
+		}
+		String name = "DEVELOCITY_PROCESS_SAMPLING_INTERVAL";
+		String value = env.get(name);
+		if (value == null || value.isEmpty()) {
+			return DEFAULT_INTERVAL;
+		}
+		try {
+			Duration interval = Duration.parse(value);
+			if (!interval.isNegative() && !interval.isZero()) {
+				return interval;
+			}
+		}
+		catch (DateTimeParseException ex) {
+			// Fall through
+		}
+		throw new IllegalStateException(
+				"Value '" + value + "' of environment variable " + name + " is not a valid ISO-8601 duration");
+	}
+
+	/**
+	 * Starts sampling. Samples are taken until the sampler is {@link #stop() stopped}.
+	 */
+	public synchronized void start() {
+		if (this.thread != null) {
+			return;
+		}
+		this.thread = new Thread(this::run, "develocity-conventions-process-sampler");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	private void run() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				sample(System.currentTimeMillis());
+				Thread.sleep(this.interval.toMillis());
+			}
+		}
+		catch (InterruptedException ex) {
+			// Stopped
+		}
+	}
+
+	/**
+	 * Stops sampling, waiting for any sample that is being taken to complete.
+	 */
+	public void stop() {
+		Thread thread;
+		synchronized (this) {
+			thread = this.thread;
+		}
+		if (thread == null || !thread.isAlive()) {
+			return;
+		}
+		thread.interrupt();
+		try {
+			thread.join(this.interval.toMillis() + 1000);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	synchronized void sample(long time) {
+		Map<Integer, List<Integer>> children = new HashMap<>();
+		Map<Integer, Long> cpuTicks = new HashMap<>();
+		try (DirectoryStream<Path> processes = Files.newDirectoryStream(this.proc, "[0-9]*")) {
+			for (Path process : processes) {
+				readStat(process, children, cpuTicks);
+			}
+		}
+		catch (IOException ex) {
+			return;
+		}
+		long[] rss = new long[Role.values().length];
+		long ticks = 0;
+		Map<Integer, Role> roles = new HashMap<>();
+		Map<Integer, Long> treeCpuTicks = new HashMap<>();
+		Deque<Integer> tree = new ArrayDeque<>(Collections.singleton(this.rootPid));
+		while (!tree.isEmpty()) {
+			int pid = tree.pop();
+			tree.addAll(children.getOrDefault(pid, Collections.emptyList()));
+			Role role = this.roles.containsKey(pid) ? this.roles.get(pid) : role(pid);
+			roles.put(pid, role);
+			long processRss = readRss(pid);
+			rss[role.ordinal()] += processRss;
+			this.peakRss.merge(role, processRss, Math::max);
+			long processCpuTicks = cpuTicks.getOrDefault(pid, 0L);
+			treeCpuTicks.put(pid, processCpuTicks);
+			ticks += processCpuTicks - this.previousCpuTicks.getOrDefault(pid, 0L);
+		}
+		this.roles.clear();
+		this.roles.putAll(roles);
+		int utilization = -1;
+		if (this.previousSampleTime >= 0 && time > this.previousSampleTime) {
+			double cpuSeconds = (double) ticks / CLOCK_TICKS_PER_SECOND;
+			double availableSeconds = (time - this.previousSampleTime) / 1000.0 * this.processors;
+			utilization = (int) Math.min(Math.round(cpuSeconds * 100 / availableSeconds), 100);
+			this.utilizationTotal += utilization;
+			this.utilizationCount++;
+		}
+		if (this.firstSampleTime < 0) {
+			this.firstSampleTime = time;
+		}
+		this.previousSampleTime = time;
+		this.previousCpuTicks = treeCpuTicks;
+		record(new Sample(time - this.firstSampleTime, utilization, rss));
+	}
+
+	private void readStat(Path process, Map<Integer, List<Integer>> children, Map<Integer, Long> cpuTicks) {
+		try {
+			String stat = new String(Files.readAllBytes(process.resolve("stat")), StandardCharsets.UTF_8);
+			// The command in parentheses may contain spaces so parse from its end
+			String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+			int pid = Integer.parseInt(process.getFileName().toString());
+			children.computeIfAbsent(Integer.parseInt(fields[1]), (ppid) -> new ArrayList<>()).add(pid);
+			cpuTicks.put(pid, Long.parseLong(fields[11]) + Long.parseLong(fields[12]));
+		}
+		catch (IOException | RuntimeException ex) {
+			// Process has exited or is inaccessible
+		}
+	}
+
+	private Role role(int pid) {
+		if (pid == this.rootPid) {
+			return Role.BUILD;
+		}
+		try {
+			byte[] bytes = Files.readAllBytes(this.proc.resolve(Integer.toString(pid)).resolve("cmdline"));
+			return Role.forCommandLine(new String(bytes, StandardCharsets.UTF_8).replace('\0', ' '));
+		}
+		catch (IOException ex) {
+			return Role.OTHER;
+		}
+	}
+
+	private long readRss(int pid) {
+		try {
+			for (String line : Files.readAllLines(this.proc.resolve(Integer.toString(pid)).resolve("status"))) {
+				if (line.startsWith("VmRSS:")) {
+					return Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024;
+				}
+			}
+		}
+		catch (IOException | RuntimeException ex) {
+			// Process has exited or is inaccessible
+		}
+		return 0;
+	}
+
+	private void record(Sample sample) {
+		if (this.sampleCount++ % this.timelineStride != 0) {
+			return;
+		}
+		this.timeline.add(sample);
+		if (this.timeline.size() == MAX_TIMELINE_SIZE) {
+			for (int i = 0; i < MAX_TIMELINE_SIZE / 2; i++) {
+				this.timeline.set(i, this.timeline.get(i * 2));
+			}
+			this.timeline.subList(MAX_TIMELINE_SIZE / 2, MAX_TIMELINE_SIZE).clear();
+			this.timelineStride *= 2;
+		}
+	}
+
+	/**
+	 * Returns the peak resident set size, in bytes, of any process with the given
+	 * {@code role}.
+	 * @param role the role
+	 * @return the peak resident set size or {@code 0} if no process with the role was
+	 * sampled
+	 */
+	public synchronized long getPeakRss(Role role) {
+		return this.peakRss.getOrDefault(role, 0L);
+	}
+
+	/**
+	 * Returns the average CPU utilization as a percentage of the available processors.
+	 * @return the average utilization or {@code -1} if fewer than two samples were taken
+	 */
+	public synchronized int getAverageUtilization() {
+		return (this.utilizationCount > 0) ? (int) Math.round(this.utilizationTotal / this.utilizationCount) : -1;
+	}
+
+	/**
+	 * Stops sampling and publishes the peak resident set size of each role of process
+	 * and the average CPU utilization as values in the given {@code buildScan}.
+	 * @param buildScan the build scan
+	 */
+	public void publish(ConfigurableBuildScan buildScan) {
+		stop();
+		for (Role role : Role.values()) {
+			long peak = getPeakRss(role);
+			if (peak > 0) {
+				buildScan.value("Peak RSS (" + role.getDisplayName() + ")", Sizes.format(peak));
+			}
+		}
+		int utilization = getAverageUtilization();
+		if (utilization >= 0) {
+			buildScan.value("Average CPU utilization", utilization + "%");
+		}
+	}
+
+	/**
+	 * Stops sampling and writes the timeline of samples as CSV to the given
+	 * {@code file}. Each row contains the time, in milliseconds, since the first sample,
+	 * the CPU utilization, and the total resident set size, in kilobytes, of each role of
+	 * process.
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeTimeline(Path file) throws IOException {
+		stop();
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("time,cpu");
+			for (Role role : Role.values()) {
+				writer.write("," + role.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+			}
+			writer.write("\n");
+			synchronized (this) {
+				for (Sample sample : this.timeline) {
+					writer.write(sample.time + "," + ((sample.utilization >= 0) ? sample.utilization : ""));
+					for (long rss : sample.rss) {
+						writer.write("," + (rss / 1024));
+					}
+					writer.write("\n");
+				}
+			}
+		}
+	}
+
+	/**
+	 * The role of a process in the build's process tree.
+	 */
+	public enum Role {
+
+		/**
+		 * The process running the build, such as the Gradle daemon or the Maven JVM.
+		 */
+		BUILD("Build JVM"),
+
+		/**
+		 * A Gradle worker daemon.
+		 */
+		GRADLE_WORKER("Gradle worker"),
+
+		/**
+		 * A forked test JVM.
+		 */
+		TEST_JVM("Test JVM"),
+
+		/**
+		 * The Kotlin compile daemon.
+		 */
+		KOTLIN_DAEMON("Kotlin daemon"),
+
+		/**
+		 * Any other process.
+		 */
+		OTHER("Other");
+
+		private final String displayName;
+
+		Role(String displayName) {
+			this.displayName = displayName;
+		}
+
+		/**
+		 * Returns the name of the role for display in a build scan.
+		 * @return the display name
+		 */
+		public String getDisplayName() {
+			return this.displayName;
+		}
+
+		static Role forCommandLine(String commandLine) {
+			if (commandLine.contains("KotlinCompileDaemon")) {
+				return KOTLIN_DAEMON;
+			}
+			if (commandLine.contains("Gradle Test Executor") || commandLine.contains("surefirebooter")
+					|| commandLine.contains("ForkedBooter")) {
+				return TEST_JVM;
+			}
+			if (commandLine.contains("GradleWorkerMain") || commandLine.contains("GradleDaemon")) {
+				return GRADLE_WORKER;
+			}
+			return OTHER;
+		}
+
+	}
+
+	private static final class Sample {
+
+		private final long time;
+
+		private final int utilization;
+
+		private final long[] rss;
+
+		private Sample(long time, int utilization, long[] rss) {
+			this.time = time;
+			this.utilization = utilization;
+			this.rss = rss;
+		}
+
+	}
+
+}
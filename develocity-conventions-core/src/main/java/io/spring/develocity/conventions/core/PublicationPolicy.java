@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.spring.develocity.conventions.core.ConfigurableBuildScan.PublicationContext;
+
+/**
+ * Policy that decides whether a build scan should be published. Build scans of builds
+ * that have failed or that are running on CI are always published. Build scans of other
+ * builds are published when the build took at least the duration threshold or when the
+ * build has been sampled. The duration of a build is measured from its start time as
+ * reported by the build tool. A build is sampled at random when its publication is
+ * decided.
+ *
+ * @author Andy Wilkinson
+ */
+public class PublicationPolicy {
+
+	private final int samplePercentage;
+
+	private final Duration durationThreshold;
+
+	private final boolean ci;
+
+	private final Clock clock;
+
+	PublicationPolicy(int samplePercentage, Duration durationThreshold, boolean ci, Clock clock) {
+		this.samplePercentage = samplePercentage;
+		this.durationThreshold = durationThreshold;
+		this.ci = ci;
+		this.clock = clock;
+	}
+
+	/**
+	 * Returns the {@code PublicationPolicy} that has been configured in the environment.
+	 * A policy is configured by setting {@code DEVELOCITY_PUBLISH_SAMPLE_PERCENTAGE} to
+	 * the percentage of builds that should be sampled or by setting
+	 * {@code DEVELOCITY_PUBLISH_DURATION_THRESHOLD} to the ISO-8601 duration above which a
+	 * build should be published. When only a duration threshold is configured, no builds
+	 * are sampled.
+	 * @param env the environment
+	 * @return the policy or {@code null} if no policy has been configured
+	 */
+	public static PublicationPolicy fromEnvironment(Map<String, String> env) {
+		String samplePercentage = env.get("DEVELOCITY_PUBLISH_SAMPLE_PERCENTAGE");
+		String durationThreshold = env.get("DEVELOCITY_PUBLISH_DURATION_THRESHOLD");
+		if (!hasText(samplePercentage) && !hasText(durationThreshold)) {
+			return null;
+		}
+		ContinuousIntegration ci = ContinuousIntegration.detect(env);
+		try {
+			return new PublicationPolicy(hasText(samplePercentage) ? Integer.parseInt(samplePercentage) : 0,
+					hasText(durationThreshold) ? Duration.parse(durationThreshold) : null, ci != null,
+					Clock.systemUTC());
+		}
+		catch (NumberFormatException | DateTimeParseException ex) {
+			throw new IllegalStateException("Build scan publication policy configuration is invalid", ex);
+		}
+	}
+
+	/**
+	 * Returns whether the build scan should be published in the given {@code context}.
+	 * @param context the publication context
+	 * @return {@code true} if the build scan should be published, otherwise {@code false}
+	 */
+	public boolean shouldPublish(PublicationContext context) {
+		return this.ci || context.hasFailed() || exceedsDurationThreshold(context.getBuildStartTime()) || isSampled();
+	}
+
+	private boolean exceedsDurationThreshold(Instant buildStartTime) {
+		return this.durationThreshold != null && buildStartTime != null
+				&& Duration.between(buildStartTime, this.clock.instant()).compareTo(this.durationThreshold) >= 0;
+	}
+
+	private boolean isSampled() {
+		return ThreadLocalRandom.current().nextInt(100) < this.samplePercentage;
+	}
+
+	private static boolean hasText(String string) {
+		return string != null && string.length() > 0;
+	}
+
+}
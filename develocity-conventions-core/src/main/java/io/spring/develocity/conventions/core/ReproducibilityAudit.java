@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An audit of the reproducibility of tasks, performed by comparing the
+ * {@link TaskFingerprint TaskFingerprints} of two builds that executed the same tasks. A
+ * task is not reproducible when its inputs were the same in both builds but its outputs
+ * were not. As the outputs of such a task change the inputs of the tasks that consume
+ * them, non-reproducible tasks are ranked by the number of tasks that are downstream of
+ * them.
+ *
+ * @author Andy Wilkinson
+ */
+public class ReproducibilityAudit {
+
+	private final List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * Creates a new {@code ReproducibilityAudit}.
+	 * @param first the fingerprints of the first build
+	 * @param second the fingerprints of the second build
+	 */
+	public ReproducibilityAudit(List<TaskFingerprint> first, List<TaskFingerprint> second) {
+		Map<String, TaskFingerprint> firstByPath = new HashMap<>();
+		for (TaskFingerprint fingerprint : first) {
+			firstByPath.put(fingerprint.getPath(), fingerprint);
+		}
+		Map<String, Set<TaskFingerprint>> consumers = consumers(second);
+		for (TaskFingerprint fingerprint : second) {
+			TaskFingerprint previous = firstByPath.get(fingerprint.getPath());
+			if (previous != null && isNotReproducible(previous, fingerprint)) {
+				this.entries.add(new Entry(fingerprint.getPath(), differences(previous, fingerprint),
+						downstreamTasks(fingerprint, consumers)));
+			}
+		}
+		this.entries.sort(Comparator.comparingInt(Entry::getDownstreamTasks)
+			.reversed()
+			.thenComparing(Entry::getPath));
+	}
+
+	private Map<String, Set<TaskFingerprint>> consumers(List<TaskFingerprint> fingerprints) {
+		Map<String, Set<TaskFingerprint>> consumers = new HashMap<>();
+		for (TaskFingerprint fingerprint : fingerprints) {
+			for (String file : fingerprint.getFiles().keySet()) {
+				consumers.computeIfAbsent(file, (key) -> new HashSet<>()).add(fingerprint);
+			}
+		}
+		return consumers;
+	}
+
+	private boolean isNotReproducible(TaskFingerprint first, TaskFingerprint second) {
+		return first.isExecuted() && second.isExecuted() && first.getProperties().equals(second.getProperties())
+				&& first.getFiles().equals(second.getFiles()) && !first.getOutputs().equals(second.getOutputs());
+	}
+
+	private List<String> differences(TaskFingerprint first, TaskFingerprint second) {
+		Set<String> files = new TreeSet<>(first.getOutputs().keySet());
+		files.addAll(second.getOutputs().keySet());
+		List<String> differences = new ArrayList<>();
+		for (String file : files) {
+			if (!String.valueOf(first.getOutputs().get(file)).equals(second.getOutputs().get(file))) {
+				differences.add(file);
+			}
+		}
+		return differences;
+	}
+
+	private int downstreamTasks(TaskFingerprint fingerprint, Map<String, Set<TaskFingerprint>> consumers) {
+		Set<String> downstream = new HashSet<>();
+		Deque<TaskFingerprint> queue = new ArrayDeque<>();
+		queue.add(fingerprint);
+		while (!queue.isEmpty()) {
+			for (String output : queue.remove().getOutputs().keySet()) {
+				for (TaskFingerprint consumer : consumers.getOrDefault(output, Collections.emptySet())) {
+					if (!consumer.getPath().equals(fingerprint.getPath()) && downstream.add(consumer.getPath())) {
+						queue.add(consumer);
+					}
+				}
+			}
+		}
+		return downstream.size();
+	}
+
+	/**
+	 * Returns the entries for the tasks that are not reproducible, ranked by the number
+	 * of tasks that are downstream of them.
+	 * @return the entries
+	 */
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(this.entries);
+	}
+
+	/**
+	 * Writes a report of the audit to the given {@code writer}.
+	 * @param writer the writer
+	 */
+	public void report(PrintWriter writer) {
+		writer.println(this.entries.size() + " tasks are not reproducible, ranked by downstream impact:");
+		for (Entry entry : this.entries) {
+			writer.println();
+			writer.println(entry.getPath() + " (" + entry.getDownstreamTasks() + " downstream tasks)");
+			for (String file : entry.getFiles()) {
+				writer.println("  " + file);
+			}
+		}
+		writer.flush();
+	}
+
+	@Override
+	public String toString() {
+		StringWriter report = new StringWriter();
+		report(new PrintWriter(report));
+		return report.toString();
+	}
+
+	/**
+	 * An entry in the audit for a task that is not reproducible.
+	 */
+	public static final class Entry {
+
+		private final String path;
+
+		private final List<String> files;
+
+		private final int downstreamTasks;
+
+		private Entry(String path, List<String> files, int downstreamTasks) {
+			this.path = path;
+			this.files = Collections.unmodifiableList(files);
+			this.downstreamTasks = downstreamTasks;
+		}
+
+		public String getPath() {
+			return this.path;
+		}
+
+		/**
+		 * Returns the normalized paths of the output files that differed between the two
+		 * builds.
+		 * @return the paths of the differing output files
+		 */
+		public List<String> getFiles() {
+			return this.files;
+		}
+
+		public int getDownstreamTasks() {
+			return this.downstreamTasks;
+		}
+
+	}
+
+}
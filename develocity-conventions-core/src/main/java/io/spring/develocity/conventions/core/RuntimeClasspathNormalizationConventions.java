@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Conventions that are applied to runtime classpath normalization. Files and manifest
+ * attributes that change with every commit, without affecting the behavior of the code
+ * on the classpath, are ignored so that they do not invalidate the cache keys of tasks
+ * and goals such as those that run tests.
+ * <p>
+ * The conventions are enabled by setting the
+ * {@code spring.runtime-classpath-normalization.enabled} property to {@code true}. The
+ * comma-separated {@code spring.runtime-classpath-normalization.ignored-files} and
+ * {@code spring.runtime-classpath-normalization.ignored-manifest-attributes} properties
+ * replace the defaults.
+ *
+ * @author Andy Wilkinson
+ */
+public class RuntimeClasspathNormalizationConventions {
+
+	private static final String PROPERTY_PREFIX = "spring.runtime-classpath-normalization.";
+
+	private static final List<String> DEFAULT_IGNORED_FILES = Arrays.asList("META-INF/build-info.properties",
+			"git.properties");
+
+	private static final List<String> DEFAULT_IGNORED_MANIFEST_ATTRIBUTES = Arrays.asList("Build-Time",
+			"Build-Revision");
+
+	private final Function<String, String> properties;
+
+	/**
+	 * Creates a new {@code RuntimeClasspathNormalizationConventions} that will use the
+	 * given {@code properties} to look up its configuration.
+	 * @param properties function that returns the value of a property or {@code null}
+	 */
+	public RuntimeClasspathNormalizationConventions(Function<String, String> properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Returns whether the conventions have been enabled.
+	 * @return {@code true} if enabled, otherwise {@code false}
+	 */
+	public boolean isEnabled() {
+		return Boolean.parseBoolean(this.properties.apply(PROPERTY_PREFIX + "enabled"));
+	}
+
+	/**
+	 * Applies the conventions to the given {@code normalization}.
+	 * @param normalization the normalization to configure
+	 */
+	public void execute(ConfigurableRuntimeClasspathNormalization normalization) {
+		normalization.ignoreFiles(listProperty("ignored-files", DEFAULT_IGNORED_FILES));
+		normalization
+			.ignoreManifestAttributes(listProperty("ignored-manifest-attributes", DEFAULT_IGNORED_MANIFEST_ATTRIBUTES));
+	}
+
+	private List<String> listProperty(String name, List<String> defaultValue) {
+		String value = this.properties.apply(PROPERTY_PREFIX + name);
+		if (value == null) {
+			return defaultValue;
+		}
+		List<String> values = new ArrayList<>();
+		for (String candidate : value.split(",")) {
+			String trimmed = candidate.trim();
+			if (!trimmed.isEmpty()) {
+				values.add(trimmed);
+			}
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks whether a server is available by opening a connection to it. A check takes at
+ * most two seconds. It is intended to be made when the build has finished, immediately
+ * before a build scan would be published, so that its result reflects the server's
+ * availability at that time rather than when the build was configured.
+ *
+ * @author Andy Wilkinson
+ */
+public final class ServerAvailability {
+
+	private static final int TIMEOUT = (int) TimeUnit.SECONDS.toMillis(2);
+
+	private ServerAvailability() {
+	}
+
+	/**
+	 * Checks whether the server with the given {@code url} is available.
+	 * @param url the URL of the server
+	 * @return {@code true} if a connection to the server could be opened, otherwise
+	 * {@code false}
+	 */
+	public static boolean isAvailable(String url) {
+		try (Socket socket = new Socket()) {
+			URI uri = URI.create(url);
+			int port = (uri.getPort() != -1) ? uri.getPort() : ("http".equals(uri.getScheme()) ? 80 : 443);
+			socket.connect(new InetSocketAddress(uri.getHost(), port), TIMEOUT);
+			return true;
+		}
+		catch (IOException | RuntimeException ex) {
+			return false;
+		}
+	}
+
+}
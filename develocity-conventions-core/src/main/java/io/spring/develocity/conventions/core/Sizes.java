@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Locale;
+
+/**
+ * Formatting of sizes, in bytes, for build scan values.
+ *
+ * @author Andy Wilkinson
+ */
+final class Sizes {
+
+	private Sizes() {
+	}
+
+	/**
+	 * Formats the given {@code size} in bytes, kilobytes, or megabytes, whichever is the
+	 * largest unit in which the size is at least one.
+	 * @param size the size in bytes
+	 * @return the formatted size
+	 */
+	static String format(long size) {
+		if (size < 1024) {
+			return size + " B";
+		}
+		if (size < 1024 * 1024) {
+			return String.format(Locale.ROOT, "%.1f KB", size / 1024.0);
+		}
+		return String.format(Locale.ROOT, "%.1f MB", size / (1024.0 * 1024.0));
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A fingerprint of the inputs and outputs of a task or goal, recorded to help diagnose
+ * why its outputs were not loaded from the build cache.
+ *
+ * @author Andy Wilkinson
+ */
+public final class TaskFingerprint {
+
+	/**
+	 * Outcome of a task or goal that was executed.
+	 */
+	public static final String EXECUTED = "EXECUTED";
+
+	private final String path;
+
+	private final String outcome;
+
+	private final long duration;
+
+	private final SortedMap<String, String> properties;
+
+	private final SortedMap<String, String> files;
+
+	private final SortedMap<String, String> outputs;
+
+	/**
+	 * Creates a new {@code TaskFingerprint}.
+	 * @param path the path of the task or goal
+	 * @param outcome the outcome of the task or goal
+	 * @param duration the duration, in milliseconds, of the task or goal
+	 * @param properties the hashes of the input properties, keyed by name
+	 * @param files the hashes of the input files, keyed by normalized path
+	 */
+	public TaskFingerprint(String path, String outcome, long duration, Map<String, String> properties,
+			Map<String, String> files) {
+		this(path, outcome, duration, properties, files, Collections.emptyMap());
+	}
+
+	/**
+	 * Creates a new {@code TaskFingerprint}.
+	 * @param path the path of the task or goal
+	 * @param outcome the outcome of the task or goal
+	 * @param duration the duration, in milliseconds, of the task or goal
+	 * @param properties the hashes of the input properties, keyed by name
+	 * @param files the hashes of the input files, keyed by normalized path
+	 * @param outputs the hashes of the output files, keyed by normalized path
+	 */
+	public TaskFingerprint(String path, String outcome, long duration, Map<String, String> properties,
+			Map<String, String> files, Map<String, String> outputs) {
+		this.path = path;
+		this.outcome = outcome;
+		this.duration = duration;
+		this.properties = Collections.unmodifiableSortedMap(new TreeMap<>(properties));
+		this.files = Collections.unmodifiableSortedMap(new TreeMap<>(files));
+		this.outputs = Collections.unmodifiableSortedMap(new TreeMap<>(outputs));
+	}
+
+	public String getPath() {
+		return this.path;
+	}
+
+	public String getOutcome() {
+		return this.outcome;
+	}
+
+	public long getDuration() {
+		return this.duration;
+	}
+
+	public SortedMap<String, String> getProperties() {
+		return this.properties;
+	}
+
+	public SortedMap<String, String> getFiles() {
+		return this.files;
+	}
+
+	public SortedMap<String, String> getOutputs() {
+		return this.outputs;
+	}
+
+	boolean isExecuted() {
+		return EXECUTED.equals(this.outcome);
+	}
+
+}
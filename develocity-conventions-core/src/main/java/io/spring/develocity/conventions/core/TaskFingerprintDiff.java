@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeSet;
+
+/**
+ * A diff of the {@link TaskFingerprint TaskFingerprints} of two builds. Tasks that were
+ * executed in the current build are ranked by their execution time, the time that was
+ * wasted by not loading their outputs from the build cache, and the differences between
+ * their inputs and those in the baseline build are described.
+ *
+ * @author Andy Wilkinson
+ */
+public class TaskFingerprintDiff {
+
+	private static final int MAX_DIFFERENCES = 10;
+
+	private final List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * Creates a new {@code TaskFingerprintDiff}.
+	 * @param baseline the fingerprints of the baseline build
+	 * @param current the fingerprints of the current build
+	 */
+	public TaskFingerprintDiff(List<TaskFingerprint> baseline, List<TaskFingerprint> current) {
+		Map<String, TaskFingerprint> baselineByPath = new HashMap<>();
+		for (TaskFingerprint fingerprint : baseline) {
+			baselineByPath.put(fingerprint.getPath(), fingerprint);
+		}
+		for (TaskFingerprint fingerprint : current) {
+			if (fingerprint.isExecuted()) {
+				this.entries.add(new Entry(fingerprint, baselineByPath.get(fingerprint.getPath())));
+			}
+		}
+		this.entries.sort(Comparator.comparingLong(Entry::getDuration).reversed());
+	}
+
+	/**
+	 * Returns the entries for the tasks that were executed in the current build, ranked
+	 * by their execution time.
+	 * @return the entries
+	 */
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(this.entries);
+	}
+
+	/**
+	 * Writes a report of the diff to the given {@code writer}.
+	 * @param writer the writer
+	 */
+	public void report(PrintWriter writer) {
+		long total = this.entries.stream().mapToLong(Entry::getDuration).sum();
+		writer.println(this.entries.size() + " tasks were executed in " + format(total)
+				+ ", ranked by execution time:");
+		for (Entry entry : this.entries) {
+			writer.println();
+			writer.println(entry.getPath() + " (" + format(entry.getDuration()) + ")");
+			List<String> differences = entry.getDifferences();
+			for (int i = 0; i < Math.min(differences.size(), MAX_DIFFERENCES); i++) {
+				writer.println("  " + differences.get(i));
+			}
+			if (differences.size() > MAX_DIFFERENCES) {
+				writer.println("  ... and " + (differences.size() - MAX_DIFFERENCES) + " more");
+			}
+		}
+		writer.flush();
+	}
+
+	@Override
+	public String toString() {
+		StringWriter report = new StringWriter();
+		report(new PrintWriter(report));
+		return report.toString();
+	}
+
+	private static String format(long millis) {
+		return String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+	}
+
+	/**
+	 * Diffs the fingerprint files of two builds and writes a report to standard out.
+	 * @param args the paths of the baseline and current fingerprint files
+	 * @throws IOException if a fingerprint file cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: " + TaskFingerprintDiff.class.getName() + " <baseline> <current>");
+			System.exit(1);
+		}
+		List<TaskFingerprint> baseline = new TaskFingerprintFile(Paths.get(args[0])).read();
+		List<TaskFingerprint> current = new TaskFingerprintFile(Paths.get(args[1])).read();
+		new TaskFingerprintDiff(baseline, current).report(new PrintWriter(System.out));
+	}
+
+	/**
+	 * An entry in the diff for a task that was executed in the current build.
+	 */
+	public static final class Entry {
+
+		private final String path;
+
+		private final long duration;
+
+		private final List<String> differences = new ArrayList<>();
+
+		private Entry(TaskFingerprint current, TaskFingerprint baseline) {
+			this.path = current.getPath();
+			this.duration = current.getDuration();
+			if (baseline == null) {
+				this.differences.add("not present in the baseline");
+			}
+			else if (!baseline.isExecuted()) {
+				this.differences.add("not executed in the baseline (" + baseline.getOutcome() + ")");
+			}
+			else {
+				diff("property", baseline.getProperties(), current.getProperties());
+				diff("file", baseline.getFiles(), current.getFiles());
+				if (this.differences.isEmpty()) {
+					this.differences.add("inputs are identical to the baseline");
+				}
+			}
+		}
+
+		private void diff(String type, SortedMap<String, String> baseline, SortedMap<String, String> current) {
+			TreeSet<String> names = new TreeSet<>(baseline.keySet());
+			names.addAll(current.keySet());
+			for (String name : names) {
+				String baselineHash = baseline.get(name);
+				String currentHash = current.get(name);
+				if (baselineHash == null) {
+					this.differences.add(type + " '" + name + "' was added");
+				}
+				else if (currentHash == null) {
+					this.differences.add(type + " '" + name + "' was removed");
+				}
+				else if (!baselineHash.equals(currentHash)) {
+					this.differences.add(type + " '" + name + "' has changed");
+				}
+			}
+		}
+
+		public String getPath() {
+			return this.path;
+		}
+
+		public long getDuration() {
+			return this.duration;
+		}
+
+		public List<String> getDifferences() {
+			return Collections.unmodifiableList(this.differences);
+		}
+
+	}
+
+}
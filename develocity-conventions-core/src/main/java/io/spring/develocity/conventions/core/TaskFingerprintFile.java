@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A file of {@link TaskFingerprint TaskFingerprints}. Each fingerprint is appended as a
+ * separate gzip member so that the file can be written as tasks complete and remains
+ * readable if a build ends abruptly. Within a member, a fingerprint is a
+ * tab-separated {@code task} line followed by a {@code property} line for each input
+ * property, a {@code file} line for each input file, and an {@code output} line for each
+ * output file.
+ *
+ * @author Andy Wilkinson
+ */
+public class TaskFingerprintFile {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Path path;
+
+	public TaskFingerprintFile(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Returns the path of the file.
+	 * @return the path
+	 */
+	public Path getPath() {
+		return this.path;
+	}
+
+	/**
+	 * Deletes the file, if it exists, so that a new build can append to it.
+	 * @throws IOException if the file cannot be deleted
+	 */
+	public void reset() throws IOException {
+		Files.deleteIfExists(this.path);
+	}
+
+	/**
+	 * Appends the given {@code fingerprint} to the file.
+	 * @param fingerprint the fingerprint to append
+	 * @throws IOException if the fingerprint cannot be appended
+	 */
+	public synchronized void append(TaskFingerprint fingerprint) throws IOException {
+		Files.createDirectories(this.path.toAbsolutePath().getParent());
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new GZIPOutputStream(new FileOutputStream(this.path.toFile(), true)), StandardCharsets.UTF_8))) {
+			writer.write("task\t" + fingerprint.getPath() + "\t" + fingerprint.getOutcome() + "\t"
+					+ fingerprint.getDuration() + "\n");
+			for (Map.Entry<String, String> property : fingerprint.getProperties().entrySet()) {
+				writer.write("property\t" + property.getKey() + "\t" + property.getValue() + "\n");
+			}
+			for (Map.Entry<String, String> file : fingerprint.getFiles().entrySet()) {
+				writer.write("file\t" + file.getKey() + "\t" + file.getValue() + "\n");
+			}
+			for (Map.Entry<String, String> output : fingerprint.getOutputs().entrySet()) {
+				writer.write("output\t" + output.getKey() + "\t" + output.getValue() + "\n");
+			}
+		}
+	}
+
+	/**
+	 * Reads the fingerprints in the file.
+	 * @return the fingerprints
+	 * @throws IOException if the file cannot be read
+	 */
+	public List<TaskFingerprint> read() throws IOException {
+		List<TaskFingerprint> fingerprints = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(this.path)), StandardCharsets.UTF_8))) {
+			String[] task = null;
+			Map<String, String> properties = new LinkedHashMap<>();
+			Map<String, String> files = new LinkedHashMap<>();
+			Map<String, String> outputs = new LinkedHashMap<>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] components = line.split("\t");
+				if ("task".equals(components[0])) {
+					if (task != null) {
+						fingerprints.add(fingerprint(task, properties, files, outputs));
+						properties.clear();
+						files.clear();
+						outputs.clear();
+					}
+					task = components;
+				}
+				else if ("property".equals(components[0])) {
+					properties.put(components[1], components[2]);
+				}
+				else if ("file".equals(components[0])) {
+					files.put(components[1], components[2]);
+				}
+				else if ("output".equals(components[0])) {
+					outputs.put(components[1], components[2]);
+				}
+			}
+			if (task != null) {
+				fingerprints.add(fingerprint(task, properties, files, outputs));
+			}
+		}
+		return fingerprints;
+	}
+
+	private TaskFingerprint fingerprint(String[] task, Map<String, String> properties, Map<String, String> files,
+			Map<String, String> outputs) {
+		return new TaskFingerprint(task[1], task[2], Long.parseLong(task[3]), properties, files, outputs);
+	}
+
+	/**
+	 * Returns a hash of the given {@code value}.
+	 * @param value the value to hash
+	 * @return the hash
+	 */
+	public static String hash(String value) {
+		return hash(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static String hash(byte[] bytes) {
+		MessageDigest digest = md5();
+		return hex(digest.digest(bytes));
+	}
+
+	static MessageDigest md5() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	static String hex(byte[] bytes) {
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			hex[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX[bytes[i] & 0xf];
+		}
+		return new String(hex);
+	}
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A report of the tasks that were realized during configuration compared with the tasks
+ * that were scheduled for execution. A task that was realized but not scheduled was
+ * realized eagerly, typically by using {@code create}, {@code getByName}, or {@code all}
+ * rather than {@code register}, {@code named}, or {@code configureEach}. Each
+ * realization is attributed to the plugin or script that triggered it, identified as the
+ * first frame of the realization's stack trace that does not belong to Gradle, Groovy,
+ * Kotlin, or the JDK. Gradle's Kotlin DSL script classes are not considered to belong to
+ * Gradle. An {@code eager-task-realization} tag is added when the ratio of
+ * realized to scheduled tasks exceeds a threshold, 2 by default.
+ *
+ * @author Andy Wilkinson
+ */
+public class TaskRealizationReport {
+
+	private static final int DEFAULT_LIMIT = 5;
+
+	private static final double DEFAULT_RATIO_THRESHOLD = 2;
+
+	private static final List<String> FRAMEWORK_PACKAGES = Arrays.asList("java.", "javax.", "jdk.", "sun.",
+			"com.sun.", "groovy.", "org.codehaus.groovy.", "org.apache.groovy.", "kotlin.", "org.gradle.",
+			"io.spring.develocity.conventions.");
+
+	private final Map<String, String> realized = new LinkedHashMap<>();
+
+	private final double ratioThreshold;
+
+	private final int limit;
+
+	private Set<String> scheduled;
+
+	/**
+	 * Creates a new {@code TaskRealizationReport} that publishes the 5 plugins or scripts
+	 * that eagerly realized the most tasks.
+	 */
+	public TaskRealizationReport() {
+		this(System.getenv(), DEFAULT_LIMIT);
+	}
+
+	TaskRealizationReport(Map<String, String> env, int limit) {
+		this.ratioThreshold = ratioThreshold(env);
+		this.limit = limit;
+	}
+
+	private static double ratioThreshold(Map<String, String> env) {
+		String name = "DEVELOCITY_EAGER_TASK_RATIO_THRESHOLD";
+		String value = env.get(name);
+		if (value == null || value.isEmpty()) {
+			return DEFAULT_RATIO_THRESHOLD;
+		}
+		try {
+			double threshold = Double.parseDouble(value);
+			if (threshold >= 1) {
+				return threshold;
+			}
+		}
+		catch (NumberFormatException ex) {
+			// Fall through
+		}
+		throw new IllegalStateException(
+				"Value '" + value + "' of environment variable " + name + " is not a valid ratio");
+	}
+
+	/**
+	 * Records the realization of a task. Realizations that occur once the scheduled tasks
+	 * have been recorded are ignored.
+	 * @param path the path of the task
+	 * @param stackTrace the stack trace of the realization
+	 */
+	public synchronized void taskRealized(String path, StackTraceElement[] stackTrace) {
+		if (this.scheduled == null) {
+			this.realized.put(path, trigger(stackTrace));
+		}
+	}
+
+	/**
+	 * Records the tasks that have been scheduled for execution.
+	 * @param paths the paths of the scheduled tasks
+	 */
+	public synchronized void tasksScheduled(Collection<String> paths) {
+		this.scheduled = new HashSet<>(paths);
+	}
+
+	/**
+	 * Returns the number of tasks that were realized eagerly by each plugin or script,
+	 * most first.
+	 * @return the number of eagerly realized tasks by plugin or script
+	 */
+	public synchronized Map<String, Long> getEagerRealizations() {
+		if (this.scheduled == null) {
+			return new LinkedHashMap<>();
+		}
+		Map<String, Long> counts = this.realized.entrySet()
+			.stream()
+			.filter((entry) -> !this.scheduled.contains(entry.getKey()))
+			.collect(Collectors.groupingBy(Map.Entry::getValue, Collectors.counting()));
+		return counts.entrySet()
+			.stream()
+			.sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+				.thenComparing(Map.Entry.comparingByKey()))
+			.limit(this.limit)
+			.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+	}
+
+	/**
+	 * Publishes the number of realized and scheduled tasks and the plugins or scripts
+	 * that realized the most tasks eagerly as values in the given {@code buildScan}. When
+	 * the ratio of realized to scheduled tasks exceeds the threshold, an
+	 * {@code eager-task-realization} tag is also added. Nothing is published if the
+	 * scheduled tasks have not been recorded.
+	 * @param buildScan the build scan
+	 */
+	public void publish(ConfigurableBuildScan buildScan) {
+		int realized;
+		int scheduled;
+		synchronized (this) {
+			if (this.scheduled == null) {
+				return;
+			}
+			realized = this.realized.size();
+			scheduled = this.scheduled.size();
+		}
+		buildScan.value("Tasks realized", Integer.toString(realized));
+		buildScan.value("Tasks scheduled", Integer.toString(scheduled));
+		getEagerRealizations().forEach((trigger, count) -> buildScan.value("Eager task realization",
+				trigger + " (" + count + ((count == 1) ? " task)" : " tasks)")));
+		if (scheduled > 0 && realized > scheduled * this.ratioThreshold) {
+			buildScan.tag("eager-task-realization");
+		}
+	}
+
+	static String trigger(StackTraceElement[] stackTrace) {
+		for (StackTraceElement element : stackTrace) {
+			String fileName = element.getFileName();
+			if (fileName != null && (fileName.endsWith(".gradle") || fileName.endsWith(".gradle.kts"))) {
+				return fileName;
+			}
+			String className = element.getClassName();
+			if (!isFramework(className)) {
+				int nested = className.indexOf('$');
+				className = (nested > 0) ? className.substring(0, nested) : className;
+				return className.endsWith("_Decorated")
+						? className.substring(0, className.length() - "_Decorated".length()) : className;
+			}
+		}
+		return "unknown";
+	}
+
+	private static boolean isFramework(String className) {
+		if (isKotlinDslScript(className)) {
+			return false;
+		}
+		for (String frameworkPackage : FRAMEWORK_PACKAGES) {
+			if (className.startsWith(frameworkPackage)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isKotlinDslScript(String className) {
+		if (!className.startsWith("org.gradle.kotlin.dsl.")) {
+			return false;
+		}
+		int nested = className.indexOf('$');
+		String outerClassName = (nested > 0) ? className.substring(0, nested) : className;
+		return outerClassName.endsWith("_gradle");
+	}
+
+}
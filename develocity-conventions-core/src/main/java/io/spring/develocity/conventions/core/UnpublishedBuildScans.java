@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A bounded, on-disk record of the build scans that were not published because the
+ * Develocity server was unavailable. Only the time of each build and the server are
+ * recorded, the build scan data itself is not kept. Entries are removed once they are
+ * older than the maximum age or once there are more than the maximum number of entries,
+ * oldest first. The record is drained by a later build that finds the server available
+ * again.
+ *
+ * @author Andy Wilkinson
+ */
+public class UnpublishedBuildScans {
+
+	private static final int DEFAULT_MAX_ENTRIES = 20;
+
+	private static final Duration DEFAULT_MAX_AGE = Duration.ofDays(7);
+
+	private final File directory;
+
+	private final int maxEntries;
+
+	private final Duration maxAge;
+
+	private final Clock clock;
+
+	public UnpublishedBuildScans(File directory, int maxEntries, Duration maxAge) {
+		this(directory, maxEntries, maxAge, Clock.systemUTC());
+	}
+
+	UnpublishedBuildScans(File directory, int maxEntries, Duration maxAge, Clock clock) {
+		this.directory = directory;
+		this.maxEntries = maxEntries;
+		this.maxAge = maxAge;
+		this.clock = clock;
+	}
+
+	/**
+	 * Returns the {@code UnpublishedBuildScans} that has been configured in the
+	 * environment. Recording is enabled by setting
+	 * {@code DEVELOCITY_UNPUBLISHED_SCANS_DIRECTORY}. The maximum number of entries and
+	 * their maximum age can be configured using
+	 * {@code DEVELOCITY_UNPUBLISHED_SCANS_MAX_ENTRIES} and
+	 * {@code DEVELOCITY_UNPUBLISHED_SCANS_MAX_AGE} respectively.
+	 * @param env the environment
+	 * @return the unpublished build scans or {@code null} if recording has not been
+	 * enabled
+	 */
+	public static UnpublishedBuildScans fromEnvironment(Map<String, String> env) {
+		String directory = env.get("DEVELOCITY_UNPUBLISHED_SCANS_DIRECTORY");
+		if (directory == null || directory.isEmpty()) {
+			return null;
+		}
+		String maxEntries = env.get("DEVELOCITY_UNPUBLISHED_SCANS_MAX_ENTRIES");
+		String maxAge = env.get("DEVELOCITY_UNPUBLISHED_SCANS_MAX_AGE");
+		try {
+			return new UnpublishedBuildScans(new File(directory),
+					(maxEntries != null) ? Integer.parseInt(maxEntries) : DEFAULT_MAX_ENTRIES,
+					(maxAge != null) ? Duration.parse(maxAge) : DEFAULT_MAX_AGE);
+		}
+		catch (NumberFormatException | DateTimeParseException ex) {
+			throw new IllegalStateException("Unpublished build scans configuration is invalid", ex);
+		}
+	}
+
+	/**
+	 * Records that a build scan could not be published to the given {@code server}.
+	 * @param server the server
+	 */
+	public synchronized void record(String server) {
+		try {
+			Path directory = this.directory.toPath();
+			Files.createDirectories(directory);
+			Instant now = this.clock.instant();
+			Path entry = directory.resolve(now.toEpochMilli() + "-" + UUID.randomUUID() + ".entry");
+			Files.write(entry, (now + "\n" + server + "\n").getBytes(StandardCharsets.UTF_8));
+			prune();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Returns the recorded entries, oldest first.
+	 * @return the entries
+	 */
+	public synchronized List<Entry> entries() {
+		try {
+			prune();
+			List<Entry> entries = new ArrayList<>();
+			for (Path file : entryFiles()) {
+				entries.add(read(file));
+			}
+			return entries;
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Removes and returns all of the recorded entries, oldest first.
+	 * @return the drained entries
+	 */
+	public synchronized List<Entry> drain() {
+		try {
+			List<Entry> entries = entries();
+			for (Path file : entryFiles()) {
+				Files.deleteIfExists(file);
+			}
+			return entries;
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private void prune() throws IOException {
+		List<Path> files = entryFiles();
+		Instant oldest = this.clock.instant().minus(this.maxAge);
+		int excess = files.size() - this.maxEntries;
+		for (Path file : files) {
+			if (excess > 0 || read(file).getTime().isBefore(oldest)) {
+				Files.deleteIfExists(file);
+				excess--;
+			}
+		}
+	}
+
+	private List<Path> entryFiles() throws IOException {
+		Path directory = this.directory.toPath();
+		if (!Files.isDirectory(directory)) {
+			return Collections.emptyList();
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter((file) -> file.getFileName().toString().endsWith(".entry"))
+				.sorted()
+				.collect(Collectors.toList());
+		}
+	}
+
+	private Entry read(Path file) throws IOException {
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		return new Entry(Instant.parse(lines.get(0)), lines.get(1));
+	}
+
+	/**
+	 * An entry for a build scan that was not published.
+	 */
+	public static final class Entry {
+
+		private final Instant time;
+
+		private final String server;
+
+		private Entry(Instant time, String server) {
+			this.time = time;
+			this.server = server;
+		}
+
+		public Instant getTime() {
+			return this.time;
+		}
+
+		public String getServer() {
+			return this.server;
+		}
+
+	}
+
+}
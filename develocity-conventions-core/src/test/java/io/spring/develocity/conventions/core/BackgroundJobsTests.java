@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.spring.develocity.conventions.core.BuildScanConventionsTests.TestConfigurableBuildScan;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BackgroundJobs}.
+ *
+ * @author Andy Wilkinson
+ */
+class BackgroundJobsTests {
+
+	private final TestConfigurableBuildScan buildScan = new TestConfigurableBuildScan();
+
+	@Test
+	void whenJobsCompleteWithinTheBudgetThenTheirContributionsAreApplied() {
+		BackgroundJobs jobs = new BackgroundJobs(Duration.ofSeconds(10));
+		jobs.submit("one", () -> (scan) -> scan.value("One", "1"));
+		jobs.submit("two", () -> (scan) -> scan.tag("two"));
+		jobs.apply(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("One", "1");
+		assertThat(this.buildScan.tags).containsExactly("two");
+		assertThat(this.buildScan.values).doesNotContainKey("Conventions timed out");
+	}
+
+	@Test
+	void whenJobsExceedTheBudgetThenTheyAreAbandonedAndListed() {
+		BackgroundJobs jobs = new BackgroundJobs(Duration.ofMillis(500));
+		jobs.submit("fast", () -> (scan) -> scan.value("Fast", "yes"));
+		jobs.submit("slow", () -> {
+			sleep(Duration.ofSeconds(10));
+			return (scan) -> scan.value("Slow", "yes");
+		});
+		jobs.submit("slower", () -> {
+			sleep(Duration.ofSeconds(20));
+			return (scan) -> scan.value("Slower", "yes");
+		});
+		long start = System.nanoTime();
+		jobs.apply(this.buildScan);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+		assertThat(this.buildScan.values).containsEntry("Fast", "yes");
+		assertThat(this.buildScan.values).containsEntry("Conventions timed out", "slow, slower");
+	}
+
+	@Test
+	void whenJobExceedsTheBudgetThenItIsInterrupted() throws InterruptedException {
+		BackgroundJobs jobs = new BackgroundJobs(Duration.ofMillis(200));
+		CountDownLatch interrupted = new CountDownLatch(1);
+		jobs.submit("slow", () -> {
+			try {
+				Thread.sleep(Duration.ofSeconds(20).toMillis());
+			}
+			catch (InterruptedException ex) {
+				interrupted.countDown();
+			}
+			return (scan) -> scan.value("Slow", "yes");
+		});
+		jobs.apply(this.buildScan);
+		assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.buildScan.values).containsOnlyKeys("Conventions timed out");
+	}
+
+	@Test
+	void jobsRunOnNamedDaemonThreads() {
+		BackgroundJobs jobs = new BackgroundJobs(Duration.ofSeconds(10));
+		jobs.submit("thread", () -> {
+			Thread thread = Thread.currentThread();
+			return (scan) -> scan.value("Thread", thread.getName() + " " + thread.isDaemon());
+		});
+		jobs.apply(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Thread", "develocity-conventions-background-1 true");
+	}
+
+	@Test
+	void whenJobFailsThenItsContributionIsNotAppliedAndOtherJobsAreUnaffected() {
+		BackgroundJobs jobs = new BackgroundJobs(Duration.ofSeconds(10));
+		jobs.submit("failing", () -> {
+			throw new IllegalStateException("Failed");
+		});
+		jobs.submit("working", () -> (scan) -> scan.value("Working", "yes"));
+		jobs.apply(this.buildScan);
+		assertThat(this.buildScan.values).containsOnlyKeys("Working");
+	}
+
+	private static void sleep(Duration duration) {
+		try {
+			Thread.sleep(duration.toMillis());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.spring.develocity.conventions.core.ProcessRunner.RunFailedException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BranchResolver}.
+ *
+ * @author Andy Wilkinson
+ */
+class BranchResolverTests {
+
+	private static final List<String> GIT_BRANCH = Arrays.asList("git", "rev-parse", "--abbrev-ref", "HEAD");
+
+	private final TestProcessRunner processRunner = new TestProcessRunner();
+
+	@Test
+	void whenBranchEnvVarIsPresentThenItIsUsed() {
+		this.processRunner.commandLineOutput.put(GIT_BRANCH, "main");
+		Map<String, String> env = new HashMap<>();
+		env.put("BRANCH", "1.1.x");
+		env.put("GITHUB_ACTIONS", "true");
+		env.put("GITHUB_HEAD_REF", "feature");
+		assertThat(new BranchResolver(this.processRunner, env).resolve()).isEqualTo("1.1.x");
+	}
+
+	@Test
+	void whenBuildingAPullRequestOnGitHubActionsThenHeadRefIsUsed() {
+		this.processRunner.commandLineOutput.put(GIT_BRANCH, "HEAD");
+		Map<String, String> env = new HashMap<>();
+		env.put("GITHUB_ACTIONS", "true");
+		env.put("GITHUB_HEAD_REF", "feature");
+		env.put("GITHUB_REF_TYPE", "branch");
+		env.put("GITHUB_REF_NAME", "42/merge");
+		assertThat(new BranchResolver(this.processRunner, env).resolve()).isEqualTo("feature");
+	}
+
+	@Test
+	void whenBuildingABranchOnGitHubActionsThenRefNameIsUsed() {
+		Map<String, String> env = new HashMap<>();
+		env.put("GITHUB_ACTIONS", "true");
+		env.put("GITHUB_HEAD_REF", "");
+		env.put("GITHUB_REF_TYPE", "branch");
+		env.put("GITHUB_REF_NAME", "3.4.x");
+		assertThat(new BranchResolver(this.processRunner, env).resolve()).isEqualTo("3.4.x");
+	}
+
+	@Test
+	void whenBuildingATagOnGitHubActionsThenBranchFromGitIsUsed() {
+		this.processRunner.commandLineOutput.put(GIT_BRANCH, "HEAD");
+		Map<String, String> env = new HashMap<>();
+		env.put("GITHUB_ACTIONS", "true");
+		env.put("GITHUB_REF_TYPE", "tag");
+		env.put("GITHUB_REF_NAME", "v3.4.0");
+		assertThat(new BranchResolver(this.processRunner, env).resolve()).isEqualTo("HEAD");
+	}
+
+	@Test
+	void whenBuildingOnJenkinsThenBranchNameIsUsed() {
+		Map<String, String> env = new HashMap<>();
+		env.put("JENKINS_URL", "https://jenkins.example.com");
+		env.put("BRANCH_NAME", "main");
+		assertThat(new BranchResolver(this.processRunner, env).resolve()).isEqualTo("main");
+	}
+
+	@Test
+	void whenBuildingOnCircleCiThenCircleBranchIsUsed() {
+		Map<String, String> env = new HashMap<>();
+		env.put("CIRCLE_BUILD_URL", "https://circleci.example.com/gh/org/project/123");
+		env.put("CIRCLE_BRANCH", "main");
+		assertThat(new BranchResolver(this.processRunner, env).resolve()).isEqualTo("main");
+	}
+
+	@Test
+	void whenNoEnvVarsArePresentThenBranchFromGitIsUsed() {
+		this.processRunner.commandLineOutput.put(GIT_BRANCH, "1.2.x");
+		assertThat(new BranchResolver(this.processRunner, Collections.emptyMap()).resolve()).isEqualTo("1.2.x");
+	}
+
+	@Test
+	void whenGitIsNotAvailableThenBranchIsNull() {
+		this.processRunner.failures.put(GIT_BRANCH, new RuntimeException("git is not available"));
+		assertThat(new BranchResolver(this.processRunner, Collections.emptyMap()).resolve()).isNull();
+	}
+
+	@Test
+	void whenNoProcessRunnerIsAvailableThenBranchIsNull() {
+		assertThat(new BranchResolver(Collections.emptyMap()).resolve()).isNull();
+	}
+
+	@Test
+	void branchIsOnlyResolvedOnce() {
+		AtomicInteger runs = new AtomicInteger();
+		BranchResolver resolver = new BranchResolver((configurer) -> {
+			runs.incrementAndGet();
+			this.processRunner.run(configurer);
+		}, Collections.emptyMap());
+		this.processRunner.commandLineOutput.put(GIT_BRANCH, "main");
+		assertThat(resolver.resolve()).isEqualTo("main");
+		assertThat(resolver.resolve()).isEqualTo("main");
+		assertThat(runs).hasValue(1);
+	}
+
+	@Test
+	void interruptedResolutionIsNotRemembered() {
+		AtomicInteger runs = new AtomicInteger();
+		BranchResolver resolver = new BranchResolver((configurer) -> {
+			if (runs.incrementAndGet() == 1) {
+				Thread.currentThread().interrupt();
+				throw new RunFailedException(new InterruptedException());
+			}
+			this.processRunner.run(configurer);
+		}, Collections.emptyMap());
+		this.processRunner.commandLineOutput.put(GIT_BRANCH, "main");
+		assertThat(resolver.resolve()).isNull();
+		assertThat(Thread.interrupted()).isTrue();
+		assertThat(resolver.resolve()).isEqualTo("main");
+		assertThat(runs).hasValue(2);
+	}
+
+}
@@ -16,16 +16,22 @@
 
 package io.spring.develocity.conventions.core;
 
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
+import io.spring.develocity.conventions.core.BuildCacheProxyLauncher.RunningProxy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 
 /**
  * Tests for {@link BuildCacheConventions}.
@@ -42,6 +48,49 @@ class BuildCacheConventionsTests {
 		assertThat(this.buildCache.local.enabled).isTrue();
 	}
 
+	@Test
+	void whenBuildingLocallyThenLocalCacheHasShortRetentionAndFrequentCleanup() {
+		new BuildCacheConventions(Collections.emptyMap()).execute(this.buildCache);
+		assertThat(this.buildCache.local.directory).isNull();
+		assertThat(this.buildCache.local.retention).isEqualTo(Duration.ofDays(3));
+		assertThat(this.buildCache.local.cleanupInterval).isEqualTo(Duration.ofHours(12));
+	}
+
+	@Test
+	void whenBuildingOnCiThenLocalCacheRetentionAndCleanupAreNotConfigured() {
+		new BuildCacheConventions(Collections.singletonMap("CI", "true")).execute(this.buildCache);
+		assertThat(this.buildCache.local.retention).isNull();
+		assertThat(this.buildCache.local.cleanupInterval).isNull();
+	}
+
+	@Test
+	void localCacheDirectoryCanBeConfigured() {
+		Map<String, String> env = new HashMap<>();
+		env.put("CI", "true");
+		env.put("DEVELOCITY_LOCAL_CACHE_DIRECTORY", "/tmp/build-cache");
+		new BuildCacheConventions(env).execute(this.buildCache);
+		assertThat(this.buildCache.local.directory).isEqualTo(new File("/tmp/build-cache"));
+	}
+
+	@Test
+	void localCacheRetentionAndCleanupIntervalCanBeConfigured() {
+		Map<String, String> env = new HashMap<>();
+		env.put("CI", "true");
+		env.put("DEVELOCITY_LOCAL_CACHE_RETENTION", "P1D");
+		env.put("DEVELOCITY_LOCAL_CACHE_CLEANUP_INTERVAL", "PT6H");
+		new BuildCacheConventions(env).execute(this.buildCache);
+		assertThat(this.buildCache.local.retention).isEqualTo(Duration.ofDays(1));
+		assertThat(this.buildCache.local.cleanupInterval).isEqualTo(Duration.ofHours(6));
+	}
+
+	@Test
+	void whenLocalCacheRetentionIsInvalidThenExecutionFails() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_LOCAL_CACHE_RETENTION", "3 days");
+		assertThatIllegalStateException()
+			.isThrownBy(() -> new BuildCacheConventions(env).execute(this.buildCache))
+			.withMessageContaining("DEVELOCITY_LOCAL_CACHE_RETENTION");
+	}
+
 	@Test
 	void remoteCacheIsEnabled() {
 		new BuildCacheConventions().execute(this.buildCache);
@@ -114,6 +163,200 @@ class BuildCacheConventionsTests {
 		assertThat(this.buildCache.remote.push).isTrue();
 	}
 
+	@Test
+	void whenPushBranchesAreConfiguredAndBranchMatchesThenPushingToTheRemoteCacheIsEnabled() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_ACCESS_KEY", "ge.example.com=a1b2c3d4");
+		env.put("CI", "true");
+		env.put("BRANCH", "3.4.x");
+		env.put("DEVELOCITY_CACHE_PUSH_BRANCHES", "main|\\d+\\.\\d+\\.x");
+		new BuildCacheConventions(env).execute(this.buildCache);
+		assertThat(this.buildCache.remote.push).isTrue();
+	}
+
+	@Test
+	void whenPushBranchesAreConfiguredAndBranchDoesNotMatchThenPushingToTheRemoteCacheIsNotEnabled() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_ACCESS_KEY", "ge.example.com=a1b2c3d4");
+		env.put("CI", "true");
+		env.put("BRANCH", "gh-1234");
+		env.put("DEVELOCITY_CACHE_PUSH_BRANCHES", "main|\\d+\\.\\d+\\.x");
+		new BuildCacheConventions(env).execute(this.buildCache);
+		assertThat(this.buildCache.remote.push).isFalse();
+	}
+
+	@Test
+	void whenPushBranchesAreConfiguredAndBranchCannotBeResolvedThenPushingToTheRemoteCacheIsNotEnabled() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_ACCESS_KEY", "ge.example.com=a1b2c3d4");
+		env.put("CI", "true");
+		env.put("DEVELOCITY_CACHE_PUSH_BRANCHES", "main");
+		new BuildCacheConventions(env).execute(this.buildCache);
+		assertThat(this.buildCache.remote.push).isFalse();
+	}
+
+	@Test
+	void whenPushBranchesAreConfiguredInALocalEnvironmentThenBranchIsNotResolved() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_ACCESS_KEY", "ge.example.com=a1b2c3d4");
+		env.put("DEVELOCITY_CACHE_PUSH_BRANCHES", "main");
+		BranchResolver branchResolver = new BranchResolver((configurer) -> {
+			throw new IllegalStateException("Branch should not be resolved");
+		}, env);
+		new BuildCacheConventions(env, branchResolver).execute(this.buildCache);
+		assertThat(this.buildCache.remote.push).isFalse();
+	}
+
+	@Test
+	void whenTransportEnvVarsAreNotSetThenTransportIsNotConfigured() {
+		new BuildCacheConventions(Collections.emptyMap()).execute(this.buildCache);
+		assertThat(this.buildCache.remote.allowInsecureProtocol).isFalse();
+		assertThat(this.buildCache.remote.allowUntrustedServer).isNull();
+		assertThat(this.buildCache.remote.useExpectContinue).isNull();
+	}
+
+	@Test
+	void transportCanBeConfiguredUsingEnvVars() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_CACHE_ALLOW_INSECURE_PROTOCOL", "true");
+		env.put("DEVELOCITY_CACHE_ALLOW_UNTRUSTED_SERVER", "true");
+		env.put("DEVELOCITY_CACHE_USE_EXPECT_CONTINUE", "false");
+		new BuildCacheConventions(env).execute(this.buildCache);
+		assertThat(this.buildCache.remote.allowInsecureProtocol).isTrue();
+		assertThat(this.buildCache.remote.allowUntrustedServer).isTrue();
+		assertThat(this.buildCache.remote.useExpectContinue).isFalse();
+	}
+
+	@Test
+	void whenProxyIsLaunchedThenRemoteCacheUsesIt() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_CACHE_SERVER", "https://ge.example.com");
+		BuildCacheProxyLauncher proxyLauncher = new TestBuildCacheProxyLauncher(
+				new RunningProxy("http://127.0.0.1:1234", "t0k3n"));
+		new BuildCacheConventions(env, new BranchResolver(env), proxyLauncher).execute(this.buildCache);
+		assertThat(this.buildCache.remote.server).isEqualTo("http://127.0.0.1:1234");
+		assertThat(this.buildCache.remote.allowInsecureProtocol).isTrue();
+		assertThat(this.buildCache.remote.username).isEqualTo("proxy");
+		assertThat(this.buildCache.remote.password).isEqualTo("t0k3n");
+	}
+
+	@Test
+	void whenProxyIsLaunchedThenExpectContinueIsNotConfigured() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_CACHE_SERVER", "https://ge.example.com");
+		env.put("DEVELOCITY_CACHE_USE_EXPECT_CONTINUE", "true");
+		BuildCacheProxyLauncher proxyLauncher = new TestBuildCacheProxyLauncher(
+				new RunningProxy("http://127.0.0.1:1234", "t0k3n"));
+		new BuildCacheConventions(env, new BranchResolver(env), proxyLauncher).execute(this.buildCache);
+		assertThat(this.buildCache.remote.useExpectContinue).isNull();
+	}
+
+	@Test
+	void whenProxyCannotBeLaunchedThenRemoteCacheUsesServer() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_CACHE_SERVER", "https://ge.example.com");
+		new BuildCacheConventions(env, new BranchResolver(env), new TestBuildCacheProxyLauncher(null))
+			.execute(this.buildCache);
+		assertThat(this.buildCache.remote.server).isEqualTo("https://ge.example.com");
+		assertThat(this.buildCache.remote.allowInsecureProtocol).isFalse();
+		assertThat(this.buildCache.remote.username).isNull();
+	}
+
+	@Test
+	void whenProxyIsLaunchedThenUpstreamIsNotTrustedByDefault() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_CACHE_SERVER", "https://ge.example.com");
+		TestBuildCacheProxyLauncher proxyLauncher = new TestBuildCacheProxyLauncher(
+				new RunningProxy("http://127.0.0.1:1234", "t0k3n"));
+		new BuildCacheConventions(env, new BranchResolver(env), proxyLauncher).execute(this.buildCache);
+		assertThat(proxyLauncher.upstreams).containsExactly("https://ge.example.com");
+		assertThat(proxyLauncher.allowUntrustedServer).isFalse();
+	}
+
+	@Test
+	void whenProxyIsLaunchedAndUntrustedServerIsAllowedThenProxyAllowsUntrustedUpstream() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_CACHE_SERVER", "https://ge.example.com");
+		env.put("DEVELOCITY_CACHE_ALLOW_UNTRUSTED_SERVER", "true");
+		TestBuildCacheProxyLauncher proxyLauncher = new TestBuildCacheProxyLauncher(
+				new RunningProxy("http://127.0.0.1:1234", "t0k3n"));
+		new BuildCacheConventions(env, new BranchResolver(env), proxyLauncher).execute(this.buildCache);
+		assertThat(proxyLauncher.allowUntrustedServer).isTrue();
+		assertThat(this.buildCache.remote.server).isEqualTo("http://127.0.0.1:1234");
+	}
+
+	@Test
+	void whenProxyIsConfiguredAndUpstreamIsInsecureThenProxyIsNotLaunched() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_CACHE_SERVER", "http://ge.example.com");
+		TestBuildCacheProxyLauncher proxyLauncher = new TestBuildCacheProxyLauncher(
+				new RunningProxy("http://127.0.0.1:1234", "t0k3n"));
+		new BuildCacheConventions(env, new BranchResolver(env), proxyLauncher).execute(this.buildCache);
+		assertThat(proxyLauncher.upstreams).isEmpty();
+		assertThat(this.buildCache.remote.server).isEqualTo("http://ge.example.com");
+		assertThat(this.buildCache.remote.allowInsecureProtocol).isFalse();
+	}
+
+	@Test
+	void whenProxyIsConfiguredAndInsecureUpstreamIsAllowedThenProxyIsLaunched() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_CACHE_SERVER", "http://ge.example.com");
+		env.put("DEVELOCITY_CACHE_ALLOW_INSECURE_PROTOCOL", "true");
+		TestBuildCacheProxyLauncher proxyLauncher = new TestBuildCacheProxyLauncher(
+				new RunningProxy("http://127.0.0.1:1234", "t0k3n"));
+		new BuildCacheConventions(env, new BranchResolver(env), proxyLauncher).execute(this.buildCache);
+		assertThat(proxyLauncher.upstreams).containsExactly("http://ge.example.com");
+		assertThat(this.buildCache.remote.server).isEqualTo("http://127.0.0.1:1234");
+	}
+
+	@Test
+	void whenConnectionWarmUpIsConfiguredThenCacheServerIsWarmedUp() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_CACHE_SERVER", "https://ge.example.com");
+		TestConnectionWarmUp connectionWarmUp = new TestConnectionWarmUp();
+		new BuildCacheConventions(env, new BranchResolver(env), null, connectionWarmUp).execute(this.buildCache);
+		assertThat(connectionWarmUp.servers).containsExactly("https://ge.example.com");
+	}
+
+	@Test
+	void whenConnectionWarmUpIsConfiguredAndProxyIsLaunchedThenCacheServerIsNotWarmedUp() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_CACHE_SERVER", "https://ge.example.com");
+		TestConnectionWarmUp connectionWarmUp = new TestConnectionWarmUp();
+		BuildCacheProxyLauncher proxyLauncher = new TestBuildCacheProxyLauncher(
+				new RunningProxy("http://127.0.0.1:1234", "t0k3n"));
+		new BuildCacheConventions(env, new BranchResolver(env), proxyLauncher, connectionWarmUp)
+			.execute(this.buildCache);
+		assertThat(connectionWarmUp.servers).isEmpty();
+	}
+
+	private static final class TestConnectionWarmUp extends ConnectionWarmUp {
+
+		private final List<String> servers = new ArrayList<>();
+
+		@Override
+		public void warmUp(String server) {
+			this.servers.add(server);
+		}
+
+	}
+
+	private static final class TestBuildCacheProxyLauncher extends BuildCacheProxyLauncher {
+
+		private final RunningProxy proxy;
+
+		private final List<String> upstreams = new ArrayList<>();
+
+		private boolean allowUntrustedServer;
+
+		private TestBuildCacheProxyLauncher(RunningProxy proxy) {
+			super(new File("proxy"), 1024, Duration.ofMinutes(1));
+			this.proxy = proxy;
+		}
+
+		@Override
+		public RunningProxy launch(String upstream, boolean allowUntrustedServer) {
+			this.upstreams.add(upstream);
+			this.allowUntrustedServer = allowUntrustedServer;
+			return this.proxy;
+		}
+
+	}
+
 	private static final class TestConfigurableBuildCache implements ConfigurableBuildCache {
 
 		private final TestLocalBuildCache local = new TestLocalBuildCache();
@@ -134,11 +377,32 @@ class BuildCacheConventionsTests {
 
 			private boolean enabled = false;
 
+			private File directory;
+
+			private Duration retention;
+
+			private Duration cleanupInterval;
+
 			@Override
 			public void enable() {
 				this.enabled = true;
 			}
 
+			@Override
+			public void setDirectory(File directory) {
+				this.directory = directory;
+			}
+
+			@Override
+			public void setRetention(Duration retention) {
+				this.retention = retention;
+			}
+
+			@Override
+			public void setCleanupInterval(Duration interval) {
+				this.cleanupInterval = interval;
+			}
+
 		}
 
 		private static final class TestRemoteBuildCache implements RemoteBuildCache {
@@ -149,6 +413,16 @@ class BuildCacheConventionsTests {
 
 			private String server = null;
 
+			private boolean allowInsecureProtocol = false;
+
+			private Boolean allowUntrustedServer;
+
+			private Boolean useExpectContinue;
+
+			private String username;
+
+			private String password;
+
 			@Override
 			public void enable() {
 				this.enabled = true;
@@ -164,6 +438,27 @@ class BuildCacheConventionsTests {
 				this.server = server;
 			}
 
+			@Override
+			public void setAllowInsecureProtocol(boolean allowInsecureProtocol) {
+				this.allowInsecureProtocol = allowInsecureProtocol;
+			}
+
+			@Override
+			public void setAllowUntrustedServer(boolean allowUntrustedServer) {
+				this.allowUntrustedServer = allowUntrustedServer;
+			}
+
+			@Override
+			public void setUseExpectContinue(boolean useExpectContinue) {
+				this.useExpectContinue = useExpectContinue;
+			}
+
+			@Override
+			public void setCredentials(String username, String password) {
+				this.username = username;
+				this.password = password;
+			}
+
 		}
 
 	}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.spring.develocity.conventions.core.BuildCacheProxyLauncher.RunningProxy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BuildCacheProxyLauncher}.
+ *
+ * @author Andy Wilkinson
+ */
+class BuildCacheProxyLauncherTests {
+
+	@TempDir
+	File temp;
+
+	@Test
+	void whenProxyDirectoryIsNotConfiguredThenLauncherIsNull() {
+		assertThat(BuildCacheProxyLauncher.fromEnvironment(Collections.emptyMap())).isNull();
+	}
+
+	@Test
+	void whenProxyDirectoryIsConfiguredThenLauncherUsesIt() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_CACHE_PROXY_DIRECTORY", this.temp.getAbsolutePath());
+		BuildCacheProxyLauncher launcher = BuildCacheProxyLauncher.fromEnvironment(env);
+		assertThat(launcher.getDirectory()).isEqualTo(this.temp);
+	}
+
+	@Test
+	void whenProxyIsLaunchedThenItsConfigurationIsWrittenToItsDirectory() {
+		RunningProxy running = launcher(Collections.emptyMap()).launch("https://ge.example.com", false);
+		assertThat(running.getUrl()).startsWith("http://127.0.0.1:");
+		assertThat(running.getToken()).matches("[0-9a-f]{64}");
+		assertThat(new File(proxyDirectory("anonymous", "https://ge.example.com", false),
+				BuildCacheProxy.CONFIGURATION_FILE_NAME))
+			.exists();
+	}
+
+	@Test
+	void whenProxyIsLaunchedAgainThenItHasTheSameUrlAndToken() {
+		BuildCacheProxyLauncher launcher = launcher(Collections.emptyMap());
+		RunningProxy running = launcher.launch("https://ge.example.com", false);
+		RunningProxy relaunched = launcher.launch("https://ge.example.com", false);
+		assertThat(relaunched.getUrl()).isEqualTo(running.getUrl());
+		assertThat(relaunched.getToken()).isEqualTo(running.getToken());
+	}
+
+	@Test
+	void whenProxyHasBeenConfiguredThenLaunchUsesItsConfiguration() throws Exception {
+		File directory = proxyDirectory("anonymous", "https://ge.example.com", false);
+		directory.mkdirs();
+		BuildCacheProxy.writeConfiguration(directory, 1234, "https://ge.example.com", false, "t0k3n");
+		RunningProxy running = launcher(Collections.emptyMap()).launch("https://ge.example.com", false);
+		assertThat(running.getUrl()).isEqualTo("http://127.0.0.1:1234");
+		assertThat(running.getToken()).isEqualTo("t0k3n");
+	}
+
+	@Test
+	void whenProxyIsRunningThenAnotherIsNotStarted() throws Exception {
+		File directory = proxyDirectory("anonymous", "https://ge.example.com", false);
+		directory.mkdirs();
+		try (FileChannel channel = FileChannel.open(new File(directory, BuildCacheProxy.LOCK_FILE_NAME).toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			channel.lock();
+			assertThat(launcher(Collections.emptyMap()).launch("https://ge.example.com", false)).isNotNull();
+		}
+		assertThat(new File(directory, "proxy.log")).doesNotExist();
+	}
+
+	@Test
+	void whenProxyIsConfiguredThenItIsNotStarted() {
+		BuildCacheProxyLauncher launcher = launcher(Collections.emptyMap());
+		RunningProxy configured = launcher.configure("https://ge.example.com", false);
+		File directory = proxyDirectory("anonymous", "https://ge.example.com", false);
+		assertThat(new File(directory, BuildCacheProxy.CONFIGURATION_FILE_NAME)).exists();
+		assertThat(new File(directory, "proxy.log")).doesNotExist();
+		assertThat(launcher.launch("https://ge.example.com", false).getUrl()).isEqualTo(configured.getUrl());
+	}
+
+	@Test
+	void whenUntrustedServerIsAllowedThenProxyIsSeparateFromTrustingProxy() {
+		BuildCacheProxyLauncher launcher = launcher(Collections.emptyMap());
+		RunningProxy trusting = launcher.launch("https://ge.example.com", false);
+		RunningProxy untrusting = launcher.launch("https://ge.example.com", true);
+		assertThat(untrusting.getUrl()).isNotEqualTo(trusting.getUrl());
+		assertThat(new File(proxyDirectory("anonymous", "https://ge.example.com", true),
+				BuildCacheProxy.CONFIGURATION_FILE_NAME))
+			.exists();
+	}
+
+	@Test
+	void whenAccessKeysDifferThenEachHasItsOwnProxy() {
+		RunningProxy first = launcher(Collections.singletonMap("DEVELOCITY_ACCESS_KEY", "ge.example.com=a1b2c3d4"))
+			.launch("https://ge.example.com", false);
+		RunningProxy second = launcher(Collections.singletonMap("DEVELOCITY_ACCESS_KEY", "ge.example.com=e5f6"))
+			.launch("https://ge.example.com", false);
+		assertThat(first.getUrl()).isNotEqualTo(second.getUrl());
+		assertThat(first.getToken()).isNotEqualTo(second.getToken());
+		assertThat(new File(proxyDirectory(BuildCacheProxy.credentialId("a1b2c3d4"), "https://ge.example.com", false),
+				BuildCacheProxy.CONFIGURATION_FILE_NAME))
+			.exists();
+		assertThat(new File(proxyDirectory(BuildCacheProxy.credentialId("e5f6"), "https://ge.example.com", false),
+				BuildCacheProxy.CONFIGURATION_FILE_NAME))
+			.exists();
+	}
+
+	private BuildCacheProxyLauncher launcher(Map<String, String> env) {
+		return new BuildCacheProxyLauncher(this.temp, 1024, Duration.ofSeconds(5), env);
+	}
+
+	private File proxyDirectory(String credentialId, String upstream, boolean allowUntrustedServer) {
+		return new File(new File(this.temp, credentialId), BuildCacheProxy.upstreamId(upstream, allowUntrustedServer));
+	}
+
+}
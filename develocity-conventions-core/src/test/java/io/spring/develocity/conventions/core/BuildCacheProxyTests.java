@@ -0,0 +1,371 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BuildCacheProxy}.
+ *
+ * @author Andy Wilkinson
+ */
+class BuildCacheProxyTests {
+
+	private final Upstream upstream = new Upstream();
+
+	private final List<BuildCacheProxy> proxies = new ArrayList<>();
+
+	@TempDir
+	File temp;
+
+	@BeforeEach
+	void startUpstream() throws IOException {
+		this.upstream.start();
+	}
+
+	@AfterEach
+	void stop() {
+		this.proxies.forEach(BuildCacheProxy::stop);
+		this.upstream.stop();
+	}
+
+	@Test
+	void whenEntryIsNotInTheProxyThenItIsFetchedFromUpstream() throws IOException {
+		this.upstream.entries.put("a1b2", "alpha");
+		BuildCacheProxy proxy = startProxy(1024);
+		assertThat(get(proxy, "a1b2")).isEqualTo("alpha");
+		assertThat(this.upstream.gets).hasValue(1);
+	}
+
+	@Test
+	void whenEntryHasBeenFetchedThenItIsServedFromDisk() throws IOException {
+		this.upstream.entries.put("a1b2", "alpha");
+		BuildCacheProxy proxy = startProxy(1024);
+		get(proxy, "a1b2");
+		assertThat(get(proxy, "a1b2")).isEqualTo("alpha");
+		assertThat(this.upstream.gets).hasValue(1);
+	}
+
+	@Test
+	void whenEntryIsNotInUpstreamThenItIsNotFound() throws IOException {
+		BuildCacheProxy proxy = startProxy(1024);
+		assertThat(get(proxy, "a1b2")).isNull();
+	}
+
+	@Test
+	void whenRequestDoesNotHaveTheTokenThenItIsUnauthorized() throws IOException {
+		this.upstream.entries.put("a1b2", "alpha");
+		BuildCacheProxy proxy = startProxy(1024);
+		assertThat(status(proxy, "a1b2", null)).isEqualTo(401);
+		assertThat(status(proxy, "a1b2", "Basic " + base64("proxy:wrong"))).isEqualTo(401);
+		assertThat(status(proxy, "a1b2", "Bearer t0k3n")).isEqualTo(401);
+		assertThat(this.upstream.gets).hasValue(0);
+	}
+
+	@Test
+	void whenKeyIsInvalidThenItIsNotFound() throws IOException {
+		BuildCacheProxy proxy = startProxy(1024);
+		assertThat(get(proxy, "..%2Fproxy.properties")).isNull();
+		assertThat(this.upstream.gets).hasValue(0);
+	}
+
+	@Test
+	void whenEntryIsPutThenItIsStoredAndForwardedToUpstreamWithAuthorization() throws IOException {
+		BuildCacheProxy proxy = startProxy(1024);
+		assertThat(put(proxy, "c3d4", "gamma")).isEqualTo(200);
+		assertThat(this.upstream.entries).containsEntry("c3d4", "gamma");
+		assertThat(this.upstream.authorization).isEqualTo("Bearer a1b2c3d4");
+		this.upstream.entries.clear();
+		assertThat(get(proxy, "c3d4")).isEqualTo("gamma");
+		assertThat(this.upstream.gets).hasValue(0);
+	}
+
+	@Test
+	void whenEntryIsRejectedByUpstreamThenItIsNotStored() throws IOException {
+		this.upstream.putStatus = 403;
+		BuildCacheProxy proxy = startProxy(1024);
+		assertThat(put(proxy, "c3d4", "gamma")).isEqualTo(403);
+		assertThat(get(proxy, "c3d4")).isNull();
+		assertThat(this.upstream.gets).hasValue(1);
+		assertThat(this.temp.toPath().resolve("entries")).isEmptyDirectory();
+	}
+
+	@Test
+	void whenUpstreamIsUnavailableThenPutFailsAndEntryIsNotStored() throws IOException {
+		BuildCacheProxy proxy = new BuildCacheProxy(this.temp, 1024, "http://127.0.0.1:1", null, "t0k3n");
+		this.proxies.add(proxy);
+		proxy.start(0);
+		assertThat(put(proxy, "c3d4", "gamma")).isEqualTo(502);
+		assertThat(get(proxy, "c3d4")).isNull();
+		assertThat(this.temp.toPath().resolve("entries")).isEmptyDirectory();
+	}
+
+	@Test
+	void whenCacheExceedsItsMaximumSizeThenLeastRecentlyUsedEntriesAreEvicted() throws IOException {
+		this.upstream.entries.put("01", "first");
+		this.upstream.entries.put("02", "second");
+		this.upstream.entries.put("03", "third");
+		BuildCacheProxy proxy = startProxy(100);
+		get(proxy, "01");
+		get(proxy, "02");
+		get(proxy, "01");
+		for (int i = 0; i < 8; i++) {
+			this.upstream.entries.put(String.format("1%d", i), "padding");
+			get(proxy, String.format("1%d", i));
+			get(proxy, "01");
+		}
+		this.upstream.gets.set(0);
+		get(proxy, "01");
+		assertThat(this.upstream.gets).hasValue(0);
+		get(proxy, "02");
+		assertThat(this.upstream.gets).hasValue(1);
+	}
+
+	@Test
+	void whenProxyIsRestartedThenStoredEntriesAreServed() throws IOException {
+		this.upstream.entries.put("a1b2", "alpha");
+		BuildCacheProxy proxy = startProxy(1024);
+		get(proxy, "a1b2");
+		proxy.stop();
+		this.upstream.entries.clear();
+		assertThat(get(startProxy(1024), "a1b2")).isEqualTo("alpha");
+	}
+
+	@Test
+	void concurrentRequestsForTheSameMissAreCoalesced() throws Exception {
+		this.upstream.delay = 200;
+		for (int i = 0; i < 4; i++) {
+			this.upstream.entries.put("abc" + i, "entry-" + i);
+		}
+		BuildCacheProxy proxy = startProxy(1024 * 1024);
+		ExecutorService executor = Executors.newFixedThreadPool(32);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				String key = "abc" + (i % 4);
+				results.add(executor.submit((Callable<String>) () -> get(proxy, key)));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				assertThat(results.get(i).get()).isEqualTo("entry-" + (i % 4));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(this.upstream.gets).hasValue(4);
+		for (int i = 0; i < 4; i++) {
+			assertThat(get(proxy, "abc" + i)).isEqualTo("entry-" + i);
+		}
+	}
+
+	@Test
+	void accessKeyForServerIsTakenFromTheEnvironment() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_ACCESS_KEY",
+				"ge.example.com=a1b2c3d4;ge.spring.io,ge-cache.spring.io=e5f6");
+		assertThat(BuildCacheProxy.accessKeyFor("https://ge.spring.io", env)).isEqualTo("e5f6");
+		assertThat(BuildCacheProxy.accessKeyFor("https://ge.example.com/", env)).isEqualTo("a1b2c3d4");
+		assertThat(BuildCacheProxy.accessKeyFor("https://ge.other.com", env)).isNull();
+	}
+
+	@Test
+	void credentialIdIdentifiesAccessKeyWithoutRevealingIt() {
+		String id = BuildCacheProxy.credentialId("a1b2c3d4");
+		assertThat(id).matches("[0-9a-f]{16}");
+		assertThat(BuildCacheProxy.credentialId("a1b2c3d4")).isEqualTo(id);
+		assertThat(BuildCacheProxy.credentialId("e5f6")).isNotEqualTo(id);
+		assertThat(BuildCacheProxy.credentialId(null)).isEqualTo("anonymous");
+	}
+
+	@Test
+	void upstreamIdIdentifiesUpstreamAndItsTrust() {
+		String id = BuildCacheProxy.upstreamId("https://ge.example.com", false);
+		assertThat(id).matches("[0-9a-f]{16}");
+		assertThat(BuildCacheProxy.upstreamId("https://ge.example.com", false)).isEqualTo(id);
+		assertThat(BuildCacheProxy.upstreamId("https://ge.example.com", true)).isNotEqualTo(id);
+		assertThat(BuildCacheProxy.upstreamId("https://ge.spring.io", false)).isNotEqualTo(id);
+	}
+
+	private BuildCacheProxy startProxy(long maxSize) throws IOException {
+		BuildCacheProxy proxy = new BuildCacheProxy(this.temp, maxSize, this.upstream.url(), "Bearer a1b2c3d4",
+				"t0k3n");
+		this.proxies.add(proxy);
+		proxy.start(0);
+		return proxy;
+	}
+
+	private String get(BuildCacheProxy proxy, String key) throws IOException {
+		HttpURLConnection connection = openConnection(proxy, key);
+		try {
+			if (connection.getResponseCode() != 200) {
+				return null;
+			}
+			try (InputStream input = connection.getInputStream()) {
+				return read(input);
+			}
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private int status(BuildCacheProxy proxy, String key, String authorization) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(proxy.getUrl() + "/cache/" + key)
+			.openConnection();
+		if (authorization != null) {
+			connection.setRequestProperty("Authorization", authorization);
+		}
+		try {
+			return connection.getResponseCode();
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private int put(BuildCacheProxy proxy, String key, String content) throws IOException {
+		HttpURLConnection connection = openConnection(proxy, key);
+		try {
+			connection.setRequestMethod("PUT");
+			connection.setDoOutput(true);
+			try (OutputStream output = connection.getOutputStream()) {
+				output.write(content.getBytes(StandardCharsets.UTF_8));
+			}
+			return connection.getResponseCode();
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private HttpURLConnection openConnection(BuildCacheProxy proxy, String key) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(proxy.getUrl() + "/cache/" + key)
+			.openConnection();
+		connection.setRequestProperty("Authorization", "Basic " + base64("proxy:t0k3n"));
+		return connection;
+	}
+
+	private static String base64(String value) {
+		return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String read(InputStream input) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			output.write(buffer, 0, read);
+		}
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static final class Upstream {
+
+		private final Map<String, String> entries = new ConcurrentHashMap<>();
+
+		private final AtomicInteger gets = new AtomicInteger();
+
+		private volatile String authorization;
+
+		private volatile long delay;
+
+		private volatile int putStatus = 200;
+
+		private HttpServer server;
+
+		private void start() throws IOException {
+			this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+			this.server.setExecutor(Executors.newCachedThreadPool());
+			this.server.createContext("/cache/", this::handle);
+			this.server.start();
+		}
+
+		private String url() {
+			return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+					+ this.server.getAddress().getPort();
+		}
+
+		private void handle(HttpExchange exchange) throws IOException {
+			String key = exchange.getRequestURI().getPath().substring("/cache/".length());
+			this.authorization = exchange.getRequestHeaders().getFirst("Authorization");
+			if ("PUT".equals(exchange.getRequestMethod())) {
+				String entry = read(exchange.getRequestBody());
+				if (this.putStatus == 200) {
+					this.entries.put(key, entry);
+				}
+				exchange.sendResponseHeaders(this.putStatus, -1);
+			}
+			else {
+				this.gets.incrementAndGet();
+				sleep();
+				String entry = this.entries.get(key);
+				if (entry == null) {
+					exchange.sendResponseHeaders(404, -1);
+				}
+				else {
+					byte[] body = entry.getBytes(StandardCharsets.UTF_8);
+					exchange.sendResponseHeaders(200, body.length);
+					exchange.getResponseBody().write(body);
+				}
+			}
+			exchange.close();
+		}
+
+		private void sleep() {
+			try {
+				Thread.sleep(this.delay);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void stop() {
+			this.server.stop(0);
+		}
+
+	}
+
+}
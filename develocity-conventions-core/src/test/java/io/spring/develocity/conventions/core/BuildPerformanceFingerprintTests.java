@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.time.Duration;
+
+import io.spring.develocity.conventions.core.BuildScanConventionsTests.TestConfigurableBuildScan;
+import io.spring.develocity.conventions.core.CacheHitRateSummary.Outcome;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BuildPerformanceFingerprint}.
+ *
+ * @author Andy Wilkinson
+ */
+class BuildPerformanceFingerprintTests {
+
+	private final BuildPerformanceFingerprint fingerprint = new BuildPerformanceFingerprint();
+
+	private final TestConfigurableBuildScan buildScan = new TestConfigurableBuildScan();
+
+	@Test
+	void taskOutcomesArePublishedAsValues() {
+		record(Outcome.EXECUTED, 3);
+		record(Outcome.UP_TO_DATE, 5);
+		record(Outcome.FROM_CACHE, 2);
+		record(Outcome.SKIPPED, 1);
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Tasks executed", "3")
+			.containsEntry("Tasks up-to-date", "5")
+			.containsEntry("Tasks skipped", "1")
+			.doesNotContainKey("Tasks from cache");
+	}
+
+	@Test
+	void configurationTimeIsPublishedAsValueAndBucketedTag() {
+		this.fingerprint.setConfigurationTime(Duration.ofMillis(12345));
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Configuration time", "12.3s");
+		assertThat(this.buildScan.tags).containsExactly("config-time-10s+");
+	}
+
+	@Test
+	void shortConfigurationTimeIsTaggedAsZeroSecondsPlus() {
+		this.fingerprint.setConfigurationTime(Duration.ofMillis(400));
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Configuration time", "0.4s");
+		assertThat(this.buildScan.tags).containsExactly("config-time-0s+");
+	}
+
+	@Test
+	void longConfigurationTimeIsTaggedAsSixtySecondsPlus() {
+		this.fingerprint.setConfigurationTime(Duration.ofMinutes(5));
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.tags).containsExactly("config-time-60s+");
+	}
+
+	@Test
+	void whenConfigurationTimeIsUnknownThenItIsNotPublished() {
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.values).doesNotContainKey("Configuration time");
+		assertThat(this.buildScan.tags).isEmpty();
+	}
+
+	@Test
+	void coldDaemonIsPublishedAsValueAndTag() {
+		this.fingerprint.setColdDaemon(true);
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Daemon", "Cold");
+		assertThat(this.buildScan.tags).containsExactly("cold-daemon");
+	}
+
+	@Test
+	void warmDaemonIsPublishedAsValue() {
+		this.fingerprint.setColdDaemon(false);
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Daemon", "Warm");
+		assertThat(this.buildScan.tags).isEmpty();
+	}
+
+	@Test
+	void configurationCacheHitIsPublishedAsValueAndTag() {
+		this.fingerprint.setConfigurationCacheHit(true);
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Configuration cache", "Hit");
+		assertThat(this.buildScan.tags).containsExactly("config-cache-hit");
+	}
+
+	@Test
+	void configurationCacheMissIsPublishedAsValueAndTag() {
+		this.fingerprint.setConfigurationCacheHit(false);
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Configuration cache", "Miss");
+		assertThat(this.buildScan.tags).containsExactly("config-cache-miss");
+	}
+
+	@Test
+	void whenConfigurationCacheIsNotInUseThenItIsNotPublished() {
+		this.fingerprint.publish(this.buildScan);
+		assertThat(this.buildScan.values).doesNotContainKey("Configuration cache");
+	}
+
+	private void record(Outcome outcome, int count) {
+		for (int i = 0; i < count; i++) {
+			this.fingerprint.record(outcome);
+		}
+	}
+
+}
@@ -16,21 +16,29 @@
 
 package io.spring.develocity.conventions.core;
 
+import java.io.File;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import io.spring.develocity.conventions.core.ConfigurableBuildScan.ObfuscationConfigurer;
+import io.spring.develocity.conventions.core.ConfigurableBuildScan.PublicationContext;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 
 /**
@@ -46,10 +54,14 @@ class BuildScanConventionsTests {
 
 	private final TestConfigurableDevelocity develocity = new TestConfigurableDevelocity();
 
+	@TempDir
+	File temp;
+
 	@Test
-	void capturingOfFileFingerprintsIsEnabled() {
+	void capturingOfFileFingerprintsIsLeftToCapturePolicy() {
+		this.buildScan.captureTaskInputFiles = false;
 		new BuildScanConventions(this.processRunner).execute(this.develocity, this.buildScan);
-		assertThat(this.buildScan.captureTaskInputFiles).isTrue();
+		assertThat(this.buildScan.captureTaskInputFiles).isFalse();
 	}
 
 	@Test
@@ -67,6 +79,90 @@ class BuildScanConventionsTests {
 		assertThat(this.buildScan.publishIfAuthenticated).isTrue();
 	}
 
+	@Test
+	void whenUnpublishedBuildScansAreConfiguredThenBuildScansArePublishedWhenAuthenticatedAndServerIsAvailable() {
+		new BuildScanConventions(this.processRunner,
+				Collections.singletonMap("DEVELOCITY_UNPUBLISHED_SCANS_DIRECTORY", "build/unpublished-scans"))
+			.execute(this.develocity, this.buildScan);
+		assertThat(this.buildScan.publishIfAuthenticated).isFalse();
+		assertThat(this.buildScan.publishCondition).isNotNull();
+	}
+
+	@Test
+	void whenUnpublishedBuildScansAreConfiguredAndServerIsAvailableThenEntriesAreRemovedWhenBuildScanIsPublished() {
+		UnpublishedBuildScans unpublished = new UnpublishedBuildScans(this.temp, 20, Duration.ofDays(7));
+		unpublished.record("https://ge.spring.io");
+		AtomicInteger checks = new AtomicInteger();
+		serverAvailabilityConventions(true, checks).execute(this.develocity, this.buildScan);
+		assertThat(this.buildScan.values).containsKey("Unpublished build scans");
+		assertThat(this.buildScan.publishCondition.test(publicationContext(true, false))).isTrue();
+		assertThat(unpublished.entries()).isEmpty();
+		assertThat(checks).hasValue(1);
+	}
+
+	@Test
+	void whenUnpublishedBuildScansAreConfiguredAndBuildIsNotAuthenticatedThenEntriesAreNotRemoved() {
+		UnpublishedBuildScans unpublished = new UnpublishedBuildScans(this.temp, 20, Duration.ofDays(7));
+		unpublished.record("https://ge.spring.io");
+		serverAvailabilityConventions(true, new AtomicInteger()).execute(this.develocity, this.buildScan);
+		assertThat(this.buildScan.publishCondition.test(publicationContext(false, false))).isFalse();
+		assertThat(unpublished.entries()).hasSize(1);
+	}
+
+	@Test
+	void whenUnpublishedBuildScansAreConfiguredAndServerIsUnavailableThenBuildScanIsRecordedInsteadOfPublished() {
+		AtomicInteger checks = new AtomicInteger();
+		serverAvailabilityConventions(false, checks).execute(this.develocity, this.buildScan);
+		assertThat(this.buildScan.publishCondition.test(publicationContext(true, false))).isFalse();
+		assertThat(new UnpublishedBuildScans(this.temp, 20, Duration.ofDays(7)).entries()).hasSize(1);
+		assertThat(checks).hasValue(1);
+	}
+
+	private BuildScanConventions serverAvailabilityConventions(boolean available, AtomicInteger checks) {
+		return new BuildScanConventions(this.processRunner,
+				Collections.singletonMap("DEVELOCITY_UNPUBLISHED_SCANS_DIRECTORY", this.temp.getAbsolutePath())) {
+
+			@Override
+			protected boolean isServerAvailable(String server) {
+				checks.incrementAndGet();
+				return available;
+			}
+
+		};
+	}
+
+	@Test
+	void whenPublicationPolicyIsConfiguredThenBuildScansArePublishedWhenAuthenticatedAndPolicyAllows() {
+		new BuildScanConventions(this.processRunner,
+				Collections.singletonMap("DEVELOCITY_PUBLISH_SAMPLE_PERCENTAGE", "0"))
+			.execute(this.develocity, this.buildScan);
+		assertThat(this.buildScan.publishIfAuthenticated).isFalse();
+		assertThat(this.buildScan.publishCondition.test(publicationContext(true, true))).isTrue();
+		assertThat(this.buildScan.publishCondition.test(publicationContext(true, false))).isFalse();
+		assertThat(this.buildScan.publishCondition.test(publicationContext(false, true))).isFalse();
+	}
+
+	private PublicationContext publicationContext(boolean authenticated, boolean failed) {
+		return new PublicationContext() {
+
+			@Override
+			public boolean isAuthenticated() {
+				return authenticated;
+			}
+
+			@Override
+			public boolean hasFailed() {
+				return failed;
+			}
+
+			@Override
+			public Instant getBuildStartTime() {
+				return Instant.now();
+			}
+
+		};
+	}
+
 	@Test
 	void buildScansAreConfiguredToPublishToGeSpringIo() {
 		new BuildScanConventions(this.processRunner).execute(this.develocity, this.buildScan);
@@ -216,6 +312,14 @@ class BuildScanConventionsTests {
 		assertThat(this.buildScan.tags).contains(System.getProperty("os.name"));
 	}
 
+	@Test
+	void buildScanIsTaggedWithNumberOfProcessors() {
+		new BuildScanConventions(this.processRunner).execute(this.develocity, this.buildScan);
+		int processors = Runtime.getRuntime().availableProcessors();
+		assertThat(this.buildScan.tags).contains("cores-" + processors);
+		assertThat(this.buildScan.values).containsEntry("Processors", Integer.toString(processors));
+	}
+
 	@Test
 	void whenBranchEnvVarIsPresentThenBuildScanIsTaggedAndConfiguredWithCustomValue() {
 		new BuildScanConventions(this.processRunner, Collections.singletonMap("BRANCH", "1.1.x"))
@@ -232,6 +336,25 @@ class BuildScanConventionsTests {
 		assertThat(this.buildScan.values).containsEntry("Git branch", "1.2.x");
 	}
 
+	@Test
+	void whenBuildingOnCiThenBuildScanIsTaggedWithBranchFromCiEnvironment() {
+		this.processRunner.commandLineOutput.put(Arrays.asList("git", "rev-parse", "--abbrev-ref", "HEAD"), "HEAD");
+		Map<String, String> env = new HashMap<>();
+		env.put("JENKINS_URL", "https://jenkins.example.com");
+		env.put("BRANCH_NAME", "1.2.x");
+		new BuildScanConventions(this.processRunner, env).execute(this.develocity, this.buildScan);
+		assertThat(this.buildScan.tags).contains("1.2.x");
+		assertThat(this.buildScan.values).containsEntry("Git branch", "1.2.x");
+	}
+
+	@Test
+	void whenBranchResolverIsProvidedThenItIsUsedForTheGitBranch() {
+		BranchResolver branchResolver = new BranchResolver(Collections.singletonMap("BRANCH", "2.0.x"));
+		new BuildScanConventions(this.processRunner, Collections.emptyMap(), branchResolver).execute(this.develocity,
+				this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Git branch", "2.0.x");
+	}
+
 	@Test
 	void buildScanHasGitCommitIdCustomValueAndLinkToBuildScansForTheSameCommit() {
 		this.processRunner.commandLineOutput.put(Arrays.asList("git", "rev-parse", "--short=8", "--verify", "HEAD"),
@@ -303,6 +426,41 @@ class BuildScanConventionsTests {
 		assertThat(this.buildScan.values).doesNotContainKey("Docker Compose");
 	}
 
+	@Test
+	void whenBackgroundMetadataTakesLongerThanTheTimeoutThenItIsAbandonedAndPartialMetadataIsAdded() {
+		this.processRunner.commandLineOutput.put(Arrays.asList("git", "rev-parse", "--short=8", "--verify", "HEAD"),
+				"79ac359c");
+		this.processRunner.commandLineOutput.put(Arrays.asList("docker", "--version"),
+				"Docker version 26.1.1, build 4cf5afa");
+		this.processRunner.latencies.put(Arrays.asList("docker", "--version"), Duration.ofSeconds(10));
+		this.processRunner.latencies.put(Arrays.asList("git", "status", "--porcelain"), Duration.ofSeconds(10));
+		long start = System.nanoTime();
+		new BuildScanConventions(this.processRunner,
+				Collections.singletonMap("DEVELOCITY_CONVENTIONS_BACKGROUND_TIMEOUT", "PT1S"))
+			.execute(this.develocity, this.buildScan);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+		assertThat(this.buildScan.values).containsEntry("Git commit", "79ac359c");
+		assertThat(this.buildScan.values).doesNotContainKey("Docker");
+		assertThat(this.buildScan.values).containsEntry("Conventions timed out", "git status, docker");
+	}
+
+	@Test
+	void whenBackgroundMetadataCompletesWithinTheTimeoutThenNothingHasTimedOut() {
+		this.processRunner.latencies.put(Arrays.asList("docker", "--version"), Duration.ofMillis(100));
+		new BuildScanConventions(this.processRunner, Collections.emptyMap()).execute(this.develocity, this.buildScan);
+		assertThat(this.buildScan.values).doesNotContainKey("Conventions timed out");
+	}
+
+	@Test
+	void whenBackgroundTimeoutIsInvalidThenExecuteThrows() {
+		assertThatIllegalStateException()
+			.isThrownBy(() -> new BuildScanConventions(this.processRunner,
+					Collections.singletonMap("DEVELOCITY_CONVENTIONS_BACKGROUND_TIMEOUT", "30s"))
+				.execute(this.develocity, this.buildScan))
+			.withMessage("Value '30s' of environment variable DEVELOCITY_CONVENTIONS_BACKGROUND_TIMEOUT is not a "
+					+ "valid ISO-8601 duration");
+	}
+
 	@Test
 	void whenBuildingLocallyThenBackgroundUploadIsEnabled() {
 		new BuildScanConventions(this.processRunner, Collections.emptyMap()).execute(this.develocity, this.buildScan);
@@ -316,20 +474,77 @@ class BuildScanConventionsTests {
 		assertThat(this.buildScan.uploadInBackground).isFalse();
 	}
 
+	@Test
+	void whenBuildingOnCiThenPublicationIsNotDeferredByDefault() {
+		new BuildScanConventions(this.processRunner, Collections.singletonMap("CI", null)).execute(this.develocity,
+				this.buildScan);
+		assertThat(this.buildScan.publicationDeferred).isFalse();
+	}
+
+	@Test
+	void whenBuildingOnCiThenPublicationCanBeDeferred() {
+		Map<String, String> env = new HashMap<>();
+		env.put("CI", null);
+		env.put("DEVELOCITY_DEFER_PUBLICATION", "true");
+		new BuildScanConventions(this.processRunner, env).execute(this.develocity, this.buildScan);
+		assertThat(this.buildScan.publicationDeferred).isTrue();
+	}
+
+	@Test
+	void whenBuildingLocallyThenPublicationIsNotDeferred() {
+		new BuildScanConventions(this.processRunner, Collections.singletonMap("DEVELOCITY_DEFER_PUBLICATION", "true"))
+			.execute(this.develocity, this.buildScan);
+		assertThat(this.buildScan.publicationDeferred).isFalse();
+	}
+
+	@Test
+	void whenConnectionWarmUpIsConfiguredThenServerIsWarmedUpAndTimingsArePublished() {
+		TestConnectionWarmUp connectionWarmUp = new TestConnectionWarmUp();
+		new BuildScanConventions(this.processRunner, Collections.emptyMap(),
+				new BranchResolver(this.processRunner, Collections.emptyMap()), connectionWarmUp)
+			.execute(this.develocity, this.buildScan);
+		assertThat(connectionWarmUp.servers).containsExactly("https://ge.spring.io");
+		assertThat(this.buildScan.values).containsEntry("DNS pre-resolution", "https://ge.spring.io: Test");
+	}
+
+	private static final class TestConnectionWarmUp extends ConnectionWarmUp {
+
+		private final List<String> servers = new ArrayList<>();
+
+		@Override
+		public void warmUp(String server) {
+			this.servers.add(server);
+		}
+
+		@Override
+		public void publish(ConfigurableBuildScan buildScan) {
+			this.servers.forEach((server) -> buildScan.value("DNS pre-resolution", server + ": Test"));
+		}
+
+	}
+
 	public static final class TestConfigurableBuildScan implements ConfigurableBuildScan {
 
 		private final TestObfuscationConfigurer obfuscation = new TestObfuscationConfigurer();
 
-		private final List<String> tags = new ArrayList<>();
+		final List<String> tags = new ArrayList<>();
 
-		private final Map<String, String> values = new HashMap<>();
+		final Map<String, String> values = new HashMap<>();
 
 		private final Map<String, String> links = new HashMap<>();
 
-		private boolean captureTaskInputFiles;
+		boolean captureTaskInputFiles;
+
+		boolean captureBuildLogging = true;
+
+		boolean captureTestLogging = true;
 
 		private boolean publishIfAuthenticated;
 
+		private boolean publicationDeferred;
+
+		private Predicate<PublicationContext> publishCondition;
+
 		private boolean uploadInBackground = true;
 
 		@Override
@@ -337,6 +552,11 @@ class BuildScanConventionsTests {
 			action.accept(this);
 		}
 
+		@Override
+		public void buildFinished(Consumer<ConfigurableBuildScan> action) {
+			action.accept(this);
+		}
+
 		@Override
 		public void link(String name, String url) {
 			this.links.put(name, url);
@@ -347,11 +567,31 @@ class BuildScanConventionsTests {
 			this.publishIfAuthenticated = true;
 		}
 
+		@Override
+		public void publishIf(Predicate<PublicationContext> condition) {
+			this.publishCondition = condition;
+		}
+
+		@Override
+		public void deferPublication() {
+			this.publicationDeferred = true;
+		}
+
 		@Override
 		public void captureInputFiles(boolean capture) {
 			this.captureTaskInputFiles = capture;
 		}
 
+		@Override
+		public void captureBuildLogging(boolean capture) {
+			this.captureBuildLogging = capture;
+		}
+
+		@Override
+		public void captureTestLogging(boolean capture) {
+			this.captureTestLogging = capture;
+		}
+
 		@Override
 		public void tag(String tag) {
 			this.tags.add(tag);
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link CacheEntryReport}.
+ *
+ * @author Andy Wilkinson
+ */
+class CacheEntryReportTests {
+
+	@TempDir
+	File temp;
+
+	@Test
+	void largestEntriesAreOrderedBySizeAndLimited() {
+		CacheEntryReport report = new CacheEntryReport(2);
+		report.record(":a", false, 100, 10);
+		report.record(":b", true, 3000, 10);
+		report.record(":c", false, 2000, 10);
+		assertThat(report.getLargest()).extracting(CacheEntryReport.Entry::getPath).containsExactly(":b", ":c");
+	}
+
+	@Test
+	void slowestToRestoreEntriesOnlyIncludeEntriesFromTheCache() {
+		CacheEntryReport report = new CacheEntryReport(10);
+		report.record(":a", true, 100, 500);
+		report.record(":b", false, 100, 9000);
+		report.record(":c", true, 100, 1500);
+		assertThat(report.getSlowestToRestore()).extracting(CacheEntryReport.Entry::getPath)
+			.containsExactly(":c", ":a");
+	}
+
+	@Test
+	void entriesArePublishedAsBuildScanValues() {
+		CacheEntryReport report = new CacheEntryReport(10);
+		report.record(":bootJar", true, 3 * 1024 * 1024, 1500);
+		report.record(":javadoc", false, 2048, 4000);
+		ConfigurableBuildScan buildScan = mock(ConfigurableBuildScan.class);
+		report.publish(buildScan);
+		InOrder ordered = inOrder(buildScan);
+		ordered.verify(buildScan).value("Largest cache entry", ":bootJar (3.0 MB)");
+		ordered.verify(buildScan).value("Largest cache entry", ":javadoc (2.0 KB)");
+		ordered.verify(buildScan).value("Slowest cache restore", ":bootJar (1.5s, 3.0 MB)");
+		ordered.verifyNoMoreInteractions();
+	}
+
+	@Test
+	void entriesAreWrittenAsJson() throws IOException {
+		CacheEntryReport report = new CacheEntryReport(10);
+		report.record(":bootJar", true, 2048, 1500);
+		report.record(":javadoc", false, 100, 4000);
+		File json = new File(this.temp, "reports/cache-entries.json");
+		report.writeJson(json.toPath());
+		assertThat(new String(Files.readAllBytes(json.toPath()), StandardCharsets.UTF_8))
+			.isEqualTo("[\n  {\"path\":\":bootJar\",\"fromCache\":true,\"size\":2048,\"duration\":1500},\n"
+					+ "  {\"path\":\":javadoc\",\"fromCache\":false,\"size\":100,\"duration\":4000}\n]\n");
+	}
+
+	@Test
+	void emptyReportIsWrittenAsEmptyJsonArray() throws IOException {
+		File json = new File(this.temp, "cache-entries.json");
+		new CacheEntryReport().writeJson(json.toPath());
+		assertThat(new String(Files.readAllBytes(json.toPath()), StandardCharsets.UTF_8)).isEqualTo("[]\n");
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import io.spring.develocity.conventions.core.BuildScanConventionsTests.TestConfigurableBuildScan;
+import io.spring.develocity.conventions.core.CacheHitRateSummary.Outcome;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CacheHitRateSummary}.
+ *
+ * @author Andy Wilkinson
+ */
+class CacheHitRateSummaryTests {
+
+	private final CacheHitRateSummary summary = new CacheHitRateSummary();
+
+	private final TestConfigurableBuildScan buildScan = new TestConfigurableBuildScan();
+
+	@Test
+	void hitRateIsCalculatedFromHitsAndMisses() {
+		record(Outcome.FROM_CACHE, 9);
+		record(Outcome.EXECUTED, 1);
+		record(Outcome.UP_TO_DATE, 50);
+		record(Outcome.SKIPPED, 5);
+		assertThat(this.summary.getHitRate()).isEqualTo(90);
+	}
+
+	@Test
+	void tasksThatAreNotCacheableDoNotAffectTheHitRate() {
+		record(Outcome.FROM_CACHE, 3);
+		record(Outcome.EXECUTED, 1);
+		record(Outcome.NOT_CACHEABLE, 20);
+		assertThat(this.summary.getHitRate()).isEqualTo(75);
+	}
+
+	@Test
+	void summaryIsPublishedAsValuesAndTag() {
+		record(Outcome.FROM_CACHE, 3);
+		record(Outcome.EXECUTED, 5);
+		record(Outcome.NOT_CACHEABLE, 2);
+		this.summary.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Cache hits", "3")
+			.containsEntry("Cache misses", "5")
+			.containsEntry("Not cacheable", "2")
+			.containsEntry("Cache hit rate", "37%");
+		assertThat(this.buildScan.tags).containsExactly("cache-hit-rate-30+");
+	}
+
+	@Test
+	void whenAllTasksAreFromCacheThenTagIsNinetyPlus() {
+		record(Outcome.FROM_CACHE, 4);
+		this.summary.publish(this.buildScan);
+		assertThat(this.buildScan.tags).containsExactly("cache-hit-rate-90+");
+	}
+
+	@Test
+	void whenNoTasksAreFromCacheOrExecutedThenNothingIsPublished() {
+		record(Outcome.UP_TO_DATE, 4);
+		this.summary.publish(this.buildScan);
+		assertThat(this.summary.getHitRate()).isEqualTo(-1);
+		assertThat(this.buildScan.values).isEmpty();
+		assertThat(this.buildScan.tags).isEmpty();
+	}
+
+	private void record(Outcome outcome, int count) {
+		for (int i = 0; i < count; i++) {
+			this.summary.record(outcome);
+		}
+	}
+
+}
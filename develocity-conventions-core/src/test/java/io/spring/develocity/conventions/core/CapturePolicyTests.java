@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.spring.develocity.conventions.core.BuildScanConventionsTests.TestConfigurableBuildScan;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link CapturePolicy}.
+ *
+ * @author Andy Wilkinson
+ */
+class CapturePolicyTests {
+
+	private final TestConfigurableBuildScan buildScan = new TestConfigurableBuildScan();
+
+	@Test
+	void whenBuildIsSmallThenEverythingIsCaptured() {
+		new CapturePolicy(Collections.singletonMap("CI", "true")).execute(this.buildScan, 49);
+		assertThat(this.buildScan.captureTaskInputFiles).isTrue();
+		assertThat(this.buildScan.captureBuildLogging).isTrue();
+		assertThat(this.buildScan.captureTestLogging).isTrue();
+	}
+
+	@Test
+	void whenBuildIsLargeAndBuildingLocallyThenFileFingerprintsAreNotCaptured() {
+		new CapturePolicy(Collections.emptyMap()).execute(this.buildScan, 50);
+		assertThat(this.buildScan.captureTaskInputFiles).isFalse();
+		assertThat(this.buildScan.captureBuildLogging).isTrue();
+		assertThat(this.buildScan.captureTestLogging).isTrue();
+	}
+
+	@Test
+	void whenBuildIsLargeAndBuildingOnCiThenFileFingerprintsAndTestLoggingAreNotCaptured() {
+		new CapturePolicy(Collections.singletonMap("CI", "true")).execute(this.buildScan, 50);
+		assertThat(this.buildScan.captureTaskInputFiles).isFalse();
+		assertThat(this.buildScan.captureBuildLogging).isTrue();
+		assertThat(this.buildScan.captureTestLogging).isFalse();
+	}
+
+	@Test
+	void largeBuildThresholdCanBeConfigured() {
+		new CapturePolicy(Collections.singletonMap("DEVELOCITY_CAPTURE_LARGE_BUILD_THRESHOLD", "5"))
+			.execute(this.buildScan, 5);
+		assertThat(this.buildScan.captureTaskInputFiles).isFalse();
+	}
+
+	@Test
+	void whenLargeBuildThresholdIsInvalidThenExecuteThrows() {
+		assertThatIllegalStateException()
+			.isThrownBy(() -> new CapturePolicy(
+					Collections.singletonMap("DEVELOCITY_CAPTURE_LARGE_BUILD_THRESHOLD", "many"))
+				.execute(this.buildScan, 5))
+			.withMessage("Value 'many' of environment variable DEVELOCITY_CAPTURE_LARGE_BUILD_THRESHOLD is not a "
+					+ "valid integer");
+	}
+
+	@Test
+	void captureCanBeOverriddenUsingTheEnvironment() {
+		Map<String, String> env = new HashMap<>();
+		env.put("CI", "true");
+		env.put("DEVELOCITY_CAPTURE_FILE_FINGERPRINTS", "true");
+		env.put("DEVELOCITY_CAPTURE_BUILD_LOGGING", "false");
+		env.put("DEVELOCITY_CAPTURE_TEST_LOGGING", "true");
+		new CapturePolicy(env).execute(this.buildScan, 100);
+		assertThat(this.buildScan.captureTaskInputFiles).isTrue();
+		assertThat(this.buildScan.captureBuildLogging).isFalse();
+		assertThat(this.buildScan.captureTestLogging).isTrue();
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link ConfigurationTimeReport}.
+ *
+ * @author Andy Wilkinson
+ */
+class ConfigurationTimeReportTests {
+
+	@TempDir
+	File temp;
+
+	@Test
+	void slowestProjectsAreOrderedByDurationAndLimited() {
+		ConfigurationTimeReport report = new ConfigurationTimeReport(2);
+		evaluate(report, ":", 0, 100);
+		evaluate(report, ":a", 100, 3100);
+		evaluate(report, ":b", 3100, 5100);
+		assertThat(report.getSlowestProjects()).extracting(ConfigurationTimeReport.Project::getPath)
+			.containsExactly(":a", ":b");
+	}
+
+	@Test
+	void projectsWhoseEvaluationDidNotFinishAreIgnored() {
+		ConfigurationTimeReport report = new ConfigurationTimeReport();
+		evaluate(report, ":a", 0, 100);
+		report.projectEvaluationStarted(":b", millis(100));
+		assertThat(report.getSlowestProjects()).extracting(ConfigurationTimeReport.Project::getPath)
+			.containsExactly(":a");
+	}
+
+	@Test
+	void pluginIsAttributedTimeSinceThePreviousPluginWasApplied() {
+		ConfigurationTimeReport report = new ConfigurationTimeReport();
+		report.projectEvaluationStarted(":a", millis(0));
+		report.pluginApplied(":a", "java", millis(200));
+		report.pluginApplied(":a", "kotlin", millis(1200));
+		report.projectEvaluationFinished(":a", millis(1500));
+		assertThat(report.getSlowestPlugins()).extracting(ConfigurationTimeReport.Plugin::getName)
+			.containsExactly("kotlin", "java");
+		assertThat(report.getSlowestPlugins()).extracting(ConfigurationTimeReport.Plugin::getDuration)
+			.containsExactly(1000L, 200L);
+	}
+
+	@Test
+	void pluginDurationsAreAggregatedAcrossProjects() {
+		ConfigurationTimeReport report = new ConfigurationTimeReport();
+		report.projectEvaluationStarted(":a", millis(0));
+		report.pluginApplied(":a", "java", millis(300));
+		report.projectEvaluationFinished(":a", millis(400));
+		report.projectEvaluationStarted(":b", millis(400));
+		report.pluginApplied(":b", "java", millis(600));
+		report.projectEvaluationFinished(":b", millis(700));
+		assertThat(report.getSlowestPlugins()).singleElement().satisfies((plugin) -> {
+			assertThat(plugin.getDuration()).isEqualTo(500);
+			assertThat(plugin.getProjects()).isEqualTo(2);
+		});
+	}
+
+	@Test
+	void pluginsAppliedOutsideOfTheirProjectsEvaluationAreIgnored() {
+		ConfigurationTimeReport report = new ConfigurationTimeReport();
+		report.pluginApplied(":a", "java", millis(100));
+		evaluate(report, ":b", 0, 100);
+		report.pluginApplied(":b", "java", millis(200));
+		assertThat(report.getSlowestPlugins()).isEmpty();
+	}
+
+	@Test
+	void slowestProjectsAndPluginsArePublishedAsBuildScanValues() {
+		ConfigurationTimeReport report = new ConfigurationTimeReport();
+		report.projectEvaluationStarted(":a", millis(0));
+		report.pluginApplied(":a", "java", millis(1500));
+		report.projectEvaluationFinished(":a", millis(2000));
+		report.projectEvaluationStarted(":b", millis(2000));
+		report.pluginApplied(":b", "java", millis(2500));
+		report.projectEvaluationFinished(":b", millis(2600));
+		report.projectEvaluationStarted(":c", millis(2600));
+		report.pluginApplied(":c", "application", millis(2800));
+		report.projectEvaluationFinished(":c", millis(2900));
+		ConfigurableBuildScan buildScan = mock(ConfigurableBuildScan.class);
+		report.publish(buildScan);
+		InOrder ordered = inOrder(buildScan);
+		ordered.verify(buildScan).value("Slowest project configuration", ":a (2.0s)");
+		ordered.verify(buildScan).value("Slowest project configuration", ":b (0.6s)");
+		ordered.verify(buildScan).value("Slowest project configuration", ":c (0.3s)");
+		ordered.verify(buildScan).value("Slowest plugin application", "java (2.0s in 2 projects)");
+		ordered.verify(buildScan).value("Slowest plugin application", "application (0.2s in 1 project)");
+		ordered.verifyNoMoreInteractions();
+	}
+
+	@Test
+	void projectsAreWrittenAsJson() throws IOException {
+		ConfigurationTimeReport report = new ConfigurationTimeReport();
+		report.projectEvaluationStarted(":", millis(0));
+		report.pluginApplied(":", "base", millis(10));
+		report.projectEvaluationFinished(":", millis(50));
+		report.projectEvaluationStarted(":a", millis(50));
+		report.pluginApplied(":a", "java", millis(250));
+		report.pluginApplied(":a", "jacoco", millis(300));
+		report.projectEvaluationFinished(":a", millis(400));
+		File json = new File(this.temp, "build/configuration-time.json");
+		report.writeJson(json.toPath());
+		assertThat(new String(Files.readAllBytes(json.toPath()), StandardCharsets.UTF_8))
+			.isEqualTo("[\n  {\"path\":\":\",\"duration\":50,\"plugins\":[{\"name\":\"base\",\"duration\":10}]},\n"
+					+ "  {\"path\":\":a\",\"duration\":350,\"plugins\":[{\"name\":\"java\",\"duration\":200},"
+					+ "{\"name\":\"jacoco\",\"duration\":50}]}\n]\n");
+	}
+
+	@Test
+	void emptyReportIsWrittenAsEmptyJsonArray() throws IOException {
+		File json = new File(this.temp, "configuration-time.json");
+		new ConfigurationTimeReport().writeJson(json.toPath());
+		assertThat(new String(Files.readAllBytes(json.toPath()), StandardCharsets.UTF_8)).isEqualTo("[]\n");
+	}
+
+	private void evaluate(ConfigurationTimeReport report, String path, long start, long end) {
+		report.projectEvaluationStarted(path, millis(start));
+		report.projectEvaluationFinished(path, millis(end));
+	}
+
+	private long millis(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.spring.develocity.conventions.core.BuildScanConventionsTests.TestConfigurableBuildScan;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ConnectionWarmUp}.
+ *
+ * @author Andy Wilkinson
+ */
+class ConnectionWarmUpTests {
+
+	private final List<String> hosts = new CopyOnWriteArrayList<>();
+
+	private final CountDownLatch resolve = new CountDownLatch(1);
+
+	private final TestConfigurableBuildScan buildScan = new TestConfigurableBuildScan();
+
+	private final ConnectionWarmUp warmUp = new ConnectionWarmUp() {
+
+		@Override
+		void resolve(String host) throws IOException {
+			ConnectionWarmUpTests.this.hosts.add(host);
+			try {
+				ConnectionWarmUpTests.this.resolve.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			if (host.endsWith(".invalid")) {
+				throw new UnknownHostException(host);
+			}
+		}
+
+	};
+
+	@AfterEach
+	void releaseResolution() {
+		this.resolve.countDown();
+	}
+
+	@Test
+	void whenWarmUpIsNotEnabledInTheEnvironmentThenItIsNotCreated() {
+		assertThat(ConnectionWarmUp.fromEnvironment(Collections.emptyMap())).isNull();
+	}
+
+	@Test
+	void whenWarmUpIsEnabledInTheEnvironmentThenItIsCreated() {
+		assertThat(ConnectionWarmUp
+			.fromEnvironment(Collections.singletonMap("DEVELOCITY_CONNECTION_WARM_UP", "true"))).isNotNull();
+	}
+
+	@Test
+	void whenServerHasBeenResolvedThenTimingIsPublished() throws Exception {
+		this.resolve.countDown();
+		this.warmUp.warmUp("https://ge.example.com");
+		this.warmUp.getResult("https://ge.example.com").get(10, TimeUnit.SECONDS);
+		this.warmUp.publish(this.buildScan);
+		assertThat(this.buildScan.values.get("DNS pre-resolution")).matches("https://ge.example.com: \\d+ ms");
+		assertThat(this.hosts).containsExactly("ge.example.com");
+	}
+
+	@Test
+	void whenServerIsWarmedUpMoreThanOnceThenItsHostIsOnlyResolvedOnce() throws Exception {
+		this.resolve.countDown();
+		this.warmUp.warmUp("https://ge.example.com");
+		this.warmUp.warmUp("https://ge.example.com");
+		this.warmUp.getResult("https://ge.example.com").get(10, TimeUnit.SECONDS);
+		assertThat(this.hosts).containsExactly("ge.example.com");
+	}
+
+	@Test
+	void whenResolutionHasNotCompletedThenItIsPublishedAsInProgress() {
+		this.warmUp.warmUp("https://ge.example.com");
+		this.warmUp.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("DNS pre-resolution", "https://ge.example.com: In progress");
+	}
+
+	@Test
+	void whenHostCannotBeResolvedThenFailureIsPublished() throws Exception {
+		this.resolve.countDown();
+		this.warmUp.warmUp("https://ge.example.invalid");
+		this.warmUp.getResult("https://ge.example.invalid").get(10, TimeUnit.SECONDS);
+		this.warmUp.publish(this.buildScan);
+		assertThat(this.buildScan.values.get("DNS pre-resolution"))
+			.startsWith("https://ge.example.invalid: Failed: java.net.UnknownHostException");
+	}
+
+}
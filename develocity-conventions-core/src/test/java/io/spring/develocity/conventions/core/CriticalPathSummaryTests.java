@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link CriticalPathSummary}.
+ *
+ * @author Andy Wilkinson
+ */
+class CriticalPathSummaryTests {
+
+	@Test
+	void criticalPathIsLongestChainOfDependentTasks() {
+		CriticalPathSummary summary = new CriticalPathSummary(2);
+		summary.record(":a:compileJava", 0, 3000, Collections.emptyList());
+		summary.record(":b:compileJava", 0, 1000, Collections.emptyList());
+		summary.record(":b:test", 1000, 2000, Collections.singletonList(":b:compileJava"));
+		summary.record(":a:test", 3000, 5000, Collections.singletonList(":a:compileJava"));
+		summary.record(":docs:asciidoctor", 5000, 9000, Arrays.asList(":a:test", ":b:test"));
+		assertThat(summary.getCriticalPath()).extracting(CriticalPathSummary.Task::getPath)
+			.containsExactly(":a:compileJava", ":a:test", ":docs:asciidoctor");
+	}
+
+	@Test
+	void criticalPathMayBeASingleIndependentTask() {
+		CriticalPathSummary summary = new CriticalPathSummary(2);
+		summary.record(":a:compileJava", 0, 1000, Collections.emptyList());
+		summary.record(":a:test", 1000, 2000, Collections.singletonList(":a:compileJava"));
+		summary.record(":b:javadoc", 0, 5000, Collections.emptyList());
+		assertThat(summary.getCriticalPath()).extracting(CriticalPathSummary.Task::getPath)
+			.containsExactly(":b:javadoc");
+	}
+
+	@Test
+	void dependenciesThatWereNotRecordedAreIgnored() {
+		CriticalPathSummary summary = new CriticalPathSummary(2);
+		summary.record(":a:test", 1000, 2000, Collections.singletonList(":a:compileJava"));
+		assertThat(summary.getCriticalPath()).extracting(CriticalPathSummary.Task::getPath)
+			.containsExactly(":a:test");
+	}
+
+	@Test
+	void slowestTasksAreOrderedByDurationAndLimited() {
+		CriticalPathSummary summary = new CriticalPathSummary(2, 2);
+		summary.record(":a", 0, 100, Collections.emptyList());
+		summary.record(":b", 0, 3000, Collections.emptyList());
+		summary.record(":c", 0, 2000, Collections.emptyList());
+		summary.record(":d", 0, 500, Collections.emptyList());
+		assertThat(summary.getSlowest()).extracting(CriticalPathSummary.Task::getPath).containsExactly(":b", ":c");
+	}
+
+	@Test
+	void parallelismEfficiencyIsTotalTaskTimeOverWallTimeAndWorkers() {
+		CriticalPathSummary summary = new CriticalPathSummary(4);
+		summary.record(":a", 0, 4000, Collections.emptyList());
+		summary.record(":b", 0, 2000, Collections.emptyList());
+		summary.record(":c", 2000, 4000, Collections.emptyList());
+		assertThat(summary.getParallelismEfficiency()).isEqualTo(50);
+	}
+
+	@Test
+	void whenNoTasksHaveBeenRecordedThenParallelismEfficiencyIsUnknown() {
+		assertThat(new CriticalPathSummary(4).getParallelismEfficiency()).isEqualTo(-1);
+	}
+
+	@Test
+	void largeTaskGraphIsSummarized() {
+		CriticalPathSummary summary = new CriticalPathSummary(8);
+		for (int i = 0; i < 10000; i++) {
+			summary.record(":t" + i, i, i + 10,
+					(i > 0) ? Arrays.asList(":t" + (i - 1), ":t" + (i / 2)) : Collections.emptyList());
+		}
+		assertThat(summary.getCriticalPath()).hasSize(10000);
+	}
+
+	@Test
+	void summaryIsPublishedAsBuildScanValues() {
+		CriticalPathSummary summary = new CriticalPathSummary(2, 2);
+		summary.record(":a:compileJava", 0, 3000, Collections.emptyList());
+		summary.record(":b:compileJava", 0, 1000, Collections.emptyList());
+		summary.record(":a:test", 3000, 4000, Collections.singletonList(":a:compileJava"));
+		summary.record(":docs:asciidoctor", 4000, 8000, Collections.singletonList(":a:test"));
+		ConfigurableBuildScan buildScan = mock(ConfigurableBuildScan.class);
+		summary.publish(buildScan);
+		InOrder ordered = inOrder(buildScan);
+		ordered.verify(buildScan).value("Critical path", "8.0s (3 tasks, ending with :docs:asciidoctor)");
+		ordered.verify(buildScan).value("Critical path task", ":docs:asciidoctor (4.0s, 50%)");
+		ordered.verify(buildScan).value("Critical path task", ":a:compileJava (3.0s, 37%)");
+		ordered.verify(buildScan).value("Slowest task", ":docs:asciidoctor (4.0s)");
+		ordered.verify(buildScan).value("Slowest task", ":a:compileJava (3.0s)");
+		ordered.verify(buildScan).value("Parallelism efficiency", "56% of 2 workers");
+		ordered.verifyNoMoreInteractions();
+	}
+
+	@Test
+	void whenDependenciesAreUnknownThenCriticalPathIsUnknown() {
+		CriticalPathSummary summary = new CriticalPathSummary(2);
+		summary.record(":a:compileJava", 0, 1000, null);
+		summary.record(":a:test", 1000, 2000, Collections.singletonList(":a:compileJava"));
+		assertThat(summary.getCriticalPath()).isEmpty();
+	}
+
+	@Test
+	void whenDependenciesAreUnknownThenCriticalPathIsPublishedAsUnavailable() {
+		CriticalPathSummary summary = new CriticalPathSummary(2, 2);
+		summary.record(":a:compileJava", 0, 3000, null);
+		summary.record(":a:test", 3000, 4000, null);
+		ConfigurableBuildScan buildScan = mock(ConfigurableBuildScan.class);
+		summary.publish(buildScan);
+		InOrder ordered = inOrder(buildScan);
+		ordered.verify(buildScan).value("Critical path", "unavailable");
+		ordered.verify(buildScan).value("Slowest task", ":a:compileJava (3.0s)");
+		ordered.verify(buildScan).value("Slowest task", ":a:test (1.0s)");
+		ordered.verify(buildScan).value("Parallelism efficiency", "50% of 2 workers");
+		ordered.verifyNoMoreInteractions();
+	}
+
+	@Test
+	void whenNoTasksHaveBeenRecordedThenNothingIsPublished() {
+		ConfigurableBuildScan buildScan = mock(ConfigurableBuildScan.class);
+		new CriticalPathSummary(2).publish(buildScan);
+		verifyNoInteractions(buildScan);
+	}
+
+}
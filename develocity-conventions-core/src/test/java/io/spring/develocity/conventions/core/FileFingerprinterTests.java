@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link FileFingerprinter}.
+ *
+ * @author Andy Wilkinson
+ */
+class FileFingerprinterTests {
+
+	@TempDir
+	File temp;
+
+	@Test
+	void filesBeneathTheRootAreIdentifiedByTheirRelativePath() throws IOException {
+		File root = new File(this.temp, "root");
+		File source = write(new File(root, "src/main/java/Example.java"), "class Example {}");
+		Map<String, String> fingerprint = new FileFingerprinter(root).fingerprint(Collections.singletonList(source));
+		assertThat(fingerprint).containsOnlyKeys("src/main/java/Example.java");
+		assertThat(fingerprint.get("src/main/java/Example.java"))
+			.isEqualTo(TaskFingerprintFile.hash("class Example {}"));
+	}
+
+	@Test
+	void filesOutsideTheRootAreIdentifiedByTheirName() throws IOException {
+		File jar = write(new File(this.temp, "cache/a1b2/library-1.0.0.jar"), "library");
+		Map<String, String> fingerprint = new FileFingerprinter(new File(this.temp, "root"))
+			.fingerprint(Collections.singletonList(jar));
+		assertThat(fingerprint).containsOnlyKeys("library-1.0.0.jar");
+	}
+
+	@Test
+	void regularFilesWithinDirectoriesAreFingerprinted() throws IOException {
+		File root = new File(this.temp, "root");
+		write(new File(root, "src/a.txt"), "alpha");
+		write(new File(root, "src/nested/b.txt"), "bravo");
+		Map<String, String> fingerprint = new FileFingerprinter(root)
+			.fingerprint(Arrays.asList(new File(root, "src"), new File(root, "missing")));
+		assertThat(fingerprint).containsOnlyKeys("src/a.txt", "src/nested/b.txt");
+	}
+
+	@Test
+	void fingerprintOfChangedFileReflectsItsNewContent() throws IOException {
+		File root = new File(this.temp, "root");
+		File file = write(new File(root, "a.txt"), "alpha");
+		FileFingerprinter fingerprinter = new FileFingerprinter(root);
+		String before = fingerprinter.fingerprint(Collections.singletonList(file)).get("a.txt");
+		write(file, "alpha, bravo");
+		String after = fingerprinter.fingerprint(Collections.singletonList(file)).get("a.txt");
+		assertThat(after).isNotEqualTo(before);
+	}
+
+	@Test
+	void hashOfPropertyValueIsIndependentOfTheRootDirectory() {
+		File first = new File(this.temp, "first");
+		File second = new File(this.temp, "second");
+		String firstHash = new FileFingerprinter(first).hash(new File(first, "build/out").getAbsolutePath());
+		String secondHash = new FileFingerprinter(second).hash(new File(second, "build/out").getAbsolutePath());
+		assertThat(firstHash).isEqualTo(secondHash);
+	}
+
+	@Test
+	void hashOfFileValueIsIndependentOfTheRootDirectory() {
+		File first = new File(this.temp, "first");
+		File second = new File(this.temp, "second");
+		String firstHash = new FileFingerprinter(first).hashValue(new File(first, "build/out"));
+		String secondHash = new FileFingerprinter(second).hashValue(new File(second, "build/out").toPath());
+		assertThat(firstHash).isNotNull();
+		assertThat(firstHash).isEqualTo(secondHash);
+	}
+
+	@Test
+	void fileValueOutsideTheRootDirectoryCannotBeHashed() {
+		FileFingerprinter fingerprinter = new FileFingerprinter(new File(this.temp, "root"));
+		assertThat(fingerprinter.hashValue(new File(this.temp, "cache/library.jar"))).isNull();
+		assertThat(fingerprinter.hashValue(new File(this.temp, "cache/library.jar").getAbsolutePath())).isNull();
+		assertThat(fingerprinter.hashValue(Collections.singletonList(new File(this.temp, "cache")))).isNull();
+	}
+
+	@Test
+	void valueWithoutAToStringImplementationCannotBeHashed() {
+		FileFingerprinter fingerprinter = new FileFingerprinter(new File(this.temp, "root"));
+		assertThat(fingerprinter.hashValue(new Object())).isNull();
+		assertThat(fingerprinter.hashValue(Collections.singletonMap("key", new Object()))).isNull();
+	}
+
+	@Test
+	void hashOfSetValueIsIndependentOfItsOrder() {
+		FileFingerprinter fingerprinter = new FileFingerprinter(new File(this.temp, "root"));
+		assertThat(fingerprinter.hashValue(new LinkedHashSet<>(Arrays.asList("a", "b"))))
+			.isEqualTo(fingerprinter.hashValue(new LinkedHashSet<>(Arrays.asList("b", "a"))));
+		assertThat(fingerprinter.hashValue(Arrays.asList("a", "b")))
+			.isNotEqualTo(fingerprinter.hashValue(Arrays.asList("b", "a")));
+	}
+
+	@Test
+	void hashOfSimpleValueIsTheHashOfItsString() {
+		FileFingerprinter fingerprinter = new FileFingerprinter(new File(this.temp, "root"));
+		assertThat(fingerprinter.hashValue("example")).isEqualTo(TaskFingerprintFile.hash("example"));
+		assertThat(fingerprinter.hashValue(17)).isEqualTo(TaskFingerprintFile.hash("17"));
+		assertThat(fingerprinter.hashValue(null)).isEqualTo(TaskFingerprintFile.hash("null"));
+	}
+
+	private File write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+}
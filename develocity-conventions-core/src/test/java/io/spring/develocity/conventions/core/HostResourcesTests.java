@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.spring.develocity.conventions.core.BuildScanConventionsTests.TestConfigurableBuildScan;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link HostResources}.
+ *
+ * @author Andy Wilkinson
+ */
+class HostResourcesTests {
+
+	@TempDir
+	File temp;
+
+	private final TestConfigurableBuildScan buildScan = new TestConfigurableBuildScan();
+
+	@Test
+	void whenNothingCanBeReadThenOnlyProcessorsArePublished() {
+		HostResources.read(this.temp.toPath(), 8).publish(this.buildScan);
+		assertThat(this.buildScan.values).hasSize(1).containsEntry("Processors", "8");
+		assertThat(this.buildScan.tags).containsExactly("cores-8");
+	}
+
+	@Test
+	void cpuModelIsReadFromCpuinfo() throws IOException {
+		write("proc/cpuinfo", "processor\t: 0\nvendor_id\t: GenuineIntel\n"
+				+ "model name\t: Intel(R) Xeon(R) Platinum 8375C CPU @ 2.90GHz\n\nprocessor\t: 1\n");
+		HostResources.read(this.temp.toPath(), 2).publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("CPU model",
+				"Intel(R) Xeon(R) Platinum 8375C CPU @ 2.90GHz");
+	}
+
+	@Test
+	void memoryIsReadFromMeminfo() throws IOException {
+		write("proc/meminfo", "MemTotal:       16318508 kB\nMemFree:         1048576 kB\n"
+				+ "MemAvailable:    9437184 kB\nBuffers:          123456 kB\n");
+		HostResources.read(this.temp.toPath(), 2).publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Memory", "15.6 GB total, 9.0 GB available");
+		assertThat(this.buildScan.tags).contains("memory-16GB");
+	}
+
+	@Test
+	void cgroupV2LimitsArePublished() throws IOException {
+		write("proc/meminfo", "MemTotal:       16318508 kB\n");
+		write("sys/fs/cgroup/cpu.max", "250000 100000\n");
+		write("sys/fs/cgroup/memory.max", "4294967296\n");
+		HostResources.read(this.temp.toPath(), 3).publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Container CPU limit", "2.5 CPUs")
+			.containsEntry("Container memory limit", "4.0 GB");
+		assertThat(this.buildScan.tags).contains("cpu-limit-3", "memory-limit-4GB");
+	}
+
+	@Test
+	void unlimitedCgroupV2IsNotPublished() throws IOException {
+		write("sys/fs/cgroup/cpu.max", "max 100000\n");
+		write("sys/fs/cgroup/memory.max", "max\n");
+		HostResources.read(this.temp.toPath(), 4).publish(this.buildScan);
+		assertThat(this.buildScan.values).doesNotContainKey("Container CPU limit")
+			.doesNotContainKey("Container memory limit");
+	}
+
+	@Test
+	void cgroupV1LimitsArePublished() throws IOException {
+		write("proc/meminfo", "MemTotal:       16318508 kB\n");
+		write("sys/fs/cgroup/cpu/cpu.cfs_quota_us", "200000\n");
+		write("sys/fs/cgroup/cpu/cpu.cfs_period_us", "100000\n");
+		write("sys/fs/cgroup/memory/memory.limit_in_bytes", "2147483648\n");
+		HostResources.read(this.temp.toPath(), 2).publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Container CPU limit", "2.0 CPUs")
+			.containsEntry("Container memory limit", "2.0 GB");
+		assertThat(this.buildScan.tags).contains("cpu-limit-2", "memory-limit-2GB");
+	}
+
+	@Test
+	void unlimitedCgroupV1IsNotPublished() throws IOException {
+		write("proc/meminfo", "MemTotal:       16318508 kB\n");
+		write("sys/fs/cgroup/cpu/cpu.cfs_quota_us", "-1\n");
+		write("sys/fs/cgroup/cpu/cpu.cfs_period_us", "100000\n");
+		write("sys/fs/cgroup/memory/memory.limit_in_bytes", "9223372036854771712\n");
+		HostResources.read(this.temp.toPath(), 2).publish(this.buildScan);
+		assertThat(this.buildScan.values).doesNotContainKey("Container CPU limit")
+			.doesNotContainKey("Container memory limit");
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = this.temp.toPath().resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
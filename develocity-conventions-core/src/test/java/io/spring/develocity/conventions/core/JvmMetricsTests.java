@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.Map;
+
+import io.spring.develocity.conventions.core.BuildScanConventionsTests.TestConfigurableBuildScan;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link JvmMetrics}.
+ *
+ * @author Andy Wilkinson
+ */
+class JvmMetricsTests {
+
+	private final TestConfigurableBuildScan buildScan = new TestConfigurableBuildScan();
+
+	@Test
+	void heapMetricsArePublished() {
+		new JvmMetrics().publish(this.buildScan);
+		assertThat(this.buildScan.values.get("JVM max heap")).matches("[0-9.]+ [KM]?B");
+		assertThat(this.buildScan.values.get("JVM peak heap")).matches("[0-9.]+ [KM]?B");
+	}
+
+	@Test
+	void metricsOfEachCollectorArePublished() {
+		JvmMetrics metrics = new JvmMetrics();
+		System.gc();
+		metrics.publish(this.buildScan);
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			assertThat(this.buildScan.values.get("GC " + collector.getName())).matches("[0-9]+ collections, [0-9.]+s");
+		}
+		assertThat(this.buildScan.values.get("GC time")).matches("[0-9.]+s");
+	}
+
+	@Test
+	void jitCompilationTimeIsPublished() {
+		new JvmMetrics().publish(this.buildScan);
+		assertThat(this.buildScan.values.get("JIT compilation time")).matches("[0-9.]+s");
+	}
+
+	@Test
+	void whenGcTimeIsBelowThresholdThenNotUnderGcPressure() {
+		assertThat(JvmMetrics.isUnderGcPressure(900, 10000, 10)).isFalse();
+		assertThat(JvmMetrics.isUnderGcPressure(1000, 10000, 10)).isFalse();
+	}
+
+	@Test
+	void whenGcTimeIsAboveThresholdThenUnderGcPressure() {
+		assertThat(JvmMetrics.isUnderGcPressure(1001, 10000, 10)).isTrue();
+	}
+
+	@Test
+	void whenThresholdIsOneHundredPercentThenNeverUnderGcPressure() {
+		assertThat(JvmMetrics.isUnderGcPressure(10000, 10000, 100)).isFalse();
+	}
+
+	@Test
+	void whenGcPressureThresholdIsNotAnIntegerThenCreationFails() {
+		assertThatIllegalStateException().isThrownBy(() -> createMetrics("DEVELOCITY_GC_PRESSURE_THRESHOLD", "ten"))
+			.withMessage("Value 'ten' of environment variable DEVELOCITY_GC_PRESSURE_THRESHOLD is not a valid "
+					+ "percentage");
+	}
+
+	@Test
+	void whenGcPressureThresholdIsAboveOneHundredThenCreationFails() {
+		assertThatIllegalStateException().isThrownBy(() -> createMetrics("DEVELOCITY_GC_PRESSURE_THRESHOLD", "101"))
+			.withMessage("Value '101' of environment variable DEVELOCITY_GC_PRESSURE_THRESHOLD is not a valid "
+					+ "percentage");
+	}
+
+	private JvmMetrics createMetrics(String name, String value) {
+		Map<String, String> env = Collections.singletonMap(name, value);
+		return new JvmMetrics(env, Clock.systemUTC());
+	}
+
+}
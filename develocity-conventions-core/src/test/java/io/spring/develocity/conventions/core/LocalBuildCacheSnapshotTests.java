@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link LocalBuildCacheSnapshot}.
+ *
+ * @author Andy Wilkinson
+ */
+class LocalBuildCacheSnapshotTests {
+
+	@TempDir
+	File temp;
+
+	@Test
+	void whenSnapshotDirectoryIsNotConfiguredThenSnapshotIsNull() {
+		assertThat(LocalBuildCacheSnapshot
+			.fromEnvironment(Collections.singletonMap("DEVELOCITY_LOCAL_CACHE_DIRECTORY", "/tmp/build-cache")))
+			.isNull();
+	}
+
+	@Test
+	void whenCacheDirectoryIsNotConfiguredThenSnapshotIsNull() {
+		assertThat(LocalBuildCacheSnapshot
+			.fromEnvironment(Collections.singletonMap("DEVELOCITY_LOCAL_CACHE_SNAPSHOT_DIRECTORY", "/tmp/snapshot")))
+			.isNull();
+	}
+
+	@Test
+	void whenSnapshotIsConfiguredThenItUsesTheConfiguredDirectoriesAndMaxSize() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_LOCAL_CACHE_DIRECTORY", "/tmp/build-cache");
+		env.put("DEVELOCITY_LOCAL_CACHE_SNAPSHOT_DIRECTORY", "/tmp/snapshot");
+		env.put("DEVELOCITY_LOCAL_CACHE_SNAPSHOT_MAX_SIZE", "10");
+		LocalBuildCacheSnapshot snapshot = LocalBuildCacheSnapshot.fromEnvironment(env);
+		assertThat(snapshot.getCacheDirectory()).isEqualTo(new File("/tmp/build-cache").getAbsoluteFile());
+		assertThat(snapshot.getSnapshotDirectory()).isEqualTo(new File("/tmp/snapshot"));
+		assertThat(snapshot.getMaxSize()).isEqualTo(10 * 1024 * 1024);
+	}
+
+	@Test
+	void whenMaxSizeIsNotConfiguredThenItDefaultsToOneGigabyte() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_LOCAL_CACHE_DIRECTORY", "/tmp/build-cache");
+		env.put("DEVELOCITY_LOCAL_CACHE_SNAPSHOT_DIRECTORY", "/tmp/snapshot");
+		assertThat(LocalBuildCacheSnapshot.fromEnvironment(env).getMaxSize()).isEqualTo(1024 * 1024 * 1024);
+	}
+
+	@Test
+	void whenNoSnapshotHasBeenSavedThenRestoreDoesNothing() throws IOException {
+		File cache = new File(this.temp, "cache");
+		new LocalBuildCacheSnapshot(cache, new File(this.temp, "snapshot"), 1024).restore();
+		assertThat(cache).doesNotExist();
+	}
+
+	@Test
+	void savedSnapshotCanBeRestoredIntoAnEmptyCache() throws IOException {
+		File cache = new File(this.temp, "cache");
+		File snapshotDirectory = new File(this.temp, "snapshot");
+		writeEntry(cache, "a1b2", "alpha", 1000);
+		writeEntry(cache, "c3d4", "bravo", 2000);
+		new LocalBuildCacheSnapshot(cache, snapshotDirectory, 1024).save();
+		File restored = new File(this.temp, "restored");
+		new LocalBuildCacheSnapshot(restored, snapshotDirectory, 1024).restore();
+		assertThat(new File(restored, "a1b2")).hasContent("alpha");
+		assertThat(new File(restored, "c3d4")).hasContent("bravo");
+	}
+
+	@Test
+	void restoredEntriesAreMarkedAsRecentlyUsed() throws IOException {
+		File cache = new File(this.temp, "cache");
+		File snapshotDirectory = new File(this.temp, "snapshot");
+		writeEntry(cache, "a1b2", "alpha", 1000);
+		new LocalBuildCacheSnapshot(cache, snapshotDirectory, 1024).save();
+		File restored = new File(this.temp, "restored");
+		long restoreTime = System.currentTimeMillis();
+		new LocalBuildCacheSnapshot(restored, snapshotDirectory, 1024).restore();
+		assertThat(new File(restored, "a1b2").lastModified()).isGreaterThanOrEqualTo(restoreTime - 2000);
+	}
+
+	@Test
+	void saveKeepsTheMostRecentlyUsedEntriesWithinTheMaxSize() throws IOException {
+		File cache = new File(this.temp, "cache");
+		File snapshotDirectory = new File(this.temp, "snapshot");
+		writeEntry(cache, "oldest", "0123456789", 1000);
+		writeEntry(cache, "older", "0123456789", 2000);
+		writeEntry(cache, "newest", "0123456789", 3000);
+		new LocalBuildCacheSnapshot(cache, snapshotDirectory, 25).save();
+		File restored = new File(this.temp, "restored");
+		new LocalBuildCacheSnapshot(restored, snapshotDirectory, 25).restore();
+		assertThat(restored.list()).containsExactlyInAnyOrder("newest", "older");
+	}
+
+	@Test
+	void saveSkipsEntriesThatDoNotFitAndKeepsLessRecentlyUsedEntriesThatDo() throws IOException {
+		File cache = new File(this.temp, "cache");
+		File snapshotDirectory = new File(this.temp, "snapshot");
+		writeEntry(cache, "oldest", "0123456789", 1000);
+		writeEntry(cache, "large", "01234567890123456789", 2000);
+		writeEntry(cache, "newest", "0123456789", 3000);
+		new LocalBuildCacheSnapshot(cache, snapshotDirectory, 25).save();
+		File restored = new File(this.temp, "restored");
+		new LocalBuildCacheSnapshot(restored, snapshotDirectory, 25).restore();
+		assertThat(restored.list()).containsExactlyInAnyOrder("newest", "oldest");
+	}
+
+	@Test
+	void saveIgnoresLockAndCleanupFiles() throws IOException {
+		File cache = new File(this.temp, "cache");
+		File snapshotDirectory = new File(this.temp, "snapshot");
+		writeEntry(cache, "a1b2", "alpha", 1000);
+		writeEntry(cache, "build-cache-1.lock", "", 1000);
+		writeEntry(cache, "gc.properties", "", 1000);
+		new LocalBuildCacheSnapshot(cache, snapshotDirectory, 1024).save();
+		File restored = new File(this.temp, "restored");
+		new LocalBuildCacheSnapshot(restored, snapshotDirectory, 1024).restore();
+		assertThat(restored.list()).containsExactly("a1b2");
+	}
+
+	@Test
+	void restoreDoesNotOverwriteExistingEntries() throws IOException {
+		File cache = new File(this.temp, "cache");
+		File snapshotDirectory = new File(this.temp, "snapshot");
+		writeEntry(cache, "a1b2", "alpha", 1000);
+		writeEntry(cache, "c3d4", "bravo", 1000);
+		new LocalBuildCacheSnapshot(cache, snapshotDirectory, 1024).save();
+		File restored = new File(this.temp, "restored");
+		writeEntry(restored, "a1b2", "existing", 5000);
+		new LocalBuildCacheSnapshot(restored, snapshotDirectory, 1024).restore();
+		assertThat(new File(restored, "a1b2")).hasContent("existing");
+		assertThat(new File(restored, "c3d4")).hasContent("bravo");
+	}
+
+	@Test
+	void saveReplacesAnExistingSnapshot() throws IOException {
+		File cache = new File(this.temp, "cache");
+		File snapshotDirectory = new File(this.temp, "snapshot");
+		writeEntry(cache, "a1b2", "alpha", 1000);
+		new LocalBuildCacheSnapshot(cache, snapshotDirectory, 1024).save();
+		new File(cache, "a1b2").delete();
+		writeEntry(cache, "c3d4", "bravo", 1000);
+		new LocalBuildCacheSnapshot(cache, snapshotDirectory, 1024).save();
+		assertThat(snapshotDirectory.list()).containsExactly("local-build-cache.zip");
+		File restored = new File(this.temp, "restored");
+		new LocalBuildCacheSnapshot(restored, snapshotDirectory, 1024).restore();
+		assertThat(restored.list()).containsExactly("c3d4");
+	}
+
+	private void writeEntry(File cache, String name, String content, long lastModified) throws IOException {
+		cache.mkdirs();
+		File entry = new File(cache, name);
+		Files.write(entry.toPath(), content.getBytes());
+		Files.setLastModifiedTime(entry.toPath(), FileTime.fromMillis(lastModified));
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.spring.develocity.conventions.core.BuildScanConventionsTests.TestConfigurableBuildScan;
+import io.spring.develocity.conventions.core.ProcessTreeSampler.Role;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link ProcessTreeSampler}.
+ *
+ * @author Andy Wilkinson
+ */
+class ProcessTreeSamplerTests {
+
+	@TempDir
+	File temp;
+
+	private final TestConfigurableBuildScan buildScan = new TestConfigurableBuildScan();
+
+	@Test
+	void processesOutsideOfTheTreeAreNotSampled() throws IOException {
+		process(100, 1, "java GradleDaemon", 0, 1024);
+		process(200, 1, "java GradleWorkerMain", 0, 2048);
+		ProcessTreeSampler sampler = sampler();
+		sampler.sample(0);
+		assertThat(sampler.getPeakRss(Role.BUILD)).isEqualTo(1024 * 1024);
+		assertThat(sampler.getPeakRss(Role.GRADLE_WORKER)).isZero();
+	}
+
+	@Test
+	void peakRssIsRecordedForEachRole() throws IOException {
+		process(100, 1, "java GradleDaemon", 0, 1024);
+		process(101, 100, "java worker.org.gradle.process.internal.worker.GradleWorkerMain", 0, 2048);
+		process(102, 100, "java worker.org.gradle.process.internal.worker.GradleWorkerMain", 0, 4096);
+		process(103, 100, "java GradleWorkerMain 'Gradle Test Executor 1'", 0, 8192);
+		process(104, 100, "java org.jetbrains.kotlin.daemon.KotlinCompileDaemon", 0, 512);
+		process(105, 101, "git status", 0, 64);
+		ProcessTreeSampler sampler = sampler();
+		sampler.sample(0);
+		process(102, 100, "java worker.org.gradle.process.internal.worker.GradleWorkerMain", 0, 3072);
+		sampler.sample(500);
+		assertThat(sampler.getPeakRss(Role.BUILD)).isEqualTo(1024 * 1024);
+		assertThat(sampler.getPeakRss(Role.GRADLE_WORKER)).isEqualTo(4096 * 1024);
+		assertThat(sampler.getPeakRss(Role.TEST_JVM)).isEqualTo(8192 * 1024);
+		assertThat(sampler.getPeakRss(Role.KOTLIN_DAEMON)).isEqualTo(512 * 1024);
+		assertThat(sampler.getPeakRss(Role.OTHER)).isEqualTo(64 * 1024);
+	}
+
+	@Test
+	void averageUtilizationIsCalculatedFromCpuTimeOfTheTree() throws IOException {
+		process(100, 1, "java GradleDaemon", 100, 1024);
+		process(101, 100, "java GradleWorkerMain", 0, 1024);
+		ProcessTreeSampler sampler = sampler();
+		sampler.sample(0);
+		process(100, 1, "java GradleDaemon", 200, 1024);
+		process(101, 100, "java GradleWorkerMain", 200, 1024);
+		sampler.sample(1000);
+		process(100, 1, "java GradleDaemon", 200, 1024);
+		process(101, 100, "java GradleWorkerMain", 300, 1024);
+		sampler.sample(2000);
+		assertThat(sampler.getAverageUtilization()).isEqualTo(50);
+	}
+
+	@Test
+	void whenFewerThanTwoSamplesHaveBeenTakenThenAverageUtilizationIsUnknown() throws IOException {
+		process(100, 1, "java GradleDaemon", 100, 1024);
+		ProcessTreeSampler sampler = sampler();
+		sampler.sample(0);
+		assertThat(sampler.getAverageUtilization()).isEqualTo(-1);
+	}
+
+	@Test
+	void peaksAndUtilizationArePublished() throws IOException {
+		process(100, 1, "java GradleDaemon", 0, 2048);
+		process(101, 100, "java GradleWorkerMain", 0, 1024);
+		ProcessTreeSampler sampler = sampler();
+		sampler.sample(0);
+		process(100, 1, "java GradleDaemon", 100, 2048);
+		sampler.sample(1000);
+		sampler.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Peak RSS (Build JVM)", "2.0 MB")
+			.containsEntry("Peak RSS (Gradle worker)", "1.0 MB")
+			.containsEntry("Average CPU utilization", "25%")
+			.doesNotContainKey("Peak RSS (Test JVM)");
+	}
+
+	@Test
+	void timelineIsWrittenAsCsv() throws IOException {
+		process(100, 1, "java GradleDaemon", 0, 2048);
+		process(101, 100, "java GradleWorkerMain", 0, 1024);
+		ProcessTreeSampler sampler = sampler();
+		sampler.sample(1000);
+		process(101, 100, "java GradleWorkerMain", 200, 1024);
+		sampler.sample(2000);
+		Path timeline = this.temp.toPath().resolve("out/timeline.csv");
+		sampler.writeTimeline(timeline);
+		assertThat(Files.readAllLines(timeline)).containsExactly(
+				"time,cpu,build,gradle-worker,test-jvm,kotlin-daemon,other", "0,,2048,1024,0,0,0",
+				"1000,50,2048,1024,0,0,0");
+	}
+
+	@Test
+	void whenTimelineIsFullThenEveryOtherSampleIsDiscarded() throws IOException {
+		process(100, 1, "java GradleDaemon", 0, 2048);
+		ProcessTreeSampler sampler = sampler();
+		for (int i = 0; i < 2048 + 2; i++) {
+			sampler.sample(i * 500L);
+		}
+		Path timeline = this.temp.toPath().resolve("out/timeline.csv");
+		sampler.writeTimeline(timeline);
+		List<String> lines = Files.readAllLines(timeline);
+		assertThat(lines).hasSize(1 + 1024 + 1);
+		assertThat(lines.get(1)).startsWith("0,");
+		assertThat(lines.get(2)).startsWith("1000,");
+		assertThat(lines.get(lines.size() - 1)).startsWith("1024000,");
+	}
+
+	@Test
+	void startedSamplerStopsCleanly() throws IOException, InterruptedException {
+		process(100, 1, "java GradleDaemon", 0, 2048);
+		ProcessTreeSampler sampler = sampler();
+		sampler.start();
+		Thread.sleep(50);
+		sampler.stop();
+		assertThat(Thread.getAllStackTraces().keySet()).noneMatch((thread) -> thread.getName()
+			.equals("develocity-conventions-process-sampler"));
+		assertThat(sampler.getPeakRss(Role.BUILD)).isEqualTo(2048 * 1024);
+	}
+
+	@Test
+	void whenSamplingIsNotEnabledThenIntervalIsNull() {
+		Map<String, String> env = Collections.emptyMap();
+		assertThat(ProcessTreeSampler.intervalFromEnvironment(env, this.temp.toPath())).isNull();
+	}
+
+	@Test
+	void whenProcIsNotAvailableThenIntervalIsNull() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_PROCESS_SAMPLING", "true");
+		assertThat(ProcessTreeSampler.intervalFromEnvironment(env, this.temp.toPath().resolve("self"))).isNull();
+	}
+
+	@Test
+	void whenSamplingIsEnabledThenIntervalIsFiveHundredMilliseconds() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_PROCESS_SAMPLING", "true");
+		assertThat(ProcessTreeSampler.intervalFromEnvironment(env, this.temp.toPath()))
+			.isEqualTo(Duration.ofMillis(500));
+	}
+
+	@Test
+	void intervalCanBeConfigured() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_PROCESS_SAMPLING", "true");
+		env.put("DEVELOCITY_PROCESS_SAMPLING_INTERVAL", "PT2S");
+		assertThat(ProcessTreeSampler.intervalFromEnvironment(env, this.temp.toPath()))
+			.isEqualTo(Duration.ofSeconds(2));
+	}
+
+	@Test
+	void whenIntervalIsInvalidThenIllegalStateExceptionIsThrown() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_PROCESS_SAMPLING", "true");
+		env.put("DEVELOCITY_PROCESS_SAMPLING_INTERVAL", "PT0S");
+		assertThatIllegalStateException()
+			.isThrownBy(() -> ProcessTreeSampler.intervalFromEnvironment(env, this.temp.toPath()))
+			.withMessage("Value 'PT0S' of environment variable DEVELOCITY_PROCESS_SAMPLING_INTERVAL is not a valid "
+					+ "ISO-8601 duration");
+	}
+
+	private ProcessTreeSampler sampler() {
+		return new ProcessTreeSampler(this.temp.toPath(), 100, Duration.ofMillis(10), 4);
+	}
+
+	private void process(int pid, int ppid, String commandLine, long cpuTicks, long rssKilobytes)
+			throws IOException {
+		Path process = Files.createDirectories(this.temp.toPath().resolve(Integer.toString(pid)));
+		String stat = pid + " (java main) S " + ppid + " 1 1 0 -1 4194304 80 0 0 0 " + cpuTicks + " 0 0 0 20 0 1 0 1";
+		Files.write(process.resolve("stat"), stat.getBytes(StandardCharsets.UTF_8));
+		Files.write(process.resolve("status"), ("Name:\tjava\nVmRSS:\t    " + rssKilobytes + " kB\nThreads:\t1\n")
+			.getBytes(StandardCharsets.UTF_8));
+		Files.write(process.resolve("cmdline"), commandLine.replace(' ', '\0').getBytes(StandardCharsets.UTF_8));
+	}
+
+}
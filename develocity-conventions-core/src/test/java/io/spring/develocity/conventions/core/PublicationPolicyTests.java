@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Map;
+
+import io.spring.develocity.conventions.core.ConfigurableBuildScan.PublicationContext;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link PublicationPolicy}.
+ *
+ * @author Andy Wilkinson
+ */
+class PublicationPolicyTests {
+
+	private final TestClock clock = new TestClock();
+
+	@Test
+	void whenPolicyIsNotConfiguredThenItIsNotCreated() {
+		assertThat(PublicationPolicy.fromEnvironment(Collections.emptyMap())).isNull();
+	}
+
+	@Test
+	void whenSamplePercentageIsConfiguredThenPolicyIsCreated() {
+		assertThat(PublicationPolicy
+			.fromEnvironment(Collections.singletonMap("DEVELOCITY_PUBLISH_SAMPLE_PERCENTAGE", "10"))).isNotNull();
+	}
+
+	@Test
+	void whenDurationThresholdIsConfiguredThenPolicyIsCreated() {
+		assertThat(PublicationPolicy
+			.fromEnvironment(Collections.singletonMap("DEVELOCITY_PUBLISH_DURATION_THRESHOLD", "PT5M"))).isNotNull();
+	}
+
+	@Test
+	void whenPolicyConfigurationIsInvalidThenCreationFails() {
+		Map<String, String> env = Collections.singletonMap("DEVELOCITY_PUBLISH_SAMPLE_PERCENTAGE", "ten");
+		assertThatIllegalStateException().isThrownBy(() -> PublicationPolicy.fromEnvironment(env))
+			.withMessage("Build scan publication policy configuration is invalid");
+	}
+
+	@Test
+	void whenBuildHasFailedThenItIsPublished() {
+		assertThat(policy(0, null, false).shouldPublish(context(true))).isTrue();
+	}
+
+	@Test
+	void whenBuildIsRunningOnCiThenItIsPublished() {
+		assertThat(policy(0, null, true).shouldPublish(context(false))).isTrue();
+	}
+
+	@Test
+	void whenSuccessfulLocalBuildsAreSampledAtOneHundredPercentThenTheyArePublished() {
+		for (int i = 0; i < 10; i++) {
+			assertThat(policy(100, null, false).shouldPublish(context(false))).isTrue();
+		}
+	}
+
+	@Test
+	void whenSuccessfulLocalBuildsAreSampledAtZeroPercentThenTheyAreNotPublished() {
+		for (int i = 0; i < 10; i++) {
+			assertThat(policy(0, null, false).shouldPublish(context(false))).isFalse();
+		}
+	}
+
+	@Test
+	void whenSuccessfulLocalBuildExceedsDurationThresholdThenItIsPublished() {
+		PublicationPolicy policy = policy(0, Duration.ofMinutes(5), false);
+		this.clock.advance(Duration.ofMinutes(5));
+		assertThat(policy.shouldPublish(context(false))).isTrue();
+	}
+
+	@Test
+	void whenSuccessfulLocalBuildIsShorterThanDurationThresholdThenItIsNotPublished() {
+		PublicationPolicy policy = policy(0, Duration.ofMinutes(5), false);
+		this.clock.advance(Duration.ofMinutes(4));
+		assertThat(policy.shouldPublish(context(false))).isFalse();
+	}
+
+	@Test
+	void durationIsMeasuredFromTheStartOfTheBuild() {
+		PublicationPolicy policy = policy(0, Duration.ofMinutes(5), false);
+		this.clock.advance(Duration.ofMinutes(5));
+		Instant buildStartTime = this.clock.instant().minus(Duration.ofMinutes(4));
+		assertThat(policy.shouldPublish(context(false, buildStartTime))).isFalse();
+	}
+
+	@Test
+	void whenBuildStartTimeIsNotKnownThenDurationThresholdIsNotExceeded() {
+		PublicationPolicy policy = policy(0, Duration.ofMinutes(5), false);
+		this.clock.advance(Duration.ofMinutes(10));
+		assertThat(policy.shouldPublish(context(false, null))).isFalse();
+	}
+
+	private PublicationPolicy policy(int samplePercentage, Duration durationThreshold, boolean ci) {
+		return new PublicationPolicy(samplePercentage, durationThreshold, ci, this.clock);
+	}
+
+	private PublicationContext context(boolean failed) {
+		return context(failed, TestClock.START);
+	}
+
+	private PublicationContext context(boolean failed, Instant buildStartTime) {
+		return new PublicationContext() {
+
+			@Override
+			public boolean isAuthenticated() {
+				return true;
+			}
+
+			@Override
+			public boolean hasFailed() {
+				return failed;
+			}
+
+			@Override
+			public Instant getBuildStartTime() {
+				return buildStartTime;
+			}
+
+		};
+	}
+
+	private static final class TestClock extends Clock {
+
+		private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+		private Instant instant = START;
+
+		void advance(Duration duration) {
+			this.instant = this.instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return this.instant;
+		}
+
+	}
+
+}
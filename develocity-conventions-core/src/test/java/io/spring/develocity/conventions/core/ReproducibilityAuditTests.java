@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ReproducibilityAudit}.
+ *
+ * @author Andy Wilkinson
+ */
+class ReproducibilityAuditTests {
+
+	@Test
+	void taskWithSameInputsAndDifferentOutputsIsNotReproducible() {
+		List<TaskFingerprint> first = Collections.singletonList(
+				executed(":jar", map("classes/A.class", "a1"), map("libs/a.jar", "b2", "libs/a.pom", "c3")));
+		List<TaskFingerprint> second = Collections.singletonList(
+				executed(":jar", map("classes/A.class", "a1"), map("libs/a.jar", "d4", "libs/a.pom", "c3")));
+		ReproducibilityAudit audit = new ReproducibilityAudit(first, second);
+		assertThat(audit.getEntries()).hasSize(1);
+		assertThat(audit.getEntries().get(0).getPath()).isEqualTo(":jar");
+		assertThat(audit.getEntries().get(0).getFiles()).containsExactly("libs/a.jar");
+	}
+
+	@Test
+	void taskWithDifferentInputsIsNotAudited() {
+		List<TaskFingerprint> first = Collections
+			.singletonList(executed(":jar", map("classes/A.class", "a1"), map("libs/a.jar", "b2")));
+		List<TaskFingerprint> second = Collections
+			.singletonList(executed(":jar", map("classes/A.class", "e5"), map("libs/a.jar", "d4")));
+		assertThat(new ReproducibilityAudit(first, second).getEntries()).isEmpty();
+	}
+
+	@Test
+	void taskThatWasNotExecutedInBothBuildsIsNotAudited() {
+		List<TaskFingerprint> first = Collections.singletonList(new TaskFingerprint(":jar", "FROM-CACHE", 10,
+				Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap()));
+		List<TaskFingerprint> second = Collections
+			.singletonList(executed(":jar", map("classes/A.class", "a1"), map("libs/a.jar", "d4")));
+		assertThat(new ReproducibilityAudit(first, second).getEntries()).isEmpty();
+	}
+
+	@Test
+	void tasksAreRankedByTheirTransitiveDownstreamTasks() {
+		List<TaskFingerprint> first = Arrays.asList(executed(":properties", map(), map("info.properties", "a1")),
+				executed(":jar", map("classes/A.class", "b2"), map("libs/a.jar", "c3")),
+				executed(":bootJar", map("libs/a.jar", "c3", "info.properties", "a1"), map("libs/boot.jar", "d4")),
+				executed(":image", map("libs/boot.jar", "d4"), map("image.tar", "e5")));
+		List<TaskFingerprint> second = Arrays.asList(executed(":properties", map(), map("info.properties", "f6")),
+				executed(":jar", map("classes/A.class", "b2"), map("libs/a.jar", "a7")),
+				executed(":bootJar", map("libs/a.jar", "a7", "info.properties", "f6"), map("libs/boot.jar", "b8")),
+				executed(":image", map("libs/boot.jar", "b8"), map("image.tar", "c9")));
+		ReproducibilityAudit audit = new ReproducibilityAudit(first, second);
+		assertThat(audit.getEntries()).extracting(ReproducibilityAudit.Entry::getPath)
+			.containsExactly(":jar", ":properties");
+		assertThat(audit.getEntries().get(0).getDownstreamTasks()).isEqualTo(2);
+		assertThat(audit.toString()).contains(":jar (2 downstream tasks)").contains("  libs/a.jar");
+	}
+
+	private TaskFingerprint executed(String path, Map<String, String> files, Map<String, String> outputs) {
+		return new TaskFingerprint(path, TaskFingerprint.EXECUTED, 100, Collections.emptyMap(), files, outputs);
+	}
+
+	private Map<String, String> map(String... keysAndValues) {
+		Map<String, String> map = new TreeMap<>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			map.put(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return map;
+	}
+
+}
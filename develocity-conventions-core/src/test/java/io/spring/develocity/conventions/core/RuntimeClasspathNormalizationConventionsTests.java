@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RuntimeClasspathNormalizationConventions}.
+ *
+ * @author Andy Wilkinson
+ */
+class RuntimeClasspathNormalizationConventionsTests {
+
+	private final Map<String, String> properties = new HashMap<>();
+
+	private final TestRuntimeClasspathNormalization normalization = new TestRuntimeClasspathNormalization();
+
+	@Test
+	void whenEnabledPropertyIsNotSetThenConventionsAreDisabled() {
+		assertThat(new RuntimeClasspathNormalizationConventions(this.properties::get).isEnabled()).isFalse();
+	}
+
+	@Test
+	void whenEnabledPropertyIsTrueThenConventionsAreEnabled() {
+		this.properties.put("spring.runtime-classpath-normalization.enabled", "true");
+		assertThat(new RuntimeClasspathNormalizationConventions(this.properties::get).isEnabled()).isTrue();
+	}
+
+	@Test
+	void byDefaultBuildInfoAndGitPropertiesAndBuildManifestAttributesAreIgnored() {
+		new RuntimeClasspathNormalizationConventions(this.properties::get).execute(this.normalization);
+		assertThat(this.normalization.ignoredFiles).containsExactly("META-INF/build-info.properties",
+				"git.properties");
+		assertThat(this.normalization.ignoredManifestAttributes).containsExactly("Build-Time", "Build-Revision");
+	}
+
+	@Test
+	void ignoredFilesAndManifestAttributesCanBeConfigured() {
+		this.properties.put("spring.runtime-classpath-normalization.ignored-files", "a.properties, b/c.properties");
+		this.properties.put("spring.runtime-classpath-normalization.ignored-manifest-attributes", "");
+		new RuntimeClasspathNormalizationConventions(this.properties::get).execute(this.normalization);
+		assertThat(this.normalization.ignoredFiles).containsExactly("a.properties", "b/c.properties");
+		assertThat(this.normalization.ignoredManifestAttributes).isEmpty();
+	}
+
+	private static final class TestRuntimeClasspathNormalization implements ConfigurableRuntimeClasspathNormalization {
+
+		private final List<String> ignoredFiles = new ArrayList<>();
+
+		private final List<String> ignoredManifestAttributes = new ArrayList<>();
+
+		@Override
+		public void ignoreFiles(List<String> patterns) {
+			this.ignoredFiles.addAll(patterns);
+		}
+
+		@Override
+		public void ignoreManifestAttributes(List<String> attributes) {
+			this.ignoredManifestAttributes.addAll(attributes);
+		}
+
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ServerAvailability}.
+ *
+ * @author Andy Wilkinson
+ */
+class ServerAvailabilityTests {
+
+	@Test
+	void whenServerIsListeningThenItIsAvailable() throws Exception {
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			assertThat(isAvailable(server.getLocalPort())).isTrue();
+		}
+	}
+
+	@Test
+	void whenServerIsNotListeningThenItIsUnavailable() throws Exception {
+		assertThat(isAvailable(closedPort())).isFalse();
+	}
+
+	@Test
+	void whenServerFlapsThenEachCheckReflectsItsAvailabilityAtTheTime() throws Exception {
+		int port;
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			port = server.getLocalPort();
+			assertThat(isAvailable(port)).isTrue();
+		}
+		assertThat(isAvailable(port)).isFalse();
+		try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+			assertThat(isAvailable(port)).isTrue();
+		}
+	}
+
+	@Test
+	void whenUrlIsInvalidThenServerIsUnavailable() {
+		assertThat(ServerAvailability.isAvailable("not a url")).isFalse();
+	}
+
+	private boolean isAvailable(int port) {
+		return ServerAvailability.isAvailable("http://127.0.0.1:" + port);
+	}
+
+	private int closedPort() throws IOException {
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			return server.getLocalPort();
+		}
+	}
+
+}
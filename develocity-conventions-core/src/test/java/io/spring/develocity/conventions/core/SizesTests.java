@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link Sizes}.
+ *
+ * @author Andy Wilkinson
+ */
+class SizesTests {
+
+	@Test
+	void sizeBelowOneKilobyteIsFormattedInBytes() {
+		assertThat(Sizes.format(1023)).isEqualTo("1023 B");
+	}
+
+	@Test
+	void sizeBelowOneMegabyteIsFormattedInKilobytes() {
+		assertThat(Sizes.format(1536)).isEqualTo("1.5 KB");
+	}
+
+	@Test
+	void sizeOfOneMegabyteOrMoreIsFormattedInMegabytes() {
+		assertThat(Sizes.format(3 * 1024 * 1024 + 512 * 1024)).isEqualTo("3.5 MB");
+	}
+
+}
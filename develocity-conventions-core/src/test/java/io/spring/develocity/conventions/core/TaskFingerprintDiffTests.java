@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TaskFingerprintDiff}.
+ *
+ * @author Andy Wilkinson
+ */
+class TaskFingerprintDiffTests {
+
+	@Test
+	void executedTasksAreRankedByExecutionTime() {
+		List<TaskFingerprint> current = Arrays.asList(executed(":a", 100), executed(":b", 3000), executed(":c", 20),
+				new TaskFingerprint(":d", "FROM-CACHE", 5000, Collections.emptyMap(), Collections.emptyMap()));
+		TaskFingerprintDiff diff = new TaskFingerprintDiff(Collections.emptyList(), current);
+		assertThat(diff.getEntries()).extracting(TaskFingerprintDiff.Entry::getPath).containsExactly(":b", ":a", ":c");
+	}
+
+	@Test
+	void changedAddedAndRemovedInputsAreDescribed() {
+		TaskFingerprint baseline = executed(":compileJava", 100, map("release", "a1", "encoding", "b2"),
+				map("src/A.java", "c3", "src/B.java", "d4"));
+		TaskFingerprint current = executed(":compileJava", 100, map("release", "e5", "encoding", "b2"),
+				map("src/A.java", "c3", "src/C.java", "f6"));
+		TaskFingerprintDiff diff = new TaskFingerprintDiff(Collections.singletonList(baseline),
+				Collections.singletonList(current));
+		assertThat(diff.getEntries().get(0).getDifferences()).containsExactly("property 'release' has changed",
+				"file 'src/B.java' was removed", "file 'src/C.java' was added");
+	}
+
+	@Test
+	void taskWithIdenticalInputsIsDescribed() {
+		TaskFingerprint fingerprint = executed(":test", 100, map("maxParallelForks", "a1"), map("A.class", "b2"));
+		TaskFingerprintDiff diff = new TaskFingerprintDiff(Collections.singletonList(fingerprint),
+				Collections.singletonList(fingerprint));
+		assertThat(diff.getEntries().get(0).getDifferences()).containsExactly("inputs are identical to the baseline");
+	}
+
+	@Test
+	void taskThatWasNotExecutedInTheBaselineIsDescribed() {
+		TaskFingerprint baseline = new TaskFingerprint(":jar", "FROM-CACHE", 10, Collections.emptyMap(),
+				Collections.emptyMap());
+		TaskFingerprintDiff diff = new TaskFingerprintDiff(Collections.singletonList(baseline),
+				Arrays.asList(executed(":jar", 100), executed(":javadoc", 50)));
+		assertThat(diff.getEntries().get(0).getDifferences())
+			.containsExactly("not executed in the baseline (FROM-CACHE)");
+		assertThat(diff.getEntries().get(1).getDifferences()).containsExactly("not present in the baseline");
+	}
+
+	@Test
+	void reportListsTasksAndTheirDifferences() {
+		TaskFingerprint baseline = executed(":compileJava", 100, map("release", "a1"), Collections.emptyMap());
+		TaskFingerprint current = executed(":compileJava", 1500, map("release", "b2"), Collections.emptyMap());
+		TaskFingerprintDiff diff = new TaskFingerprintDiff(Collections.singletonList(baseline),
+				Collections.singletonList(current));
+		assertThat(diff.toString()).contains("1 tasks were executed in 1.5s")
+			.contains(":compileJava (1.5s)")
+			.contains("  property 'release' has changed");
+	}
+
+	private TaskFingerprint executed(String path, long duration) {
+		return executed(path, duration, Collections.emptyMap(), Collections.emptyMap());
+	}
+
+	private TaskFingerprint executed(String path, long duration, Map<String, String> properties,
+			Map<String, String> files) {
+		return new TaskFingerprint(path, TaskFingerprint.EXECUTED, duration, properties, files);
+	}
+
+	private Map<String, String> map(String... keysAndValues) {
+		Map<String, String> map = new TreeMap<>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			map.put(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return map;
+	}
+
+}
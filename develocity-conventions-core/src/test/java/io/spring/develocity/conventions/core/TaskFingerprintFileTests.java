@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TaskFingerprintFile}.
+ *
+ * @author Andy Wilkinson
+ */
+class TaskFingerprintFileTests {
+
+	@TempDir
+	File temp;
+
+	@Test
+	void appendedFingerprintsCanBeRead() throws IOException {
+		TaskFingerprintFile file = new TaskFingerprintFile(new File(this.temp, "out/fingerprints.gz").toPath());
+		Map<String, String> properties = new TreeMap<>();
+		properties.put("release", "a1");
+		properties.put("encoding", "b2");
+		file.append(new TaskFingerprint(":compileJava", TaskFingerprint.EXECUTED, 1200, properties,
+				Collections.singletonMap("src/main/java/Example.java", "c3")));
+		file.append(new TaskFingerprint(":jar", "FROM-CACHE", 15, Collections.emptyMap(), Collections.emptyMap()));
+		List<TaskFingerprint> fingerprints = file.read();
+		assertThat(fingerprints).hasSize(2);
+		TaskFingerprint compileJava = fingerprints.get(0);
+		assertThat(compileJava.getPath()).isEqualTo(":compileJava");
+		assertThat(compileJava.getOutcome()).isEqualTo(TaskFingerprint.EXECUTED);
+		assertThat(compileJava.getDuration()).isEqualTo(1200);
+		assertThat(compileJava.getProperties()).containsEntry("release", "a1").containsEntry("encoding", "b2");
+		assertThat(compileJava.getFiles()).containsEntry("src/main/java/Example.java", "c3");
+		TaskFingerprint jar = fingerprints.get(1);
+		assertThat(jar.getPath()).isEqualTo(":jar");
+		assertThat(jar.getOutcome()).isEqualTo("FROM-CACHE");
+		assertThat(jar.getProperties()).isEmpty();
+		assertThat(jar.getFiles()).isEmpty();
+	}
+
+	@Test
+	void appendedFingerprintWithOutputsCanBeRead() throws IOException {
+		TaskFingerprintFile file = new TaskFingerprintFile(new File(this.temp, "fingerprints.gz").toPath());
+		file.append(new TaskFingerprint(":jar", TaskFingerprint.EXECUTED, 15, Collections.emptyMap(),
+				Collections.emptyMap(), Collections.singletonMap("build/libs/example.jar", "a1")));
+		List<TaskFingerprint> fingerprints = file.read();
+		assertThat(fingerprints).hasSize(1);
+		assertThat(fingerprints.get(0).getOutputs()).containsEntry("build/libs/example.jar", "a1");
+	}
+
+	@Test
+	void resetRemovesPreviouslyAppendedFingerprints() throws IOException {
+		TaskFingerprintFile file = new TaskFingerprintFile(new File(this.temp, "fingerprints.gz").toPath());
+		file.append(new TaskFingerprint(":jar", "FROM-CACHE", 15, Collections.emptyMap(), Collections.emptyMap()));
+		file.reset();
+		file.append(new TaskFingerprint(":test", "UP-TO-DATE", 5, Collections.emptyMap(), Collections.emptyMap()));
+		List<TaskFingerprint> fingerprints = file.read();
+		assertThat(fingerprints).hasSize(1);
+		assertThat(fingerprints.get(0).getPath()).isEqualTo(":test");
+	}
+
+	@Test
+	void hashIsHexEncodedMd5() {
+		assertThat(TaskFingerprintFile.hash("")).isEqualTo("d41d8cd98f00b204e9800998ecf8427e");
+	}
+
+}
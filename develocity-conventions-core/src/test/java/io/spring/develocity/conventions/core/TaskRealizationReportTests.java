@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import io.spring.develocity.conventions.core.BuildScanConventionsTests.TestConfigurableBuildScan;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests for {@link TaskRealizationReport}.
+ *
+ * @author Andy Wilkinson
+ */
+class TaskRealizationReportTests {
+
+	private static final StackTraceElement[] PLUGIN = { frame("org.gradle.api.internal.tasks.DefaultTaskContainer"),
+			frame("com.example.EagerPlugin$1"), frame("org.gradle.api.internal.plugins.DefaultPluginManager") };
+
+	private static final StackTraceElement[] SCRIPT = { frame("io.spring.develocity.conventions.gradle.Listener"),
+			frame("org.codehaus.groovy.runtime.callsite.AbstractCallSite"),
+			new StackTraceElement("build_5xq1", "run", "/projects/example/core/build.gradle", 12),
+			frame("org.gradle.groovy.scripts.internal.DefaultScriptRunnerFactory") };
+
+	private final TestConfigurableBuildScan buildScan = new TestConfigurableBuildScan();
+
+	@Test
+	void realizationIsAttributedToFirstFrameOutsideOfTheFramework() {
+		assertThat(TaskRealizationReport.trigger(PLUGIN)).isEqualTo("com.example.EagerPlugin");
+	}
+
+	@Test
+	void realizationIsAttributedToScriptByItsFileName() {
+		assertThat(TaskRealizationReport.trigger(SCRIPT)).isEqualTo("/projects/example/core/build.gradle");
+	}
+
+	@Test
+	void realizationIsAttributedToKotlinScriptByItsFileName() {
+		StackTraceElement[] stackTrace = { frame("org.gradle.kotlin.dsl.TaskContainerExtensionsKt"),
+				new StackTraceElement("Build_gradle", "<init>", "build.gradle.kts", 7) };
+		assertThat(TaskRealizationReport.trigger(stackTrace)).isEqualTo("build.gradle.kts");
+	}
+
+	@Test
+	void realizationIsAttributedToDecoratedPluginByItsUndecoratedName() {
+		StackTraceElement[] stackTrace = { frame("com.example.EagerPlugin_Decorated") };
+		assertThat(TaskRealizationReport.trigger(stackTrace)).isEqualTo("com.example.EagerPlugin");
+	}
+
+	@Test
+	void realizationIsNotAttributedToGradlesPublicApiExecutionOrConfiguration() {
+		StackTraceElement[] stackTrace = { frame("org.gradle.api.DefaultTask"),
+				frame("org.gradle.api.tasks.TaskContainer"), frame("org.gradle.execution.TaskNameResolver"),
+				frame("org.gradle.configuration.project.LifecycleProjectEvaluator"), frame("com.example.EagerPlugin") };
+		assertThat(TaskRealizationReport.trigger(stackTrace)).isEqualTo("com.example.EagerPlugin");
+	}
+
+	@Test
+	void realizationIsNotAttributedToGradlesKotlinDsl() {
+		StackTraceElement[] stackTrace = { frame("org.gradle.kotlin.dsl.NamedDomainObjectContainerExtensionsKt"),
+				frame("com.example.EagerPlugin") };
+		assertThat(TaskRealizationReport.trigger(stackTrace)).isEqualTo("com.example.EagerPlugin");
+	}
+
+	@Test
+	void realizationIsAttributedToKotlinDslScriptClass() {
+		StackTraceElement[] stackTrace = { frame("org.gradle.kotlin.dsl.TaskContainerExtensionsKt"),
+				frame("org.gradle.kotlin.dsl.Conventions_gradle$1") };
+		assertThat(TaskRealizationReport.trigger(stackTrace)).isEqualTo("org.gradle.kotlin.dsl.Conventions_gradle");
+	}
+
+	@Test
+	void realizationWithOnlyFrameworkFramesIsUnknown() {
+		StackTraceElement[] stackTrace = { frame("org.gradle.api.internal.tasks.DefaultTaskContainer"),
+				frame("java.lang.Thread") };
+		assertThat(TaskRealizationReport.trigger(stackTrace)).isEqualTo("unknown");
+	}
+
+	@Test
+	void eagerRealizationsAreTasksThatWereRealizedButNotScheduled() {
+		TaskRealizationReport report = new TaskRealizationReport(Collections.emptyMap(), 5);
+		report.taskRealized(":a:compileJava", PLUGIN);
+		report.taskRealized(":a:javadoc", PLUGIN);
+		report.taskRealized(":a:bootJar", SCRIPT);
+		report.taskRealized(":b:javadoc", PLUGIN);
+		report.tasksScheduled(Arrays.asList(":a:compileJava", ":b:compileJava"));
+		Map<String, Long> eager = report.getEagerRealizations();
+		assertThat(eager).containsExactly(entry("com.example.EagerPlugin", 2L),
+				entry("/projects/example/core/build.gradle", 1L));
+	}
+
+	@Test
+	void realizationsOnceTasksHaveBeenScheduledAreIgnored() {
+		TaskRealizationReport report = new TaskRealizationReport(Collections.emptyMap(), 5);
+		report.tasksScheduled(Collections.singletonList(":a:compileJava"));
+		report.taskRealized(":a:javadoc", PLUGIN);
+		assertThat(report.getEagerRealizations()).isEmpty();
+	}
+
+	@Test
+	void countsAndEagerRealizationsArePublished() {
+		TaskRealizationReport report = new TaskRealizationReport(Collections.emptyMap(), 5);
+		report.taskRealized(":a:compileJava", PLUGIN);
+		report.taskRealized(":a:javadoc", PLUGIN);
+		report.tasksScheduled(Collections.singletonList(":a:compileJava"));
+		report.publish(this.buildScan);
+		assertThat(this.buildScan.values).containsEntry("Tasks realized", "2")
+			.containsEntry("Tasks scheduled", "1")
+			.containsEntry("Eager task realization", "com.example.EagerPlugin (1 task)");
+		assertThat(this.buildScan.tags).isEmpty();
+	}
+
+	@Test
+	void whenRatioOfRealizedToScheduledTasksExceedsThresholdThenBuildScanIsTagged() {
+		TaskRealizationReport report = new TaskRealizationReport(Collections.emptyMap(), 5);
+		report.taskRealized(":a:compileJava", PLUGIN);
+		report.taskRealized(":a:javadoc", PLUGIN);
+		report.taskRealized(":a:bootJar", PLUGIN);
+		report.tasksScheduled(Collections.singletonList(":a:compileJava"));
+		report.publish(this.buildScan);
+		assertThat(this.buildScan.tags).containsExactly("eager-task-realization");
+	}
+
+	@Test
+	void ratioThresholdCanBeConfigured() {
+		TaskRealizationReport report = new TaskRealizationReport(
+				Collections.singletonMap("DEVELOCITY_EAGER_TASK_RATIO_THRESHOLD", "1.5"), 5);
+		report.taskRealized(":a:compileJava", PLUGIN);
+		report.taskRealized(":a:javadoc", PLUGIN);
+		report.tasksScheduled(Collections.singletonList(":a:compileJava"));
+		report.publish(this.buildScan);
+		assertThat(this.buildScan.tags).containsExactly("eager-task-realization");
+	}
+
+	@Test
+	void whenTasksHaveNotBeenScheduledThenNothingIsPublished() {
+		TaskRealizationReport report = new TaskRealizationReport(Collections.emptyMap(), 5);
+		report.taskRealized(":a:compileJava", PLUGIN);
+		report.publish(this.buildScan);
+		assertThat(this.buildScan.values).isEmpty();
+	}
+
+	@Test
+	void whenRatioThresholdIsNotANumberThenCreationFails() {
+		assertThatIllegalStateException()
+			.isThrownBy(() -> new TaskRealizationReport(
+					Collections.singletonMap("DEVELOCITY_EAGER_TASK_RATIO_THRESHOLD", "two"), 5))
+			.withMessage("Value 'two' of environment variable DEVELOCITY_EAGER_TASK_RATIO_THRESHOLD is not a valid "
+					+ "ratio");
+	}
+
+	@Test
+	void whenRatioThresholdIsLessThanOneThenCreationFails() {
+		assertThatIllegalStateException()
+			.isThrownBy(() -> new TaskRealizationReport(
+					Collections.singletonMap("DEVELOCITY_EAGER_TASK_RATIO_THRESHOLD", "0.5"), 5))
+			.withMessage("Value '0.5' of environment variable DEVELOCITY_EAGER_TASK_RATIO_THRESHOLD is not a valid "
+					+ "ratio");
+	}
+
+	private static StackTraceElement frame(String className) {
+		return new StackTraceElement(className, "method", null, -1);
+	}
+
+}
@@ -18,6 +18,7 @@ package io.spring.develocity.conventions.core;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +40,8 @@ final class TestProcessRunner implements ProcessRunner {
 
 	final Map<List<String>, RuntimeException> failures = new HashMap<>();
 
+	final Map<List<String>, Duration> latencies = new HashMap<>();
+
 	@Override
 	public void run(Consumer<ProcessSpec> configurer) {
 		ProcessSpec processSpec = mock(ProcessSpec.class);
@@ -48,6 +51,15 @@ final class TestProcessRunner implements ProcessRunner {
 		ArgumentCaptor<OutputStream> standardOut = ArgumentCaptor.forClass(OutputStream.class);
 		verify(processSpec).standardOutput(standardOut.capture());
 		List<Object> commandLine = commandLineCaptor.getAllValues();
+		Duration latency = this.latencies.get(commandLine);
+		if (latency != null) {
+			try {
+				Thread.sleep(latency.toMillis());
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
 		RuntimeException failure = this.failures.get(commandLine);
 		if (failure != null) {
 			failure.fillInStackTrace();
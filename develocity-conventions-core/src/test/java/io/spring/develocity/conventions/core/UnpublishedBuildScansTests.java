@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.core;
+
+import java.io.File;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link UnpublishedBuildScans}.
+ *
+ * @author Andy Wilkinson
+ */
+class UnpublishedBuildScansTests {
+
+	private final TestClock clock = new TestClock();
+
+	@TempDir
+	File temp;
+
+	@Test
+	void whenDirectoryIsNotConfiguredThenUnpublishedBuildScansAreNotCreated() {
+		assertThat(UnpublishedBuildScans.fromEnvironment(Collections.emptyMap())).isNull();
+	}
+
+	@Test
+	void whenDirectoryIsConfiguredThenUnpublishedBuildScansAreCreated() {
+		assertThat(UnpublishedBuildScans
+			.fromEnvironment(Collections.singletonMap("DEVELOCITY_UNPUBLISHED_SCANS_DIRECTORY", this.temp.getPath())))
+			.isNotNull();
+	}
+
+	@Test
+	void whenConfigurationIsInvalidThenCreationFails() {
+		Map<String, String> env = new HashMap<>();
+		env.put("DEVELOCITY_UNPUBLISHED_SCANS_DIRECTORY", this.temp.getPath());
+		env.put("DEVELOCITY_UNPUBLISHED_SCANS_MAX_AGE", "a week");
+		assertThatIllegalStateException().isThrownBy(() -> UnpublishedBuildScans.fromEnvironment(env))
+			.withMessage("Unpublished build scans configuration is invalid");
+	}
+
+	@Test
+	void whenNothingHasBeenRecordedThenThereAreNoEntries() {
+		assertThat(unpublished(10, Duration.ofDays(1)).entries()).isEmpty();
+	}
+
+	@Test
+	void recordedEntriesAreReturnedOldestFirst() {
+		UnpublishedBuildScans unpublished = unpublished(10, Duration.ofDays(1));
+		unpublished.record("https://one.example.com");
+		this.clock.advance(Duration.ofMinutes(1));
+		unpublished.record("https://two.example.com");
+		assertThat(unpublished.entries()).extracting(UnpublishedBuildScans.Entry::getServer)
+			.containsExactly("https://one.example.com", "https://two.example.com");
+		assertThat(unpublished.entries().get(0).getTime()).isEqualTo(Instant.parse("2024-01-01T00:00:00Z"));
+	}
+
+	@Test
+	void whenMaximumNumberOfEntriesIsExceededThenOldestEntriesAreRemoved() {
+		UnpublishedBuildScans unpublished = unpublished(2, Duration.ofDays(1));
+		for (int i = 1; i <= 3; i++) {
+			unpublished.record("https://" + i + ".example.com");
+			this.clock.advance(Duration.ofMinutes(1));
+		}
+		assertThat(unpublished.entries()).extracting(UnpublishedBuildScans.Entry::getServer)
+			.containsExactly("https://2.example.com", "https://3.example.com");
+	}
+
+	@Test
+	void whenEntriesExceedTheMaximumAgeThenTheyAreRemoved() {
+		UnpublishedBuildScans unpublished = unpublished(10, Duration.ofHours(1));
+		unpublished.record("https://old.example.com");
+		this.clock.advance(Duration.ofMinutes(90));
+		unpublished.record("https://new.example.com");
+		assertThat(unpublished.entries()).extracting(UnpublishedBuildScans.Entry::getServer)
+			.containsExactly("https://new.example.com");
+	}
+
+	@Test
+	void drainingRemovesAndReturnsAllEntries() {
+		UnpublishedBuildScans unpublished = unpublished(10, Duration.ofDays(1));
+		unpublished.record("https://one.example.com");
+		this.clock.advance(Duration.ofMinutes(1));
+		unpublished.record("https://two.example.com");
+		assertThat(unpublished.drain()).hasSize(2);
+		assertThat(unpublished.entries()).isEmpty();
+	}
+
+	@Test
+	void entriesArePersistedAcrossInstances() {
+		unpublished(10, Duration.ofDays(1)).record("https://one.example.com");
+		assertThat(unpublished(10, Duration.ofDays(1)).entries()).hasSize(1);
+	}
+
+	private UnpublishedBuildScans unpublished(int maxEntries, Duration maxAge) {
+		return new UnpublishedBuildScans(new File(this.temp, "unpublished"), maxEntries, maxAge, this.clock);
+	}
+
+	private static final class TestClock extends Clock {
+
+		private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.instant = this.instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return this.instant;
+		}
+
+	}
+
+}
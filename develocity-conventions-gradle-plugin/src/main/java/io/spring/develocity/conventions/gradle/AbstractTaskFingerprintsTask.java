@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import io.spring.develocity.conventions.core.TaskFingerprint;
+import io.spring.develocity.conventions.core.TaskFingerprintFile;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Base class for tasks that report on the task fingerprints of a baseline build and
+ * those of the current build.
+ *
+ * @author Andy Wilkinson
+ */
+public abstract class AbstractTaskFingerprintsTask extends DefaultTask {
+
+	protected AbstractTaskFingerprintsTask() {
+		getOutputs().upToDateWhen((task) -> false);
+	}
+
+	/**
+	 * Returns the fingerprint file of the baseline build.
+	 * @return the baseline fingerprint file
+	 */
+	@InputFile
+	@PathSensitive(PathSensitivity.NONE)
+	public abstract RegularFileProperty getBaseline();
+
+	/**
+	 * Returns the fingerprint file of the current build.
+	 * @return the current fingerprint file
+	 */
+	@InputFile
+	@PathSensitive(PathSensitivity.NONE)
+	public abstract RegularFileProperty getCurrent();
+
+	/**
+	 * Returns the file to which the report is written.
+	 * @return the report file
+	 */
+	@OutputFile
+	public abstract RegularFileProperty getReport();
+
+	@TaskAction
+	void createReport() throws IOException {
+		String report = report(new TaskFingerprintFile(getBaseline().get().getAsFile().toPath()).read(),
+				new TaskFingerprintFile(getCurrent().get().getAsFile().toPath()).read());
+		Files.write(getReport().get().getAsFile().toPath(), report.getBytes(StandardCharsets.UTF_8));
+		getLogger().lifecycle(report);
+	}
+
+	/**
+	 * Creates the report for the given fingerprints.
+	 * @param baseline the fingerprints of the baseline build
+	 * @param current the fingerprints of the current build
+	 * @return the report
+	 */
+	protected abstract String report(List<TaskFingerprint> baseline, List<TaskFingerprint> current);
+
+}
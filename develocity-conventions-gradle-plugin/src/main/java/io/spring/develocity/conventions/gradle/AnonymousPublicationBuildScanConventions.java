@@ -18,9 +18,11 @@ package io.spring.develocity.conventions.gradle;
 
 import java.util.Map;
 
+import io.spring.develocity.conventions.core.BranchResolver;
 import io.spring.develocity.conventions.core.BuildScanConventions;
 import io.spring.develocity.conventions.core.ConfigurableBuildScan;
 import io.spring.develocity.conventions.core.ConfigurableDevelocity;
+import io.spring.develocity.conventions.core.ConnectionWarmUp;
 import io.spring.develocity.conventions.core.ProcessRunner;
 
 /**
@@ -35,6 +37,15 @@ class AnonymousPublicationBuildScanConventions extends BuildScanConventions {
 		super(processRunner);
 	}
 
+	AnonymousPublicationBuildScanConventions(ProcessRunner processRunner, BranchResolver branchResolver) {
+		super(processRunner, branchResolver);
+	}
+
+	AnonymousPublicationBuildScanConventions(ProcessRunner processRunner, BranchResolver branchResolver,
+			ConnectionWarmUp connectionWarmUp) {
+		super(processRunner, branchResolver, connectionWarmUp);
+	}
+
 	AnonymousPublicationBuildScanConventions(ProcessRunner processRunner, Map<String, String> env) {
 		super(processRunner, env);
 	}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.util.List;
+
+import io.spring.develocity.conventions.core.ReproducibilityAudit;
+import io.spring.develocity.conventions.core.TaskFingerprint;
+
+/**
+ * Task that audits the reproducibility of the tasks that were executed by both a
+ * baseline build and the current build.
+ *
+ * @author Andy Wilkinson
+ */
+public abstract class AuditReproducibility extends AbstractTaskFingerprintsTask {
+
+	@Override
+	protected String report(List<TaskFingerprint> baseline, List<TaskFingerprint> current) {
+		return new ReproducibilityAudit(baseline, current).toString();
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import io.spring.develocity.conventions.core.BuildCacheProxyLauncher;
+import io.spring.develocity.conventions.core.BuildCacheProxyLauncher.RunningProxy;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.ValueSource;
+import org.gradle.api.provider.ValueSourceParameters;
+
+/**
+ * {@link ValueSource} that launches the build cache proxy and provides its URL. As the
+ * value is an input to the configuration cache, it is obtained again when a configuration
+ * cache entry is reused and the proxy is launched if it has stopped since the entry was
+ * stored.
+ *
+ * @author Andy Wilkinson
+ */
+abstract class BuildCacheProxyValueSource implements ValueSource<String, BuildCacheProxyValueSource.Parameters> {
+
+	@Override
+	public String obtain() {
+		BuildCacheProxyLauncher launcher = BuildCacheProxyLauncher.fromEnvironment();
+		if (launcher == null) {
+			return null;
+		}
+		RunningProxy proxy = launcher.launch(getParameters().getUpstream().get(),
+				getParameters().getAllowUntrustedServer().get());
+		return (proxy != null) ? proxy.getUrl() : null;
+	}
+
+	interface Parameters extends ValueSourceParameters {
+
+		Property<String> getUpstream();
+
+		Property<Boolean> getAllowUntrustedServer();
+
+	}
+
+}
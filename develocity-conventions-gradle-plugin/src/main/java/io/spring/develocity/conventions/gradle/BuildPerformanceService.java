@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import io.spring.develocity.conventions.core.BuildPerformanceFingerprint;
+import io.spring.develocity.conventions.core.ConfigurableBuildScan;
+import io.spring.develocity.conventions.core.CriticalPathSummary;
+import io.spring.develocity.conventions.core.JvmMetrics;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationDescriptor;
+import org.gradle.tooling.events.task.TaskOperationResult;
+
+/**
+ * {@link BuildService} that listens for the completion of tasks to produce a
+ * {@link BuildPerformanceFingerprint} and a {@link CriticalPathSummary}, and that
+ * measures the daemon's {@link JvmMetrics} from its creation. As a completion listener, it
+ * can be used with the configuration cache.
+ * <p>
+ * Whether the daemon was freshly started and whether the build was configured are
+ * tracked using system properties rather than static fields so that they are unaffected
+ * by the plugin's classes being loaded by a new class loader.
+ *
+ * @author Andy Wilkinson
+ */
+public abstract class BuildPerformanceService
+		implements BuildService<BuildPerformanceService.Parameters>, OperationCompletionListener {
+
+	static final String DAEMON_PROPERTY = "io.spring.develocity.conventions.daemon";
+
+	static final String CONFIGURATION_PROPERTY = "io.spring.develocity.conventions.configuration";
+
+	private final BuildPerformanceFingerprint fingerprint = new BuildPerformanceFingerprint();
+
+	private final JvmMetrics jvmMetrics = new JvmMetrics();
+
+	private final CriticalPathSummary criticalPath;
+
+	private final boolean coldDaemon;
+
+	private long firstTaskStartTime = Long.MAX_VALUE;
+
+	public BuildPerformanceService() {
+		this.criticalPath = new CriticalPathSummary(getParameters().getMaxWorkers().get());
+		this.coldDaemon = System.getProperties().putIfAbsent(DAEMON_PROPERTY, "started") == null;
+	}
+
+	/**
+	 * Records that the build is being configured, returning an ID that identifies the
+	 * configuration. When the configuration is loaded from the configuration cache, the
+	 * ID will be that of the build that stored it.
+	 * @return the configuration ID
+	 */
+	static String configurationStarted() {
+		String configurationId = UUID.randomUUID().toString();
+		System.setProperty(CONFIGURATION_PROPERTY, configurationId);
+		return configurationId;
+	}
+
+	@Override
+	public void onFinish(FinishEvent event) {
+		if (event instanceof TaskFinishEvent) {
+			TaskFinishEvent finish = (TaskFinishEvent) event;
+			TaskOperationResult result = finish.getResult();
+			this.fingerprint.record(CacheHitRateService.outcome(result));
+			this.criticalPath.record(finish.getDescriptor().getTaskPath(), result.getStartTime(), result.getEndTime(),
+					dependencies(finish.getDescriptor()));
+			synchronized (this) {
+				this.firstTaskStartTime = Math.min(this.firstTaskStartTime, result.getStartTime());
+			}
+		}
+	}
+
+	private List<String> dependencies(TaskOperationDescriptor descriptor) {
+		try {
+			return descriptor.getDependencies()
+				.stream()
+				.filter(TaskOperationDescriptor.class::isInstance)
+				.map((dependency) -> ((TaskOperationDescriptor) dependency).getTaskPath())
+				.collect(Collectors.toList());
+		}
+		catch (UnsupportedOperationException ex) {
+			// Dependencies are unavailable so the critical path cannot be derived
+			return null;
+		}
+	}
+
+	void publish(ConfigurableBuildScan buildScan) {
+		Parameters parameters = getParameters();
+		boolean configured = System.getProperties()
+			.remove(CONFIGURATION_PROPERTY, parameters.getConfigurationId().get());
+		if (configured) {
+			this.fingerprint.setConfigurationTime(configurationTime(parameters.getConfigurationStartTime().get()));
+		}
+		if (parameters.getConfigurationCacheRequested().get()) {
+			this.fingerprint.setConfigurationCacheHit(!configured);
+		}
+		this.fingerprint.setColdDaemon(this.coldDaemon);
+		this.fingerprint.publish(buildScan);
+		this.criticalPath.publish(buildScan);
+		this.jvmMetrics.publish(buildScan);
+	}
+
+	private synchronized Duration configurationTime(long configurationStartTime) {
+		if (this.firstTaskStartTime == Long.MAX_VALUE) {
+			return null;
+		}
+		return Duration.ofMillis(Math.max(this.firstTaskStartTime - configurationStartTime, 0));
+	}
+
+	/**
+	 * Parameters of the service.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+
+		Property<String> getConfigurationId();
+
+		Property<Long> getConfigurationStartTime();
+
+		Property<Boolean> getConfigurationCacheRequested();
+
+		Property<Integer> getMaxWorkers();
+
+	}
+
+}
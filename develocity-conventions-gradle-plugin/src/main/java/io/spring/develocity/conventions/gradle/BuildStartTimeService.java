@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.time.Instant;
+
+import javax.inject.Inject;
+
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.internal.buildevents.BuildStartedTime;
+
+/**
+ * {@link BuildService} that provides the time at which the build started. Unlike a time
+ * captured while the build is being configured, it is correct when the configuration is
+ * loaded from the configuration cache. Gradle has no public API for the start time so
+ * its internal {@link BuildStartedTime} is used. Callers should be prepared for the
+ * service to fail if a version of Gradle removes or changes it.
+ *
+ * @author Andy Wilkinson
+ */
+public abstract class BuildStartTimeService implements BuildService<BuildServiceParameters.None> {
+
+	@Inject
+	protected abstract BuildStartedTime getBuildStartedTime();
+
+	/**
+	 * Returns the time at which the build started.
+	 * @return the start time or {@code null} if it is unavailable
+	 */
+	Instant getBuildStartTime() {
+		BuildStartedTime buildStartedTime = getBuildStartedTime();
+		return (buildStartedTime != null) ? Instant.ofEpochMilli(buildStartedTime.getStartTime()) : null;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import io.spring.develocity.conventions.core.CacheEntryReport;
+import io.spring.develocity.conventions.core.CacheHitRateSummary.Outcome;
+import io.spring.develocity.conventions.core.ConfigurableBuildScan;
+import org.gradle.api.Task;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BuildService} that listens for the completion of tasks to record the size of
+ * the outputs of cacheable tasks that were executed or restored from the build cache in
+ * a {@link CacheEntryReport}. The outputs of each cacheable task are provided as a
+ * parameter so that, as a completion listener, it can be used with the configuration
+ * cache. The report is written when the service is closed at the end of the build.
+ *
+ * @author Andy Wilkinson
+ */
+public abstract class CacheEntryReportService
+		implements BuildService<CacheEntryReportService.Parameters>, OperationCompletionListener, AutoCloseable {
+
+	private final Logger log = LoggerFactory.getLogger(CacheEntryReportService.class);
+
+	private final CacheEntryReport report;
+
+	private final Map<String, FileCollection> cacheableOutputs;
+
+	public CacheEntryReportService() {
+		this.report = new CacheEntryReport(getParameters().getLimit().get());
+		this.cacheableOutputs = getParameters().getCacheableOutputs().get();
+	}
+
+	/**
+	 * Returns whether the given {@code task} is cacheable, that is whether its type is
+	 * annotated with {@link CacheableTask @CacheableTask}.
+	 * @param task the task
+	 * @return {@code true} if the task is cacheable, otherwise {@code false}
+	 */
+	static boolean isCacheable(Task task) {
+		for (Class<?> type = task.getClass(); type != null; type = type.getSuperclass()) {
+			if (type.isAnnotationPresent(CacheableTask.class)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void onFinish(FinishEvent event) {
+		if (!(event instanceof TaskFinishEvent)) {
+			return;
+		}
+		TaskFinishEvent finish = (TaskFinishEvent) event;
+		String path = finish.getDescriptor().getTaskPath();
+		FileCollection outputs = this.cacheableOutputs.get(path);
+		TaskOperationResult result = finish.getResult();
+		Outcome outcome = CacheHitRateService.outcome(result);
+		if (outputs == null || (outcome != Outcome.EXECUTED && outcome != Outcome.FROM_CACHE)) {
+			return;
+		}
+		this.report.record(path, outcome == Outcome.FROM_CACHE, size(outputs),
+				result.getEndTime() - result.getStartTime());
+	}
+
+	void publish(ConfigurableBuildScan buildScan) {
+		this.report.publish(buildScan);
+	}
+
+	private long size(Iterable<File> outputs) {
+		long size = 0;
+		for (File file : outputs) {
+			try (Stream<Path> stream = Files.walk(file.toPath())) {
+				size += stream.filter(Files::isRegularFile).mapToLong((path) -> path.toFile().length()).sum();
+			}
+			catch (IOException ex) {
+				// Output does not exist
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.report.writeJson(getParameters().getReportFile().get().getAsFile().toPath());
+		}
+		catch (IOException ex) {
+			this.log.warn("Failed to write cache entry report", ex);
+		}
+	}
+
+	/**
+	 * Parameters of the service.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+
+		Property<Integer> getLimit();
+
+		RegularFileProperty getReportFile();
+
+		MapProperty<String, FileCollection> getCacheableOutputs();
+
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.util.Set;
+
+import io.spring.develocity.conventions.core.CacheHitRateSummary;
+import io.spring.develocity.conventions.core.CacheHitRateSummary.Outcome;
+import io.spring.develocity.conventions.core.ConfigurableBuildScan;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationResult;
+import org.gradle.tooling.events.task.TaskSkippedResult;
+import org.gradle.tooling.events.task.TaskSuccessResult;
+
+/**
+ * {@link BuildService} that listens for the completion of tasks to produce a
+ * {@link CacheHitRateSummary}. The paths of the cacheable tasks are provided as a
+ * parameter so that executed tasks that are not cacheable are not counted as misses. As
+ * a completion listener, it can be used with the configuration cache.
+ *
+ * @author Andy Wilkinson
+ */
+public abstract class CacheHitRateService
+		implements BuildService<CacheHitRateService.Parameters>, OperationCompletionListener {
+
+	private final CacheHitRateSummary summary = new CacheHitRateSummary();
+
+	private final Set<String> cacheableTasks;
+
+	public CacheHitRateService() {
+		this.cacheableTasks = getParameters().getCacheableTasks().get();
+	}
+
+	@Override
+	public void onFinish(FinishEvent event) {
+		if (event instanceof TaskFinishEvent) {
+			TaskFinishEvent finish = (TaskFinishEvent) event;
+			Outcome outcome = outcome(finish.getResult());
+			if (outcome == Outcome.EXECUTED && !this.cacheableTasks.contains(finish.getDescriptor().getTaskPath())) {
+				outcome = Outcome.NOT_CACHEABLE;
+			}
+			this.summary.record(outcome);
+		}
+	}
+
+	static Outcome outcome(TaskOperationResult result) {
+		if (result instanceof TaskSuccessResult) {
+			TaskSuccessResult success = (TaskSuccessResult) result;
+			if (success.isFromCache()) {
+				return Outcome.FROM_CACHE;
+			}
+			return success.isUpToDate() ? Outcome.UP_TO_DATE : Outcome.EXECUTED;
+		}
+		return (result instanceof TaskSkippedResult) ? Outcome.SKIPPED : Outcome.EXECUTED;
+	}
+
+	void publish(ConfigurableBuildScan buildScan) {
+		this.summary.publish(buildScan);
+	}
+
+	/**
+	 * Parameters of the service.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+
+		SetProperty<String> getCacheableTasks();
+
+	}
+
+}
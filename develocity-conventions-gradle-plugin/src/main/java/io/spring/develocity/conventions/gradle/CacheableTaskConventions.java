@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.Exec;
+import org.gradle.api.tasks.bundling.AbstractArchiveTask;
+
+/**
+ * Conventions that make tasks that are not cacheable by default cacheable when their
+ * inputs and outputs are well-defined. The conventions are made up of rules, each of
+ * which applies to a type of task and is enabled by name.
+ * <p>
+ * The {@code exec} rule adds the executable and the working directory, relative to the
+ * root project, as inputs of {@link Exec} tasks. The environment of the process is not
+ * an input as it contains machine-specific values, so the rule is unsound for tasks whose
+ * outputs depend on environment variables or on the version of an executable that is
+ * found on the {@code PATH}.
+ *
+ * @author Andy Wilkinson
+ */
+class CacheableTaskConventions implements Action<Project> {
+
+	private static final Map<String, Rule<?>> RULES;
+
+	static {
+		Map<String, Rule<?>> rules = new LinkedHashMap<>();
+		rules.put("archives", new Rule<>(AbstractArchiveTask.class, CacheableTaskConventions::archive));
+		rules.put("exec", new Rule<>(Exec.class, CacheableTaskConventions::exec));
+		RULES = Collections.unmodifiableMap(rules);
+	}
+
+	private final List<Rule<?>> rules;
+
+	private CacheableTaskConventions(List<Rule<?>> rules) {
+		this.rules = rules;
+	}
+
+	/**
+	 * Returns the conventions for the rules with the given comma-separated
+	 * {@code names}.
+	 * @param names the names of the rules or {@code null}
+	 * @return the conventions or {@code null} if no rules have been named
+	 * @throws IllegalStateException if a name does not identify a rule
+	 */
+	static CacheableTaskConventions forRules(String names) {
+		if (names == null) {
+			return null;
+		}
+		List<Rule<?>> rules = new ArrayList<>();
+		for (String name : names.split(",")) {
+			String trimmed = name.trim();
+			if (trimmed.isEmpty()) {
+				continue;
+			}
+			Rule<?> rule = RULES.get(trimmed);
+			if (rule == null) {
+				throw new IllegalStateException(
+						"Unknown cacheable task rule '" + trimmed + "'. Available rules are " + RULES.keySet());
+			}
+			rules.add(rule);
+		}
+		return rules.isEmpty() ? null : new CacheableTaskConventions(rules);
+	}
+
+	@Override
+	public void execute(Project project) {
+		this.rules.forEach((rule) -> rule.apply(project));
+	}
+
+	private static void archive(AbstractArchiveTask archive) {
+		archive.getOutputs().cacheIf("Archive tasks are cacheable by convention", (task) -> true);
+	}
+
+	private static void exec(Exec exec) {
+		Path rootDirectory = exec.getProject().getRootDir().toPath();
+		exec.getInputs()
+			.property("cacheableTasks.executable", (Callable<String>) exec::getExecutable)
+			.optional(true);
+		exec.getInputs()
+			.property("cacheableTasks.workingDir", (Callable<String>) () -> rootDirectory
+				.relativize(exec.getWorkingDir().toPath())
+				.toString()
+				.replace(File.separatorChar, '/'));
+		exec.getOutputs()
+			.cacheIf("Exec tasks with declared inputs and outputs are cacheable by convention",
+					(task) -> task.getInputs().getHasInputs() && task.getOutputs().getHasOutput());
+	}
+
+	private static final class Rule<T extends Task> {
+
+		private final Class<T> type;
+
+		private final Action<T> action;
+
+		private Rule(Class<T> type, Action<T> action) {
+			this.type = type;
+			this.action = action;
+		}
+
+		private void apply(Project project) {
+			project.getTasks().withType(this.type).configureEach(this.action);
+		}
+
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.io.IOException;
+
+import io.spring.develocity.conventions.core.ConfigurationTimeReport;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BuildService} that holds the {@link ConfigurationTimeReport} of the build's
+ * configuration. The report's file is resolved and written when the service is closed
+ * rather than while the build is being configured.
+ *
+ * @author Andy Wilkinson
+ */
+public abstract class ConfigurationTimeReportService
+		implements BuildService<ConfigurationTimeReportService.Parameters>, AutoCloseable {
+
+	private final Logger log = LoggerFactory.getLogger(ConfigurationTimeReportService.class);
+
+	private final ConfigurationTimeReport report = new ConfigurationTimeReport();
+
+	ConfigurationTimeReport getReport() {
+		return this.report;
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.report.writeJson(getParameters().getReportFile().get().getAsFile().toPath());
+		}
+		catch (IOException ex) {
+			this.log.warn("Failed to write configuration time report", ex);
+		}
+	}
+
+	/**
+	 * Parameters of the service.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+
+		RegularFileProperty getReportFile();
+
+	}
+
+}
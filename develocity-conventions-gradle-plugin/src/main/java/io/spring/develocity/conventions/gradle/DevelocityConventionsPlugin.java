@@ -21,20 +21,45 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import com.gradle.develocity.agent.gradle.DevelocityConfiguration;
 import com.gradle.develocity.agent.gradle.DevelocityPlugin;
 import com.gradle.develocity.agent.gradle.scan.BuildScanConfiguration;
+import io.spring.develocity.conventions.core.BranchResolver;
 import io.spring.develocity.conventions.core.BuildCacheConventions;
+import io.spring.develocity.conventions.core.BuildCacheProxyLauncher;
 import io.spring.develocity.conventions.core.BuildScanConventions;
+import io.spring.develocity.conventions.core.CapturePolicy;
+import io.spring.develocity.conventions.core.ConfigurationTimeReport;
+import io.spring.develocity.conventions.core.ConnectionWarmUp;
+import io.spring.develocity.conventions.core.LocalBuildCacheSnapshot;
+import io.spring.develocity.conventions.core.ProcessRunner;
+import io.spring.develocity.conventions.core.ProcessTreeSampler;
+import io.spring.develocity.conventions.core.RuntimeClasspathNormalizationConventions;
+import io.spring.develocity.conventions.core.TaskRealizationReport;
 import org.gradle.StartParameter;
 import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.initialization.ProjectDescriptor;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.internal.ProcessOperations;
+import org.gradle.api.invocation.Gradle;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.ProviderFactory;
+import org.gradle.build.event.BuildEventsListenerRegistry;
 import org.gradle.util.GradleVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,17 +72,28 @@ import org.slf4j.LoggerFactory;
  */
 public class DevelocityConventionsPlugin implements Plugin<Settings> {
 
+	private static final String FINGERPRINTS = "task-fingerprints.gz";
+
+	private static final String DIFF = "task-fingerprints-diff.txt";
+
+	private static final String AUDIT = "reproducibility-audit.txt";
+
 	private final Logger log = LoggerFactory.getLogger(DevelocityConventionsPlugin.class);
 
 	private final ProcessOperations processOperations;
 
+	private final BuildEventsListenerRegistry buildEventsListenerRegistry;
+
 	@Inject
-	public DevelocityConventionsPlugin(ProcessOperations processOperations) {
+	public DevelocityConventionsPlugin(ProcessOperations processOperations,
+			BuildEventsListenerRegistry buildEventsListenerRegistry) {
 		this.processOperations = processOperations;
+		this.buildEventsListenerRegistry = buildEventsListenerRegistry;
 	}
 
 	@Override
 	public void apply(Settings settings) {
+		long configurationStartTime = System.currentTimeMillis();
 		if (buildScanRequested(settings) && gradleVersionIsLessThanEightEight()) {
 			this.log.warn("Develocity conventions disabled. Using --scan requires Gradle 8.8 or later. "
 					+ "Current Gradle version is " + GradleVersion.current().getVersion());
@@ -70,13 +106,268 @@ public class DevelocityConventionsPlugin implements Plugin<Settings> {
 				.buildScan((buildScan) -> buildScan.publishing((publishing) -> publishing.onlyIf((context) -> false)));
 			return;
 		}
+		ProcessOperationsProcessRunner processRunner = new ProcessOperationsProcessRunner(
+				new WorkingDirectoryProcessOperations(this.processOperations, settings.getRootDir()));
+		BranchResolver branchResolver = new BranchResolver(processRunner);
+		ConnectionWarmUp connectionWarmUp = ConnectionWarmUp.fromEnvironment();
 		if (isBuildScanEnabled(settings)) {
-			configureBuildScanConventions(extension, extension.getBuildScan(), settings);
+			configureBuildScanConventions(extension, extension.getBuildScan(), settings, processRunner, branchResolver,
+					connectionWarmUp);
+			configureCapturePolicy(settings, extension.getBuildScan());
+			configureBuildPerformanceFingerprint(settings, extension.getBuildScan(), configurationStartTime);
+			configureTaskRealizationReport(settings, extension.getBuildScan());
+			if (settings.getStartParameter().isBuildCacheEnabled()) {
+				configureCacheHitRateSummary(settings, extension.getBuildScan());
+			}
 		}
 		if (settings.getStartParameter().isBuildCacheEnabled()) {
-			settings.buildCache((buildCacheConfiguration) -> new BuildCacheConventions()
+			BuildCacheProxyLauncher proxyLauncher = BuildCacheProxyLauncher.fromEnvironment();
+			GradleBuildCacheProxyLauncher gradleProxyLauncher = (proxyLauncher != null)
+					? new GradleBuildCacheProxyLauncher(proxyLauncher, settings.getProviders()) : null;
+			settings.buildCache((buildCacheConfiguration) -> new BuildCacheConventions(branchResolver, connectionWarmUp,
+					gradleProxyLauncher)
 				.execute(new GradleConfigurableBuildCache(extension.getBuildCache(), buildCacheConfiguration)));
+			configureLocalBuildCacheSnapshot(settings);
+			configureCacheEntryReport(settings, extension.getBuildScan());
 		}
+		configureRuntimeClasspathNormalization(settings);
+		configureCacheableTasks(settings);
+		configureTaskFingerprints(settings);
+		configureProcessTreeSampler(settings, extension.getBuildScan());
+		configureConfigurationTimeReport(settings, extension.getBuildScan());
+	}
+
+	private void configureTaskRealizationReport(Settings settings, BuildScanConfiguration buildScan) {
+		if (!Boolean.parseBoolean(
+				settings.getProviders().gradleProperty("spring.task-realization-report.enabled").getOrNull())) {
+			return;
+		}
+		Gradle gradle = settings.getGradle();
+		TaskRealizationReport report = new TaskRealizationReport();
+		AtomicBoolean graphReady = new AtomicBoolean();
+		gradle.allprojects((project) -> project.getTasks().configureEach((task) -> {
+			if (!graphReady.get()) {
+				report.taskRealized(task.getPath(), new Throwable().getStackTrace());
+			}
+		}));
+		gradle.getTaskGraph().whenReady((graph) -> {
+			graphReady.set(true);
+			report.tasksScheduled(graph.getAllTasks().stream().map(Task::getPath).collect(Collectors.toList()));
+			report.publish(new GradleConfigurableBuildScan(buildScan));
+		});
+	}
+
+	private void configureConfigurationTimeReport(Settings settings, BuildScanConfiguration buildScan) {
+		if (!Boolean.parseBoolean(
+				settings.getProviders().gradleProperty("spring.configuration-time-report.enabled").getOrNull())) {
+			return;
+		}
+		Gradle gradle = settings.getGradle();
+		boolean buildScanEnabled = isBuildScanEnabled(settings);
+		gradle.rootProject((root) -> {
+			Provider<ConfigurationTimeReportService> service = gradle.getSharedServices()
+				.registerIfAbsent("configurationTimeReport", ConfigurationTimeReportService.class,
+						(spec) -> spec.getParameters()
+							.getReportFile()
+							.set(root.getLayout().getBuildDirectory().file("configuration-time.json")));
+			gradle.beforeProject((project) -> {
+				ConfigurationTimeReport report = service.get().getReport();
+				report.projectEvaluationStarted(project.getPath(), System.nanoTime());
+				project.getPlugins()
+					.whenPluginAdded((plugin) -> report.pluginApplied(project.getPath(), pluginName(plugin),
+							System.nanoTime()));
+			});
+			gradle.afterProject((project) -> service.get()
+				.getReport()
+				.projectEvaluationFinished(project.getPath(), System.nanoTime()));
+			if (buildScanEnabled) {
+				gradle.projectsEvaluated(
+						(evaluated) -> service.get().getReport().publish(new GradleConfigurableBuildScan(buildScan)));
+			}
+		});
+	}
+
+	private String pluginName(Plugin<?> plugin) {
+		String name = plugin.getClass().getName();
+		return name.endsWith("_Decorated") ? name.substring(0, name.length() - "_Decorated".length()) : name;
+	}
+
+	private void configureProcessTreeSampler(Settings settings, BuildScanConfiguration buildScan) {
+		Duration interval = ProcessTreeSampler.intervalFromEnvironment();
+		if (interval == null) {
+			return;
+		}
+		Gradle gradle = settings.getGradle();
+		gradle.rootProject((project) -> {
+			Provider<ProcessTreeSamplerService> service = gradle.getSharedServices()
+				.registerIfAbsent("processTreeSampler", ProcessTreeSamplerService.class, (spec) -> {
+					spec.getParameters().getInterval().set(interval.toMillis());
+					spec.getParameters()
+						.getTimelineFile()
+						.set(project.getLayout().getBuildDirectory().file("process-tree-samples.csv"));
+				});
+			this.buildEventsListenerRegistry.onTaskCompletion(service);
+			// Create the service, and start sampling, before the projects are configured
+			service.get();
+			if (isBuildScanEnabled(settings)) {
+				new GradleConfigurableBuildScan(buildScan)
+					.buildFinished((configurable) -> service.get().publish(configurable));
+			}
+		});
+	}
+
+	private void configureTaskFingerprints(Settings settings) {
+		ProviderFactory providers = settings.getProviders();
+		if (!Boolean.parseBoolean(providers.gradleProperty("spring.cache-forensics.enabled").getOrNull())) {
+			return;
+		}
+		Gradle gradle = settings.getGradle();
+		TaskFingerprintRecorder recorder = new TaskFingerprintRecorder(settings.getRootDir());
+		gradle.rootProject((project) -> {
+			registerTaskFingerprintsTask(project, "diffTaskFingerprints", DiffTaskFingerprints.class,
+					"Diffs the task fingerprints of a baseline build with those of the last build.", DIFF);
+			registerTaskFingerprintsTask(project, "auditReproducibility", AuditReproducibility.class,
+					"Audits the reproducibility of the tasks executed by a baseline build and the last build.",
+					AUDIT);
+		});
+		if (isConfigurationCacheRequested(settings.getStartParameter())) {
+			this.log.warn("Task fingerprints will not be recorded as recording is not supported with the "
+					+ "configuration cache");
+			return;
+		}
+		gradle.getTaskGraph().whenReady((graph) -> {
+			if (!graph.getAllTasks().stream().allMatch(AbstractTaskFingerprintsTask.class::isInstance)) {
+				recorder
+					.start(taskFingerprintsDirectory(gradle.getRootProject()).map((dir) -> dir.file(FINGERPRINTS)));
+			}
+		});
+		gradle.getTaskGraph().beforeTask(recorder::beforeTask);
+		gradle.getTaskGraph().afterTask(recorder::afterTask);
+	}
+
+	private void registerTaskFingerprintsTask(Project project, String name,
+			Class<? extends AbstractTaskFingerprintsTask> type, String description, String report) {
+		ProviderFactory providers = project.getProviders();
+		project.getTasks().register(name, type, (task) -> {
+			task.setDescription(description);
+			task.getBaseline()
+				.fileProvider(providers.gradleProperty("spring.cache-forensics.baseline").map(project::file));
+			task.getCurrent().set(taskFingerprintsDirectory(project).map((dir) -> dir.file(FINGERPRINTS)));
+			task.getReport().set(taskFingerprintsDirectory(project).map((dir) -> dir.file(report)));
+		});
+	}
+
+	private Provider<Directory> taskFingerprintsDirectory(Project project) {
+		return project.getLayout().getBuildDirectory().dir("cache-forensics");
+	}
+
+	private void configureCacheableTasks(Settings settings) {
+		CacheableTaskConventions conventions = CacheableTaskConventions
+			.forRules(settings.getProviders().gradleProperty("spring.cacheable-tasks").getOrNull());
+		if (conventions != null) {
+			settings.getGradle().allprojects(conventions);
+		}
+	}
+
+	private void configureRuntimeClasspathNormalization(Settings settings) {
+		RuntimeClasspathNormalizationConventions conventions = new RuntimeClasspathNormalizationConventions(
+				(name) -> settings.getProviders().gradleProperty(name).getOrNull());
+		if (conventions.isEnabled()) {
+			settings.getGradle()
+				.allprojects((project) -> conventions.execute(new GradleConfigurableRuntimeClasspathNormalization(
+						project.getNormalization().getRuntimeClasspath())));
+		}
+	}
+
+	private void configureCacheHitRateSummary(Settings settings, BuildScanConfiguration buildScan) {
+		Gradle gradle = settings.getGradle();
+		Set<String> cacheableTasks = new HashSet<>();
+		Provider<CacheHitRateService> service = gradle.getSharedServices()
+			.registerIfAbsent("cacheHitRate", CacheHitRateService.class, (spec) -> spec.getParameters()
+				.getCacheableTasks()
+				.addAll(settings.getProviders().provider(() -> cacheableTasks)));
+		this.buildEventsListenerRegistry.onTaskCompletion(service);
+		gradle.getTaskGraph()
+			.whenReady((graph) -> graph.getAllTasks()
+				.stream()
+				.filter((task) -> task.getOutputs().getHasOutput() && CacheEntryReportService.isCacheable(task))
+				.forEach((task) -> cacheableTasks.add(task.getPath())));
+		new GradleConfigurableBuildScan(buildScan).buildFinished((configurable) -> service.get().publish(configurable));
+	}
+
+	private void configureBuildPerformanceFingerprint(Settings settings, BuildScanConfiguration buildScan,
+			long configurationStartTime) {
+		String configurationId = BuildPerformanceService.configurationStarted();
+		boolean configurationCacheRequested = isConfigurationCacheRequested(settings.getStartParameter());
+		Provider<BuildPerformanceService> service = settings.getGradle()
+			.getSharedServices()
+			.registerIfAbsent("buildPerformance", BuildPerformanceService.class, (spec) -> {
+				spec.getParameters().getConfigurationId().set(configurationId);
+				spec.getParameters().getConfigurationStartTime().set(configurationStartTime);
+				spec.getParameters().getConfigurationCacheRequested().set(configurationCacheRequested);
+				spec.getParameters().getMaxWorkers().set(settings.getStartParameter().getMaxWorkerCount());
+			});
+		this.buildEventsListenerRegistry.onTaskCompletion(service);
+		new GradleConfigurableBuildScan(buildScan).buildFinished((configurable) -> service.get().publish(configurable));
+	}
+
+	private boolean isConfigurationCacheRequested(StartParameter startParameter) {
+		// StartParameter.isConfigurationCacheRequested() is only available in Gradle 7.6+
+		try {
+			return (boolean) StartParameter.class.getMethod("isConfigurationCacheRequested").invoke(startParameter);
+		}
+		catch (ReflectiveOperationException ex) {
+			return false;
+		}
+	}
+
+	private void configureCacheEntryReport(Settings settings, BuildScanConfiguration buildScan) {
+		ProviderFactory providers = settings.getProviders();
+		if (!Boolean.parseBoolean(providers.gradleProperty("spring.cache-entry-report.enabled").getOrNull())) {
+			return;
+		}
+		Provider<Integer> limit = providers.gradleProperty("spring.cache-entry-report.limit")
+			.map(Integer::valueOf)
+			.orElse(10);
+		Gradle gradle = settings.getGradle();
+		Map<String, FileCollection> cacheableOutputs = new LinkedHashMap<>();
+		gradle.rootProject((project) -> {
+			Provider<CacheEntryReportService> service = gradle.getSharedServices()
+				.registerIfAbsent("cacheEntryReport", CacheEntryReportService.class, (spec) -> {
+					spec.getParameters().getLimit().set(limit);
+					spec.getParameters()
+						.getReportFile()
+						.set(project.getLayout().getBuildDirectory().file("cache-forensics/cache-entries.json"));
+					spec.getParameters().getCacheableOutputs().putAll(providers.provider(() -> cacheableOutputs));
+				});
+			this.buildEventsListenerRegistry.onTaskCompletion(service);
+			if (isBuildScanEnabled(settings)) {
+				new GradleConfigurableBuildScan(buildScan)
+					.buildFinished((configurable) -> service.get().publish(configurable));
+			}
+		});
+		gradle.getTaskGraph()
+			.whenReady((graph) -> graph.getAllTasks()
+				.stream()
+				.filter((task) -> task.getOutputs().getHasOutput() && CacheEntryReportService.isCacheable(task))
+				.forEach((task) -> cacheableOutputs.put(task.getPath(), task.getOutputs().getFiles())));
+	}
+
+	private void configureLocalBuildCacheSnapshot(Settings settings) {
+		LocalBuildCacheSnapshot snapshot = LocalBuildCacheSnapshot.fromEnvironment();
+		if (snapshot == null) {
+			return;
+		}
+		String restoreId = LocalBuildCacheSnapshotService.restoreDuringConfiguration(snapshot);
+		Provider<LocalBuildCacheSnapshotService> service = settings.getGradle()
+			.getSharedServices()
+			.registerIfAbsent("localBuildCacheSnapshot", LocalBuildCacheSnapshotService.class, (spec) -> {
+				spec.getParameters().getCacheDirectory().set(snapshot.getCacheDirectory());
+				spec.getParameters().getSnapshotDirectory().set(snapshot.getSnapshotDirectory());
+				spec.getParameters().getMaxSize().set(snapshot.getMaxSize());
+				spec.getParameters().getRestoreId().set(restoreId);
+			});
+		this.buildEventsListenerRegistry.onTaskCompletion(service);
 	}
 
 	private boolean buildScanRequested(Settings settings) {
@@ -116,30 +407,49 @@ public class DevelocityConventionsPlugin implements Plugin<Settings> {
 		return false;
 	}
 
+	private void configureCapturePolicy(Settings settings, BuildScanConfiguration buildScan) {
+		settings.getGradle()
+			.settingsEvaluated((evaluated) -> new CapturePolicy().execute(new GradleConfigurableBuildScan(buildScan),
+					countProjects(evaluated.getRootProject())));
+	}
+
+	private int countProjects(ProjectDescriptor project) {
+		int count = 1;
+		for (ProjectDescriptor child : project.getChildren()) {
+			count += countProjects(child);
+		}
+		return count;
+	}
+
 	private void configureBuildScanConventions(DevelocityConfiguration develocity, BuildScanConfiguration buildScan,
-			Settings settings) {
+			Settings settings, ProcessRunner processRunner, BranchResolver branchResolver,
+			ConnectionWarmUp connectionWarmUp) {
 		Provider<String> toolchainVersion = settings.getProviders().gradleProperty("toolchainVersion");
-		ProcessOperationsProcessRunner processRunner = new ProcessOperationsProcessRunner(
-				new WorkingDirectoryProcessOperations(this.processOperations, settings.getRootDir()));
+		Provider<BuildStartTimeService> buildStartTime = settings.getGradle()
+			.getSharedServices()
+			.registerIfAbsent("buildStartTime", BuildStartTimeService.class, (spec) -> {
+			});
 		if (settings.getStartParameter().isBuildScan()) {
-			new AnonymousPublicationBuildScanConventions(processRunner) {
+			new AnonymousPublicationBuildScanConventions(processRunner, branchResolver, connectionWarmUp) {
 
 				@Override
 				protected String getJdkVersion() {
 					return toolchainVersion.getOrElse(super.getJdkVersion());
 				}
 
-			}.execute(new GradleConfigurableDevelocity(develocity), new GradleConfigurableBuildScan(buildScan));
+			}.execute(new GradleConfigurableDevelocity(develocity),
+					new GradleConfigurableBuildScan(buildScan, buildStartTime));
 		}
 		else {
-			new BuildScanConventions(processRunner) {
+			new BuildScanConventions(processRunner, branchResolver, connectionWarmUp) {
 
 				@Override
 				protected String getJdkVersion() {
 					return toolchainVersion.getOrElse(super.getJdkVersion());
 				}
 
-			}.execute(new GradleConfigurableDevelocity(develocity), new GradleConfigurableBuildScan(buildScan));
+			}.execute(new GradleConfigurableDevelocity(develocity),
+					new GradleConfigurableBuildScan(buildScan, buildStartTime));
 		}
 	}
 
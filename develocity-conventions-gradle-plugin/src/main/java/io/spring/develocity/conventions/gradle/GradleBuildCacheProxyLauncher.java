@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import io.spring.develocity.conventions.core.BuildCacheProxyLauncher;
+import org.gradle.api.provider.ProviderFactory;
+
+/**
+ * A {@link BuildCacheProxyLauncher} that launches the proxy using a
+ * {@link BuildCacheProxyValueSource} so that it is launched again when the configuration
+ * cache is reused.
+ *
+ * @author Andy Wilkinson
+ */
+class GradleBuildCacheProxyLauncher extends BuildCacheProxyLauncher {
+
+	private final ProviderFactory providers;
+
+	GradleBuildCacheProxyLauncher(BuildCacheProxyLauncher launcher, ProviderFactory providers) {
+		super(launcher);
+		this.providers = providers;
+	}
+
+	@Override
+	public RunningProxy launch(String upstream, boolean allowUntrustedServer) {
+		String url = this.providers.of(BuildCacheProxyValueSource.class, (spec) -> {
+			spec.getParameters().getUpstream().set(upstream);
+			spec.getParameters().getAllowUntrustedServer().set(allowUntrustedServer);
+		}).getOrNull();
+		return (url != null) ? configure(upstream, allowUntrustedServer) : null;
+	}
+
+}
@@ -16,12 +16,15 @@
 
 package io.spring.develocity.conventions.gradle;
 
+import java.io.File;
+import java.time.Duration;
 import java.util.function.Consumer;
 
 import com.gradle.develocity.agent.gradle.buildcache.DevelocityBuildCache;
 import io.spring.develocity.conventions.core.ConfigurableBuildCache;
 import org.gradle.caching.configuration.BuildCacheConfiguration;
 import org.gradle.caching.local.DirectoryBuildCache;
+import org.gradle.util.GradleVersion;
 
 /**
  * A {@link ConfigurableBuildCache} for Gradle builds.
@@ -63,6 +66,24 @@ class GradleConfigurableBuildCache implements ConfigurableBuildCache {
 			this.localBuildCache.setEnabled(true);
 		}
 
+		@Override
+		public void setDirectory(File directory) {
+			this.localBuildCache.setDirectory(directory);
+		}
+
+		@Override
+		public void setRetention(Duration retention) {
+			// From Gradle 8.0, retention can only be configured in an init script
+			if (GradleVersion.current().getBaseVersion().compareTo(GradleVersion.version("8.0")) < 0) {
+				this.localBuildCache.setRemoveUnusedEntriesAfterDays((int) Math.max(1, retention.toDays()));
+			}
+		}
+
+		@Override
+		public void setCleanupInterval(Duration interval) {
+			// Gradle cleans up its caches at most once every 24 hours
+		}
+
 	}
 
 	private static final class GradleRemoteBuildCache implements RemoteBuildCache {
@@ -88,6 +109,26 @@ class GradleConfigurableBuildCache implements ConfigurableBuildCache {
 			this.remoteBuildCache.setServer(server);
 		}
 
+		@Override
+		public void setAllowInsecureProtocol(boolean allowInsecureProtocol) {
+			this.remoteBuildCache.setAllowInsecureProtocol(allowInsecureProtocol);
+		}
+
+		@Override
+		public void setAllowUntrustedServer(boolean allowUntrustedServer) {
+			this.remoteBuildCache.setAllowUntrustedServer(allowUntrustedServer);
+		}
+
+		@Override
+		public void setUseExpectContinue(boolean useExpectContinue) {
+			this.remoteBuildCache.setUseExpectContinue(useExpectContinue);
+		}
+
+		@Override
+		public void setCredentials(String username, String password) {
+			this.remoteBuildCache.usernameAndPassword(username, password);
+		}
+
 	}
 
 }
@@ -17,14 +17,19 @@
 package io.spring.develocity.conventions.gradle;
 
 import java.net.InetAddress;
+import java.time.Instant;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import com.gradle.develocity.agent.gradle.scan.BuildScanConfiguration;
 import com.gradle.develocity.agent.gradle.scan.BuildScanDataObfuscationConfiguration;
 import com.gradle.develocity.agent.gradle.scan.BuildScanPublishingConfiguration.PublishingContext;
 import io.spring.develocity.conventions.core.ConfigurableBuildScan;
+import org.gradle.api.provider.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A {@link ConfigurableBuildScan} for Gradle builds.
@@ -33,10 +38,19 @@ import io.spring.develocity.conventions.core.ConfigurableBuildScan;
  */
 class GradleConfigurableBuildScan implements ConfigurableBuildScan {
 
+	private final Logger log = LoggerFactory.getLogger(GradleConfigurableBuildScan.class);
+
 	private final BuildScanConfiguration buildScan;
 
+	private final Provider<BuildStartTimeService> buildStartTime;
+
 	GradleConfigurableBuildScan(BuildScanConfiguration buildScan) {
+		this(buildScan, null);
+	}
+
+	GradleConfigurableBuildScan(BuildScanConfiguration buildScan, Provider<BuildStartTimeService> buildStartTime) {
 		this.buildScan = buildScan;
+		this.buildStartTime = buildStartTime;
 	}
 
 	@Override
@@ -44,6 +58,16 @@ class GradleConfigurableBuildScan implements ConfigurableBuildScan {
 		this.buildScan.capture((settings) -> settings.getFileFingerprints().set(capture));
 	}
 
+	@Override
+	public void captureBuildLogging(boolean capture) {
+		this.buildScan.capture((settings) -> settings.getBuildLogging().set(capture));
+	}
+
+	@Override
+	public void captureTestLogging(boolean capture) {
+		this.buildScan.capture((settings) -> settings.getTestLogging().set(capture));
+	}
+
 	@Override
 	public void obfuscation(Consumer<ObfuscationConfigurer> configurer) {
 		configurer.accept(new GradleObfuscationConfigurer(this.buildScan.getObfuscation()));
@@ -54,6 +78,17 @@ class GradleConfigurableBuildScan implements ConfigurableBuildScan {
 		this.buildScan.publishing((publishing) -> publishing.onlyIf(PublishingContext::isAuthenticated));
 	}
 
+	@Override
+	public void publishIf(Predicate<PublicationContext> condition) {
+		this.buildScan.publishing((publishing) -> publishing
+			.onlyIf((context) -> condition.test(new GradlePublicationContext(context, this.buildStartTime))));
+	}
+
+	@Override
+	public void deferPublication() {
+		this.buildScan.publishing((publishing) -> publishing.onlyIf((context) -> false));
+	}
+
 	@Override
 	public void uploadInBackground(boolean enabled) {
 		this.buildScan.getUploadInBackground().set(enabled);
@@ -71,6 +106,7 @@ class GradleConfigurableBuildScan implements ConfigurableBuildScan {
 
 	@Override
 	public void value(String name, String value) {
+		this.log.debug("Adding build scan value '{}': {}", name, value);
 		this.buildScan.value(name, value);
 	}
 
@@ -80,6 +116,11 @@ class GradleConfigurableBuildScan implements ConfigurableBuildScan {
 			.background((buildScan) -> backgroundConfigurer.accept(new GradleConfigurableBuildScan(buildScan)));
 	}
 
+	@Override
+	public void buildFinished(Consumer<ConfigurableBuildScan> buildFinishedConfigurer) {
+		this.buildScan.buildFinished((result) -> buildFinishedConfigurer.accept(this));
+	}
+
 	private static final class GradleObfuscationConfigurer implements ObfuscationConfigurer {
 
 		private final BuildScanDataObfuscationConfiguration obfuscation;
@@ -95,4 +136,41 @@ class GradleConfigurableBuildScan implements ConfigurableBuildScan {
 
 	}
 
+	private static final class GradlePublicationContext implements PublicationContext {
+
+		private final PublishingContext context;
+
+		private final Provider<BuildStartTimeService> buildStartTime;
+
+		private GradlePublicationContext(PublishingContext context, Provider<BuildStartTimeService> buildStartTime) {
+			this.context = context;
+			this.buildStartTime = buildStartTime;
+		}
+
+		@Override
+		public boolean isAuthenticated() {
+			return this.context.isAuthenticated();
+		}
+
+		@Override
+		public boolean hasFailed() {
+			return !this.context.getBuildResult().getFailures().isEmpty();
+		}
+
+		@Override
+		public Instant getBuildStartTime() {
+			if (this.buildStartTime == null) {
+				return null;
+			}
+			try {
+				return this.buildStartTime.get().getBuildStartTime();
+			}
+			catch (RuntimeException | LinkageError ex) {
+				// Gradle's internal BuildStartedTime is unavailable
+				return null;
+			}
+		}
+
+	}
+
 }
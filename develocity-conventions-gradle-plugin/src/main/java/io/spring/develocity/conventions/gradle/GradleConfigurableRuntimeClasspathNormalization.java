@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.util.List;
+
+import io.spring.develocity.conventions.core.ConfigurableRuntimeClasspathNormalization;
+import org.gradle.normalization.RuntimeClasspathNormalization;
+
+/**
+ * A {@link ConfigurableRuntimeClasspathNormalization} for Gradle builds.
+ *
+ * @author Andy Wilkinson
+ */
+class GradleConfigurableRuntimeClasspathNormalization implements ConfigurableRuntimeClasspathNormalization {
+
+	private final RuntimeClasspathNormalization normalization;
+
+	GradleConfigurableRuntimeClasspathNormalization(RuntimeClasspathNormalization normalization) {
+		this.normalization = normalization;
+	}
+
+	@Override
+	public void ignoreFiles(List<String> patterns) {
+		patterns.forEach(this.normalization::ignore);
+	}
+
+	@Override
+	public void ignoreManifestAttributes(List<String> attributes) {
+		if (!attributes.isEmpty()) {
+			this.normalization.metaInf((metaInf) -> attributes.forEach(metaInf::ignoreAttribute));
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import io.spring.develocity.conventions.core.LocalBuildCacheSnapshot;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BuildService} that saves a {@link LocalBuildCacheSnapshot} when it is closed at
+ * the end of the build. When the build is configured, the snapshot is restored by the
+ * settings plugin before any tasks are executed. When the configuration cache is reused,
+ * the snapshot is instead restored when the service is created, which happens once the
+ * first task has finished. The restore is then concurrent with the build's use of the
+ * cache, which it tolerates as each entry is moved into place atomically.
+ *
+ * @author Andy Wilkinson
+ */
+public abstract class LocalBuildCacheSnapshotService implements BuildService<LocalBuildCacheSnapshotService.Parameters>,
+		OperationCompletionListener, AutoCloseable {
+
+	static final String RESTORE_PROPERTY = "io.spring.develocity.conventions.local-build-cache-snapshot.restore";
+
+	private final Logger log = LoggerFactory.getLogger(LocalBuildCacheSnapshotService.class);
+
+	private final LocalBuildCacheSnapshot snapshot;
+
+	public LocalBuildCacheSnapshotService() {
+		Parameters parameters = getParameters();
+		this.snapshot = new LocalBuildCacheSnapshot(parameters.getCacheDirectory().get().getAsFile(),
+				parameters.getSnapshotDirectory().get().getAsFile(), parameters.getMaxSize().get());
+		if (!System.getProperties().remove(RESTORE_PROPERTY, parameters.getRestoreId().get())) {
+			restore(this.snapshot);
+		}
+	}
+
+	/**
+	 * Restores the given {@code snapshot} while the build is being configured, returning
+	 * an ID that identifies the restore. When the configuration is loaded from the
+	 * configuration cache, the ID will be that of the build that stored it and the
+	 * service will restore the snapshot itself.
+	 * @param snapshot the snapshot to restore
+	 * @return the restore ID
+	 */
+	static String restoreDuringConfiguration(LocalBuildCacheSnapshot snapshot) {
+		restore(snapshot);
+		String restoreId = UUID.randomUUID().toString();
+		System.setProperty(RESTORE_PROPERTY, restoreId);
+		return restoreId;
+	}
+
+	private static void restore(LocalBuildCacheSnapshot snapshot) {
+		try {
+			snapshot.restore();
+		}
+		catch (IOException ex) {
+			LoggerFactory.getLogger(LocalBuildCacheSnapshotService.class)
+				.warn("Failed to restore local build cache snapshot", ex);
+		}
+	}
+
+	@Override
+	public void onFinish(FinishEvent event) {
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.snapshot.save();
+		}
+		catch (IOException ex) {
+			this.log.warn("Failed to save local build cache snapshot", ex);
+		}
+	}
+
+	/**
+	 * Parameters of the service.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+
+		DirectoryProperty getCacheDirectory();
+
+		DirectoryProperty getSnapshotDirectory();
+
+		Property<Long> getMaxSize();
+
+		Property<String> getRestoreId();
+
+	}
+
+}
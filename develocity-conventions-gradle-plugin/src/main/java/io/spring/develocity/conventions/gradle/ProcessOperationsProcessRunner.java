@@ -25,6 +25,8 @@ import org.gradle.process.ExecSpec;
 
 /**
  * A {@link ProcessRunner} that delegates to Gradle's internal {@link ProcessOperations}.
+ * When running the process is interrupted, the interrupted status of the running thread
+ * is preserved so that callers can tell an interrupted run from one that failed.
  *
  * @author Andy Wilkinson
  */
@@ -42,10 +44,22 @@ class ProcessOperationsProcessRunner implements ProcessRunner {
 			this.processOperations.exec((spec) -> configurer.accept(new ExecSpecProcessSpec(spec)));
 		}
 		catch (Exception ex) {
+			if (causedByInterruption(ex)) {
+				Thread.currentThread().interrupt();
+			}
 			throw new RunFailedException(ex);
 		}
 	}
 
+	private boolean causedByInterruption(Throwable ex) {
+		for (Throwable candidate = ex; candidate != null; candidate = candidate.getCause()) {
+			if (candidate instanceof InterruptedException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private final class ExecSpecProcessSpec implements ProcessSpec {
 
 		private final ExecSpec execSpec;
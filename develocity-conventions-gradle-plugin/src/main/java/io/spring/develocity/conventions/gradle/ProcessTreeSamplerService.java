@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import io.spring.develocity.conventions.core.ConfigurableBuildScan;
+import io.spring.develocity.conventions.core.ProcessTreeSampler;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BuildService} that starts a {@link ProcessTreeSampler} when it is created and
+ * writes the sampler's timeline when it is closed at the end of the build. When the build
+ * is configured, the service is created before the projects are configured. The service
+ * is also registered as a completion listener so that it is created in builds that reuse
+ * the configuration cache. In such builds, it is created when the first task finishes and
+ * execution of the first task is not sampled.
+ *
+ * @author Andy Wilkinson
+ */
+public abstract class ProcessTreeSamplerService
+		implements BuildService<ProcessTreeSamplerService.Parameters>, OperationCompletionListener, AutoCloseable {
+
+	private final Logger log = LoggerFactory.getLogger(ProcessTreeSamplerService.class);
+
+	private final ProcessTreeSampler sampler;
+
+	public ProcessTreeSamplerService() {
+		this.sampler = createSampler(Duration.ofMillis(getParameters().getInterval().get()));
+		if (this.sampler != null) {
+			this.sampler.start();
+		}
+	}
+
+	private ProcessTreeSampler createSampler(Duration interval) {
+		try {
+			return new ProcessTreeSampler(interval);
+		}
+		catch (IOException ex) {
+			this.log.warn("Failed to start process tree sampling", ex);
+			return null;
+		}
+	}
+
+	@Override
+	public void onFinish(FinishEvent event) {
+	}
+
+	void publish(ConfigurableBuildScan buildScan) {
+		if (this.sampler != null) {
+			this.sampler.publish(buildScan);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (this.sampler == null) {
+			return;
+		}
+		try {
+			this.sampler.writeTimeline(getParameters().getTimelineFile().get().getAsFile().toPath());
+		}
+		catch (IOException ex) {
+			this.log.warn("Failed to write process tree timeline", ex);
+		}
+	}
+
+	/**
+	 * Parameters of the service.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+
+		Property<Long> getInterval();
+
+		RegularFileProperty getTimelineFile();
+
+	}
+
+}
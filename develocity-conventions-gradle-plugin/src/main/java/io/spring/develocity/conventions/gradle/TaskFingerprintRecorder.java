@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.spring.develocity.conventions.core.FileFingerprinter;
+import io.spring.develocity.conventions.core.TaskFingerprint;
+import io.spring.develocity.conventions.core.TaskFingerprintFile;
+import org.gradle.api.Task;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.TaskState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records a {@link TaskFingerprint} for each task in the build. The inputs and outputs of
+ * tasks that were executed are fingerprinted once they have completed. Fingerprinting
+ * hashes the contents of their files on the thread that completed the task so it adds to
+ * the duration of the build. Tasks with other outcomes are recorded without their inputs
+ * and outputs. As it requires access to each {@link Task}, recording cannot be used with
+ * the configuration cache.
+ *
+ * @author Andy Wilkinson
+ */
+class TaskFingerprintRecorder {
+
+	private final Logger log = LoggerFactory.getLogger(TaskFingerprintRecorder.class);
+
+	private final Map<Task, Long> startTimes = new ConcurrentHashMap<>();
+
+	private final FileFingerprinter fingerprinter;
+
+	private volatile Provider<RegularFile> fileProvider;
+
+	private TaskFingerprintFile file;
+
+	TaskFingerprintRecorder(File rootDirectory) {
+		this.fingerprinter = new FileFingerprinter(rootDirectory);
+	}
+
+	void start(Provider<RegularFile> file) {
+		this.fileProvider = file;
+	}
+
+	void beforeTask(Task task) {
+		if (isRecorded(task)) {
+			this.startTimes.put(task, System.nanoTime());
+		}
+	}
+
+	void afterTask(Task task) {
+		Long startTime = this.startTimes.remove(task);
+		if (startTime == null) {
+			return;
+		}
+		long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		String outcome = outcome(task.getState());
+		try {
+			TaskFingerprint fingerprint = TaskFingerprint.EXECUTED.equals(outcome)
+					? new TaskFingerprint(task.getPath(), outcome, duration, properties(task),
+							this.fingerprinter.fingerprint(task.getInputs().getFiles()),
+							this.fingerprinter.fingerprint(task.getOutputs().getFiles()))
+					: new TaskFingerprint(task.getPath(), outcome, duration, new TreeMap<>(), new TreeMap<>());
+			file().append(fingerprint);
+		}
+		catch (IOException | RuntimeException ex) {
+			this.log.warn("Failed to record fingerprint of " + task.getPath(), ex);
+		}
+	}
+
+	private synchronized TaskFingerprintFile file() throws IOException {
+		if (this.file == null) {
+			TaskFingerprintFile file = new TaskFingerprintFile(this.fileProvider.get().getAsFile().toPath());
+			file.reset();
+			this.file = file;
+		}
+		return this.file;
+	}
+
+	private boolean isRecorded(Task task) {
+		return this.fileProvider != null && !(task instanceof AbstractTaskFingerprintsTask);
+	}
+
+	private Map<String, String> properties(Task task) {
+		Map<String, String> properties = new TreeMap<>();
+		for (Map.Entry<String, Object> property : task.getInputs().getProperties().entrySet()) {
+			String hash = this.fingerprinter.hashValue(property.getValue());
+			if (hash != null) {
+				properties.put(property.getKey(), hash);
+			}
+		}
+		return properties;
+	}
+
+	private String outcome(TaskState state) {
+		if (!state.getSkipped()) {
+			return TaskFingerprint.EXECUTED;
+		}
+		return (state.getSkipMessage() != null) ? state.getSkipMessage() : "SKIPPED";
+	}
+
+}
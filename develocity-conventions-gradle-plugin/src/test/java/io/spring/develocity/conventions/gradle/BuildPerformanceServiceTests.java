@@ -0,0 +1,207 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gradle.api.provider.Property;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationDescriptor;
+import org.gradle.tooling.events.task.TaskOperationResult;
+import org.gradle.tooling.events.task.TaskSkippedResult;
+import org.gradle.tooling.events.task.TaskSuccessResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link BuildPerformanceService}.
+ *
+ * @author Andy Wilkinson
+ */
+class BuildPerformanceServiceTests {
+
+	private final TestBuildScanConfiguration buildScan = new TestBuildScanConfiguration();
+
+	private final TestParameters parameters = new TestParameters();
+
+	private final AtomicInteger taskCount = new AtomicInteger();
+
+	@BeforeEach
+	@AfterEach
+	void clearSystemProperties() {
+		System.clearProperty(BuildPerformanceService.DAEMON_PROPERTY);
+		System.clearProperty(BuildPerformanceService.CONFIGURATION_PROPERTY);
+	}
+
+	@Test
+	void taskOutcomesArePublished() {
+		configured(1000L, false);
+		BuildPerformanceService service = createService();
+		service.onFinish(finished(success(true, false), 2000));
+		service.onFinish(finished(success(false, true), 2100));
+		service.onFinish(finished(success(false, false), 2200));
+		service.onFinish(finished(mock(TaskSkippedResult.class), 2300));
+		service.publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Tasks executed", "1")
+			.containsEntry("Tasks up-to-date", "1")
+			.containsEntry("Tasks skipped", "1")
+			.doesNotContainKey("Tasks from cache");
+	}
+
+	@Test
+	void configurationTimeIsMeasuredToTheStartOfTheFirstTask() {
+		configured(1000L, false);
+		BuildPerformanceService service = createService();
+		service.onFinish(finished(success(false, false), 13000));
+		service.onFinish(finished(success(false, false), 12500));
+		service.publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Configuration time", "11.5s")
+			.doesNotContainKey("Configuration cache");
+		assertThat(this.buildScan.tags).contains("config-time-10s+");
+	}
+
+	@Test
+	void jvmMetricsArePublished() {
+		configured(1000L, false);
+		createService().publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsKeys("JVM max heap", "JVM peak heap", "GC time");
+	}
+
+	@Test
+	void criticalPathIsPublished() {
+		configured(1000L, false);
+		BuildPerformanceService service = createService();
+		service.onFinish(finished(success(false, false), 2000));
+		service.publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Critical path", "0.5s (1 tasks, ending with :task1)")
+			.containsEntry("Slowest task", ":task1 (0.5s)")
+			.containsEntry("Parallelism efficiency", "25% of 4 workers");
+	}
+
+	@Test
+	void firstServiceInDaemonReportsColdDaemon() {
+		configured(1000L, false);
+		createService().publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Daemon", "Cold");
+		assertThat(this.buildScan.tags).contains("cold-daemon");
+	}
+
+	@Test
+	void subsequentServiceInDaemonReportsWarmDaemon() {
+		configured(1000L, false);
+		createService();
+		createService().publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Daemon", "Warm");
+		assertThat(this.buildScan.tags).doesNotContain("cold-daemon");
+	}
+
+	@Test
+	void whenConfiguredWithConfigurationCacheRequestedThenConfigurationCacheMissIsPublished() {
+		configured(1000L, true);
+		createService().publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Configuration cache", "Miss");
+		assertThat(this.buildScan.tags).contains("config-cache-miss");
+	}
+
+	@Test
+	void whenConfigurationIsReusedThenConfigurationCacheHitIsPublished() {
+		configured(1000L, true);
+		createService().publish(new GradleConfigurableBuildScan(new TestBuildScanConfiguration()));
+		BuildPerformanceService service = createService();
+		service.onFinish(finished(success(false, false), 60000));
+		service.publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Configuration cache", "Hit")
+			.doesNotContainKey("Configuration time");
+		assertThat(this.buildScan.tags).contains("config-cache-hit");
+	}
+
+	private void configured(long configurationStartTime, boolean configurationCacheRequested) {
+		this.parameters.configurationId.set(BuildPerformanceService.configurationStarted());
+		this.parameters.configurationStartTime.set(configurationStartTime);
+		this.parameters.configurationCacheRequested.set(configurationCacheRequested);
+		this.parameters.maxWorkers.set(4);
+	}
+
+	private BuildPerformanceService createService() {
+		return new BuildPerformanceService() {
+
+			@Override
+			public Parameters getParameters() {
+				return BuildPerformanceServiceTests.this.parameters;
+			}
+
+		};
+	}
+
+	private TaskSuccessResult success(boolean fromCache, boolean upToDate) {
+		TaskSuccessResult result = mock(TaskSuccessResult.class);
+		given(result.isFromCache()).willReturn(fromCache);
+		given(result.isUpToDate()).willReturn(upToDate);
+		return result;
+	}
+
+	private TaskFinishEvent finished(TaskOperationResult result, long startTime) {
+		given(result.getStartTime()).willReturn(startTime);
+		given(result.getEndTime()).willReturn(startTime + 500);
+		TaskOperationDescriptor descriptor = mock(TaskOperationDescriptor.class);
+		given(descriptor.getTaskPath()).willReturn(":task" + this.taskCount.incrementAndGet());
+		given(descriptor.getDependencies()).willReturn(Collections.emptySet());
+		TaskFinishEvent event = mock(TaskFinishEvent.class);
+		given(event.getResult()).willReturn(result);
+		given(event.getDescriptor()).willReturn(descriptor);
+		return event;
+	}
+
+	static final class TestParameters implements BuildPerformanceService.Parameters {
+
+		final Property<String> configurationId = new TestProperty<>();
+
+		final Property<Long> configurationStartTime = new TestProperty<>();
+
+		final Property<Boolean> configurationCacheRequested = new TestProperty<>();
+
+		final Property<Integer> maxWorkers = new TestProperty<>();
+
+		@Override
+		public Property<String> getConfigurationId() {
+			return this.configurationId;
+		}
+
+		@Override
+		public Property<Long> getConfigurationStartTime() {
+			return this.configurationStartTime;
+		}
+
+		@Override
+		public Property<Boolean> getConfigurationCacheRequested() {
+			return this.configurationCacheRequested;
+		}
+
+		@Override
+		public Property<Integer> getMaxWorkers() {
+			return this.maxWorkers;
+		}
+
+	}
+
+}
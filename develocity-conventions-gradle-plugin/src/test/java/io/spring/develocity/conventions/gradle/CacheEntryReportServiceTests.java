@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationDescriptor;
+import org.gradle.tooling.events.task.TaskOperationResult;
+import org.gradle.tooling.events.task.TaskSkippedResult;
+import org.gradle.tooling.events.task.TaskSuccessResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link CacheEntryReportService}.
+ *
+ * @author Andy Wilkinson
+ */
+class CacheEntryReportServiceTests {
+
+	private final TestBuildScanConfiguration buildScan = new TestBuildScanConfiguration();
+
+	private final Map<String, FileCollection> cacheableOutputs = new HashMap<>();
+
+	@TempDir
+	File temp;
+
+	@Test
+	void outputsOfCacheableTasksThatWereExecutedOrRestoredAreRecorded() throws IOException {
+		cacheableTask(":executed", 3);
+		cacheableTask(":restored", 5);
+		cacheableTask(":upToDate", 7);
+		cacheableTask(":skipped", 9);
+		CacheEntryReportService service = createService();
+		service.onFinish(finished(":executed", success(false, false)));
+		service.onFinish(finished(":restored", success(true, true)));
+		service.onFinish(finished(":upToDate", success(false, true)));
+		service.onFinish(finished(":skipped", mock(TaskSkippedResult.class)));
+		service.onFinish(finished(":notCacheable", success(false, false)));
+		service.close();
+		assertThat(reportJson())
+			.isEqualTo("[\n  {\"path\":\":executed\",\"fromCache\":false,\"size\":3,\"duration\":500},\n"
+					+ "  {\"path\":\":restored\",\"fromCache\":true,\"size\":5,\"duration\":500}\n]\n");
+	}
+
+	@Test
+	void largestEntriesAndSlowestRestoresArePublished() {
+		cacheableTask(":restored", 5);
+		CacheEntryReportService service = createService();
+		service.onFinish(finished(":restored", success(true, true)));
+		service.publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Largest cache entry", ":restored (5 B)")
+			.containsEntry("Slowest cache restore", ":restored (0.5s, 5 B)");
+	}
+
+	@Test
+	void whenNoTasksAreRecordedThenEmptyReportIsWritten() throws IOException {
+		createService().close();
+		assertThat(reportJson()).isEqualTo("[]\n");
+	}
+
+	@Test
+	void taskWhoseTypeIsAnnotatedWithCacheableTaskIsCacheable() {
+		assertThat(CacheEntryReportService.isCacheable(mock(ExampleCacheableTask.class))).isTrue();
+	}
+
+	@Test
+	void taskWhoseTypeIsNotAnnotatedWithCacheableTaskIsNotCacheable() {
+		assertThat(CacheEntryReportService.isCacheable(mock(DefaultTask.class))).isFalse();
+	}
+
+	private void cacheableTask(String path, int size) {
+		File output = new File(this.temp, path.substring(1));
+		try {
+			Files.write(output.toPath(), new byte[size]);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+		FileCollection outputs = mock(FileCollection.class);
+		given(outputs.iterator()).willAnswer((invocation) -> Collections.singleton(output).iterator());
+		this.cacheableOutputs.put(path, outputs);
+	}
+
+	@SuppressWarnings("unchecked")
+	private CacheEntryReportService createService() {
+		Property<Integer> limit = new TestProperty<>();
+		limit.set(10);
+		RegularFile reportFile = mock(RegularFile.class);
+		given(reportFile.getAsFile()).willReturn(new File(this.temp, "cache-entries.json"));
+		RegularFileProperty reportFileProperty = mock(RegularFileProperty.class);
+		given(reportFileProperty.get()).willReturn(reportFile);
+		MapProperty<String, FileCollection> cacheableOutputs = mock(MapProperty.class);
+		given(cacheableOutputs.get()).willReturn(this.cacheableOutputs);
+		CacheEntryReportService.Parameters parameters = mock(CacheEntryReportService.Parameters.class);
+		given(parameters.getLimit()).willReturn(limit);
+		given(parameters.getReportFile()).willReturn(reportFileProperty);
+		given(parameters.getCacheableOutputs()).willReturn(cacheableOutputs);
+		return new CacheEntryReportService() {
+
+			@Override
+			public Parameters getParameters() {
+				return parameters;
+			}
+
+		};
+	}
+
+	private String reportJson() throws IOException {
+		return new String(Files.readAllBytes(new File(this.temp, "cache-entries.json").toPath()),
+				StandardCharsets.UTF_8);
+	}
+
+	private TaskSuccessResult success(boolean fromCache, boolean upToDate) {
+		TaskSuccessResult result = mock(TaskSuccessResult.class);
+		given(result.isFromCache()).willReturn(fromCache);
+		given(result.isUpToDate()).willReturn(upToDate);
+		return result;
+	}
+
+	private TaskFinishEvent finished(String path, TaskOperationResult result) {
+		given(result.getStartTime()).willReturn(1000L);
+		given(result.getEndTime()).willReturn(1500L);
+		TaskOperationDescriptor descriptor = mock(TaskOperationDescriptor.class);
+		given(descriptor.getTaskPath()).willReturn(path);
+		TaskFinishEvent event = mock(TaskFinishEvent.class);
+		given(event.getResult()).willReturn(result);
+		given(event.getDescriptor()).willReturn(descriptor);
+		return event;
+	}
+
+	@CacheableTask
+	abstract static class ExampleCacheableTask extends DefaultTask {
+
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.gradle;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.gradle.api.provider.SetProperty;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationDescriptor;
+import org.gradle.tooling.events.task.TaskOperationResult;
+import org.gradle.tooling.events.task.TaskSkippedResult;
+import org.gradle.tooling.events.task.TaskSuccessResult;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link CacheHitRateService}.
+ *
+ * @author Andy Wilkinson
+ */
+class CacheHitRateServiceTests {
+
+	private final TestBuildScanConfiguration buildScan = new TestBuildScanConfiguration();
+
+	@Test
+	void taskOutcomesArePublishedAsCacheHitRateSummary() {
+		CacheHitRateService service = createService(":a", ":b", ":c", ":d");
+		service.onFinish(finished(":a", success(true, true)));
+		service.onFinish(finished(":b", success(true, true)));
+		service.onFinish(finished(":c", success(false, true)));
+		service.onFinish(finished(":d", success(false, false)));
+		service.onFinish(finished(":e", mock(TaskSkippedResult.class)));
+		service.publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Cache hits", "2")
+			.containsEntry("Cache misses", "1")
+			.containsEntry("Cache hit rate", "66%");
+		assertThat(this.buildScan.tags).containsExactly("cache-hit-rate-60+");
+	}
+
+	@Test
+	void executedTasksThatAreNotCacheableAreNotCountedAsMisses() {
+		CacheHitRateService service = createService(":cacheable");
+		service.onFinish(finished(":cacheable", success(true, true)));
+		service.onFinish(finished(":notCacheable", success(false, false)));
+		service.publish(new GradleConfigurableBuildScan(this.buildScan));
+		assertThat(this.buildScan.values).containsEntry("Cache hits", "1")
+			.containsEntry("Cache misses", "0")
+			.containsEntry("Not cacheable", "1")
+			.containsEntry("Cache hit rate", "100%");
+	}
+
+	@SuppressWarnings("unchecked")
+	private CacheHitRateService createService(String... cacheableTasks) {
+		SetProperty<String> cacheableTasksProperty = mock(SetProperty.class);
+		given(cacheableTasksProperty.get()).willReturn(new HashSet<>(Arrays.asList(cacheableTasks)));
+		CacheHitRateService.Parameters parameters = mock(CacheHitRateService.Parameters.class);
+		given(parameters.getCacheableTasks()).willReturn(cacheableTasksProperty);
+		return new CacheHitRateService() {
+
+			@Override
+			public Parameters getParameters() {
+				return parameters;
+			}
+
+		};
+	}
+
+	private TaskSuccessResult success(boolean fromCache, boolean upToDate) {
+		TaskSuccessResult result = mock(TaskSuccessResult.class);
+		given(result.isFromCache()).willReturn(fromCache);
+		given(result.isUpToDate()).willReturn(upToDate);
+		return result;
+	}
+
+	private TaskFinishEvent finished(String path, TaskOperationResult result) {
+		TaskOperationDescriptor descriptor = mock(TaskOperationDescriptor.class);
+		given(descriptor.getTaskPath()).willReturn(path);
+		TaskFinishEvent event = mock(TaskFinishEvent.class);
+		given(event.getResult()).willReturn(result);
+		given(event.getDescriptor()).willReturn(descriptor);
+		return event;
+	}
+
+}
@@ -22,17 +22,24 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.function.Consumer;
+import java.util.zip.ZipFile;
 
 import com.gradle.develocity.agent.gradle.DevelocityPlugin;
 import io.spring.develocity.conventions.core.ConfigurableBuildScan;
 import org.gradle.testkit.runner.BuildResult;
 import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.io.TempDir;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -86,6 +93,16 @@ class DevelocityConventionsPluginIntegrationTests {
 		assertThat(result.getOutput()).contains("Capture file fingerprints: true");
 	}
 
+	@Test
+	void whenThePluginIsAppliedToALargeBuildThenFileFingerprintsAreNotCaptured(@TempDir File projectDir) {
+		prepareProject(projectDir);
+		Map<String, String> env = new HashMap<>(System.getenv());
+		env.put("DEVELOCITY_CAPTURE_LARGE_BUILD_THRESHOLD", "1");
+		BuildResult result = build(prepareBuild(projectDir, "verifyBuildScanConfig").withEnvironment(env));
+		assertThat(result.getOutput()).contains("Develocity server: https://ge.spring.io");
+		assertThat(result.getOutput()).contains("Capture file fingerprints: false");
+	}
+
 	@Test
 	void whenThePluginIsAppliedAndPropertiesTaskIsExecutedThenBuildScanConventionsAreNotApplied(
 			@TempDir File projectDir) {
@@ -146,6 +163,258 @@ class DevelocityConventionsPluginIntegrationTests {
 		assertThat(result.getOutput()).contains("Build cache server: https://ge.spring.io");
 	}
 
+	@Test
+	void whenLocalBuildCacheSnapshotIsConfiguredThenSnapshotIsSavedAtTheEndOfTheBuild(@TempDir File projectDir)
+			throws IOException {
+		prepareProject(projectDir);
+		File cacheDir = new File(projectDir, "build-cache");
+		File snapshotDir = new File(projectDir, "snapshot");
+		write(new File(cacheDir, "a1b2c3d4"), (writer) -> writer.print("entry"));
+		Map<String, String> env = new HashMap<>(System.getenv());
+		env.put("DEVELOCITY_LOCAL_CACHE_DIRECTORY", cacheDir.getAbsolutePath());
+		env.put("DEVELOCITY_LOCAL_CACHE_SNAPSHOT_DIRECTORY", snapshotDir.getAbsolutePath());
+		build(prepareBuild(projectDir, "verifyBuildCacheConfig").withEnvironment(env));
+		File snapshot = new File(snapshotDir, "local-build-cache.zip");
+		assertThat(snapshot).isFile();
+		try (ZipFile zip = new ZipFile(snapshot)) {
+			assertThat(zip.getEntry("a1b2c3d4")).isNotNull();
+		}
+	}
+
+	@Test
+	void whenRuntimeClasspathNormalizationIsEnabledThenChangesToBuildInfoDoNotInvalidateTheCache(
+			@TempDir File projectDir) {
+		prepareClasspathProject(projectDir);
+		write(new File(projectDir, "gradle.properties"),
+				(writer) -> writer.println("spring.runtime-classpath-normalization.enabled=true"));
+		assertThat(buildClasspathTask(projectDir, "1").task(":classpathTask").getOutcome())
+			.isEqualTo(TaskOutcome.SUCCESS);
+		assertThat(buildClasspathTask(projectDir, "2").task(":classpathTask").getOutcome())
+			.isEqualTo(TaskOutcome.FROM_CACHE);
+	}
+
+	@Test
+	void whenRuntimeClasspathNormalizationIsNotEnabledThenChangesToBuildInfoInvalidateTheCache(
+			@TempDir File projectDir) {
+		prepareClasspathProject(projectDir);
+		assertThat(buildClasspathTask(projectDir, "1").task(":classpathTask").getOutcome())
+			.isEqualTo(TaskOutcome.SUCCESS);
+		assertThat(buildClasspathTask(projectDir, "2").task(":classpathTask").getOutcome())
+			.isEqualTo(TaskOutcome.SUCCESS);
+	}
+
+	@Test
+	void whenArchivesRuleIsEnabledThenZipTaskInRelocatedCheckoutIsFromCache(@TempDir File tempDir) {
+		Consumer<File> preparation = (projectDir) -> {
+			prepareCacheableTasksProject(projectDir, "archives");
+			write(new File(projectDir, "src/a.txt"), (writer) -> writer.println("alpha"));
+			write(new File(projectDir, "build.gradle"), (writer) -> {
+				writer.println("task dist(type: Zip) {");
+				writer.println("    from 'src'");
+				writer.println("    archiveFileName = 'dist.zip'");
+				writer.println("    destinationDirectory = layout.buildDirectory.dir('dist')");
+				writer.println("}");
+			});
+		};
+		assertThat(buildInRelocatedCheckouts(tempDir, preparation, "dist")).isEqualTo(TaskOutcome.FROM_CACHE);
+	}
+
+	@Test
+	void whenExecRuleIsEnabledThenExecTaskInRelocatedCheckoutIsFromCache(@TempDir File tempDir) {
+		Consumer<File> preparation = (projectDir) -> {
+			prepareCacheableTasksProject(projectDir, "exec");
+			write(new File(projectDir, "input.txt"), (writer) -> writer.println("input"));
+			write(new File(projectDir, "build.gradle"), (writer) -> {
+				writer.println("task generate(type: Exec) {");
+				writer.println("    inputs.file('input.txt').withPathSensitivity(PathSensitivity.RELATIVE)");
+				writer.println("    outputs.file(layout.buildDirectory.file('output.txt'))");
+				writer.println("    commandLine 'cp', 'input.txt', 'build/output.txt'");
+				writer.println("}");
+			});
+		};
+		assertThat(buildInRelocatedCheckouts(tempDir, preparation, "generate")).isEqualTo(TaskOutcome.FROM_CACHE);
+	}
+
+	@Test
+	void whenNoCacheableTaskRulesAreEnabledThenZipTaskInRelocatedCheckoutIsExecuted(@TempDir File tempDir) {
+		Consumer<File> preparation = (projectDir) -> {
+			prepareCacheableTasksProject(projectDir, "");
+			write(new File(projectDir, "src/a.txt"), (writer) -> writer.println("alpha"));
+			write(new File(projectDir, "build.gradle"), (writer) -> {
+				writer.println("task dist(type: Zip) {");
+				writer.println("    from 'src'");
+				writer.println("    archiveFileName = 'dist.zip'");
+				writer.println("    destinationDirectory = layout.buildDirectory.dir('dist')");
+				writer.println("}");
+			});
+		};
+		assertThat(buildInRelocatedCheckouts(tempDir, preparation, "dist")).isEqualTo(TaskOutcome.SUCCESS);
+	}
+
+	@Test
+	void whenCacheForensicsIsEnabledThenDiffOfTaskFingerprintsDescribesChangedInputs(@TempDir File tempDir)
+			throws IOException {
+		File projectDir = new File(tempDir, "project");
+		prepareProject(projectDir);
+		write(new File(projectDir, "gradle.properties"),
+				(writer) -> writer.println("spring.cache-forensics.enabled=true"));
+		write(new File(projectDir, "input.txt"), (writer) -> writer.println("alpha"));
+		write(new File(projectDir, "build.gradle"), (writer) -> {
+			writer.println("task generate {");
+			writer.println("    inputs.file('input.txt')");
+			writer.println("    outputs.file(layout.buildDirectory.file('output.txt'))");
+			writer.println("    doLast { file('build/output.txt').text = file('input.txt').text }");
+			writer.println("}");
+		});
+		build(projectDir, "generate");
+		File fingerprints = new File(projectDir, "build/cache-forensics/task-fingerprints.gz");
+		File baseline = new File(tempDir, "baseline.gz");
+		Files.copy(fingerprints.toPath(), baseline.toPath());
+		write(new File(projectDir, "input.txt"), (writer) -> writer.println("bravo"));
+		build(projectDir, "generate");
+		BuildResult result = build(projectDir, "diffTaskFingerprints",
+				"-Pspring.cache-forensics.baseline=" + baseline.getAbsolutePath());
+		assertThat(result.getOutput()).contains(":generate (").contains("file 'input.txt' has changed");
+		assertThat(new File(projectDir, "build/cache-forensics/task-fingerprints-diff.txt")).isFile();
+	}
+
+	@Test
+	void whenCacheForensicsIsEnabledThenReproducibilityAuditReportsTasksWithDifferentOutputs(@TempDir File tempDir)
+			throws IOException {
+		File projectDir = new File(tempDir, "project");
+		prepareProject(projectDir);
+		write(new File(projectDir, "gradle.properties"),
+				(writer) -> writer.println("spring.cache-forensics.enabled=true"));
+		write(new File(projectDir, "input.txt"), (writer) -> writer.println("alpha"));
+		write(new File(projectDir, "build.gradle"), (writer) -> {
+			writer.println("task stamp {");
+			writer.println("    inputs.file('input.txt')");
+			writer.println("    outputs.file(layout.buildDirectory.file('stamp.txt'))");
+			writer.println("    doLast { file('build/stamp.txt').text = System.nanoTime() }");
+			writer.println("}");
+			writer.println("task consume {");
+			writer.println("    inputs.files(stamp)");
+			writer.println("    outputs.file(layout.buildDirectory.file('consume.txt'))");
+			writer.println("    doLast { file('build/consume.txt').text = file('build/stamp.txt').text }");
+			writer.println("}");
+		});
+		build(projectDir, "consume", "--rerun-tasks");
+		File fingerprints = new File(projectDir, "build/cache-forensics/task-fingerprints.gz");
+		File baseline = new File(tempDir, "baseline.gz");
+		Files.copy(fingerprints.toPath(), baseline.toPath());
+		build(projectDir, "consume", "--rerun-tasks");
+		BuildResult result = build(projectDir, "auditReproducibility",
+				"-Pspring.cache-forensics.baseline=" + baseline.getAbsolutePath());
+		assertThat(result.getOutput()).contains(":stamp (1 downstream tasks)")
+			.contains("build/stamp.txt")
+			.doesNotContain(":consume (");
+	}
+
+	@Test
+	void whenTaskRealizationReportIsEnabledThenRegisteredTasksThatAreNotScheduledAreNotReported(
+			@TempDir File projectDir) {
+		prepareProject(projectDir);
+		write(new File(projectDir, "gradle.properties"),
+				(writer) -> writer.println("spring.task-realization-report.enabled=true"));
+		write(new File(projectDir, "build.gradle"), (writer) -> {
+			writer.println("tasks.register('lazy')");
+			writer.println("tasks.create('eager')");
+		});
+		BuildResult result = build(projectDir, "verifyBuildScanConfig", "--debug");
+		assertThat(result.getOutput()).contains("Adding build scan value 'Tasks realized': 3")
+			.contains("Adding build scan value 'Tasks scheduled': 1")
+			.contains("build.gradle (2 tasks)");
+	}
+
+	@Test
+	@EnabledOnOs(OS.LINUX)
+	void whenTheConfigurationCacheIsReusedThenBuildScanValuesAreStillPublished(@TempDir File projectDir) {
+		prepareClasspathProject(projectDir);
+		write(new File(projectDir, "gradle.properties"),
+				(writer) -> writer.println("spring.cache-entry-report.enabled=true"));
+		BuildResult first = buildClasspathTaskWithConfigurationCache(projectDir);
+		assertThat(first.getOutput()).contains("Configuration cache entry stored.")
+			.contains("Adding build scan value 'Configuration cache': Miss");
+		BuildResult second = buildClasspathTaskWithConfigurationCache(projectDir);
+		assertThat(second.task(":classpathTask").getOutcome()).isEqualTo(TaskOutcome.FROM_CACHE);
+		assertThat(second.getOutput()).contains("Configuration cache entry reused.")
+			.contains("Adding build scan value 'Configuration cache': Hit")
+			.contains("Adding build scan value 'Cache hits': 1")
+			.contains("Adding build scan value 'Cache hit rate': 100%")
+			.contains("Adding build scan value 'JVM peak heap'")
+			.contains("Adding build scan value 'Peak RSS (Build JVM)'");
+		assertThat(new File(projectDir, "build/process-tree-samples.csv")).isFile();
+		assertThat(new File(projectDir, "build/cache-forensics/cache-entries.json")).isFile();
+	}
+
+	private BuildResult buildClasspathTaskWithConfigurationCache(File projectDir) {
+		deleteRecursively(new File(projectDir, "build"));
+		Map<String, String> env = new HashMap<>(System.getenv());
+		env.put("DEVELOCITY_LOCAL_CACHE_DIRECTORY", new File(projectDir, "build-cache").getAbsolutePath());
+		env.put("DEVELOCITY_PROCESS_SAMPLING", "true");
+		return build(prepareBuild(projectDir, "classpathTask", "--configuration-cache", "--debug").withEnvironment(env)
+			.withGradleVersion("8.8"));
+	}
+
+	private void prepareCacheableTasksProject(File projectDir, String rules) {
+		prepareProject(projectDir);
+		write(new File(projectDir, "gradle.properties"), (writer) -> writer.println("spring.cacheable-tasks=" + rules));
+	}
+
+	private TaskOutcome buildInRelocatedCheckouts(File tempDir, Consumer<File> preparation, String taskName) {
+		File first = new File(tempDir, "first");
+		File second = new File(tempDir, "second");
+		preparation.accept(first);
+		preparation.accept(second);
+		Map<String, String> env = new HashMap<>(System.getenv());
+		env.put("DEVELOCITY_LOCAL_CACHE_DIRECTORY", new File(tempDir, "build-cache").getAbsolutePath());
+		build(prepareBuild(first, taskName).withEnvironment(env));
+		return build(prepareBuild(second, taskName).withEnvironment(env)).task(":" + taskName).getOutcome();
+	}
+
+	private void prepareClasspathProject(File projectDir) {
+		prepareProject(projectDir);
+		write(new File(projectDir, "classes/com/example/Example.txt"), (writer) -> writer.println("example"));
+		write(new File(projectDir, "build.gradle"), (writer) -> {
+			writer.println("@CacheableTask");
+			writer.println("abstract class ClasspathTask extends DefaultTask {");
+			writer.println("    @Classpath abstract ConfigurableFileCollection getClasspath()");
+			writer.println("    @OutputFile abstract RegularFileProperty getOutput()");
+			writer.println("    @TaskAction void run() { output.get().asFile.text = 'done' }");
+			writer.println("}");
+			writer.println("task classpathTask(type: ClasspathTask) {");
+			writer.println("    classpath.from('classes')");
+			writer.println("    output = layout.buildDirectory.file('classpath-task.txt')");
+			writer.println("}");
+		});
+	}
+
+	private BuildResult buildClasspathTask(File projectDir, String commit) {
+		deleteRecursively(new File(projectDir, "build"));
+		File buildInfo = new File(projectDir, "classes/META-INF/build-info.properties");
+		buildInfo.delete();
+		write(buildInfo, (writer) -> writer.println("build.revision=" + commit));
+		File manifest = new File(projectDir, "classes/META-INF/MANIFEST.MF");
+		manifest.delete();
+		write(manifest, (writer) -> {
+			writer.println("Manifest-Version: 1.0");
+			writer.println("Build-Revision: " + commit);
+		});
+		Map<String, String> env = new HashMap<>(System.getenv());
+		env.put("DEVELOCITY_LOCAL_CACHE_DIRECTORY", new File(projectDir, "build-cache").getAbsolutePath());
+		return build(prepareBuild(projectDir, "classpathTask").withEnvironment(env));
+	}
+
+	private void deleteRecursively(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+
 	private void prepareProject(File projectDir) {
 		write(new File(projectDir, "gradle.properties"), (writer) -> writer.println("org.gradle.caching=true"));
 		write(new File(projectDir, "settings.gradle"), (writer) -> {
@@ -16,6 +16,9 @@
 
 package io.spring.develocity.conventions.gradle;
 
+import java.io.File;
+import java.time.Duration;
+
 import com.gradle.develocity.agent.gradle.buildcache.DevelocityBuildCache;
 import org.gradle.api.Action;
 import org.gradle.caching.BuildCacheServiceFactory;
@@ -41,6 +44,27 @@ class GradleConfigurableBuildCacheTests {
 		assertThat(this.buildCache.local.isEnabled()).isTrue();
 	}
 
+	@Test
+	void localCacheDirectoryCanBeConfigured() {
+		new GradleConfigurableBuildCache(DevelocityBuildCache.class, this.buildCache)
+			.local((local) -> local.setDirectory(new File("/tmp/build-cache")));
+		assertThat(this.buildCache.local.getDirectory()).isEqualTo(new File("/tmp/build-cache"));
+	}
+
+	@Test
+	void localCacheRetentionCanBeConfigured() {
+		new GradleConfigurableBuildCache(DevelocityBuildCache.class, this.buildCache)
+			.local((local) -> local.setRetention(Duration.ofDays(3)));
+		assertThat(this.buildCache.local.getRemoveUnusedEntriesAfterDays()).isEqualTo(3);
+	}
+
+	@Test
+	void localCacheRetentionOfLessThanADayIsRoundedUpToOneDay() {
+		new GradleConfigurableBuildCache(DevelocityBuildCache.class, this.buildCache)
+			.local((local) -> local.setRetention(Duration.ofHours(6)));
+		assertThat(this.buildCache.local.getRemoveUnusedEntriesAfterDays()).isEqualTo(1);
+	}
+
 	@Test
 	void remoteCacheCanBeEnabled() {
 		new GradleConfigurableBuildCache(DevelocityBuildCache.class, this.buildCache)
@@ -61,6 +85,27 @@ class GradleConfigurableBuildCacheTests {
 		assertThat(this.buildCache.remote.getServer()).isEqualTo("https://ge.spring.io");
 	}
 
+	@Test
+	void remoteCacheCanAllowInsecureProtocol() {
+		new GradleConfigurableBuildCache(DevelocityBuildCache.class, this.buildCache)
+			.remote((remote) -> remote.setAllowInsecureProtocol(true));
+		assertThat(this.buildCache.remote.isAllowInsecureProtocol()).isTrue();
+	}
+
+	@Test
+	void remoteCacheCanAllowUntrustedServer() {
+		new GradleConfigurableBuildCache(DevelocityBuildCache.class, this.buildCache)
+			.remote((remote) -> remote.setAllowUntrustedServer(true));
+		assertThat(this.buildCache.remote.isAllowUntrustedServer()).isTrue();
+	}
+
+	@Test
+	void remoteCacheCanUseExpectContinue() {
+		new GradleConfigurableBuildCache(DevelocityBuildCache.class, this.buildCache)
+			.remote((remote) -> remote.setUseExpectContinue(true));
+		assertThat(this.buildCache.remote.isUseExpectContinue()).isTrue();
+	}
+
 	private static final class TestBuildCacheConfiguration implements BuildCacheConfiguration {
 
 		private final DirectoryBuildCache local = new DirectoryBuildCache();
@@ -19,10 +19,13 @@ package io.spring.develocity.conventions.gradle;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.gradle.develocity.agent.gradle.scan.BuildResult;
 import com.gradle.develocity.agent.gradle.scan.BuildScanPublishingConfiguration.PublishingContext;
+import org.gradle.api.provider.Provider;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -44,6 +47,18 @@ class GradleConfigurableBuildScanTests {
 		assertThat(this.buildScan.captureSettings.getFileFingerprints().get()).isTrue();
 	}
 
+	@Test
+	void captureOfBuildLoggingCanBeDisabled() {
+		new GradleConfigurableBuildScan(this.buildScan).captureBuildLogging(false);
+		assertThat(this.buildScan.captureSettings.getBuildLogging().get()).isFalse();
+	}
+
+	@Test
+	void captureOfTestLoggingCanBeDisabled() {
+		new GradleConfigurableBuildScan(this.buildScan).captureTestLogging(false);
+		assertThat(this.buildScan.captureSettings.getTestLogging().get()).isFalse();
+	}
+
 	@Test
 	void ipAddressesCanBeObfuscated() throws UnknownHostException {
 		new GradleConfigurableBuildScan(this.buildScan).obfuscation((obfuscation) -> obfuscation.ipAddresses(
@@ -64,6 +79,41 @@ class GradleConfigurableBuildScanTests {
 		assertThat(this.buildScan.publishing.predicate.isSatisfiedBy(context)).isFalse();
 	}
 
+	@Test
+	void buildScansCanBeConfiguredToPublishIfConditionIsMet() {
+		new GradleConfigurableBuildScan(this.buildScan)
+			.publishIf((context) -> context.isAuthenticated() && context.hasFailed());
+		PublishingContext context = mock(PublishingContext.class);
+		BuildResult buildResult = mock(BuildResult.class);
+		given(context.getBuildResult()).willReturn(buildResult);
+		given(context.isAuthenticated()).willReturn(true);
+		given(buildResult.getFailures()).willReturn(Collections.emptyList());
+		assertThat(this.buildScan.publishing.predicate.isSatisfiedBy(context)).isFalse();
+		given(buildResult.getFailures()).willReturn(Collections.singletonList(new RuntimeException()));
+		assertThat(this.buildScan.publishing.predicate.isSatisfiedBy(context)).isTrue();
+		given(context.isAuthenticated()).willReturn(false);
+		assertThat(this.buildScan.publishing.predicate.isSatisfiedBy(context)).isFalse();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void whenBuildStartTimeIsUnavailableThenPublicationConditionSeesNoStartTime() {
+		Provider<BuildStartTimeService> buildStartTime = mock(Provider.class);
+		given(buildStartTime.get()).willThrow(new IllegalStateException("BuildStartedTime is unavailable"));
+		new GradleConfigurableBuildScan(this.buildScan, buildStartTime)
+			.publishIf((context) -> context.getBuildStartTime() == null);
+		PublishingContext context = mock(PublishingContext.class);
+		assertThat(this.buildScan.publishing.predicate.isSatisfiedBy(context)).isTrue();
+	}
+
+	@Test
+	void publicationOfBuildScansCanBeDeferred() {
+		new GradleConfigurableBuildScan(this.buildScan).deferPublication();
+		PublishingContext context = mock(PublishingContext.class);
+		given(context.isAuthenticated()).willReturn(true);
+		assertThat(this.buildScan.publishing.predicate.isSatisfiedBy(context)).isFalse();
+	}
+
 	@Test
 	void whenTagsAreAddedThenBuildScanHasTags() {
 		GradleConfigurableBuildScan configurableBuildScan = new GradleConfigurableBuildScan(this.buildScan);
@@ -90,4 +140,13 @@ class GradleConfigurableBuildScanTests {
 		assertThat(this.buildScan.uploadInBackground.get()).isTrue();
 	}
 
+	@Test
+	void buildFinishedConfigurersAreInvokedWhenTheBuildHasFinished() {
+		new GradleConfigurableBuildScan(this.buildScan)
+			.buildFinished((buildScan) -> buildScan.value("Largest cache entry", ":jar (1.0 MB)"));
+		assertThat(this.buildScan.values).isEmpty();
+		this.buildScan.buildFinishedActions.forEach((action) -> action.execute(mock(BuildResult.class)));
+		assertThat(this.buildScan.values).containsEntry("Largest cache entry", ":jar (1.0 MB)");
+	}
+
 }
@@ -54,6 +54,8 @@ class TestBuildScanConfiguration implements BuildScanConfiguration {
 
 	final Property<Boolean> uploadInBackground = new TestProperty<>();
 
+	final List<Action<? super BuildResult>> buildFinishedActions = new ArrayList<>();
+
 	@Override
 	public void link(String name, String url) {
 		this.links.put(name, url);
@@ -76,7 +78,7 @@ class TestBuildScanConfiguration implements BuildScanConfiguration {
 
 	@Override
 	public void buildFinished(Action<? super BuildResult> action) {
-		throw new UnsupportedOperationException();
+		this.buildFinishedActions.add(action);
 	}
 
 	@Override
@@ -159,9 +161,13 @@ class TestBuildScanConfiguration implements BuildScanConfiguration {
 
 		final Property<Boolean> fileFingerprints = new TestProperty<>();
 
+		final Property<Boolean> buildLogging = new TestProperty<>();
+
+		final Property<Boolean> testLogging = new TestProperty<>();
+
 		@Override
 		public Property<Boolean> getBuildLogging() {
-			throw new UnsupportedOperationException();
+			return this.buildLogging;
 		}
 
 		@Override
@@ -171,7 +177,7 @@ class TestBuildScanConfiguration implements BuildScanConfiguration {
 
 		@Override
 		public Property<Boolean> getTestLogging() {
-			throw new UnsupportedOperationException();
+			return this.testLogging;
 		}
 
 		@Override
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.util.List;
+
+import io.spring.develocity.conventions.core.CapturePolicy;
+import io.spring.develocity.conventions.core.ConfigurableBuildScan;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * {@link ExecutionListener} that applies a {@link CapturePolicy} to the build scan when
+ * the session starts and the modules in the build are known.
+ *
+ * @author Andy Wilkinson
+ */
+class CapturePolicyExecutionListener extends DelegatingExecutionListener {
+
+	private final CapturePolicy capturePolicy;
+
+	private final ConfigurableBuildScan buildScan;
+
+	CapturePolicyExecutionListener(ExecutionListener delegate, CapturePolicy capturePolicy,
+			ConfigurableBuildScan buildScan) {
+		super(delegate);
+		this.capturePolicy = capturePolicy;
+		this.buildScan = buildScan;
+	}
+
+	@Override
+	public void sessionStarted(ExecutionEvent event) {
+		List<MavenProject> projects = event.getSession().getProjects();
+		this.capturePolicy.execute(this.buildScan, (projects != null) ? projects.size() : 1);
+		super.sessionStarted(event);
+	}
+
+}
@@ -16,12 +16,28 @@
 
 package io.spring.develocity.conventions.maven;
 
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
 import com.gradle.develocity.agent.maven.api.DevelocityApi;
 import com.gradle.develocity.agent.maven.api.DevelocityListener;
+import com.gradle.develocity.agent.maven.api.cache.BuildCacheApi;
+import io.spring.develocity.conventions.core.BranchResolver;
 import io.spring.develocity.conventions.core.BuildCacheConventions;
 import io.spring.develocity.conventions.core.BuildScanConventions;
+import io.spring.develocity.conventions.core.CapturePolicy;
+import io.spring.develocity.conventions.core.ConnectionWarmUp;
+import io.spring.develocity.conventions.core.JvmMetrics;
+import io.spring.develocity.conventions.core.LocalBuildCacheSnapshot;
+import io.spring.develocity.conventions.core.ProcessTreeSampler;
+import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
 import org.codehaus.plexus.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * {@link DevelocityListener} for configuring the use of Develocity hosted at
@@ -33,11 +49,83 @@ import org.codehaus.plexus.component.annotations.Component;
 		description = "Develocity conventions Maven extension")
 public class ConventionsDevelocityListener implements DevelocityListener {
 
+	private final Logger log = LoggerFactory.getLogger(ConventionsDevelocityListener.class);
+
 	@Override
 	public void configure(DevelocityApi develocity, MavenSession mavenSession) throws Exception {
-		new BuildScanConventions(new ProcessBuilderProcessRunner()).execute(new MavenConfigurableDevelocity(develocity),
-				new MavenConfigurableBuildScan(develocity.getBuildScan()));
-		new BuildCacheConventions().execute(new MavenConfigurableBuildCache(develocity.getBuildCache()));
+		ProcessBuilderProcessRunner processRunner = new ProcessBuilderProcessRunner();
+		BranchResolver branchResolver = new BranchResolver(processRunner);
+		ConnectionWarmUp connectionWarmUp = ConnectionWarmUp.fromEnvironment();
+		MavenConfigurableBuildScan buildScan = new MavenConfigurableBuildScan(develocity.getBuildScan(),
+				buildStartTime(mavenSession));
+		new BuildScanConventions(processRunner, branchResolver, connectionWarmUp)
+			.execute(new MavenConfigurableDevelocity(develocity), buildScan);
+		configureCapturePolicy(mavenSession, buildScan);
+		buildScan.buildFinished(new JvmMetrics()::publish);
+		configureProcessTreeSampler(mavenSession, buildScan);
+		BuildCacheApi buildCache = develocity.getBuildCache();
+		new BuildCacheConventions(branchResolver, connectionWarmUp)
+			.execute(new MavenConfigurableBuildCache(buildCache));
+		buildCache.registerNormalizationProvider(new RuntimeClasspathNormalizationProvider());
+		buildCache.registerMojoMetadataProvider(new MojoMetadataConventions());
+		configureLocalBuildCacheSnapshot(mavenSession);
+		configureTaskFingerprints(mavenSession);
+	}
+
+	private Instant buildStartTime(MavenSession mavenSession) {
+		Date startTime = mavenSession.getRequest().getStartTime();
+		return (startTime != null) ? startTime.toInstant() : null;
+	}
+
+	private void configureCapturePolicy(MavenSession mavenSession, MavenConfigurableBuildScan buildScan) {
+		MavenExecutionRequest request = mavenSession.getRequest();
+		request.setExecutionListener(
+				new CapturePolicyExecutionListener(request.getExecutionListener(), new CapturePolicy(), buildScan));
+	}
+
+	private void configureProcessTreeSampler(MavenSession mavenSession, MavenConfigurableBuildScan buildScan) {
+		Duration interval = ProcessTreeSampler.intervalFromEnvironment();
+		if (interval == null) {
+			return;
+		}
+		ProcessTreeSampler sampler;
+		try {
+			sampler = new ProcessTreeSampler(interval);
+		}
+		catch (IOException ex) {
+			this.log.warn("Failed to start process tree sampling", ex);
+			return;
+		}
+		sampler.start();
+		buildScan.buildFinished(sampler::publish);
+		MavenExecutionRequest request = mavenSession.getRequest();
+		request.setExecutionListener(new ProcessTreeSamplerExecutionListener(request.getExecutionListener(), sampler,
+				new File(request.getBaseDirectory(), "target/process-tree-samples.csv")));
+	}
+
+	private void configureTaskFingerprints(MavenSession mavenSession) {
+		if (!Boolean.parseBoolean(mavenSession.getUserProperties().getProperty("spring.cache-forensics.enabled"))) {
+			return;
+		}
+		MavenExecutionRequest request = mavenSession.getRequest();
+		request.setExecutionListener(new TaskFingerprintExecutionListener(request.getExecutionListener(),
+				new File(request.getBaseDirectory())));
+	}
+
+	private void configureLocalBuildCacheSnapshot(MavenSession mavenSession) {
+		LocalBuildCacheSnapshot snapshot = LocalBuildCacheSnapshot.fromEnvironment();
+		if (snapshot == null) {
+			return;
+		}
+		try {
+			snapshot.restore();
+		}
+		catch (IOException ex) {
+			this.log.warn("Failed to restore local build cache snapshot", ex);
+		}
+		MavenExecutionRequest request = mavenSession.getRequest();
+		request.setExecutionListener(
+				new LocalBuildCacheSnapshotExecutionListener(request.getExecutionListener(), snapshot));
 	}
 
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+
+/**
+ * {@link ExecutionListener} that delegates to another, possibly {@code null}, listener.
+ * Subclasses override the methods for the events that they are interested in.
+ *
+ * @author Andy Wilkinson
+ */
+class DelegatingExecutionListener implements ExecutionListener {
+
+	private final ExecutionListener delegate;
+
+	DelegatingExecutionListener(ExecutionListener delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void projectDiscoveryStarted(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.projectDiscoveryStarted(event);
+		}
+	}
+
+	@Override
+	public void sessionStarted(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.sessionStarted(event);
+		}
+	}
+
+	@Override
+	public void sessionEnded(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.sessionEnded(event);
+		}
+	}
+
+	@Override
+	public void projectSkipped(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.projectSkipped(event);
+		}
+	}
+
+	@Override
+	public void projectStarted(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.projectStarted(event);
+		}
+	}
+
+	@Override
+	public void projectSucceeded(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.projectSucceeded(event);
+		}
+	}
+
+	@Override
+	public void projectFailed(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.projectFailed(event);
+		}
+	}
+
+	@Override
+	public void mojoSkipped(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.mojoSkipped(event);
+		}
+	}
+
+	@Override
+	public void mojoStarted(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.mojoStarted(event);
+		}
+	}
+
+	@Override
+	public void mojoSucceeded(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.mojoSucceeded(event);
+		}
+	}
+
+	@Override
+	public void mojoFailed(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.mojoFailed(event);
+		}
+	}
+
+	@Override
+	public void forkStarted(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.forkStarted(event);
+		}
+	}
+
+	@Override
+	public void forkSucceeded(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.forkSucceeded(event);
+		}
+	}
+
+	@Override
+	public void forkFailed(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.forkFailed(event);
+		}
+	}
+
+	@Override
+	public void forkedProjectStarted(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.forkedProjectStarted(event);
+		}
+	}
+
+	@Override
+	public void forkedProjectSucceeded(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.forkedProjectSucceeded(event);
+		}
+	}
+
+	@Override
+	public void forkedProjectFailed(ExecutionEvent event) {
+		if (this.delegate != null) {
+			this.delegate.forkedProjectFailed(event);
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.io.IOException;
+
+import io.spring.develocity.conventions.core.LocalBuildCacheSnapshot;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ExecutionListener} that saves a {@link LocalBuildCacheSnapshot} when the session
+ * ends.
+ *
+ * @author Andy Wilkinson
+ */
+class LocalBuildCacheSnapshotExecutionListener extends DelegatingExecutionListener {
+
+	private final Logger log = LoggerFactory.getLogger(LocalBuildCacheSnapshotExecutionListener.class);
+
+	private final LocalBuildCacheSnapshot snapshot;
+
+	LocalBuildCacheSnapshotExecutionListener(ExecutionListener delegate, LocalBuildCacheSnapshot snapshot) {
+		super(delegate);
+		this.snapshot = snapshot;
+	}
+
+	@Override
+	public void sessionEnded(ExecutionEvent event) {
+		super.sessionEnded(event);
+		try {
+			this.snapshot.save();
+		}
+		catch (IOException ex) {
+			this.log.warn("Failed to save local build cache snapshot", ex);
+		}
+	}
+
+}
@@ -16,9 +16,12 @@
 
 package io.spring.develocity.conventions.maven;
 
+import java.io.File;
+import java.time.Duration;
 import java.util.function.Consumer;
 
 import com.gradle.develocity.agent.maven.api.cache.BuildCacheApi;
+import com.gradle.develocity.agent.maven.api.cache.Credentials;
 import io.spring.develocity.conventions.core.ConfigurableBuildCache;
 
 /**
@@ -57,6 +60,21 @@ class MavenConfigurableBuildCache implements ConfigurableBuildCache {
 			this.localBuildCache.setEnabled(true);
 		}
 
+		@Override
+		public void setDirectory(File directory) {
+			this.localBuildCache.setDirectory(directory);
+		}
+
+		@Override
+		public void setRetention(Duration retention) {
+			this.localBuildCache.getCleanupPolicy().setRetention(retention);
+		}
+
+		@Override
+		public void setCleanupInterval(Duration interval) {
+			this.localBuildCache.getCleanupPolicy().setInterval(interval);
+		}
+
 	}
 
 	private static final class MavenRemoteBuildCache implements RemoteBuildCache {
@@ -86,6 +104,28 @@ class MavenConfigurableBuildCache implements ConfigurableBuildCache {
 			this.remoteBuildCache.getServer().setUrl(url);
 		}
 
+		@Override
+		public void setAllowInsecureProtocol(boolean allowInsecureProtocol) {
+			this.remoteBuildCache.getServer().setAllowInsecureProtocol(allowInsecureProtocol);
+		}
+
+		@Override
+		public void setAllowUntrustedServer(boolean allowUntrustedServer) {
+			this.remoteBuildCache.getServer().setAllowUntrusted(allowUntrustedServer);
+		}
+
+		@Override
+		public void setUseExpectContinue(boolean useExpectContinue) {
+			this.remoteBuildCache.getServer().setUseExpectContinue(useExpectContinue);
+		}
+
+		@Override
+		public void setCredentials(String username, String password) {
+			Credentials credentials = this.remoteBuildCache.getServer().getCredentials();
+			credentials.setUsername(username);
+			credentials.setPassword(password);
+		}
+
 	}
 
 }
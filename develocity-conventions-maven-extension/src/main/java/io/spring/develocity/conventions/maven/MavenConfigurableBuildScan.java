@@ -17,9 +17,11 @@
 package io.spring.develocity.conventions.maven;
 
 import java.net.InetAddress;
+import java.time.Instant;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import com.gradle.develocity.agent.maven.api.scan.BuildScanApi;
 import com.gradle.develocity.agent.maven.api.scan.BuildScanPublishing.PublishingContext;
@@ -34,8 +36,15 @@ class MavenConfigurableBuildScan implements ConfigurableBuildScan {
 
 	private final BuildScanApi buildScan;
 
+	private final Instant buildStartTime;
+
 	MavenConfigurableBuildScan(BuildScanApi buildScan) {
+		this(buildScan, null);
+	}
+
+	MavenConfigurableBuildScan(BuildScanApi buildScan, Instant buildStartTime) {
 		this.buildScan = buildScan;
+		this.buildStartTime = buildStartTime;
 	}
 
 	@Override
@@ -43,6 +52,16 @@ class MavenConfigurableBuildScan implements ConfigurableBuildScan {
 		this.buildScan.getCapture().setFileFingerprints(capture);
 	}
 
+	@Override
+	public void captureBuildLogging(boolean capture) {
+		this.buildScan.getCapture().setBuildLogging(capture);
+	}
+
+	@Override
+	public void captureTestLogging(boolean capture) {
+		this.buildScan.getCapture().setTestLogging(capture);
+	}
+
 	@Override
 	public void obfuscation(Consumer<ObfuscationConfigurer> configurer) {
 		configurer.accept(new ObfuscationConfigurer() {
@@ -60,6 +79,33 @@ class MavenConfigurableBuildScan implements ConfigurableBuildScan {
 		this.buildScan.getPublishing().onlyIf(PublishingContext::isAuthenticated);
 	}
 
+	@Override
+	public void publishIf(Predicate<PublicationContext> condition) {
+		this.buildScan.getPublishing().onlyIf((context) -> condition.test(new PublicationContext() {
+
+			@Override
+			public boolean isAuthenticated() {
+				return context.isAuthenticated();
+			}
+
+			@Override
+			public boolean hasFailed() {
+				return !context.getBuildResult().getFailures().isEmpty();
+			}
+
+			@Override
+			public Instant getBuildStartTime() {
+				return MavenConfigurableBuildScan.this.buildStartTime;
+			}
+
+		}));
+	}
+
+	@Override
+	public void deferPublication() {
+		this.buildScan.getPublishing().onlyIf((context) -> false);
+	}
+
 	@Override
 	public void uploadInBackground(boolean enabled) {
 		this.buildScan.setUploadInBackground(enabled);
@@ -86,4 +132,9 @@ class MavenConfigurableBuildScan implements ConfigurableBuildScan {
 			.background((backgrounded) -> backgroundConfigurer.accept(new MavenConfigurableBuildScan(backgrounded)));
 	}
 
+	@Override
+	public void buildFinished(Consumer<ConfigurableBuildScan> buildFinishedConfigurer) {
+		this.buildScan.buildFinished((result) -> buildFinishedConfigurer.accept(this));
+	}
+
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.util.List;
+
+import com.gradle.develocity.agent.maven.api.cache.NormalizationProvider.RuntimeClasspathNormalization;
+import io.spring.develocity.conventions.core.ConfigurableRuntimeClasspathNormalization;
+
+/**
+ * A {@link ConfigurableRuntimeClasspathNormalization} for Maven builds.
+ *
+ * @author Andy Wilkinson
+ */
+class MavenConfigurableRuntimeClasspathNormalization implements ConfigurableRuntimeClasspathNormalization {
+
+	private final RuntimeClasspathNormalization normalization;
+
+	MavenConfigurableRuntimeClasspathNormalization(RuntimeClasspathNormalization normalization) {
+		this.normalization = normalization;
+	}
+
+	@Override
+	public void ignoreFiles(List<String> patterns) {
+		this.normalization.addIgnoredFiles(patterns);
+	}
+
+	@Override
+	public void ignoreManifestAttributes(List<String> attributes) {
+		this.normalization.configureMetaInf((metaInf) -> metaInf.addIgnoredAttributes(attributes));
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.gradle.develocity.agent.maven.api.cache.MojoMetadataProvider;
+import com.gradle.develocity.agent.maven.api.cache.MojoMetadataProvider.Context.FileSet;
+import com.gradle.develocity.agent.maven.api.cache.MojoMetadataProvider.Context.FileSet.NormalizationStrategy;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * {@link MojoMetadataProvider} that declares the inputs and outputs of the goals of
+ * plugins that are commonly used in Spring builds so that they can be cached.
+ *
+ * @author Andy Wilkinson
+ */
+class MojoMetadataConventions implements MojoMetadataProvider {
+
+	private static final String[] CHECKSTYLE_LOCATIONS = { "configLocation", "headerLocation", "propertiesLocation",
+			"suppressionsLocation" };
+
+	private static final Pattern URL_PATTERN = Pattern.compile("[a-zA-Z][a-zA-Z0-9+.-]+:.+");
+
+	@Override
+	public void provideMetadata(Context context) {
+		context.withPlugin("spring-javaformat-maven-plugin", () -> {
+			if ("validate".equals(context.getMojoExecution().getGoal())) {
+				springJavaFormatValidate(context);
+			}
+		});
+		context.withPlugin("maven-checkstyle-plugin", () -> {
+			if ("check".equals(context.getMojoExecution().getGoal())) {
+				checkstyleCheck(context);
+			}
+		});
+	}
+
+	private void springJavaFormatValidate(Context context) {
+		File config = new File(context.getProject().getBasedir(), ".springjavaformatconfig");
+		context.inputs((inputs) -> inputs
+			.fileSet("sourceDirectories", (fileSet) -> relativePaths(fileSet.include("**/*.java")))
+			.fileSet("testSourceDirectories", (fileSet) -> relativePaths(fileSet.include("**/*.java")))
+			.fileSet("springJavaFormatConfig", config, this::relativePaths)
+			.properties("encoding", "includeGeneratedSource", "lineSeparator", "skip")
+			.ignore("project"));
+		context.outputs((outputs) -> outputs.cacheable("its inputs and outputs are declared by the conventions"));
+	}
+
+	private void checkstyleCheck(Context context) {
+		MavenProject project = context.getProject();
+		Map<String, File> locationFiles = new LinkedHashMap<>();
+		String notCacheableReason = resolveCheckstyleLocations(context, locationFiles);
+		context.inputs((inputs) -> {
+			inputs
+				.fileSet("sourceDirectories",
+						(fileSet) -> relativePaths(fileSet.includesProperty("includes").excludesProperty("excludes")))
+				.fileSet("testSourceDirectories",
+						(fileSet) -> relativePaths(fileSet.includesProperty("includes").excludesProperty("excludes")))
+				.fileSet("resources", directories(project.getResources()),
+						(fileSet) -> relativePaths(
+								fileSet.includesProperty("resourceIncludes").excludesProperty("resourceExcludes")))
+				.fileSet("testResources", directories(project.getTestResources()),
+						(fileSet) -> relativePaths(
+								fileSet.includesProperty("resourceIncludes").excludesProperty("resourceExcludes")))
+				.properties("checkstyleRules", "checkstyleRulesHeader", "configLocation", "consoleOutput",
+						"excludeGeneratedSources", "excludes", "failOnViolation", "failsOnError", "headerLocation",
+						"includeResources", "includeTestResources", "includeTestSourceDirectory", "includes",
+						"inputEncoding", "linkXRef", "logViolationCountToConsole", "logViolationsToConsole",
+						"maxAllowedViolations", "omitIgnoredModules", "outputFileFormat", "propertiesLocation",
+						"propertyExpansion", "resourceExcludes", "resourceIncludes", "skip", "skipExec",
+						"suppressionsFileExpression", "suppressionsLocation", "treeWalkerNames", "violationIgnore",
+						"violationSeverity")
+				.ignore("enableFilesSummary", "enableRulesSummary", "enableSeveritySummary", "plainOutputFile",
+						"plugins", "project", "useFile", "xrefLocation", "xrefTestLocation");
+			locationFiles.forEach((parameter, file) -> inputs.fileSet(parameter + "File",
+					locationRoot(parameter, file, project.getBasedir()), this::relativePaths));
+		});
+		if (notCacheableReason != null) {
+			context.outputs((outputs) -> outputs.notCacheableBecause(notCacheableReason));
+			return;
+		}
+		context.outputs((outputs) -> outputs.file("outputFile")
+			.cacheable("its inputs and outputs are declared by the conventions"));
+		context.localState((localState) -> localState.files("cacheFile"));
+	}
+
+	private String resolveCheckstyleLocations(Context context, Map<String, File> locationFiles) {
+		for (String parameter : CHECKSTYLE_LOCATIONS) {
+			String location;
+			try {
+				location = evaluate(context, parameter);
+			}
+			catch (ExpressionEvaluationException ex) {
+				return "its " + parameter + " could not be evaluated";
+			}
+			if (location == null || location.isEmpty()) {
+				continue;
+			}
+			if (URL_PATTERN.matcher(location).matches()) {
+				return "its " + parameter + " is a URL";
+			}
+			File file = new File(location);
+			file = file.isAbsolute() ? file : new File(context.getProject().getBasedir(), location);
+			if (file.isFile()) {
+				locationFiles.put(parameter, file);
+			}
+		}
+		return null;
+	}
+
+	private String evaluate(Context context, String parameter) throws ExpressionEvaluationException {
+		MojoExecution execution = context.getMojoExecution();
+		Xpp3Dom configuration = execution.getConfiguration();
+		Xpp3Dom child = (configuration != null) ? configuration.getChild(parameter) : null;
+		if (child == null) {
+			return null;
+		}
+		String expression = (child.getValue() != null) ? child.getValue() : child.getAttribute("default-value");
+		if (expression == null) {
+			return null;
+		}
+		Object value = new PluginParameterExpressionEvaluator(context.getSession(), execution).evaluate(expression);
+		return (value != null) ? value.toString() : null;
+	}
+
+	private File locationRoot(String parameter, File file, File basedir) {
+		File directory = file.getParentFile();
+		boolean configDirectory = "configLocation".equals(parameter) && directory != null && !directory.equals(basedir);
+		return configDirectory ? directory : file;
+	}
+
+	private void relativePaths(FileSet fileSet) {
+		fileSet.normalizationStrategy(NormalizationStrategy.RELATIVE_PATH);
+	}
+
+	private List<File> directories(List<Resource> resources) {
+		List<File> directories = new ArrayList<>();
+		for (Resource resource : resources) {
+			if (resource.getDirectory() != null) {
+				directories.add(new File(resource.getDirectory()));
+			}
+		}
+		return directories;
+	}
+
+}
@@ -28,7 +28,8 @@ import java.util.stream.Stream;
 import io.spring.develocity.conventions.core.ProcessRunner;
 
 /**
- * {@link ProcessRunner} implementation that uses {@link ProcessBuilder}.
+ * {@link ProcessRunner} implementation that uses {@link ProcessBuilder}. When the
+ * running thread is interrupted, the process is destroyed.
  *
  * @author Andy Wilkinson
  */
@@ -39,10 +40,17 @@ class ProcessBuilderProcessRunner implements ProcessRunner {
 		ProcessBuilder processBuilder = new ProcessBuilder();
 		ProcessBuilderProcessSpec spec = new ProcessBuilderProcessSpec(processBuilder);
 		configurer.accept(spec);
+		Process process = null;
 		try {
-			processBuilder.start().waitFor();
+			process = processBuilder.start();
+			process.waitFor();
 			Files.copy(spec.output, spec.outputStream);
 		}
+		catch (InterruptedException ex) {
+			process.destroyForcibly();
+			Thread.currentThread().interrupt();
+			throw new RunFailedException(ex);
+		}
 		catch (Exception ex) {
 			throw new RunFailedException(ex);
 		}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import com.gradle.develocity.agent.maven.api.cache.NormalizationProvider;
+import io.spring.develocity.conventions.core.RuntimeClasspathNormalizationConventions;
+
+/**
+ * {@link NormalizationProvider} that applies the
+ * {@link RuntimeClasspathNormalizationConventions} to each project. The conventions are
+ * configured using the session's user properties or the project's properties.
+ *
+ * @author Andy Wilkinson
+ */
+class RuntimeClasspathNormalizationProvider implements NormalizationProvider {
+
+	@Override
+	public void configureNormalization(Context context) {
+		RuntimeClasspathNormalizationConventions conventions = new RuntimeClasspathNormalizationConventions(
+				(name) -> {
+					String value = context.getSession().getUserProperties().getProperty(name);
+					return (value != null) ? value : context.getProject().getProperties().getProperty(name);
+				});
+		if (conventions.isEnabled()) {
+			context.configureRuntimeClasspathNormalization((normalization) -> conventions
+				.execute(new MavenConfigurableRuntimeClasspathNormalization(normalization)));
+		}
+	}
+
+}
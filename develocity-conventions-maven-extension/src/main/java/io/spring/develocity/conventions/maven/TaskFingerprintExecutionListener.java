@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.spring.develocity.conventions.core.FileFingerprinter;
+import io.spring.develocity.conventions.core.TaskFingerprint;
+import io.spring.develocity.conventions.core.TaskFingerprintFile;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.plugin.MojoExecution;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ExecutionListener} that records a {@link TaskFingerprint} for each goal that is
+ * executed. A goal's fingerprint is made up of the hashes of its configuration
+ * parameters. The fingerprints are written to the build directory of the top-level
+ * project.
+ *
+ * @author Andy Wilkinson
+ */
+class TaskFingerprintExecutionListener extends DelegatingExecutionListener {
+
+	static final String FILE_NAME = "cache-forensics/goal-fingerprints.gz";
+
+	private final Logger log = LoggerFactory.getLogger(TaskFingerprintExecutionListener.class);
+
+	private final Map<String, Long> startTimes = new ConcurrentHashMap<>();
+
+	private final FileFingerprinter fingerprinter;
+
+	private TaskFingerprintFile file;
+
+	TaskFingerprintExecutionListener(ExecutionListener delegate, File rootDirectory) {
+		super(delegate);
+		this.fingerprinter = new FileFingerprinter(rootDirectory);
+	}
+
+	@Override
+	public void mojoStarted(ExecutionEvent event) {
+		super.mojoStarted(event);
+		this.startTimes.put(path(event), System.nanoTime());
+	}
+
+	@Override
+	public void mojoSucceeded(ExecutionEvent event) {
+		super.mojoSucceeded(event);
+		String path = path(event);
+		Long startTime = this.startTimes.remove(path);
+		if (startTime == null) {
+			return;
+		}
+		long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		try {
+			file(event).append(new TaskFingerprint(path, TaskFingerprint.EXECUTED, duration,
+					properties(event.getMojoExecution()), Collections.emptyMap()));
+		}
+		catch (IOException | RuntimeException ex) {
+			this.log.warn("Failed to record fingerprint of " + path, ex);
+		}
+	}
+
+	@Override
+	public void mojoFailed(ExecutionEvent event) {
+		super.mojoFailed(event);
+		this.startTimes.remove(path(event));
+	}
+
+	private synchronized TaskFingerprintFile file(ExecutionEvent event) throws IOException {
+		if (this.file == null) {
+			File buildDirectory = new File(event.getSession().getTopLevelProject().getBuild().getDirectory());
+			TaskFingerprintFile file = new TaskFingerprintFile(new File(buildDirectory, FILE_NAME).toPath());
+			file.reset();
+			this.file = file;
+		}
+		return this.file;
+	}
+
+	private String path(ExecutionEvent event) {
+		MojoExecution execution = event.getMojoExecution();
+		return event.getProject().getArtifactId() + ":" + execution.getArtifactId() + ":" + execution.getGoal()
+				+ "@" + execution.getExecutionId();
+	}
+
+	private Map<String, String> properties(MojoExecution execution) {
+		Map<String, String> properties = new TreeMap<>();
+		Xpp3Dom configuration = execution.getConfiguration();
+		if (configuration != null) {
+			for (Xpp3Dom child : configuration.getChildren()) {
+				properties.put(child.getName(), this.fingerprinter.hash(child.toString()));
+			}
+		}
+		return properties;
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.util.Arrays;
+
+import io.spring.develocity.conventions.core.CapturePolicy;
+import io.spring.develocity.conventions.core.ConfigurableBuildScan;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link CapturePolicyExecutionListener}.
+ *
+ * @author Andy Wilkinson
+ */
+class CapturePolicyExecutionListenerTests {
+
+	private final ExecutionListener delegate = mock(ExecutionListener.class);
+
+	private final CapturePolicy capturePolicy = mock(CapturePolicy.class);
+
+	private final ConfigurableBuildScan buildScan = mock(ConfigurableBuildScan.class);
+
+	private final MavenSession session = mock(MavenSession.class);
+
+	private final ExecutionEvent event = mock(ExecutionEvent.class);
+
+	@Test
+	void whenSessionStartsThenPolicyIsAppliedForTheModulesInTheBuildAndEventIsDelegated() {
+		given(this.event.getSession()).willReturn(this.session);
+		given(this.session.getProjects()).willReturn(Arrays.asList(new MavenProject(), new MavenProject()));
+		new CapturePolicyExecutionListener(this.delegate, this.capturePolicy, this.buildScan)
+			.sessionStarted(this.event);
+		verify(this.capturePolicy).execute(this.buildScan, 2);
+		verify(this.delegate).sessionStarted(this.event);
+	}
+
+	@Test
+	void whenModulesAreNotKnownThenPolicyIsAppliedForASingleModule() {
+		given(this.event.getSession()).willReturn(this.session);
+		new CapturePolicyExecutionListener(null, this.capturePolicy, this.buildScan).sessionStarted(this.event);
+		verify(this.capturePolicy).execute(this.buildScan, 1);
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.io.IOException;
+
+import io.spring.develocity.conventions.core.LocalBuildCacheSnapshot;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link LocalBuildCacheSnapshotExecutionListener}.
+ *
+ * @author Andy Wilkinson
+ */
+class LocalBuildCacheSnapshotExecutionListenerTests {
+
+	private final ExecutionListener delegate = mock(ExecutionListener.class);
+
+	private final LocalBuildCacheSnapshot snapshot = mock(LocalBuildCacheSnapshot.class);
+
+	private final ExecutionEvent event = mock(ExecutionEvent.class);
+
+	@Test
+	void whenSessionEndsThenSnapshotIsSavedAndEventIsDelegated() throws IOException {
+		new LocalBuildCacheSnapshotExecutionListener(this.delegate, this.snapshot).sessionEnded(this.event);
+		verify(this.delegate).sessionEnded(this.event);
+		verify(this.snapshot).save();
+	}
+
+	@Test
+	void whenSessionStartsThenEventIsDelegatedAndSnapshotIsNotSaved() {
+		new LocalBuildCacheSnapshotExecutionListener(this.delegate, this.snapshot).sessionStarted(this.event);
+		verify(this.delegate).sessionStarted(this.event);
+		verifyNoInteractions(this.snapshot);
+	}
+
+	@Test
+	void whenThereIsNoDelegateThenSnapshotIsSaved() throws IOException {
+		new LocalBuildCacheSnapshotExecutionListener(null, this.snapshot).sessionEnded(this.event);
+		verify(this.snapshot).save();
+	}
+
+	@Test
+	void whenSavingFailsThenSessionEndsWithoutFailure() throws IOException {
+		willThrow(new IOException("Disk full")).given(this.snapshot).save();
+		ExecutionListener listener = new LocalBuildCacheSnapshotExecutionListener(this.delegate, this.snapshot);
+		assertThatNoException().isThrownBy(() -> listener.sessionEnded(this.event));
+	}
+
+}
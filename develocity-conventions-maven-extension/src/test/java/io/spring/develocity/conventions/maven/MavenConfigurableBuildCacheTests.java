@@ -18,6 +18,7 @@ package io.spring.develocity.conventions.maven;
 
 import java.io.File;
 import java.net.URI;
+import java.time.Duration;
 
 import com.gradle.develocity.agent.maven.api.cache.BuildCacheApi;
 import com.gradle.develocity.agent.maven.api.cache.CleanupPolicy;
@@ -48,6 +49,24 @@ class MavenConfigurableBuildCacheTests {
 		assertThat(this.buildCacheApi.getLocal().isEnabled()).isTrue();
 	}
 
+	@Test
+	void localBuildCacheDirectoryCanBeConfigured() {
+		this.buildCache.local((local) -> local.setDirectory(new File("/tmp/build-cache")));
+		assertThat(this.buildCacheApi.getLocal().getDirectory()).isEqualTo(new File("/tmp/build-cache"));
+	}
+
+	@Test
+	void localBuildCacheRetentionCanBeConfigured() {
+		this.buildCache.local((local) -> local.setRetention(Duration.ofDays(3)));
+		assertThat(this.buildCacheApi.getLocal().getCleanupPolicy().getRetention()).isEqualTo(Duration.ofDays(3));
+	}
+
+	@Test
+	void localBuildCacheCleanupIntervalCanBeConfigured() {
+		this.buildCache.local((local) -> local.setCleanupInterval(Duration.ofHours(12)));
+		assertThat(this.buildCacheApi.getLocal().getCleanupPolicy().getInterval()).isEqualTo(Duration.ofHours(12));
+	}
+
 	@Test
 	void remoteBuildCacheCanBeEnabled() {
 		this.buildCache.remote((remote) -> remote.enable());
@@ -67,6 +86,31 @@ class MavenConfigurableBuildCacheTests {
 			.isEqualTo(URI.create("https://ge.spring.io/cache/"));
 	}
 
+	@Test
+	void remoteCacheCanAllowInsecureProtocol() {
+		this.buildCache.remote((remote) -> remote.setAllowInsecureProtocol(true));
+		assertThat(this.buildCacheApi.getRemote().getServer().isAllowInsecureProtocol()).isTrue();
+	}
+
+	@Test
+	void remoteCacheCanAllowUntrustedServer() {
+		this.buildCache.remote((remote) -> remote.setAllowUntrustedServer(true));
+		assertThat(this.buildCacheApi.getRemote().getServer().isAllowUntrusted()).isTrue();
+	}
+
+	@Test
+	void remoteCacheCanUseExpectContinue() {
+		this.buildCache.remote((remote) -> remote.setUseExpectContinue(true));
+		assertThat(this.buildCacheApi.getRemote().getServer().isUseExpectContinue()).isTrue();
+	}
+
+	@Test
+	void remoteCacheCanHaveCredentials() {
+		this.buildCache.remote((remote) -> remote.setCredentials("proxy", "t0k3n"));
+		assertThat(this.buildCacheApi.getRemote().getServer().getCredentials().getUsername()).isEqualTo("proxy");
+		assertThat(this.buildCacheApi.getRemote().getServer().getCredentials().getPassword()).isEqualTo("t0k3n");
+	}
+
 	private static final class TestBuildCacheApi implements BuildCacheApi {
 
 		private final LocalBuildCache local = new TestLocalBuildCache();
@@ -105,18 +149,22 @@ class MavenConfigurableBuildCacheTests {
 
 		private static final class TestLocalBuildCache implements LocalBuildCache {
 
+			private final CleanupPolicy cleanupPolicy = new TestCleanupPolicy();
+
 			private boolean enabled;
 
 			private boolean storeEnabled;
 
+			private File directory;
+
 			@Override
 			public CleanupPolicy getCleanupPolicy() {
-				throw new UnsupportedOperationException();
+				return this.cleanupPolicy;
 			}
 
 			@Override
 			public File getDirectory() {
-				throw new UnsupportedOperationException();
+				return this.directory;
 			}
 
 			@Override
@@ -131,7 +179,7 @@ class MavenConfigurableBuildCacheTests {
 
 			@Override
 			public void setDirectory(File directory) {
-				throw new UnsupportedOperationException();
+				this.directory = directory;
 			}
 
 			@Override
@@ -144,6 +192,46 @@ class MavenConfigurableBuildCacheTests {
 				this.storeEnabled = storeEnabled;
 			}
 
+			private static final class TestCleanupPolicy implements CleanupPolicy {
+
+				private boolean enabled = true;
+
+				private Duration retention;
+
+				private Duration interval;
+
+				@Override
+				public boolean isEnabled() {
+					return this.enabled;
+				}
+
+				@Override
+				public void setEnabled(boolean enabled) {
+					this.enabled = enabled;
+				}
+
+				@Override
+				public Duration getRetention() {
+					return this.retention;
+				}
+
+				@Override
+				public void setRetention(Duration retention) {
+					this.retention = retention;
+				}
+
+				@Override
+				public Duration getInterval() {
+					return this.interval;
+				}
+
+				@Override
+				public void setInterval(Duration interval) {
+					this.interval = interval;
+				}
+
+			}
+
 		}
 
 		private static final class TestRemoteBuildCache implements RemoteBuildCache {
@@ -181,11 +269,19 @@ class MavenConfigurableBuildCacheTests {
 
 			private static final class TestServer implements Server {
 
+				private final Credentials credentials = new TestCredentials();
+
 				private URI url;
 
+				private boolean allowInsecureProtocol;
+
+				private boolean allowUntrusted;
+
+				private boolean useExpectContinue;
+
 				@Override
 				public Credentials getCredentials() {
-					throw new UnsupportedOperationException();
+					return this.credentials;
 				}
 
 				@Override
@@ -200,27 +296,27 @@ class MavenConfigurableBuildCacheTests {
 
 				@Override
 				public boolean isAllowInsecureProtocol() {
-					throw new UnsupportedOperationException();
+					return this.allowInsecureProtocol;
 				}
 
 				@Override
 				public boolean isAllowUntrusted() {
-					throw new UnsupportedOperationException();
+					return this.allowUntrusted;
 				}
 
 				@Override
 				public boolean isUseExpectContinue() {
-					throw new UnsupportedOperationException();
+					return this.useExpectContinue;
 				}
 
 				@Override
 				public void setAllowInsecureProtocol(boolean allowInsecureProtocol) {
-					throw new UnsupportedOperationException();
+					this.allowInsecureProtocol = allowInsecureProtocol;
 				}
 
 				@Override
 				public void setAllowUntrusted(boolean allowUntrusted) {
-					throw new UnsupportedOperationException();
+					this.allowUntrusted = allowUntrusted;
 				}
 
 				@Override
@@ -235,7 +331,35 @@ class MavenConfigurableBuildCacheTests {
 
 				@Override
 				public void setUseExpectContinue(boolean useExpectContinue) {
-					throw new UnsupportedOperationException();
+					this.useExpectContinue = useExpectContinue;
+				}
+
+			}
+
+			private static final class TestCredentials implements Credentials {
+
+				private String username;
+
+				private String password;
+
+				@Override
+				public String getUsername() {
+					return this.username;
+				}
+
+				@Override
+				public String getPassword() {
+					return this.password;
+				}
+
+				@Override
+				public void setUsername(String username) {
+					this.username = username;
+				}
+
+				@Override
+				public void setPassword(String password) {
+					this.password = password;
 				}
 
 			}
@@ -19,8 +19,10 @@ package io.spring.develocity.conventions.maven;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.UnknownHostException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -61,6 +63,18 @@ class MavenConfigurableBuildScanTests {
 		assertThat(this.buildScanApi.capture.isFileFingerprints()).isTrue();
 	}
 
+	@Test
+	void captureOfBuildLoggingCanBeDisabled() {
+		this.buildScan.captureBuildLogging(false);
+		assertThat(this.buildScanApi.capture.isBuildLogging()).isFalse();
+	}
+
+	@Test
+	void captureOfTestLoggingCanBeDisabled() {
+		this.buildScan.captureTestLogging(false);
+		assertThat(this.buildScanApi.capture.isTestLogging()).isFalse();
+	}
+
 	@Test
 	void ipAddressesCanBeObfuscated() throws UnknownHostException {
 		this.buildScan.obfuscation((obfuscation) -> obfuscation.ipAddresses(
@@ -81,6 +95,38 @@ class MavenConfigurableBuildScanTests {
 		assertThat(this.buildScanApi.publishing.onlyIf.test(context)).isFalse();
 	}
 
+	@Test
+	void buildScansCanBeConfiguredToPublishIfConditionIsMet() {
+		this.buildScan.publishIf((context) -> context.isAuthenticated() && context.hasFailed());
+		PublishingContext context = mock(PublishingContext.class);
+		BuildResult buildResult = mock(BuildResult.class);
+		given(context.getBuildResult()).willReturn(buildResult);
+		given(context.isAuthenticated()).willReturn(true);
+		given(buildResult.getFailures()).willReturn(Collections.emptyList());
+		assertThat(this.buildScanApi.publishing.onlyIf.test(context)).isFalse();
+		given(buildResult.getFailures()).willReturn(Collections.singletonList(new RuntimeException()));
+		assertThat(this.buildScanApi.publishing.onlyIf.test(context)).isTrue();
+		given(context.isAuthenticated()).willReturn(false);
+		assertThat(this.buildScanApi.publishing.onlyIf.test(context)).isFalse();
+	}
+
+	@Test
+	void publicationConditionIsTestedWithTheBuildStartTime() {
+		Instant buildStartTime = Instant.parse("2024-01-01T00:00:00Z");
+		new MavenConfigurableBuildScan(this.buildScanApi, buildStartTime)
+			.publishIf((context) -> buildStartTime.equals(context.getBuildStartTime()));
+		PublishingContext context = mock(PublishingContext.class);
+		assertThat(this.buildScanApi.publishing.onlyIf.test(context)).isTrue();
+	}
+
+	@Test
+	void publicationOfBuildScansCanBeDeferred() {
+		this.buildScan.deferPublication();
+		PublishingContext context = mock(PublishingContext.class);
+		given(context.isAuthenticated()).willReturn(true);
+		assertThat(this.buildScanApi.publishing.onlyIf.test(context)).isFalse();
+	}
+
 	@Test
 	void whenTagsAreAddedThenBuildScanHasTags() {
 		this.buildScan.tag("some-tag");
@@ -114,6 +160,14 @@ class MavenConfigurableBuildScanTests {
 		assertThat(invoked.get()).isTrue();
 	}
 
+	@Test
+	void buildFinishedConfigurersAreInvokedWhenTheBuildHasFinished() {
+		this.buildScan.buildFinished((buildScan) -> buildScan.value("Largest cache entry", "example (1.0 MB)"));
+		assertThat(this.buildScanApi.values).isEmpty();
+		this.buildScanApi.buildFinishedActions.forEach((action) -> action.accept(mock(BuildResult.class)));
+		assertThat(this.buildScanApi.values).containsEntry("Largest cache entry", "example (1.0 MB)");
+	}
+
 	private static final class TestBuildScanApi implements BuildScanApi {
 
 		private final TestBuildScanCaptureSettings capture = new TestBuildScanCaptureSettings();
@@ -128,6 +182,8 @@ class MavenConfigurableBuildScanTests {
 
 		private final Map<String, String> values = new HashMap<>();
 
+		private final List<Consumer<? super BuildResult>> buildFinishedActions = new ArrayList<>();
+
 		private boolean uploadInBackground;
 
 		@Override
@@ -137,7 +193,7 @@ class MavenConfigurableBuildScanTests {
 
 		@Override
 		public void buildFinished(Consumer<? super BuildResult> action) {
-			throw new UnsupportedOperationException();
+			this.buildFinishedActions.add(action);
 		}
 
 		@Override
@@ -249,14 +305,18 @@ class MavenConfigurableBuildScanTests {
 
 			private boolean fileFingerprints;
 
+			private boolean buildLogging = true;
+
+			private boolean testLogging = true;
+
 			@Override
 			public boolean isBuildLogging() {
-				throw new UnsupportedOperationException();
+				return this.buildLogging;
 			}
 
 			@Override
 			public void setBuildLogging(boolean capture) {
-				throw new UnsupportedOperationException();
+				this.buildLogging = capture;
 			}
 
 			@Override
@@ -266,12 +326,12 @@ class MavenConfigurableBuildScanTests {
 
 			@Override
 			public boolean isTestLogging() {
-				throw new UnsupportedOperationException();
+				return this.testLogging;
 			}
 
 			@Override
 			public void setTestLogging(boolean capture) {
-				throw new UnsupportedOperationException();
+				this.testLogging = capture;
 			}
 
 			@Override
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import com.gradle.develocity.agent.maven.api.DevelocityApi;
+import io.spring.develocity.conventions.core.BuildScanConventions;
+import org.apache.maven.it.VerificationException;
+import org.apache.maven.it.Verifier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link MojoMetadataConventions}.
+ *
+ * @author Andy Wilkinson
+ */
+class MojoMetadataConventionsIntegrationTests {
+
+	@TempDir
+	File temp;
+
+	@Test
+	void checkstyleCheckIsLoadedFromTheBuildCacheWhenRunTwice() throws VerificationException {
+		File projectDir = new File(this.temp, "project");
+		prepareCheckstyleProject(projectDir);
+		assertThat(build(projectDir, "first.log")).doesNotContain("Loaded from the build cache");
+		assertThat(build(projectDir, "second.log")).contains("Loaded from the build cache");
+	}
+
+	private void prepareCheckstyleProject(File projectDir) {
+		write(new File(projectDir, "pom.xml"), (writer) -> {
+			writer.println("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">");
+			writer.println("    <modelVersion>4.0.0</modelVersion>");
+			writer.println("    <groupId>com.example</groupId>");
+			writer.println("    <artifactId>checkstyle</artifactId>");
+			writer.println("    <version>0.0.1-SNAPSHOT</version>");
+			writer.println("    <properties>");
+			writer.println("        <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>");
+			writer.println("    </properties>");
+			writer.println("    <build>");
+			writer.println("        <plugins>");
+			writer.println("            <plugin>");
+			writer.println("                <groupId>org.apache.maven.plugins</groupId>");
+			writer.println("                <artifactId>maven-checkstyle-plugin</artifactId>");
+			writer.println("                <version>3.6.0</version>");
+			writer.println("                <configuration>");
+			writer.println("                    <configLocation>src/checkstyle/checkstyle.xml</configLocation>");
+			writer.println("                </configuration>");
+			writer.println("            </plugin>");
+			writer.println("        </plugins>");
+			writer.println("    </build>");
+			writer.println("</project>");
+		});
+		write(new File(projectDir, "src/checkstyle/checkstyle.xml"), (writer) -> {
+			writer.println("<?xml version=\"1.0\"?>");
+			writer.println("<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\"");
+			writer.println("        \"https://checkstyle.org/dtds/configuration_1_3.dtd\">");
+			writer.println("<module name=\"Checker\">");
+			writer.println("    <module name=\"FileTabCharacter\"/>");
+			writer.println("</module>");
+		});
+		write(new File(projectDir, "src/main/java/com/example/Example.java"), (writer) -> {
+			writer.println("package com.example;");
+			writer.println();
+			writer.println("public class Example {");
+			writer.println("}");
+		});
+	}
+
+	private String build(File projectDir, String logFileName) throws VerificationException {
+		Verifier verifier = new Verifier(projectDir.getAbsolutePath());
+		verifier.setForkJvm(false);
+		verifier.setLogFileName(logFileName);
+		verifier.addCliOption("-Dmaven.ext.class.path=" + extensionClasspath());
+		verifier.addCliOption("-Ddevelocity.cache.local.directory=" + new File(this.temp, "build-cache"));
+		verifier.addCliOption("-Ddevelocity.cache.remote.enabled=false");
+		verifier.addCliOption("-Dscan=false");
+		verifier.executeGoal("checkstyle:check");
+		verifier.verifyErrorFreeLog();
+		verifier.resetStreams();
+		return String.join(System.lineSeparator(), verifier.loadFile(new File(projectDir, logFileName), false));
+	}
+
+	private String extensionClasspath() {
+		return Arrays
+			.asList(new File("build/classes/java/main"), new File("build/resources/main"),
+					new File(DevelocityApi.class.getProtectionDomain().getCodeSource().getLocation().getFile()),
+					new File(BuildScanConventions.class.getProtectionDomain().getCodeSource().getLocation().getFile()))
+			.stream()
+			.map(File::getAbsolutePath)
+			.collect(Collectors.joining(File.pathSeparator));
+	}
+
+	private void write(File file, Consumer<PrintWriter> consumer) {
+		file.getParentFile().mkdirs();
+		try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+			consumer.accept(writer);
+		}
+		catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import com.gradle.develocity.agent.maven.api.cache.MojoMetadataProvider.Context;
+import com.gradle.develocity.agent.maven.api.cache.MojoMetadataProvider.Context.Inputs;
+import com.gradle.develocity.agent.maven.api.cache.MojoMetadataProvider.Context.LocalState;
+import com.gradle.develocity.agent.maven.api.cache.MojoMetadataProvider.Context.Outputs;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.stubbing.Answer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link MojoMetadataConventions}.
+ *
+ * @author Andy Wilkinson
+ */
+class MojoMetadataConventionsTests {
+
+	private final Context context = mock(Context.class);
+
+	private final Inputs inputs = mock(Inputs.class, RETURNS_SELF);
+
+	private final Outputs outputs = mock(Outputs.class, RETURNS_SELF);
+
+	private final LocalState localState = mock(LocalState.class, RETURNS_SELF);
+
+	private final MojoExecution mojoExecution = mock(MojoExecution.class);
+
+	private final MavenSession session = mock(MavenSession.class);
+
+	@TempDir
+	File temp;
+
+	@BeforeEach
+	void prepareContext() {
+		MavenProject project = new MavenProject();
+		project.setFile(new File(this.temp, "pom.xml"));
+		given(this.context.getProject()).willReturn(project);
+		given(this.context.getMojoExecution()).willReturn(this.mojoExecution);
+		given(this.context.getSession()).willReturn(this.session);
+		given(this.session.getCurrentProject()).willReturn(project);
+		given(this.session.getSystemProperties()).willReturn(new Properties());
+		given(this.session.getUserProperties()).willReturn(new Properties());
+		willAnswer(configure(this.inputs)).given(this.context).inputs(any());
+		willAnswer(configure(this.outputs)).given(this.context).outputs(any());
+		willAnswer(configure(this.localState)).given(this.context).localState(any());
+	}
+
+	@Test
+	void springJavaFormatValidateIsCacheable() {
+		applyToPlugin("spring-javaformat-maven-plugin", "validate");
+		verify(this.inputs).fileSet(eq("sourceDirectories"), any());
+		verify(this.inputs).ignore("project");
+		verify(this.outputs).cacheable(anyString());
+	}
+
+	@Test
+	void springJavaFormatApplyIsNotConfigured() {
+		applyToPlugin("spring-javaformat-maven-plugin", "apply");
+		verify(this.context, never()).inputs(any());
+		verify(this.context, never()).outputs(any());
+	}
+
+	@Test
+	void checkstyleCheckIsCacheable() {
+		applyToPlugin("maven-checkstyle-plugin", "check");
+		verify(this.inputs).fileSet(eq("sourceDirectories"), any());
+		verify(this.outputs).file("outputFile");
+		verify(this.outputs).cacheable(anyString());
+		verify(this.localState).files("cacheFile");
+	}
+
+	@Test
+	void checkstyleCheckDeclaresTheDirectoryOfItsConfigLocationAsAnInput() throws IOException {
+		File configDirectory = new File(this.temp, "config/checkstyle");
+		configDirectory.mkdirs();
+		new File(configDirectory, "checkstyle.xml").createNewFile();
+		configure("configLocation", "config/checkstyle/checkstyle.xml");
+		applyToPlugin("maven-checkstyle-plugin", "check");
+		verify(this.inputs).fileSet(eq("configLocationFile"), eq(configDirectory), any());
+		verify(this.outputs).cacheable(anyString());
+	}
+
+	@Test
+	void checkstyleCheckDeclaresItsSuppressionsLocationAsAnInput() throws IOException {
+		File suppressions = new File(this.temp, "suppressions.xml");
+		suppressions.createNewFile();
+		configure("suppressionsLocation", "suppressions.xml");
+		applyToPlugin("maven-checkstyle-plugin", "check");
+		verify(this.inputs).fileSet(eq("suppressionsLocationFile"), eq(suppressions), any());
+		verify(this.outputs).cacheable(anyString());
+	}
+
+	@Test
+	void checkstyleCheckWithConfigLocationOnTheClasspathIsCacheable() {
+		configure("configLocation", "sun_checks.xml");
+		applyToPlugin("maven-checkstyle-plugin", "check");
+		verify(this.inputs, never()).fileSet(eq("configLocationFile"), any(), any());
+		verify(this.outputs).cacheable(anyString());
+	}
+
+	@Test
+	void checkstyleCheckWithConfigLocationThatIsAUrlIsNotCacheable() {
+		configure("configLocation", "https://example.com/checkstyle.xml");
+		applyToPlugin("maven-checkstyle-plugin", "check");
+		verify(this.outputs).notCacheableBecause("its configLocation is a URL");
+		verify(this.outputs, never()).cacheable(anyString());
+	}
+
+	@Test
+	void otherPluginsAreNotConfigured() {
+		applyToPlugin("maven-surefire-plugin", "test");
+		verify(this.context, never()).inputs(any());
+		verify(this.context, never()).outputs(any());
+	}
+
+	private void configure(String parameter, String value) {
+		Xpp3Dom configuration = new Xpp3Dom("configuration");
+		Xpp3Dom child = new Xpp3Dom(parameter);
+		child.setValue(value);
+		configuration.addChild(child);
+		given(this.mojoExecution.getConfiguration()).willReturn(configuration);
+	}
+
+	private void applyToPlugin(String artifactId, String goal) {
+		given(this.mojoExecution.getGoal()).willReturn(goal);
+		willAnswer((invocation) -> {
+			if (artifactId.equals(invocation.getArgument(0))) {
+				invocation.<Runnable>getArgument(1).run();
+			}
+			return null;
+		}).given(this.context).withPlugin(anyString(), any());
+		new MojoMetadataConventions().provideMetadata(this.context);
+	}
+
+	private static <T> Answer<Context> configure(T target) {
+		return (invocation) -> {
+			invocation.<Consumer<T>>getArgument(0).accept(target);
+			return (Context) invocation.getMock();
+		};
+	}
+
+}
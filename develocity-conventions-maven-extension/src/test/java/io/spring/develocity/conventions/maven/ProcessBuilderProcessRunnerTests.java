@@ -16,10 +16,13 @@
 
 package io.spring.develocity.conventions.maven;
 
+import java.time.Duration;
+
 import io.spring.develocity.conventions.core.ProcessRunner;
 import io.spring.develocity.conventions.core.ProcessRunner.RunFailedException;
 import org.junit.jupiter.api.Test;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 /**
@@ -37,4 +40,20 @@ class ProcessBuilderProcessRunnerTests {
 			.isThrownBy(() -> this.processRunner.run((spec) -> spec.commandLine("does-not-exist")));
 	}
 
+	@Test
+	void whenRunIsInterruptedThenProcessIsDestroyedAndRunFailedExceptionIsThrown() {
+		Thread.currentThread().interrupt();
+		long start = System.nanoTime();
+		try {
+			assertThatExceptionOfType(RunFailedException.class)
+				.isThrownBy(() -> this.processRunner.run((spec) -> spec.commandLine("sleep", "20")))
+				.withCauseInstanceOf(InterruptedException.class);
+			assertThat(Thread.currentThread().isInterrupted()).isTrue();
+			assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+		}
+		finally {
+			Thread.interrupted();
+		}
+	}
+
 }
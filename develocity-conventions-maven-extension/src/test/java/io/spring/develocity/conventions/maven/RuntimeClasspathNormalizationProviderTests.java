@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import com.gradle.develocity.agent.maven.api.cache.NormalizationProvider.Context;
+import com.gradle.develocity.agent.maven.api.cache.NormalizationProvider.RuntimeClasspathNormalization;
+import com.gradle.develocity.agent.maven.api.cache.NormalizationProvider.RuntimeClasspathNormalization.MetaInf;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link RuntimeClasspathNormalizationProvider}.
+ *
+ * @author Andy Wilkinson
+ */
+class RuntimeClasspathNormalizationProviderTests {
+
+	private final Context context = mock(Context.class);
+
+	private final RuntimeClasspathNormalization normalization = mock(RuntimeClasspathNormalization.class,
+			RETURNS_SELF);
+
+	private final MetaInf metaInf = mock(MetaInf.class, RETURNS_SELF);
+
+	private final MavenProject project = new MavenProject();
+
+	private final Properties userProperties = new Properties();
+
+	@BeforeEach
+	void prepareContext() {
+		MavenSession session = mock(MavenSession.class);
+		given(session.getUserProperties()).willReturn(this.userProperties);
+		given(this.context.getSession()).willReturn(session);
+		given(this.context.getProject()).willReturn(this.project);
+		willAnswer((invocation) -> {
+			invocation.<Consumer<RuntimeClasspathNormalization>>getArgument(0).accept(this.normalization);
+			return this.context;
+		}).given(this.context).configureRuntimeClasspathNormalization(any());
+		willAnswer((invocation) -> {
+			invocation.<Consumer<MetaInf>>getArgument(0).accept(this.metaInf);
+			return this.normalization;
+		}).given(this.normalization).configureMetaInf(any());
+	}
+
+	@Test
+	void whenNotEnabledThenNormalizationIsNotConfigured() {
+		new RuntimeClasspathNormalizationProvider().configureNormalization(this.context);
+		verify(this.context, never()).configureRuntimeClasspathNormalization(any());
+	}
+
+	@Test
+	void whenEnabledByProjectPropertyThenBuildInfoIsIgnored() {
+		this.project.getProperties().setProperty("spring.runtime-classpath-normalization.enabled", "true");
+		new RuntimeClasspathNormalizationProvider().configureNormalization(this.context);
+		verify(this.normalization).addIgnoredFiles(Arrays.asList("META-INF/build-info.properties", "git.properties"));
+		verify(this.metaInf).addIgnoredAttributes(Arrays.asList("Build-Time", "Build-Revision"));
+	}
+
+	@Test
+	void whenEnabledByUserPropertyThenUserPropertiesTakePrecedence() {
+		this.project.getProperties()
+			.setProperty("spring.runtime-classpath-normalization.ignored-files", "a.properties");
+		this.userProperties.setProperty("spring.runtime-classpath-normalization.enabled", "true");
+		this.userProperties.setProperty("spring.runtime-classpath-normalization.ignored-files", "b.properties");
+		new RuntimeClasspathNormalizationProvider().configureNormalization(this.context);
+		verify(this.normalization).addIgnoredFiles(Arrays.asList("b.properties"));
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.develocity.conventions.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import io.spring.develocity.conventions.core.TaskFingerprint;
+import io.spring.develocity.conventions.core.TaskFingerprintFile;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link TaskFingerprintExecutionListener}.
+ *
+ * @author Andy Wilkinson
+ */
+class TaskFingerprintExecutionListenerTests {
+
+	private final ExecutionListener delegate = mock(ExecutionListener.class);
+
+	private final ExecutionEvent event = mock(ExecutionEvent.class);
+
+	private final MojoExecution mojoExecution = mock(MojoExecution.class);
+
+	@TempDir
+	File temp;
+
+	@BeforeEach
+	void setUp() {
+		MavenProject project = new MavenProject();
+		project.setArtifactId("example");
+		Build build = new Build();
+		build.setDirectory(new File(this.temp, "target").getAbsolutePath());
+		project.setBuild(build);
+		MavenSession session = mock(MavenSession.class);
+		given(session.getTopLevelProject()).willReturn(project);
+		given(this.event.getSession()).willReturn(session);
+		given(this.event.getProject()).willReturn(project);
+		given(this.event.getMojoExecution()).willReturn(this.mojoExecution);
+		given(this.mojoExecution.getArtifactId()).willReturn("maven-compiler-plugin");
+		given(this.mojoExecution.getGoal()).willReturn("compile");
+		given(this.mojoExecution.getExecutionId()).willReturn("default-compile");
+	}
+
+	@Test
+	void whenMojoSucceedsThenFingerprintOfItsConfigurationIsRecorded() throws IOException {
+		Xpp3Dom configuration = new Xpp3Dom("configuration");
+		Xpp3Dom release = new Xpp3Dom("release");
+		release.setValue("17");
+		configuration.addChild(release);
+		given(this.mojoExecution.getConfiguration()).willReturn(configuration);
+		ExecutionListener listener = new TaskFingerprintExecutionListener(this.delegate, this.temp);
+		listener.mojoStarted(this.event);
+		listener.mojoSucceeded(this.event);
+		verify(this.delegate).mojoStarted(this.event);
+		verify(this.delegate).mojoSucceeded(this.event);
+		List<TaskFingerprint> fingerprints = readFingerprints();
+		assertThat(fingerprints).hasSize(1);
+		TaskFingerprint fingerprint = fingerprints.get(0);
+		assertThat(fingerprint.getPath()).isEqualTo("example:maven-compiler-plugin:compile@default-compile");
+		assertThat(fingerprint.getOutcome()).isEqualTo(TaskFingerprint.EXECUTED);
+		assertThat(fingerprint.getProperties()).containsOnlyKeys("release");
+	}
+
+	@Test
+	void whenMojoFailsThenNoFingerprintIsRecorded() {
+		ExecutionListener listener = new TaskFingerprintExecutionListener(this.delegate, this.temp);
+		listener.mojoStarted(this.event);
+		listener.mojoFailed(this.event);
+		verify(this.delegate).mojoFailed(this.event);
+		assertThat(new File(this.temp, "target/" + TaskFingerprintExecutionListener.FILE_NAME)).doesNotExist();
+	}
+
+	private List<TaskFingerprint> readFingerprints() throws IOException {
+		return new TaskFingerprintFile(new File(this.temp, "target/" + TaskFingerprintExecutionListener.FILE_NAME)
+			.toPath()).read();
+	}
+
+}